@@ -0,0 +1,78 @@
+package com.parkingManagement.dao;
+
+import com.parkingManagement.model.BatchCheckpoint;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import java.time.LocalDateTime;
+
+/**
+ * DAO для хранения контрольных точек пакетных задач.
+ */
+public class BatchCheckpointDao {
+    private final EntityManager em;
+
+    /**
+     * Создаёт новый BatchCheckpointDao с указанным EntityManager.
+
+     * @param em менеджер сущностей Hibernate
+     */
+    public BatchCheckpointDao(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Возвращает последнюю сохранённую позицию задачи.
+
+     * @param jobName имя пакетной задачи
+     * @return позиция или null, если задача ещё не запускалась
+     */
+    public Long findPosition(String jobName) {
+        BatchCheckpoint checkpoint = em.find(BatchCheckpoint.class, jobName);
+        return checkpoint == null ? null : checkpoint.getPosition();
+    }
+
+    /**
+     * Сохраняет позицию задачи, создавая контрольную точку при необходимости.
+
+     * @param jobName  имя пакетной задачи
+     * @param position последняя обработанная позиция
+     * @throws PersistenceException при ошибке сохранения
+     */
+    public void savePosition(String jobName, long position) {
+        em.getTransaction().begin();
+        try {
+            BatchCheckpoint checkpoint = em.find(BatchCheckpoint.class, jobName);
+            if (checkpoint == null) {
+                em.persist(new BatchCheckpoint(jobName, position, LocalDateTime.now()));
+            } else {
+                checkpoint.setPosition(position);
+                checkpoint.setUpdatedAt(LocalDateTime.now());
+            }
+            em.getTransaction().commit();
+        } catch (PersistenceException e) {
+            em.getTransaction().rollback();
+            throw new PersistenceException("Ошибка при сохранении контрольной точки: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Удаляет контрольную точку, чтобы следующий запуск начался с начала.
+
+     * @param jobName имя пакетной задачи
+     * @throws PersistenceException при ошибке удаления
+     */
+    public void reset(String jobName) {
+        em.getTransaction().begin();
+        try {
+            BatchCheckpoint checkpoint = em.find(BatchCheckpoint.class, jobName);
+            if (checkpoint != null) {
+                em.remove(checkpoint);
+            }
+            em.getTransaction().commit();
+        } catch (PersistenceException e) {
+            em.getTransaction().rollback();
+            throw new PersistenceException("Ошибка при удалении контрольной точки: " + e.getMessage());
+        }
+    }
+}
\ No newline at end of file
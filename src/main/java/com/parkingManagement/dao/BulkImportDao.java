@@ -0,0 +1,191 @@
+package com.parkingManagement.dao;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import org.hibernate.Session;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DAO для массовой загрузки парковок, мест, клиентов и автомобилей.
+ * Вставка выполняется пакетами JDBC через соединение текущей сессии Hibernate: при генерации
+ * идентификаторов IDENTITY Hibernate не объединяет вставки в пакеты, а для загрузки
+ * миллионов строк идентификаторы и сущности в контексте не нужны.
+ */
+public class BulkImportDao {
+    private static final Long AMBIGUOUS = -1L;
+
+    private final EntityManager em;
+
+    /**
+     * Таблица, в которую выполняется массовая вставка, и порядок параметров строки.
+     */
+    public enum Table {
+        /** Параметры: название, адрес, вместимость. */
+        LOT("INSERT INTO parking_lot (name, address, capacity) VALUES (?, ?, ?)"),
+        /** Параметры: идентификатор парковки, номер места, тип места. */
+        SPACE("INSERT INTO parking_space (parking_lot_id, space_number, type) VALUES (?, ?, ?)"),
+        /** Параметры: имя, телефон, email. */
+        CLIENT("INSERT INTO client (name, phone, email) VALUES (?, ?, ?)"),
+        /** Параметры: идентификатор клиента, регистрационный номер, марка, модель. */
+        VEHICLE("INSERT INTO vehicle (client_id, license_plate, brand, model) VALUES (?, ?, ?, ?)");
+
+        private final String sql;
+
+        Table(String sql) {
+            this.sql = sql;
+        }
+    }
+
+    /**
+     * Строка пакета, отклонённая базой данных.
+
+     * @param index   номер строки в пакете
+     * @param message причина отказа
+     */
+    public record RowError(int index, String message) {
+    }
+
+    public BulkImportDao(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Вставляет пакет строк одной командой JDBC в отдельной транзакции. Если база данных отклоняет
+     * пакет, он откатывается и строки вставляются по одной с точками сохранения, чтобы ошибка
+     * одной строки не отменяла остальные.
+
+     * @param table таблица
+     * @param rows  параметры строк в порядке, описанном в {@link Table}
+     * @return строки, отклонённые базой данных; пустой список, если вставлены все
+     * @throws PersistenceException при ошибке, не связанной с отдельной строкой
+     */
+    public List<RowError> insertBatch(Table table, List<Object[]> rows) {
+        List<RowError> errors = new ArrayList<>();
+        em.getTransaction().begin();
+        try {
+            em.unwrap(Session.class).doWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(table.sql)) {
+                    Savepoint beforeBatch = connection.setSavepoint();
+                    try {
+                        for (Object[] row : rows) {
+                            bind(statement, row);
+                            statement.addBatch();
+                        }
+                        statement.executeBatch();
+                    } catch (BatchUpdateException e) {
+                        connection.rollback(beforeBatch);
+                        statement.clearBatch();
+                        insertOneByOne(connection, statement, rows, errors);
+                    }
+                }
+            });
+            em.getTransaction().commit();
+            return errors;
+        } catch (PersistenceException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw new PersistenceException("Ошибка при массовой вставке: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает идентификаторы парковок по названию. Если несколько парковок имеют одинаковое
+     * название, для него возвращается null.
+
+     * @return отображение названия в идентификатор
+     */
+    public Map<String, Long> findLotIdsByName() {
+        Map<String, Long> ids = new HashMap<>();
+        em.createQuery("SELECT l.name, l.id FROM ParkingLot l", Object[].class).getResultStream()
+                .forEach(row -> ids.merge((String) row[0], (Long) row[1], (a, b) -> AMBIGUOUS));
+        ids.replaceAll((name, id) -> id == AMBIGUOUS ? null : id);
+        return ids;
+    }
+
+    /**
+     * Возвращает идентификаторы клиентов по email. Клиенты без email не возвращаются.
+
+     * @return отображение email в идентификатор
+     */
+    public Map<String, Long> findClientIdsByEmail() {
+        Map<String, Long> ids = new HashMap<>();
+        em.createQuery("SELECT c.email, c.id FROM Client c WHERE c.email IS NOT NULL", Object[].class)
+                .getResultStream()
+                .forEach(row -> ids.put((String) row[0], (Long) row[1]));
+        return ids;
+    }
+
+    /**
+     * Возвращает ключи существующих парковок в виде "название\0адрес".
+
+     * @return потокобезопасное множество ключей
+     */
+    public Set<String> findLotKeys() {
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        em.createQuery("SELECT l.name, l.address FROM ParkingLot l", Object[].class).getResultStream()
+                .forEach(row -> keys.add(row[0] + "\0" + row[1]));
+        return keys;
+    }
+
+    /**
+     * Возвращает ключи существующих мест в виде "идентификатор парковки\0номер места".
+
+     * @return потокобезопасное множество ключей
+     */
+    public Set<String> findSpaceKeys() {
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        em.createQuery("SELECT s.parkingLot.id, s.spaceNumber FROM ParkingSpace s", Object[].class)
+                .getResultStream()
+                .forEach(row -> keys.add(row[0] + "\0" + row[1]));
+        return keys;
+    }
+
+    /**
+     * Возвращает регистрационные номера всех автомобилей.
+
+     * @return потокобезопасное множество номеров
+     */
+    public Set<String> findLicensePlates() {
+        Set<String> plates = ConcurrentHashMap.newKeySet();
+        em.createQuery("SELECT v.licensePlate FROM Vehicle v", String.class).getResultStream().forEach(plates::add);
+        return plates;
+    }
+
+    private static void insertOneByOne(Connection connection, PreparedStatement statement, List<Object[]> rows,
+                                       List<RowError> errors) throws SQLException {
+        for (int i = 0; i < rows.size(); i++) {
+            Savepoint beforeRow = connection.setSavepoint();
+            try {
+                bind(statement, rows.get(i));
+                statement.executeUpdate();
+                connection.releaseSavepoint(beforeRow);
+            } catch (SQLException e) {
+                connection.rollback(beforeRow);
+                errors.add(new RowError(i, e.getMessage()));
+            }
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object[] row) throws SQLException {
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] == null) {
+                statement.setNull(i + 1, Types.VARCHAR);
+            } else {
+                statement.setObject(i + 1, row[i]);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -44,6 +44,18 @@ public class ClientDao {
         return em.find(Client.class, id);
     }
 
+    /**
+     * Возвращает регистрационные номера автомобилей клиента.
+
+     * @param clientId идентификатор клиента
+     * @return номера автомобилей клиента
+     */
+    public List<String> findLicensePlates(Long clientId) {
+        return em.createQuery("SELECT v.licensePlate FROM Vehicle v WHERE v.client.id = :clientId", String.class)
+                .setParameter("clientId", clientId)
+                .getResultList();
+    }
+
     /**
      * Возвращает список всех клиентов.
 
@@ -0,0 +1,132 @@
+package com.parkingManagement.dao;
+
+import com.parkingManagement.model.DwellSketch;
+import com.parkingManagement.util.LogHistogram;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceException;
+import jakarta.persistence.TypedQuery;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO для гистограмм длительностей стоянки по парковкам, типам мест и дням.
+ * Гистограммы не остаются в контексте постоянства, чтобы блокирующее чтение при объединении
+ * всегда получало сохранённые данные, а не управляемый экземпляр с устаревшим содержимым.
+ */
+public class DwellSketchDao {
+    private final EntityManager em;
+
+    /**
+     * Создаёт новый DwellSketchDao с указанным EntityManager.
+
+     * @param em менеджер сущностей Hibernate
+     */
+    public DwellSketchDao(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Объединяет гистограмму с сохранённой гистограммой дня, создавая её при отсутствии.
+     * Сохранённая гистограмма читается с блокировкой строки (SELECT ... FOR UPDATE), поэтому
+     * одновременные объединения выполняются по очереди и не теряют значений; если отсутствующую
+     * строку одновременно вставил другой поток, транзакция повторяется один раз.
+
+     * @param lotId     идентификатор парковки
+     * @param spaceType тип парковочного места
+     * @param day       день въезда
+     * @param delta     добавляемые значения
+     * @throws PersistenceException при ошибке сохранения
+     */
+    public void merge(Long lotId, String spaceType, LocalDate day, LogHistogram delta) {
+        for (int attempt = 0; ; attempt++) {
+            DwellSketch sketch = null;
+            em.getTransaction().begin();
+            try {
+                List<DwellSketch> found = em.createQuery("SELECT s FROM DwellSketch s " +
+                                "WHERE s.parkingLotId = :lotId AND s.day = :day AND s.spaceType = :type",
+                                DwellSketch.class)
+                        .setParameter("lotId", lotId)
+                        .setParameter("day", day)
+                        .setParameter("type", spaceType)
+                        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                        .getResultList();
+                if (found.isEmpty()) {
+                    sketch = new DwellSketch(lotId, day, spaceType, delta.getTotalCount(), delta.toBytes());
+                    em.persist(sketch);
+                } else {
+                    sketch = found.get(0);
+                    LogHistogram histogram = LogHistogram.fromBytes(sketch.getData());
+                    histogram.merge(delta);
+                    sketch.setSampleCount(histogram.getTotalCount());
+                    sketch.setData(histogram.toBytes());
+                }
+                em.getTransaction().commit();
+                em.detach(sketch);
+                return;
+            } catch (PersistenceException e) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                if (sketch != null && em.contains(sketch)) {
+                    em.detach(sketch);
+                }
+                if (attempt == 0 && ParkingRecordDao.isUniqueViolation(e)) {
+                    continue;
+                }
+                throw new PersistenceException("Ошибка при обновлении гистограммы стоянок: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Возвращает гистограммы парковки за интервал дней включительно.
+
+     * @param lotId     идентификатор парковки
+     * @param spaceType тип парковочного места или null для всех типов
+     * @param from      первый день
+     * @param to        последний день
+     * @return список гистограмм
+     */
+    public List<DwellSketch> findSketches(Long lotId, String spaceType, LocalDate from, LocalDate to) {
+        TypedQuery<DwellSketch> query = em.createQuery("SELECT s FROM DwellSketch s WHERE s.parkingLotId = :lotId " +
+                        "AND s.day BETWEEN :from AND :to" + (spaceType == null ? "" : " AND s.spaceType = :type") +
+                        " ORDER BY s.day", DwellSketch.class)
+                .setParameter("lotId", lotId)
+                .setParameter("from", from)
+                .setParameter("to", to);
+        if (spaceType != null) {
+            query.setParameter("type", spaceType);
+        }
+        List<DwellSketch> sketches = query.getResultList();
+        sketches.forEach(em::detach);
+        return sketches;
+    }
+
+    /**
+     * Атомарно заменяет все гистограммы дня пересчитанными: при ошибке остаются прежние гистограммы дня.
+
+     * @param day      день
+     * @param sketches пересчитанные гистограммы дня
+     * @throws PersistenceException при ошибке сохранения
+     */
+    public void replaceDay(LocalDate day, Collection<DwellSketch> sketches) {
+        em.getTransaction().begin();
+        try {
+            em.createQuery("DELETE FROM DwellSketch s WHERE s.day = :day")
+                    .setParameter("day", day)
+                    .executeUpdate();
+            sketches.forEach(em::persist);
+            em.getTransaction().commit();
+        } catch (PersistenceException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw new PersistenceException("Ошибка при пересчёте гистограмм стоянок: " + e.getMessage());
+        } finally {
+            sketches.stream().filter(em::contains).forEach(em::detach);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,113 @@
+package com.parkingManagement.dao;
+
+import com.parkingManagement.model.JournalEvent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * DAO журнала операций. События только добавляются и читаются в порядке смещения.
+ */
+public class JournalDao {
+    /**
+     * Размер выборки JDBC для потокового чтения журнала.
+     */
+    static final int STREAM_FETCH_SIZE = 10_000;
+
+    private final EntityManager em;
+
+    /**
+     * Создаёт новый JournalDao с указанным EntityManager.
+
+     * @param em менеджер сущностей Hibernate
+     */
+    public JournalDao(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Добавляет событие в журнал. После фиксации событию присваивается смещение.
+
+     * @param event событие
+     * @throws PersistenceException при ошибке сохранения
+     */
+    public void append(JournalEvent event) {
+        em.getTransaction().begin();
+        try {
+            em.persist(event);
+            em.getTransaction().commit();
+        } catch (PersistenceException e) {
+            em.getTransaction().rollback();
+            throw new PersistenceException("Ошибка при записи события в журнал: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает смещение последнего события журнала.
+
+     * @return смещение или 0 для пустого журнала
+     */
+    public long findLastOffset() {
+        return em.createQuery("SELECT COALESCE(MAX(e.id), 0) FROM JournalEvent e", Long.class).getSingleResult();
+    }
+
+    /**
+     * Передаёт обработчику события со смещением в интервале (afterOffset, upToOffset] заданных типов,
+     * у которых значение поля разбиения по модулю partitions равно partition, в порядке смещения.
+     * События без значения поля разбиения пропускаются. События читаются потоком без
+     * добавления в контекст персистентности.
+
+     * @param afterOffset   смещение, после которого начинается чтение
+     * @param upToOffset    последнее читаемое смещение включительно
+     * @param types         типы событий
+     * @param field         поле разбиения: aggregateId, lotId или clientId
+     * @param partitions    число частей
+     * @param partition     номер части от 0 до partitions - 1
+     * @param consumer      обработчик событий
+     * @return число прочитанных событий
+     * @throws PersistenceException при ошибке чтения
+     */
+    public long forEachEvent(long afterOffset, long upToOffset, Collection<JournalEvent.Type> types, String field,
+                             int partitions, int partition, Consumer<JournalEvent> consumer) {
+        long[] count = {0};
+        boolean ownTransaction = !em.getTransaction().isActive();
+        if (ownTransaction) {
+            em.getTransaction().begin();
+        }
+        try (Stream<JournalEvent> events = em.createQuery(
+                        "SELECT new com.parkingManagement.model.JournalEvent(e.id, e.type, e.aggregateId, e.lotId, " +
+                                "e.clientId, e.occurredAt, e.payload) FROM JournalEvent e " +
+                                "WHERE e.id > :after AND e.id <= :upTo AND e.type IN :types " +
+                                "AND MOD(e." + field + ", :partitions) = :partition ORDER BY e.id", JournalEvent.class)
+                .setParameter("after", afterOffset)
+                .setParameter("upTo", upToOffset)
+                .setParameter("types", types)
+                .setParameter("partitions", (long) partitions)
+                .setParameter("partition", (long) partition)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()) {
+            events.forEach(event -> {
+                consumer.accept(event);
+                count[0]++;
+            });
+        } catch (PersistenceException e) {
+            if (ownTransaction) {
+                em.getTransaction().rollback();
+            }
+            throw new PersistenceException("Ошибка при чтении журнала: " + e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        }
+        if (ownTransaction) {
+            em.getTransaction().commit();
+        }
+        return count[0];
+    }
+}
\ No newline at end of file
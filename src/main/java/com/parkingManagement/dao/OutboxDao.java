@@ -0,0 +1,75 @@
+package com.parkingManagement.dao;
+
+import com.parkingManagement.model.OutboxMessage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO исходящей очереди сообщений об изменениях записей о парковке.
+ */
+public class OutboxDao {
+    private final EntityManager em;
+
+    /**
+     * Создаёт новый OutboxDao с указанным EntityManager.
+
+     * @param em менеджер сущностей Hibernate
+     */
+    public OutboxDao(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Возвращает самые старые неподтверждённые сообщения после указанного в порядке идентификатора.
+     * Сообщения возвращаются проекцией и не попадают в контекст персистентности.
+
+     * @param afterId идентификатор, после которого начинается выборка, 0 — с начала очереди
+     * @param limit   максимальное число сообщений
+     * @return сообщения
+     */
+    public List<OutboxMessage> findBatch(long afterId, int limit) {
+        return em.createQuery(
+                        "SELECT new com.parkingManagement.model.OutboxMessage(m.id, m.type, m.recordId, m.lotId, " +
+                                "m.createdAt, m.payload) FROM OutboxMessage m WHERE m.id > :afterId ORDER BY m.id",
+                        OutboxMessage.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Удаляет подтверждённые сообщения одним запросом.
+
+     * @param ids идентификаторы сообщений
+     * @return число удалённых сообщений
+     * @throws PersistenceException при ошибке удаления
+     */
+    public int deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        em.getTransaction().begin();
+        try {
+            int deleted = em.createQuery("DELETE FROM OutboxMessage m WHERE m.id IN :ids")
+                    .setParameter("ids", ids)
+                    .executeUpdate();
+            em.getTransaction().commit();
+            return deleted;
+        } catch (PersistenceException e) {
+            em.getTransaction().rollback();
+            throw new PersistenceException("Ошибка при удалении сообщений outbox: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает число неподтверждённых сообщений.
+
+     * @return число сообщений
+     */
+    public long countPending() {
+        return em.createQuery("SELECT COUNT(m) FROM OutboxMessage m", Long.class).getSingleResult();
+    }
+}
\ No newline at end of file
@@ -1,17 +1,86 @@
 package com.parkingManagement.dao;
 
+import com.parkingManagement.model.BatchCheckpoint;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.GateEvent;
+import com.parkingManagement.model.OutboxMessage;
 import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.SessionDetail;
+import com.parkingManagement.model.SessionIntervals;
+import com.parkingManagement.model.SessionRow;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.util.JsonWriter;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.FlushModeType;
 import jakarta.persistence.PersistenceException;
 import jakarta.persistence.TypedQuery;
+import org.hibernate.Session;
 
+import java.io.StringWriter;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * DAO для управления записями о парковке в базе данных с Hibernate.
  */
 public class ParkingRecordDao {
+    /**
+     * Код SQLSTATE PostgreSQL для нарушения ограничения исключения (exclusion_violation).
+     */
+    static final String EXCLUSION_VIOLATION = "23P01";
+
+    /**
+     * Код SQLSTATE нарушения ограничения уникальности (unique_violation) в PostgreSQL и H2.
+     */
+    static final String UNIQUE_VIOLATION = "23505";
+
+    /**
+     * Имя ограничения, запрещающего пересечение сессий на одном месте.
+     */
+    static final String NO_OVERLAP_CONSTRAINT = "no_overlapping_sessions";
+
+    /**
+     * Размер выборки JDBC для потокового чтения больших объёмов истории.
+     */
+    static final int STREAM_FETCH_SIZE = 10_000;
+
+    /**
+     * Коды SQLSTATE нарушения внешнего ключа при отсутствии родительской строки:
+     * 23503 в PostgreSQL и 23506 в H2.
+     */
+    static final Set<String> FOREIGN_KEY_VIOLATIONS = Set.of("23503", "23506");
+
+    /**
+     * Въезд одной командой: клиент берётся из строки автомобиля, существование места
+     * проверяет внешний ключ. Условие на автомобиль дописывается вызывающим методом.
+     */
+    private static final String CHECK_IN_SQL = "INSERT INTO parking_record " +
+            "(parking_space_id, vehicle_id, client_id, entry_time) " +
+            "SELECT ?, v.id, v.client_id, ? FROM vehicle v WHERE ";
+
+    private static final String[] CHECK_IN_KEYS = {"id", "vehicle_id", "client_id"};
+
+    /**
+     * Результат попытки создания записи о парковке.
+     */
+    public enum CreateResult {
+        /** Запись создана. */
+        CREATED,
+        /** Место занято пересекающейся сессией, запись не создана. */
+        SPACE_CONFLICT
+    }
+
     private final EntityManager em;
+    private final boolean outbox;
 
     /**
      * Создаёт новый ParkingRecordDao с указанным EntityManager.
@@ -19,7 +88,19 @@ public class ParkingRecordDao {
      * @param em менеджер сущностей Hibernate
      */
     public ParkingRecordDao(EntityManager em) {
+        this(em, false);
+    }
+
+    /**
+     * Создаёт новый ParkingRecordDao, который при необходимости записывает каждое изменение
+     * в исходящую очередь outbox_message в той же транзакции, что и само изменение.
+
+     * @param em     менеджер сущностей Hibernate
+     * @param outbox записывать сообщения в исходящую очередь
+     */
+    public ParkingRecordDao(EntityManager em, boolean outbox) {
         this.em = em;
+        this.outbox = outbox;
     }
 
     /**
@@ -32,6 +113,7 @@ public class ParkingRecordDao {
         em.getTransaction().begin();
         try {
             em.persist(record);
+            writeCreated(record);
             em.getTransaction().commit();
         } catch (PersistenceException e) {
             em.getTransaction().rollback();
@@ -39,6 +121,140 @@ public class ParkingRecordDao {
         }
     }
 
+    /**
+     * Пытается создать запись о парковке, полагаясь на ограничение базы данных
+     * против пересечения сессий на одном месте. Конфликт возвращается как результат,
+     * а не исключение, поэтому вызывающий код может сразу повторить попытку на другом месте
+     * без предварительной проверки.
+
+     * @param record запись о парковке для создания
+     * @return CREATED при успехе или SPACE_CONFLICT, если место занято в этом интервале
+     * @throws PersistenceException при любой другой ошибке сохранения
+     */
+    public CreateResult tryCreate(ParkingRecord record) {
+        em.getTransaction().begin();
+        try {
+            em.persist(record);
+            writeCreated(record);
+            em.getTransaction().commit();
+            return CreateResult.CREATED;
+        } catch (PersistenceException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            if (isOverlapViolation(e)) {
+                if (em.contains(record)) {
+                    em.detach(record);
+                }
+                record.setId(null);
+                return CreateResult.SPACE_CONFLICT;
+            }
+            throw new PersistenceException("Ошибка при создании записи: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Регистрирует въезд автомобиля на место командой INSERT без предварительной загрузки
+     * автомобиля и клиента: клиент записи берётся из автомобиля на стороне базы данных,
+     * а существование места и автомобиля проверяют внешний ключ и условие вставки.
+     * После вставки в той же транзакции место читается по первичному ключу вместе с парковкой:
+     * парковка и тип места нужны исходящей очереди и слушателям, и иначе каждый из них
+     * загружал бы место сам. Автомобиль и клиент возвращаемой записи — незагруженные ссылки,
+     * доступны их идентификаторы.
+
+     * @param spaceId   идентификатор места
+     * @param vehicleId идентификатор автомобиля
+     * @param entryTime время въезда
+     * @return созданная запись или null, если места или автомобиля не существует
+     * @throws IllegalArgumentException если место занято пересекающейся сессией
+     * @throws PersistenceException     при любой другой ошибке сохранения
+     */
+    public ParkingRecord checkIn(Long spaceId, Long vehicleId, LocalDateTime entryTime) {
+        return insertCheckIn(CHECK_IN_SQL + "v.id = ?", spaceId, vehicleId, entryTime);
+    }
+
+    /**
+     * Регистрирует въезд автомобиля по точному регистрационному номеру,
+     * так же как {@link #checkIn(Long, Long, LocalDateTime)}.
+
+     * @param spaceId      идентификатор места
+     * @param licensePlate регистрационный номер автомобиля
+     * @param entryTime    время въезда
+     * @return созданная запись или null, если места или автомобиля с таким номером не существует
+     * @throws IllegalArgumentException если место занято пересекающейся сессией
+     * @throws PersistenceException     при любой другой ошибке сохранения
+     */
+    public ParkingRecord checkInByPlate(Long spaceId, String licensePlate, LocalDateTime entryTime) {
+        return insertCheckIn(CHECK_IN_SQL + "v.license_plate = ?", spaceId, licensePlate, entryTime);
+    }
+
+    /**
+     * Проверяет, вызвано ли исключение нарушением внешнего ключа из-за отсутствующей родительской строки.
+
+     * @param e исключение сохранения
+     * @return true, если в цепочке причин есть нарушение внешнего ключа
+     */
+    static boolean isForeignKeyViolation(Throwable e) {
+        for (Throwable t = e; t != null && t.getCause() != t; t = t.getCause()) {
+            if (t instanceof SQLException sql && FOREIGN_KEY_VIOLATIONS.contains(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Проверяет, вызвано ли исключение нарушением ограничения уникальности.
+
+     * @param e исключение сохранения
+     * @return true, если в цепочке причин есть нарушение уникальности
+     */
+    static boolean isUniqueViolation(Throwable e) {
+        for (Throwable t = e; t != null && t.getCause() != t; t = t.getCause()) {
+            if (t instanceof SQLException sql && UNIQUE_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Проверяет, вызвано ли исключение нарушением ограничения против пересечения сессий.
+
+     * @param e исключение сохранения
+     * @return true, если в цепочке причин есть нарушение ограничения исключения
+     */
+    static boolean isOverlapViolation(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SQLException sql && EXCLUSION_VIOLATION.equals(sql.getSQLState())) {
+                return true;
+            }
+            if (t.getMessage() != null && t.getMessage().contains(NO_OVERLAP_CONSTRAINT)) {
+                return true;
+            }
+            if (t.getCause() == t) {
+                break;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Читает сохранённое время выезда записи отдельным запросом, не затрагивая экземпляр записи
+     * в контексте постоянства, который мог быть уже изменён вызывающим кодом.
+
+     * @param id идентификатор записи
+     * @return время выезда или null, если сессия открыта или запись не найдена
+     */
+    public LocalDateTime findExitTime(Long id) {
+        List<LocalDateTime> found = em.createQuery(
+                        "SELECT p.exitTime FROM ParkingRecord p WHERE p.id = :id", LocalDateTime.class)
+                .setParameter("id", id)
+                .setFlushMode(FlushModeType.COMMIT)
+                .getResultList();
+        return found.isEmpty() ? null : found.get(0);
+    }
+
     /**
      * Находит запись о парковке по идентификатору.
 
@@ -74,7 +290,14 @@ public class ParkingRecordDao {
                 em.getTransaction().rollback();
                 return false;
             }
-            em.merge(record);
+            LocalDateTime previousExit = outbox ? em.createQuery(
+                            "SELECT p.exitTime FROM ParkingRecord p WHERE p.id = :id", LocalDateTime.class)
+                    .setParameter("id", record.getId())
+                    .setFlushMode(FlushModeType.COMMIT)
+                    .getSingleResult() : null;
+            ParkingRecord merged = em.merge(record);
+            writeOutbox(previousExit == null && merged.getExitTime() != null
+                    ? OutboxMessage.Type.CHECK_OUT : OutboxMessage.Type.RECORD_UPDATED, merged);
             em.getTransaction().commit();
             return true;
         } catch (PersistenceException e) {
@@ -98,6 +321,7 @@ public class ParkingRecordDao {
                 em.getTransaction().rollback();
                 return false;
             }
+            writeOutbox(OutboxMessage.Type.RECORD_DELETED, record);
             em.remove(record);
             em.getTransaction().commit();
             return true;
@@ -106,4 +330,425 @@ public class ParkingRecordDao {
             throw new PersistenceException("Ошибка при удалении записи: " + e.getMessage());
         }
     }
+
+    /**
+     * Возвращает плоские проекции сессий, пересекающихся с интервалом [from, to).
+     * Открытые сессии (без времени выезда) включаются, если начались до конца интервала.
+
+     * @param from начало интервала
+     * @param to   конец интервала
+     * @return список проекций сессий, упорядоченный по времени въезда
+     */
+    public List<SessionRow> findSessionsOverlapping(LocalDateTime from, LocalDateTime to) {
+        TypedQuery<SessionRow> query = em.createQuery(
+                "SELECT new com.parkingManagement.model.SessionRow(p.id, s.id, s.parkingLot.id, s.type, " +
+                        "p.vehicle.id, p.client.id, p.entryTime, p.exitTime) " +
+                        "FROM ParkingRecord p JOIN p.parkingSpace s " +
+                        "WHERE p.entryTime < :to AND (p.exitTime IS NULL OR p.exitTime > :from) " +
+                        "ORDER BY p.entryTime", SessionRow.class);
+        query.setParameter("from", from);
+        query.setParameter("to", to);
+        return query.getResultList();
+    }
+
+    /**
+     * Находит последнюю открытую сессию автомобиля.
+
+     * @param vehicleId идентификатор автомобиля
+     * @return открытая запись о парковке или null, если автомобиль не на парковке
+     */
+    public ParkingRecord findOpenRecord(Long vehicleId) {
+        List<ParkingRecord> open = em.createQuery("SELECT p FROM ParkingRecord p " +
+                        "WHERE p.vehicle.id = :vehicleId AND p.exitTime IS NULL ORDER BY p.entryTime DESC", ParkingRecord.class)
+                .setParameter("vehicleId", vehicleId)
+                .setMaxResults(1)
+                .getResultList();
+        return open.isEmpty() ? null : open.get(0);
+    }
+
+    /**
+     * Находит наименьший идентификатор открытой сессии больше afterRecordId.
+
+     * @param afterRecordId идентификатор, после которого ведётся поиск
+     * @return идентификатор открытой сессии или null, если открытых сессий после него нет
+     */
+    public Long findLowestOpenRecordId(long afterRecordId) {
+        return em.createQuery("SELECT MIN(p.id) FROM ParkingRecord p WHERE p.id > :after AND p.exitTime IS NULL",
+                        Long.class)
+                .setParameter("after", afterRecordId)
+                .getSingleResult();
+    }
+
+    /**
+     * Возвращает плоские проекции всех открытых сессий (без времени выезда).
+
+     * @return список проекций открытых сессий
+     */
+    public List<SessionRow> findOpenSessions() {
+        return em.createQuery(
+                        "SELECT new com.parkingManagement.model.SessionRow(p.id, s.id, s.parkingLot.id, s.type, " +
+                                "p.vehicle.id, p.client.id, p.entryTime, p.exitTime) " +
+                                "FROM ParkingRecord p JOIN p.parkingSpace s WHERE p.exitTime IS NULL", SessionRow.class)
+                .getResultList();
+    }
+
+    /**
+     * Подсчитывает открытые сессии на парковке для указанного типа мест.
+
+     * @param lotId     идентификатор парковки
+     * @param spaceType тип парковочного места
+     * @return число автомобилей, стоящих на местах этого типа
+     */
+    public long countOpenSessions(Long lotId, String spaceType) {
+        return em.createQuery(
+                        "SELECT COUNT(p) FROM ParkingRecord p JOIN p.parkingSpace s " +
+                                "WHERE s.parkingLot.id = :lotId AND s.type = :type AND p.exitTime IS NULL", Long.class)
+                .setParameter("lotId", lotId)
+                .setParameter("type", spaceType)
+                .getSingleResult();
+    }
+
+    /**
+     * Возвращает страницу завершённых сессий с выездом в интервале [from, to),
+     * упорядоченных по клиенту и идентификатору записи. Постраничная выборка по ключу
+     * (клиент, запись) не требует долгой транзакции и держит в памяти не больше limit строк;
+     * условия и порядок заданы по столбцу client_id записи, чтобы выборка шла по индексу (client_id, id).
+
+     * @param from           начало интервала по времени выезда
+     * @param to             конец интервала по времени выезда
+     * @param afterClientId  идентификатор клиента последней прочитанной строки
+     * @param afterRecordId  идентификатор записи последней прочитанной строки
+     * @param limit          максимальный размер страницы
+     * @return страница проекций сессий
+     */
+    public List<SessionDetail> findCompletedSessionsByClient(LocalDateTime from, LocalDateTime to,
+                                                             long afterClientId, long afterRecordId, int limit) {
+        return em.createQuery(
+                        "SELECT new com.parkingManagement.model.SessionDetail(p.id, c.id, c.name, v.licensePlate, " +
+                                "l.name, s.spaceNumber, s.type, p.entryTime, p.exitTime) " +
+                                "FROM ParkingRecord p JOIN p.client c JOIN p.vehicle v " +
+                                "JOIN p.parkingSpace s JOIN s.parkingLot l " +
+                                "WHERE p.exitTime >= :from AND p.exitTime < :to " +
+                                "AND (p.client.id > :afterClient OR (p.client.id = :afterClient AND p.id > :afterRecord)) " +
+                                "ORDER BY p.client.id, p.id", SessionDetail.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("afterClient", afterClientId)
+                .setParameter("afterRecord", afterRecordId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Передаёт обработчику проекции всех сессий с данными клиента, автомобиля и места,
+     * с идентификатором больше afterRecordId, в порядке идентификатора. Строки читаются
+     * одним запросом с соединениями потоком с большим размером выборки, без создания сущностей
+     * и без обращения к ленивым связям.
+
+     * @param afterRecordId идентификатор, после которого начинается чтение
+     * @param consumer      обработчик проекций
+     * @return число прочитанных сессий
+     */
+    public long forEachSessionDetail(long afterRecordId, Consumer<SessionDetail> consumer) {
+        return forEachSessionDetail(afterRecordId, Long.MAX_VALUE, consumer);
+    }
+
+    /**
+     * Передаёт обработчику проекции сессий с идентификатором больше afterRecordId и меньше
+     * beforeRecordId так же, как {@link #forEachSessionDetail(long, Consumer)}.
+
+     * @param afterRecordId  идентификатор, после которого начинается чтение
+     * @param beforeRecordId идентификатор, на котором чтение заканчивается, не включая его
+     * @param consumer       обработчик проекций
+     * @return число прочитанных сессий
+     */
+    public long forEachSessionDetail(long afterRecordId, long beforeRecordId, Consumer<SessionDetail> consumer) {
+        long[] count = {0};
+        boolean ownTransaction = !em.getTransaction().isActive();
+        if (ownTransaction) {
+            em.getTransaction().begin();
+        }
+        try (Stream<SessionDetail> rows = em.createQuery(
+                        "SELECT new com.parkingManagement.model.SessionDetail(p.id, c.id, c.name, v.licensePlate, " +
+                                "l.name, s.spaceNumber, s.type, p.entryTime, p.exitTime) " +
+                                "FROM ParkingRecord p JOIN p.client c JOIN p.vehicle v " +
+                                "JOIN p.parkingSpace s JOIN s.parkingLot l " +
+                                "WHERE p.id > :after AND p.id < :before ORDER BY p.id", SessionDetail.class)
+                .setParameter("after", afterRecordId)
+                .setParameter("before", beforeRecordId)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()) {
+            rows.forEach(row -> {
+                consumer.accept(row);
+                count[0]++;
+            });
+        } catch (PersistenceException e) {
+            if (ownTransaction) {
+                em.getTransaction().rollback();
+            }
+            throw new PersistenceException("Ошибка при чтении сессий: " + e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        }
+        if (ownTransaction) {
+            em.getTransaction().commit();
+        }
+        return count[0];
+    }
+
+    /**
+     * Загружает интервалы сессий парковки, пересекающихся с [from, to), в примитивные массивы.
+     * Строки читаются потоком с большим размером выборки без создания сущностей;
+     * для курсорного чтения PostgreSQL запрос выполняется внутри транзакции.
+
+     * @param lotId идентификатор парковки
+     * @param from  начало интервала
+     * @param to    конец интервала
+     * @return интервалы сессий в секундах от эпохи
+     */
+    public SessionIntervals loadSessionIntervals(Long lotId, LocalDateTime from, LocalDateTime to) {
+        SessionIntervals intervals = new SessionIntervals(1024);
+        boolean ownTransaction = !em.getTransaction().isActive();
+        if (ownTransaction) {
+            em.getTransaction().begin();
+        }
+        try (Stream<Object[]> rows = em.createQuery(
+                        "SELECT p.entryTime, p.exitTime FROM ParkingRecord p JOIN p.parkingSpace s " +
+                                "WHERE s.parkingLot.id = :lotId AND p.entryTime < :to " +
+                                "AND (p.exitTime IS NULL OR p.exitTime > :from)", Object[].class)
+                .setParameter("lotId", lotId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()) {
+            rows.forEach(row -> intervals.add(((LocalDateTime) row[0]).toEpochSecond(ZoneOffset.UTC),
+                    row[1] == null ? SessionIntervals.OPEN : ((LocalDateTime) row[1]).toEpochSecond(ZoneOffset.UTC)));
+        } catch (PersistenceException e) {
+            if (ownTransaction) {
+                em.getTransaction().rollback();
+            }
+            throw new PersistenceException("Ошибка при чтении интервалов сессий: " + e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        }
+        if (ownTransaction) {
+            em.getTransaction().commit();
+        }
+        return intervals;
+    }
+
+    /**
+     * Передаёт обработчику плоские проекции всех сессий с идентификатором больше afterRecordId
+     * в порядке идентификатора. Строки читаются потоком без создания сущностей,
+     * поэтому память не зависит от объёма истории.
+
+     * @param afterRecordId идентификатор, после которого начинается чтение
+     * @param consumer      обработчик проекций
+     * @return число прочитанных сессий
+     */
+    public long forEachSession(long afterRecordId, Consumer<SessionRow> consumer) {
+        long[] count = {0};
+        boolean ownTransaction = !em.getTransaction().isActive();
+        if (ownTransaction) {
+            em.getTransaction().begin();
+        }
+        try (Stream<SessionRow> rows = em.createQuery(
+                        "SELECT new com.parkingManagement.model.SessionRow(p.id, s.id, s.parkingLot.id, s.type, " +
+                                "p.vehicle.id, p.client.id, p.entryTime, p.exitTime) " +
+                                "FROM ParkingRecord p JOIN p.parkingSpace s " +
+                                "WHERE p.id > :after ORDER BY p.id", SessionRow.class)
+                .setParameter("after", afterRecordId)
+                .setHint("org.hibernate.fetchSize", STREAM_FETCH_SIZE)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()) {
+            rows.forEach(row -> {
+                consumer.accept(row);
+                count[0]++;
+            });
+        } catch (PersistenceException e) {
+            if (ownTransaction) {
+                em.getTransaction().rollback();
+            }
+            throw new PersistenceException("Ошибка при чтении сессий: " + e.getMessage());
+        } catch (RuntimeException e) {
+            if (ownTransaction) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        }
+        if (ownTransaction) {
+            em.getTransaction().commit();
+        }
+        return count[0];
+    }
+
+    /**
+     * Применяет пакет событий ворот в одной транзакции (групповая фиксация).
+     * Въезд создаёт открытую сессию с клиентом владельца автомобиля, выезд завершает
+     * открытую сессию автомобиля. Событие, которое нельзя применить (нет автомобиля или места,
+     * нет открытой сессии, выезд не позже въезда), пропускается, и на его позиции в результате стоит null.
+     * После фиксации контекст персистентности очищается, поэтому EntityManager должен
+     * использоваться только для приёма событий.
+
+     * @param events события в порядке поступления
+     * @return записи о парковке по позициям событий
+     * @throws PersistenceException при ошибке сохранения, пакет откатывается целиком
+     */
+    public List<ParkingRecord> applyGateEvents(List<GateEvent> events) {
+        return applyGateEvents(events, null, 0);
+    }
+
+    /**
+     * Применяет пакет событий ворот и в той же транзакции сохраняет контрольную точку задачи.
+     * Пакет и позиция фиксируются атомарно, поэтому повторное применение событий после сбоя
+     * можно начинать строго после сохранённой позиции без дублирования сессий.
+
+     * @param events        события в порядке поступления
+     * @param checkpointJob имя задачи контрольной точки или null, если точку сохранять не нужно
+     * @param position      позиция последнего события пакета
+     * @return записи о парковке по позициям событий
+     * @throws PersistenceException при ошибке сохранения, пакет и позиция откатываются целиком
+     */
+    public List<ParkingRecord> applyGateEvents(List<GateEvent> events, String checkpointJob, long position) {
+        List<ParkingRecord> results = new ArrayList<>(events.size());
+        em.getTransaction().begin();
+        try {
+            for (GateEvent event : events) {
+                results.add(event.type() == GateEvent.Type.ENTRY ? applyEntry(event) : applyExit(event));
+            }
+            if (checkpointJob != null) {
+                BatchCheckpoint checkpoint = em.find(BatchCheckpoint.class, checkpointJob);
+                if (checkpoint == null) {
+                    em.persist(new BatchCheckpoint(checkpointJob, position, LocalDateTime.now()));
+                } else {
+                    checkpoint.setPosition(position);
+                    checkpoint.setUpdatedAt(LocalDateTime.now());
+                }
+            }
+            em.getTransaction().commit();
+        } catch (PersistenceException e) {
+            em.getTransaction().rollback();
+            throw new PersistenceException("Ошибка при применении событий ворот: " + e.getMessage());
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.clear();
+        }
+        return results;
+    }
+
+    private ParkingRecord applyEntry(GateEvent event) {
+        Vehicle vehicle = em.find(Vehicle.class, event.vehicleId());
+        ParkingSpace space = event.spaceId() == null ? null : em.find(ParkingSpace.class, event.spaceId());
+        if (vehicle == null || space == null) {
+            return null;
+        }
+        ParkingRecord record = new ParkingRecord(null, space, vehicle, vehicle.getClient(), event.time(), null);
+        em.persist(record);
+        writeOutbox(OutboxMessage.Type.CHECK_IN, record);
+        return record;
+    }
+
+    private ParkingRecord applyExit(GateEvent event) {
+        List<ParkingRecord> open = em.createQuery("SELECT p FROM ParkingRecord p " +
+                        "WHERE p.vehicle.id = :vehicleId AND p.exitTime IS NULL ORDER BY p.entryTime DESC", ParkingRecord.class)
+                .setParameter("vehicleId", event.vehicleId())
+                .setFlushMode(FlushModeType.COMMIT)
+                .setMaxResults(1)
+                .getResultList();
+        // Выезды пакета сбрасываются одним flush при фиксации, поэтому запись, закрытая ранее в этом же пакете,
+        // ещё выглядит открытой в базе, но уже закрыта в контексте постоянства
+        if (open.isEmpty() || open.get(0).getExitTime() != null || !event.time().isAfter(open.get(0).getEntryTime())) {
+            return null;
+        }
+        ParkingRecord record = open.get(0);
+        record.setExitTime(event.time());
+        writeOutbox(OutboxMessage.Type.CHECK_OUT, record);
+        return record;
+    }
+
+    /**
+     * Выполняет вставку въезда и собирает запись из возвращённых ключей. Место с парковкой
+     * загружается всегда, вторым запросом в той же транзакции; автомобиль и клиент остаются ссылками.
+     */
+    private ParkingRecord insertCheckIn(String sql, Long spaceId, Object vehicleKey, LocalDateTime entryTime) {
+        em.getTransaction().begin();
+        try {
+            long[] keys = em.unwrap(Session.class).doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(sql, CHECK_IN_KEYS)) {
+                    statement.setLong(1, spaceId);
+                    statement.setObject(2, entryTime);
+                    statement.setObject(3, vehicleKey);
+                    if (statement.executeUpdate() == 0) {
+                        return null;
+                    }
+                    try (ResultSet generated = statement.getGeneratedKeys()) {
+                        generated.next();
+                        return new long[]{generated.getLong(1), generated.getLong(2), generated.getLong(3)};
+                    }
+                }
+            });
+            ParkingRecord record = null;
+            if (keys != null) {
+                record = new ParkingRecord(keys[0], em.find(ParkingSpace.class, spaceId),
+                        em.getReference(Vehicle.class, keys[1]), em.getReference(Client.class, keys[2]), entryTime, null);
+                writeOutbox(OutboxMessage.Type.CHECK_IN, record);
+            }
+            em.getTransaction().commit();
+            return record;
+        } catch (PersistenceException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            if (isForeignKeyViolation(e)) {
+                return null;
+            }
+            if (isOverlapViolation(e)) {
+                throw new IllegalArgumentException("Место с ID " + spaceId + " занято в это время");
+            }
+            throw new PersistenceException("Ошибка при создании записи: " + e.getMessage());
+        }
+    }
+
+    private void writeCreated(ParkingRecord record) {
+        writeOutbox(OutboxMessage.Type.CHECK_IN, record);
+        if (record.getExitTime() != null) {
+            writeOutbox(OutboxMessage.Type.CHECK_OUT, record);
+        }
+    }
+
+    /**
+     * Добавляет в текущую транзакцию сообщение исходящей очереди со снимком записи,
+     * если DAO создан с исходящей очередью.
+     */
+    private void writeOutbox(OutboxMessage.Type type, ParkingRecord record) {
+        if (!outbox) {
+            return;
+        }
+        ParkingSpace space = record.getParkingSpace();
+        Long lotId = space.getParkingLot().getId();
+        StringWriter payload = new StringWriter();
+        new JsonWriter(payload).beginObject()
+                .name("type").value(type.name())
+                .name("id").value(record.getId())
+                .name("lotId").value(lotId)
+                .name("spaceId").value(space.getId())
+                .name("vehicleId").value(record.getVehicle() == null ? null : record.getVehicle().getId())
+                .name("clientId").value(record.getClient() == null ? null : record.getClient().getId())
+                .name("entryTime").value(record.getEntryTime())
+                .name("exitTime").value(record.getExitTime())
+                .endObject().flush();
+        em.persist(new OutboxMessage(null, type, record.getId(), lotId, LocalDateTime.now(), payload.toString()));
+    }
 }
\ No newline at end of file
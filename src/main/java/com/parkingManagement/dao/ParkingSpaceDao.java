@@ -1,11 +1,16 @@
 package com.parkingManagement.dao;
 
+import com.parkingManagement.model.ParkingLot;
 import com.parkingManagement.model.ParkingSpace;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceException;
 import jakarta.persistence.TypedQuery;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * DAO для управления парковочными местами в базе данных с Hibernate.
@@ -39,6 +44,41 @@ public class ParkingSpaceDao {
         }
     }
 
+    /**
+     * Создаёт парковочное место на парковке по её идентификатору одной командой INSERT:
+     * парковка не загружается, место ссылается на неё незагруженной ссылкой,
+     * а существование парковки проверяет внешний ключ.
+
+     * @param lotId       идентификатор парковки
+     * @param spaceNumber номер места
+     * @param type        тип места
+     * @return созданное место или null, если парковки не существует
+     * @throws PersistenceException при любой другой ошибке сохранения
+     */
+    public ParkingSpace create(Long lotId, String spaceNumber, String type) {
+        ParkingLot lot = em.getReference(ParkingLot.class, lotId);
+        ParkingSpace parkingSpace = new ParkingSpace(null, lot, spaceNumber, type);
+        em.getTransaction().begin();
+        try {
+            em.persist(parkingSpace);
+            em.getTransaction().commit();
+            return parkingSpace;
+        } catch (PersistenceException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            if (em.contains(parkingSpace)) {
+                em.detach(parkingSpace);
+            }
+            if (ParkingRecordDao.isForeignKeyViolation(e)) {
+                // Ссылка на несуществующую парковку не должна остаться в контексте постоянства
+                em.detach(lot);
+                return null;
+            }
+            throw new PersistenceException("Ошибка при создании места: " + e.getMessage());
+        }
+    }
+
     /**
      * Находит парковочное место по идентификатору.
 
@@ -49,6 +89,52 @@ public class ParkingSpaceDao {
         return em.find(ParkingSpace.class, id);
     }
 
+    /**
+     * Возвращает идентификаторы мест парковки без открытой сессии в порядке номеров.
+
+     * @param lotId идентификатор парковки
+     * @return идентификаторы свободных мест
+     */
+    public List<Long> findFreeSpaceIds(Long lotId) {
+        return em.createQuery("SELECT s.id FROM ParkingSpace s WHERE s.parkingLot.id = :lotId AND NOT EXISTS " +
+                        "(SELECT p.id FROM ParkingRecord p WHERE p.parkingSpace = s AND p.exitTime IS NULL) " +
+                        "ORDER BY s.spaceNumber", Long.class)
+                .setParameter("lotId", lotId)
+                .getResultList();
+    }
+
+    /**
+     * Возвращает идентификаторы свободных мест всех парковок одним запросом,
+     * сгруппированные по парковкам в порядке номеров мест.
+
+     * @return идентификаторы свободных мест по идентификаторам парковок
+     */
+    public Map<Long, List<Long>> findFreeSpaceIdsByLot() {
+        Map<Long, List<Long>> free = new HashMap<>();
+        try (Stream<Object[]> rows = em.createQuery("SELECT s.parkingLot.id, s.id FROM ParkingSpace s WHERE NOT EXISTS " +
+                        "(SELECT p.id FROM ParkingRecord p WHERE p.parkingSpace = s AND p.exitTime IS NULL) " +
+                        "ORDER BY s.parkingLot.id, s.spaceNumber", Object[].class)
+                .setHint("org.hibernate.fetchSize", 10_000)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()) {
+            rows.forEach(row -> free.computeIfAbsent((Long) row[0], k -> new ArrayList<>()).add((Long) row[1]));
+        }
+        return free;
+    }
+
+    /**
+     * Возвращает места вместе с их парковками одним запросом для заполнения справочного кэша.
+
+     * @param limit максимальное число мест
+     * @return места в порядке идентификаторов
+     */
+    public List<ParkingSpace> findWithLots(int limit) {
+        return em.createQuery("SELECT s FROM ParkingSpace s JOIN FETCH s.parkingLot ORDER BY s.id", ParkingSpace.class)
+                .setMaxResults(limit)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultList();
+    }
+
     /**
      * Возвращает список всех парковочных мест.
 
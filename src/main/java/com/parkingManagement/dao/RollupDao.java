@@ -0,0 +1,211 @@
+package com.parkingManagement.dao;
+
+import com.parkingManagement.model.ClientDailyRollup;
+import com.parkingManagement.model.LotDailyRollup;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO для дневных агрегатов по парковкам и клиентам.
+ * Агрегаты не остаются в контексте постоянства: инкрементальные изменения идут командами UPDATE
+ * в обход него, и управляемый экземпляр после них хранил бы устаревшие значения.
+ */
+public class RollupDao {
+    private final EntityManager em;
+
+    /**
+     * Создаёт новый RollupDao с указанным EntityManager.
+
+     * @param em менеджер сущностей Hibernate
+     */
+    public RollupDao(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Добавляет завершённую сессию в агрегаты парковки и клиента за указанный день.
+     * Счётчики увеличиваются командой UPDATE на стороне базы данных, поэтому одновременные
+     * сессии одного дня не теряют приращений; отсутствующая строка вставляется, а если её
+     * одновременно вставил другой поток, транзакция повторяется один раз.
+
+     * @param lotId        идентификатор парковки
+     * @param spaceType    тип парковочного места
+     * @param clientId     идентификатор клиента
+     * @param day          день въезда
+     * @param dwellMinutes длительность стоянки в минутах
+     * @throws PersistenceException при ошибке сохранения
+     */
+    public void addSession(Long lotId, String spaceType, Long clientId, LocalDate day, long dwellMinutes) {
+        for (int attempt = 0; ; attempt++) {
+            List<Object> inserted = new ArrayList<>();
+            em.getTransaction().begin();
+            try {
+                int lotRows = em.createQuery("UPDATE LotDailyRollup r SET r.visitCount = r.visitCount + 1, " +
+                                "r.totalDwellMinutes = r.totalDwellMinutes + :dwell " +
+                                "WHERE r.parkingLotId = :lotId AND r.day = :day AND r.spaceType = :type")
+                        .setParameter("dwell", dwellMinutes)
+                        .setParameter("lotId", lotId)
+                        .setParameter("day", day)
+                        .setParameter("type", spaceType)
+                        .executeUpdate();
+                if (lotRows == 0) {
+                    LotDailyRollup rollup = new LotDailyRollup(lotId, day, spaceType);
+                    rollup.setVisitCount(1L);
+                    rollup.setTotalDwellMinutes(dwellMinutes);
+                    inserted.add(rollup);
+                    em.persist(rollup);
+                }
+                int clientRows = em.createQuery("UPDATE ClientDailyRollup r SET r.visitCount = r.visitCount + 1, " +
+                                "r.totalDwellMinutes = r.totalDwellMinutes + :dwell " +
+                                "WHERE r.clientId = :clientId AND r.day = :day")
+                        .setParameter("dwell", dwellMinutes)
+                        .setParameter("clientId", clientId)
+                        .setParameter("day", day)
+                        .executeUpdate();
+                if (clientRows == 0) {
+                    ClientDailyRollup rollup = new ClientDailyRollup(clientId, day);
+                    rollup.setVisitCount(1L);
+                    rollup.setTotalDwellMinutes(dwellMinutes);
+                    inserted.add(rollup);
+                    em.persist(rollup);
+                }
+                em.getTransaction().commit();
+                inserted.forEach(em::detach);
+                return;
+            } catch (PersistenceException e) {
+                rollback(inserted);
+                if (attempt == 0 && ParkingRecordDao.isUniqueViolation(e)) {
+                    continue;
+                }
+                throw new PersistenceException("Ошибка при обновлении агрегатов: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Поднимает пиковую занятость агрегата, если новое значение больше сохранённого.
+     * Сравнение и запись выполняются одной командой UPDATE, отсутствующая строка вставляется
+     * так же, как в {@link #addSession}.
+
+     * @param lotId     идентификатор парковки
+     * @param spaceType тип парковочного места
+     * @param day       день
+     * @param occupancy наблюдаемая занятость
+     * @throws PersistenceException при ошибке сохранения
+     */
+    public void raisePeak(Long lotId, String spaceType, LocalDate day, int occupancy) {
+        for (int attempt = 0; ; attempt++) {
+            List<Object> inserted = new ArrayList<>();
+            em.getTransaction().begin();
+            try {
+                int rows = em.createQuery("UPDATE LotDailyRollup r SET r.peakOccupancy = " +
+                                "CASE WHEN r.peakOccupancy < :occupancy THEN :occupancy ELSE r.peakOccupancy END " +
+                                "WHERE r.parkingLotId = :lotId AND r.day = :day AND r.spaceType = :type")
+                        .setParameter("occupancy", occupancy)
+                        .setParameter("lotId", lotId)
+                        .setParameter("day", day)
+                        .setParameter("type", spaceType)
+                        .executeUpdate();
+                if (rows == 0) {
+                    LotDailyRollup rollup = new LotDailyRollup(lotId, day, spaceType);
+                    rollup.setPeakOccupancy(occupancy);
+                    inserted.add(rollup);
+                    em.persist(rollup);
+                }
+                em.getTransaction().commit();
+                inserted.forEach(em::detach);
+                return;
+            } catch (PersistenceException e) {
+                rollback(inserted);
+                if (attempt == 0 && ParkingRecordDao.isUniqueViolation(e)) {
+                    continue;
+                }
+                throw new PersistenceException("Ошибка при обновлении пиковой занятости: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Атомарно заменяет все агрегаты за день пересчитанными значениями.
+
+     * @param day            день
+     * @param lotRollups     агрегаты по парковкам
+     * @param clientRollups  агрегаты по клиентам
+     * @throws PersistenceException при ошибке сохранения
+     */
+    public void replaceDay(LocalDate day, Collection<LotDailyRollup> lotRollups,
+                           Collection<ClientDailyRollup> clientRollups) {
+        em.getTransaction().begin();
+        try {
+            em.createQuery("DELETE FROM LotDailyRollup r WHERE r.day = :day")
+                    .setParameter("day", day).executeUpdate();
+            em.createQuery("DELETE FROM ClientDailyRollup r WHERE r.day = :day")
+                    .setParameter("day", day).executeUpdate();
+            lotRollups.forEach(em::persist);
+            clientRollups.forEach(em::persist);
+            em.getTransaction().commit();
+            lotRollups.forEach(em::detach);
+            clientRollups.forEach(em::detach);
+        } catch (PersistenceException e) {
+            em.getTransaction().rollback();
+            throw new PersistenceException("Ошибка при пересчёте агрегатов: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает агрегаты парковки за интервал дней включительно.
+
+     * @param lotId идентификатор парковки
+     * @param from  первый день
+     * @param to    последний день
+     * @return список агрегатов
+     */
+    public List<LotDailyRollup> findLotRollups(Long lotId, LocalDate from, LocalDate to) {
+        List<LotDailyRollup> rollups = em.createQuery("SELECT r FROM LotDailyRollup r WHERE r.parkingLotId = :lotId " +
+                        "AND r.day BETWEEN :from AND :to ORDER BY r.day", LotDailyRollup.class)
+                .setParameter("lotId", lotId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+        rollups.forEach(em::detach);
+        return rollups;
+    }
+
+    /**
+     * Возвращает агрегаты клиента за интервал дней включительно.
+
+     * @param clientId идентификатор клиента
+     * @param from     первый день
+     * @param to       последний день
+     * @return список агрегатов
+     */
+    public List<ClientDailyRollup> findClientRollups(Long clientId, LocalDate from, LocalDate to) {
+        List<ClientDailyRollup> rollups = em.createQuery("SELECT r FROM ClientDailyRollup r WHERE r.clientId = :clientId " +
+                        "AND r.day BETWEEN :from AND :to ORDER BY r.day", ClientDailyRollup.class)
+                .setParameter("clientId", clientId)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+        rollups.forEach(em::detach);
+        return rollups;
+    }
+
+    /**
+     * Откатывает транзакцию и отсоединяет вставленные в ней агрегаты, чтобы повтор начинался с чистого контекста.
+     */
+    private void rollback(List<Object> inserted) {
+        if (em.getTransaction().isActive()) {
+            em.getTransaction().rollback();
+        }
+        for (Object entity : inserted) {
+            if (em.contains(entity)) {
+                em.detach(entity);
+            }
+        }
+    }
+}
\ No newline at end of file
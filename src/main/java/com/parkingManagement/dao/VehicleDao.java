@@ -1,16 +1,25 @@
 package com.parkingManagement.dao;
 
+import com.parkingManagement.model.Client;
 import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.model.VehicleOwner;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceException;
 import jakarta.persistence.TypedQuery;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 /**
  * DAO для управления автомобилями в базе данных с использованием Hibernate.
  */
 public class VehicleDao {
+    private static final int RECENT_SCAN_FACTOR = 4;
+
     private final EntityManager em;
 
     /**
@@ -39,6 +48,42 @@ public class VehicleDao {
         }
     }
 
+    /**
+     * Создаёт автомобиль клиента по идентификатору клиента одной командой INSERT:
+     * клиент не загружается, автомобиль ссылается на него незагруженной ссылкой,
+     * а существование клиента проверяет внешний ключ.
+
+     * @param clientId     идентификатор клиента
+     * @param licensePlate регистрационный номер
+     * @param brand        марка или null
+     * @param model        модель или null
+     * @return созданный автомобиль или null, если клиента не существует
+     * @throws PersistenceException при любой другой ошибке сохранения
+     */
+    public Vehicle create(Long clientId, String licensePlate, String brand, String model) {
+        Client client = em.getReference(Client.class, clientId);
+        Vehicle vehicle = new Vehicle(null, client, licensePlate, brand, model);
+        em.getTransaction().begin();
+        try {
+            em.persist(vehicle);
+            em.getTransaction().commit();
+            return vehicle;
+        } catch (PersistenceException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            if (em.contains(vehicle)) {
+                em.detach(vehicle);
+            }
+            if (ParkingRecordDao.isForeignKeyViolation(e)) {
+                // Ссылка на несуществующего клиента не должна остаться в контексте постоянства
+                em.detach(client);
+                return null;
+            }
+            throw new PersistenceException("Ошибка при создании автомобиля: " + e.getMessage());
+        }
+    }
+
     /**
      * Находит автомобиль по идентификатору.
 
@@ -49,6 +94,62 @@ public class VehicleDao {
         return em.find(Vehicle.class, id);
     }
 
+    /**
+     * Находит автомобиль по точному регистрационному номеру вместе с владельцем.
+     * Поиск идёт по уникальному индексу номера одним запросом.
+
+     * @param licensePlate регистрационный номер
+     * @return автомобиль или null, если не найден
+     */
+    public Vehicle findByLicensePlate(String licensePlate) {
+        return em.createQuery("SELECT v FROM Vehicle v JOIN FETCH v.client WHERE v.licensePlate = :plate",
+                        Vehicle.class)
+                .setParameter("plate", licensePlate)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Возвращает регистрационный номер автомобиля, сохранённый в базе данных.
+     * Запрос читает один столбец и не затрагивает сущности в контексте постоянства.
+
+     * @param id идентификатор автомобиля
+     * @return номер или null, если автомобиль не найден
+     */
+    public String findLicensePlateById(Long id) {
+        return em.createQuery("SELECT v.licensePlate FROM Vehicle v WHERE v.id = :id", String.class)
+                .setParameter("id", id)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Возвращает автомобили с владельцами в порядке убывания времени последнего въезда.
+     * Читаются только последние limit * 4 въезда по индексу времени въезда, а не вся история,
+     * поэтому при частых повторных въездах автомобилей может вернуться меньше limit.
+
+     * @param limit максимальное число автомобилей
+     * @return снимки автомобилей с владельцами, начиная с недавно въезжавших
+     */
+    public List<VehicleOwner> findRecentOwners(int limit) {
+        List<VehicleOwner> owners = em.createQuery(
+                        "SELECT new com.parkingManagement.model.VehicleOwner(v.id, v.licensePlate, c.id, c.name) " +
+                        "FROM ParkingRecord p JOIN p.vehicle v JOIN v.client c ORDER BY p.entryTime DESC, p.id DESC",
+                        VehicleOwner.class)
+                .setMaxResults(limit * RECENT_SCAN_FACTOR)
+                .getResultList();
+        Map<Long, VehicleOwner> distinct = new LinkedHashMap<>();
+        for (VehicleOwner owner : owners) {
+            if (distinct.size() == limit) {
+                break;
+            }
+            distinct.putIfAbsent(owner.vehicleId(), owner);
+        }
+        return new ArrayList<>(distinct.values());
+    }
+
     /**
      * Возвращает список всех автомобилей.
 
@@ -59,6 +160,27 @@ public class VehicleDao {
         return query.getResultList();
     }
 
+    /**
+     * Передаёт обработчику идентификатор и регистрационный номер каждого автомобиля.
+     * Строки читаются потоком без создания сущностей.
+
+     * @param consumer обработчик пар идентификатор — номер
+     * @return число прочитанных автомобилей
+     */
+    public long forEachPlate(BiConsumer<Long, String> consumer) {
+        long[] count = {0};
+        try (Stream<Object[]> rows = em.createQuery("SELECT v.id, v.licensePlate FROM Vehicle v", Object[].class)
+                .setHint("org.hibernate.fetchSize", 10_000)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()) {
+            rows.forEach(row -> {
+                consumer.accept((Long) row[0], (String) row[1]);
+                count[0]++;
+            });
+        }
+        return count[0];
+    }
+
     /**
      * Обновляет автомобиль в базе данных.
 
@@ -0,0 +1,86 @@
+package com.parkingManagement.dao;
+
+import com.parkingManagement.model.LotVisitorSketch;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * DAO для дневных скетчей уникальных автомобилей по парковкам.
+ */
+public class VisitorSketchDao {
+    private final EntityManager em;
+
+    /**
+     * Создаёт новый VisitorSketchDao с указанным EntityManager.
+
+     * @param em менеджер сущностей Hibernate
+     */
+    public VisitorSketchDao(EntityManager em) {
+        this.em = em;
+    }
+
+    /**
+     * Находит регистры скетча парковки за день.
+
+     * @param lotId идентификатор парковки
+     * @param day   день въезда
+     * @return регистры или null, если скетч ещё не создан
+     */
+    public byte[] findRegisters(Long lotId, LocalDate day) {
+        List<LotVisitorSketch> found = findSketch(lotId, day);
+        return found.isEmpty() ? null : found.get(0).getRegisters();
+    }
+
+    /**
+     * Сохраняет регистры скетча парковки за день, создавая запись при отсутствии.
+
+     * @param lotId     идентификатор парковки
+     * @param day       день въезда
+     * @param registers регистры HyperLogLog
+     * @throws PersistenceException при ошибке сохранения
+     */
+    public void save(Long lotId, LocalDate day, byte[] registers) {
+        em.getTransaction().begin();
+        try {
+            List<LotVisitorSketch> found = findSketch(lotId, day);
+            if (found.isEmpty()) {
+                em.persist(new LotVisitorSketch(lotId, day, registers));
+            } else {
+                found.get(0).setRegisters(registers);
+            }
+            em.getTransaction().commit();
+        } catch (PersistenceException e) {
+            em.getTransaction().rollback();
+            throw new PersistenceException("Ошибка при сохранении скетча уникальных автомобилей: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Возвращает скетчи группы парковок за интервал дней включительно.
+
+     * @param lotIds идентификаторы парковок
+     * @param from   первый день
+     * @param to     последний день
+     * @return список скетчей
+     */
+    public List<LotVisitorSketch> findSketches(Collection<Long> lotIds, LocalDate from, LocalDate to) {
+        return em.createQuery("SELECT s FROM LotVisitorSketch s WHERE s.parkingLotId IN :lotIds " +
+                        "AND s.day BETWEEN :from AND :to", LotVisitorSketch.class)
+                .setParameter("lotIds", lotIds)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList();
+    }
+
+    private List<LotVisitorSketch> findSketch(Long lotId, LocalDate day) {
+        return em.createQuery("SELECT s FROM LotVisitorSketch s WHERE s.parkingLotId = :lotId " +
+                        "AND s.day = :day", LotVisitorSketch.class)
+                .setParameter("lotId", lotId)
+                .setParameter("day", day)
+                .getResultList();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.parkingManagement.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Id;
+import jakarta.persistence.Column;
+import java.time.LocalDateTime;
+
+/**
+ * Контрольная точка пакетной задачи для возобновления после прерывания.
+ */
+@Entity
+@Table(name = "batch_checkpoint")
+public class BatchCheckpoint {
+    @Id
+    @Column(name = "job_name", length = 50)
+    private String jobName;
+
+    @Column(name = "last_position", nullable = false)
+    private Long position;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Конструктор по умолчанию для Hibernate.
+     */
+    public BatchCheckpoint() {
+    }
+
+    /**
+     * Конструктор для создания контрольной точки.
+
+     * @param jobName   имя пакетной задачи
+     * @param position  последняя обработанная позиция
+     * @param updatedAt время сохранения
+     */
+    public BatchCheckpoint(String jobName, Long position, LocalDateTime updatedAt) {
+        this.jobName = jobName;
+        this.position = position;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.parkingManagement.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Id;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Column;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+/**
+ * Дневной агрегат по клиенту: число визитов и суммарное время стоянки.
+ */
+@Entity
+@Table(name = "client_daily_rollup",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"client_id", "rollup_day"}))
+public class ClientDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "client_id", nullable = false)
+    private Long clientId;
+
+    @Column(name = "rollup_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "visit_count", nullable = false)
+    private Long visitCount = 0L;
+
+    @Column(name = "total_dwell_minutes", nullable = false)
+    private Long totalDwellMinutes = 0L;
+
+    /**
+     * Конструктор по умолчанию для Hibernate.
+     */
+    public ClientDailyRollup() {
+    }
+
+    /**
+     * Конструктор для создания пустого агрегата.
+
+     * @param clientId идентификатор клиента
+     * @param day      день
+     */
+    public ClientDailyRollup(Long clientId, LocalDate day) {
+        this.clientId = clientId;
+        this.day = day;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(Long clientId) {
+        this.clientId = clientId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public Long getVisitCount() {
+        return visitCount;
+    }
+
+    public void setVisitCount(Long visitCount) {
+        this.visitCount = visitCount;
+    }
+
+    public Long getTotalDwellMinutes() {
+        return totalDwellMinutes;
+    }
+
+    public void setTotalDwellMinutes(Long totalDwellMinutes) {
+        this.totalDwellMinutes = totalDwellMinutes;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,108 @@
+package com.parkingManagement.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Id;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Column;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+/**
+ * Сериализованная гистограмма длительностей стоянки в секундах по парковке, типу места и дню въезда.
+ */
+@Entity
+@Table(name = "dwell_sketch",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"parking_lot_id", "sketch_day", "space_type"}))
+public class DwellSketch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "parking_lot_id", nullable = false)
+    private Long parkingLotId;
+
+    @Column(name = "sketch_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "space_type", nullable = false, length = 20)
+    private String spaceType;
+
+    @Column(name = "sample_count", nullable = false)
+    private Long sampleCount = 0L;
+
+    @Column(name = "sketch_data", nullable = false, length = 65536)
+    private byte[] data;
+
+    /**
+     * Конструктор по умолчанию для Hibernate.
+     */
+    public DwellSketch() {
+    }
+
+    /**
+     * Конструктор для создания гистограммы.
+
+     * @param parkingLotId идентификатор парковки
+     * @param day          день въезда
+     * @param spaceType    тип парковочного места
+     * @param sampleCount  число учтённых сессий
+     * @param data         сериализованная гистограмма
+     */
+    public DwellSketch(Long parkingLotId, LocalDate day, String spaceType, Long sampleCount, byte[] data) {
+        this.parkingLotId = parkingLotId;
+        this.day = day;
+        this.spaceType = spaceType;
+        this.sampleCount = sampleCount;
+        this.data = data;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getParkingLotId() {
+        return parkingLotId;
+    }
+
+    public void setParkingLotId(Long parkingLotId) {
+        this.parkingLotId = parkingLotId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public String getSpaceType() {
+        return spaceType;
+    }
+
+    public void setSpaceType(String spaceType) {
+        this.spaceType = spaceType;
+    }
+
+    public Long getSampleCount() {
+        return sampleCount;
+    }
+
+    public void setSampleCount(Long sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+}
\ No newline at end of file
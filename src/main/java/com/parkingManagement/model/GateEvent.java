@@ -0,0 +1,30 @@
+package com.parkingManagement.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие контроллера ворот: въезд автомобиля на место или выезд автомобиля.
+
+ * @param type      тип события
+ * @param vehicleId идентификатор автомобиля
+ * @param spaceId   идентификатор места для въезда или null для выезда
+ * @param time      время события
+ */
+public record GateEvent(Type type, Long vehicleId, Long spaceId, LocalDateTime time) {
+
+    /**
+     * Тип события ворот.
+     */
+    public enum Type {
+        ENTRY,
+        EXIT
+    }
+
+    public static GateEvent entry(Long vehicleId, Long spaceId, LocalDateTime time) {
+        return new GateEvent(Type.ENTRY, vehicleId, spaceId, time);
+    }
+
+    public static GateEvent exit(Long vehicleId, LocalDateTime time) {
+        return new GateEvent(Type.EXIT, vehicleId, null, time);
+    }
+}
\ No newline at end of file
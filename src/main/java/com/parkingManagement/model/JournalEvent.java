@@ -0,0 +1,111 @@
+package com.parkingManagement.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Неизменяемое событие журнала операций. Идентификатор события служит его смещением в журнале.
+ * Кроме снимка объекта в JSON событие хранит идентификаторы парковки и клиента,
+ * по которым модели чтения делят события между потоками при воспроизведении.
+ */
+@Entity
+@Table(name = "journal_event")
+public class JournalEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 30)
+    private Type type;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(name = "parking_lot_id")
+    private Long lotId;
+
+    @Column(name = "client_id")
+    private Long clientId;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "payload", nullable = false, length = 4000)
+    private String payload;
+
+    /**
+     * Тип события.
+     */
+    public enum Type {
+        LOT_CREATED, LOT_UPDATED, LOT_DELETED,
+        SPACE_CREATED, SPACE_UPDATED, SPACE_DELETED,
+        CLIENT_CREATED, CLIENT_UPDATED, CLIENT_DELETED,
+        VEHICLE_CREATED, VEHICLE_UPDATED, VEHICLE_DELETED,
+        CHECK_IN, CHECK_OUT, RECORD_UPDATED, RECORD_DELETED
+    }
+
+    /**
+     * Конструктор по умолчанию для Hibernate.
+     */
+    protected JournalEvent() {
+    }
+
+    /**
+     * Конструктор для создания события.
+
+     * @param id          смещение события или null для нового события
+     * @param type        тип события
+     * @param aggregateId идентификатор изменённого объекта
+     * @param lotId       идентификатор парковки или null, если событие к парковке не относится
+     * @param clientId    идентификатор клиента или null, если событие к клиенту не относится
+     * @param occurredAt  время события
+     * @param payload     снимок объекта в JSON
+     */
+    public JournalEvent(Long id, Type type, Long aggregateId, Long lotId, Long clientId,
+                        LocalDateTime occurredAt, String payload) {
+        this.id = id;
+        this.type = type;
+        this.aggregateId = aggregateId;
+        this.lotId = lotId;
+        this.clientId = clientId;
+        this.occurredAt = occurredAt;
+        this.payload = payload;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public Long getLotId() {
+        return lotId;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public LocalDateTime getOccurredAt() {
+        return occurredAt;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+package com.parkingManagement.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Id;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Column;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+/**
+ * Дневной агрегат по парковке и типу места: визиты, суммарное время стоянки и пиковая занятость.
+ */
+@Entity
+@Table(name = "lot_daily_rollup",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"parking_lot_id", "rollup_day", "space_type"}))
+public class LotDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "parking_lot_id", nullable = false)
+    private Long parkingLotId;
+
+    @Column(name = "rollup_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "space_type", nullable = false, length = 20)
+    private String spaceType;
+
+    @Column(name = "visit_count", nullable = false)
+    private Long visitCount = 0L;
+
+    @Column(name = "total_dwell_minutes", nullable = false)
+    private Long totalDwellMinutes = 0L;
+
+    @Column(name = "peak_occupancy", nullable = false)
+    private Integer peakOccupancy = 0;
+
+    /**
+     * Конструктор по умолчанию для Hibernate.
+     */
+    public LotDailyRollup() {
+    }
+
+    /**
+     * Конструктор для создания пустого агрегата.
+
+     * @param parkingLotId идентификатор парковки
+     * @param day          день
+     * @param spaceType    тип парковочного места
+     */
+    public LotDailyRollup(Long parkingLotId, LocalDate day, String spaceType) {
+        this.parkingLotId = parkingLotId;
+        this.day = day;
+        this.spaceType = spaceType;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getParkingLotId() {
+        return parkingLotId;
+    }
+
+    public void setParkingLotId(Long parkingLotId) {
+        this.parkingLotId = parkingLotId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public String getSpaceType() {
+        return spaceType;
+    }
+
+    public void setSpaceType(String spaceType) {
+        this.spaceType = spaceType;
+    }
+
+    public Long getVisitCount() {
+        return visitCount;
+    }
+
+    public void setVisitCount(Long visitCount) {
+        this.visitCount = visitCount;
+    }
+
+    public Long getTotalDwellMinutes() {
+        return totalDwellMinutes;
+    }
+
+    public void setTotalDwellMinutes(Long totalDwellMinutes) {
+        this.totalDwellMinutes = totalDwellMinutes;
+    }
+
+    public Integer getPeakOccupancy() {
+        return peakOccupancy;
+    }
+
+    public void setPeakOccupancy(Integer peakOccupancy) {
+        this.peakOccupancy = peakOccupancy;
+    }
+}
\ No newline at end of file
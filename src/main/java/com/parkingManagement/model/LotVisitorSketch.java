@@ -0,0 +1,82 @@
+package com.parkingManagement.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.Id;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Column;
+import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+/**
+ * Регистры HyperLogLog для подсчёта уникальных автомобилей парковки за день въезда.
+ */
+@Entity
+@Table(name = "lot_visitor_sketch",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"parking_lot_id", "sketch_day"}))
+public class LotVisitorSketch {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "parking_lot_id", nullable = false)
+    private Long parkingLotId;
+
+    @Column(name = "sketch_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "registers", nullable = false, length = 4096)
+    private byte[] registers;
+
+    /**
+     * Конструктор по умолчанию для Hibernate.
+     */
+    public LotVisitorSketch() {
+    }
+
+    /**
+     * Конструктор для создания скетча.
+
+     * @param parkingLotId идентификатор парковки
+     * @param day          день въезда
+     * @param registers    регистры HyperLogLog
+     */
+    public LotVisitorSketch(Long parkingLotId, LocalDate day, byte[] registers) {
+        this.parkingLotId = parkingLotId;
+        this.day = day;
+        this.registers = registers;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getParkingLotId() {
+        return parkingLotId;
+    }
+
+    public void setParkingLotId(Long parkingLotId) {
+        this.parkingLotId = parkingLotId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public byte[] getRegisters() {
+        return registers;
+    }
+
+    public void setRegisters(byte[] registers) {
+        this.registers = registers;
+    }
+}
\ No newline at end of file
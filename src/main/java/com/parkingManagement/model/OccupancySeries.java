@@ -0,0 +1,26 @@
+package com.parkingManagement.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Поминутный ряд занятости: counts[i] — число автомобилей на парковке
+ * в момент start + i минут.
+
+ * @param start  момент первой точки ряда
+ * @param counts занятость по минутам
+ */
+public record OccupancySeries(LocalDateTime start, int[] counts) {
+
+    /**
+     * Возвращает максимальную занятость ряда.
+
+     * @return пиковая занятость или 0 для пустого ряда
+     */
+    public int peak() {
+        int peak = 0;
+        for (int count : counts) {
+            peak = Math.max(peak, count);
+        }
+        return peak;
+    }
+}
\ No newline at end of file
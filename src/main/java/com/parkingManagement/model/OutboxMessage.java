@@ -0,0 +1,96 @@
+package com.parkingManagement.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Сообщение исходящей очереди (outbox) об изменении записи о парковке.
+ * Записывается в той же транзакции, что и изменение, и удаляется после подтверждения доставки.
+ */
+@Entity
+@Table(name = "outbox_message")
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "message_type", nullable = false, length = 20)
+    private Type type;
+
+    @Column(name = "record_id", nullable = false)
+    private Long recordId;
+
+    @Column(name = "parking_lot_id", nullable = false)
+    private Long lotId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "payload", nullable = false, length = 1000)
+    private String payload;
+
+    /**
+     * Тип сообщения.
+     */
+    public enum Type {
+        CHECK_IN, CHECK_OUT, RECORD_UPDATED, RECORD_DELETED
+    }
+
+    /**
+     * Конструктор по умолчанию для Hibernate.
+     */
+    protected OutboxMessage() {
+    }
+
+    /**
+     * Конструктор для создания сообщения.
+
+     * @param id        идентификатор сообщения или null для нового сообщения
+     * @param type      тип сообщения
+     * @param recordId  идентификатор записи о парковке
+     * @param lotId     идентификатор парковки, задаёт поток упорядоченной доставки
+     * @param createdAt время создания
+     * @param payload   снимок записи в JSON
+     */
+    public OutboxMessage(Long id, Type type, Long recordId, Long lotId, LocalDateTime createdAt, String payload) {
+        this.id = id;
+        this.type = type;
+        this.recordId = recordId;
+        this.lotId = lotId;
+        this.createdAt = createdAt;
+        this.payload = payload;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Long getRecordId() {
+        return recordId;
+    }
+
+    public Long getLotId() {
+        return lotId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+}
\ No newline at end of file
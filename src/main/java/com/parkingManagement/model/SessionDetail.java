@@ -0,0 +1,22 @@
+package com.parkingManagement.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Плоская проекция записи о парковке с данными клиента, автомобиля и места
+ * для выгрузок и счетов. Загружается одним запросом с соединениями.
+
+ * @param recordId     идентификатор записи
+ * @param clientId     идентификатор клиента
+ * @param clientName   имя клиента
+ * @param licensePlate регистрационный номер автомобиля
+ * @param lotName      название парковки
+ * @param spaceNumber  номер парковочного места
+ * @param spaceType    тип парковочного места
+ * @param entryTime    время въезда
+ * @param exitTime     время выезда или null для открытой сессии
+ */
+public record SessionDetail(Long recordId, Long clientId, String clientName, String licensePlate,
+                            String lotName, String spaceNumber, String spaceType,
+                            LocalDateTime entryTime, LocalDateTime exitTime) {
+}
\ No newline at end of file
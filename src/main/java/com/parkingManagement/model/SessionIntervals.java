@@ -0,0 +1,55 @@
+package com.parkingManagement.model;
+
+import java.util.Arrays;
+
+/**
+ * Колоночный буфер интервалов сессий в секундах от эпохи.
+ * Хранит только примитивные массивы, без сущностей и объектов времени.
+ * Для открытой сессии время выезда равно Long.MAX_VALUE.
+ */
+public class SessionIntervals {
+    public static final long OPEN = Long.MAX_VALUE;
+
+    private long[] entries;
+    private long[] exits;
+    private int size;
+
+    /**
+     * Конструктор для создания пустого буфера.
+
+     * @param initialCapacity начальная ёмкость
+     */
+    public SessionIntervals(int initialCapacity) {
+        entries = new long[Math.max(16, initialCapacity)];
+        exits = new long[entries.length];
+    }
+
+    /**
+     * Добавляет интервал сессии.
+
+     * @param entryEpochSecond время въезда в секундах от эпохи
+     * @param exitEpochSecond  время выезда в секундах от эпохи или OPEN
+     */
+    public void add(long entryEpochSecond, long exitEpochSecond) {
+        if (size == entries.length) {
+            int capacity = entries.length + (entries.length >> 1);
+            entries = Arrays.copyOf(entries, capacity);
+            exits = Arrays.copyOf(exits, capacity);
+        }
+        entries[size] = entryEpochSecond;
+        exits[size] = exitEpochSecond;
+        size++;
+    }
+
+    public long[] getEntries() {
+        return entries;
+    }
+
+    public long[] getExits() {
+        return exits;
+    }
+
+    public int size() {
+        return size;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.parkingManagement.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Плоская проекция записи о парковке для аналитических и пакетных задач.
+ * Загружается одним запросом без сущностей и ленивых связей.
+
+ * @param recordId  идентификатор записи
+ * @param spaceId   идентификатор парковочного места
+ * @param lotId     идентификатор парковки
+ * @param spaceType тип парковочного места
+ * @param vehicleId идентификатор автомобиля
+ * @param clientId  идентификатор клиента
+ * @param entryTime время въезда
+ * @param exitTime  время выезда или null для открытой сессии
+ */
+public record SessionRow(Long recordId, Long spaceId, Long lotId, String spaceType,
+                         Long vehicleId, Long clientId, LocalDateTime entryTime, LocalDateTime exitTime) {
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.parkingManagement.model;
+
+/**
+ * Тип парковочного места. Порядковый номер используется как индекс в таблицах
+ * аналитических компонентов, поэтому порядок констант менять нельзя.
+ */
+public enum SpaceType {
+    REGULAR,
+    DISABLED,
+    VIP;
+
+    private static final SpaceType[] VALUES = values();
+
+    /**
+     * Возвращает тип места по строковому значению из сущности ParkingSpace.
+
+     * @param type строковое значение типа без учёта регистра
+     * @return тип места
+     * @throws IllegalArgumentException при неизвестном типе
+     */
+    public static SpaceType of(String type) {
+        if (type == null) {
+            throw new IllegalArgumentException("Тип места обязателен");
+        }
+        for (SpaceType value : VALUES) {
+            if (value.name().equalsIgnoreCase(type)) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Тип места должен быть REGULAR, DISABLED или VIP");
+    }
+
+    /**
+     * Возвращает тип места по порядковому номеру.
+
+     * @param ordinal порядковый номер
+     * @return тип места
+     */
+    public static SpaceType ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,154 @@
+package com.parkingManagement.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Тарифный план для одного типа парковочного места.
+ * Описывает почасовые ставки по дням недели и времени суток, ступени по длительности
+ * стоянки, бесплатный льготный период и дневной потолок. Все суммы в копейках.
+ * План — только описание правил; для расчёта он компилируется в TariffEngine.
+ */
+public class TariffPlan {
+    private final long defaultHourlyRate;
+    private final List<Period> periods = new ArrayList<>();
+    private final List<Tier> tiers = new ArrayList<>();
+    private int graceMinutes;
+    private long dailyCap;
+
+    /**
+     * Ставка, действующая в указанные дни недели и интервал времени суток.
+
+     * @param days       дни недели
+     * @param from       начало интервала включительно
+     * @param to         конец интервала не включительно; если не позже начала, интервал переходит через полночь
+     * @param hourlyRate ставка в копейках за час
+     */
+    public record Period(Set<DayOfWeek> days, LocalTime from, LocalTime to, long hourlyRate) {
+    }
+
+    /**
+     * Ступень тарифа: начиная с указанной минуты стоянки ставка умножается на процент.
+
+     * @param fromMinute минута стоянки, с которой действует ступень
+     * @param percent    процент от базовой ставки
+     */
+    public record Tier(int fromMinute, int percent) {
+    }
+
+    /**
+     * Конструктор для создания тарифного плана.
+
+     * @param defaultHourlyRate ставка в копейках за час вне заданных интервалов
+     * @throws IllegalArgumentException при отрицательной ставке
+     */
+    public TariffPlan(long defaultHourlyRate) {
+        if (defaultHourlyRate < 0) {
+            throw new IllegalArgumentException("Ставка не может быть отрицательной");
+        }
+        this.defaultHourlyRate = defaultHourlyRate;
+    }
+
+    /**
+     * Добавляет ставку для интервала времени суток во все дни недели.
+
+     * @param from       начало интервала
+     * @param to         конец интервала
+     * @param hourlyRate ставка в копейках за час
+     * @return этот план
+     */
+    public TariffPlan addPeriod(LocalTime from, LocalTime to, long hourlyRate) {
+        return addPeriod(EnumSet.allOf(DayOfWeek.class), from, to, hourlyRate);
+    }
+
+    /**
+     * Добавляет ставку для интервала времени суток в указанные дни недели.
+     * Более поздние интервалы перекрывают более ранние.
+
+     * @param days       дни недели
+     * @param from       начало интервала
+     * @param to         конец интервала
+     * @param hourlyRate ставка в копейках за час
+     * @return этот план
+     * @throws IllegalArgumentException при некорректных данных
+     */
+    public TariffPlan addPeriod(Set<DayOfWeek> days, LocalTime from, LocalTime to, long hourlyRate) {
+        if (days == null || days.isEmpty() || from == null || to == null) {
+            throw new IllegalArgumentException("Интервал тарифа задан некорректно");
+        }
+        if (hourlyRate < 0) {
+            throw new IllegalArgumentException("Ставка не может быть отрицательной");
+        }
+        periods.add(new Period(EnumSet.copyOf(days), from, to, hourlyRate));
+        return this;
+    }
+
+    /**
+     * Добавляет ступень по длительности стоянки.
+
+     * @param fromMinute минута стоянки, с которой действует ступень
+     * @param percent    процент от базовой ставки
+     * @return этот план
+     * @throws IllegalArgumentException при некорректных данных
+     */
+    public TariffPlan addTier(int fromMinute, int percent) {
+        if (fromMinute < 0 || percent < 0) {
+            throw new IllegalArgumentException("Ступень тарифа задана некорректно");
+        }
+        tiers.add(new Tier(fromMinute, percent));
+        return this;
+    }
+
+    /**
+     * Устанавливает льготный период: стоянка не дольше него бесплатна.
+
+     * @param graceMinutes длительность льготного периода в минутах
+     * @return этот план
+     */
+    public TariffPlan setGraceMinutes(int graceMinutes) {
+        if (graceMinutes < 0) {
+            throw new IllegalArgumentException("Льготный период не может быть отрицательным");
+        }
+        this.graceMinutes = graceMinutes;
+        return this;
+    }
+
+    /**
+     * Устанавливает потолок стоимости за каждые полные или неполные сутки стоянки.
+
+     * @param dailyCap потолок в копейках; 0 означает отсутствие потолка
+     * @return этот план
+     */
+    public TariffPlan setDailyCap(long dailyCap) {
+        if (dailyCap < 0) {
+            throw new IllegalArgumentException("Потолок не может быть отрицательным");
+        }
+        this.dailyCap = dailyCap;
+        return this;
+    }
+
+    public long getDefaultHourlyRate() {
+        return defaultHourlyRate;
+    }
+
+    public List<Period> getPeriods() {
+        return Collections.unmodifiableList(periods);
+    }
+
+    public List<Tier> getTiers() {
+        return Collections.unmodifiableList(tiers);
+    }
+
+    public int getGraceMinutes() {
+        return graceMinutes;
+    }
+
+    public long getDailyCap() {
+        return dailyCap;
+    }
+}
\ No newline at end of file
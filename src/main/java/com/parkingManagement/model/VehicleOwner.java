@@ -0,0 +1,13 @@
+package com.parkingManagement.model;
+
+/**
+ * Неизменяемый снимок автомобиля и его владельца для кэша поиска по номеру.
+ * В отличие от сущностей не привязан к EntityManager и может использоваться из любых потоков.
+
+ * @param vehicleId    идентификатор автомобиля
+ * @param licensePlate регистрационный номер
+ * @param clientId     идентификатор клиента-владельца
+ * @param clientName   имя клиента-владельца
+ */
+public record VehicleOwner(Long vehicleId, String licensePlate, Long clientId, String clientName) {
+}
\ No newline at end of file
@@ -0,0 +1,676 @@
+package com.parkingManagement.server;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.SessionRow;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.service.ClientService;
+import com.parkingManagement.service.EventJournal;
+import com.parkingManagement.service.ParkingLotService;
+import com.parkingManagement.service.ParkingRecordListener;
+import com.parkingManagement.service.ParkingRecordService;
+import com.parkingManagement.service.VehicleService;
+import com.parkingManagement.util.JsonParser;
+import com.parkingManagement.util.JsonWriter;
+import com.parkingManagement.util.PlateIndex;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Встроенный HTTP-сервер с JSON API поверх сервисного слоя для веб- и мобильных клиентов.
+ * <pre>
+ * GET|POST            /api/lots               GET|PUT|DELETE /api/lots/{id}
+ * GET|POST            /api/clients            GET|PUT|DELETE /api/clients/{id}
+ * GET|POST            /api/vehicles[?plate=]  GET|PUT|DELETE /api/vehicles/{id}
+ * GET[?after=]|POST   /api/records            GET|DELETE     /api/records/{id}
+ * POST                /api/records/{id}/checkout
+ * </pre>
+ * Каждый запрос выполняется в отдельной задаче со своим EntityManager и своими сервисами, поэтому
+ * запросы не разделяют контекст персистентности. В режиме VIRTUAL каждая задача получает
+ * виртуальный поток (JDK 21 и новее), и число одновременных запросов ограничено только пулом
+ * соединений базы. В режиме PLATFORM задачи выполняет ограниченный пул платформенных потоков
+ * с ограниченной очередью; при переполнении очереди запрос выполняет поток приёма соединений,
+ * и сервер перестаёт принимать новые соединения, пока не освободится.
+ * Списки отдаются потоково (chunked): JSON пишется в ответ по мере чтения строк из базы.
+ */
+public class ApiServer implements AutoCloseable {
+    static final String PREFIX = "/api/";
+    private static final int MAX_BODY_SIZE = 64 * 1024;
+    private static final int RESPONSE_BUFFER_SIZE = 16 * 1024;
+    private static final int BACKLOG = 1024;
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final long STOP_TIMEOUT_SECONDS = 5;
+
+    /**
+     * Режим выполнения запросов.
+     */
+    public enum ExecutionMode {
+        /** Поток на запрос на виртуальных потоках (JDK 21 и новее). */
+        VIRTUAL,
+        /** Ограниченный пул платформенных потоков. */
+        PLATFORM
+    }
+
+    /**
+     * Счётчики сервера.
+
+     * @param requests     обработанные запросы
+     * @param clientErrors ответы с кодом 4xx
+     * @param serverErrors ответы с кодом 5xx
+     */
+    public record Metrics(long requests, long clientErrors, long serverErrors) {
+    }
+
+    /**
+     * Ответ с кодом ошибки HTTP, отличным от 400.
+     */
+    private static final class HttpError extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        final int status;
+
+        HttpError(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private final InetSocketAddress address;
+    private final ExecutionMode mode;
+    private final int platformThreads;
+    private final int queueCapacity;
+    private final EntityManagerFactory emf;
+    private final VehicleService.Builder vehicles;
+    private final boolean outbox;
+    private final EventJournal journal;
+    private final List<ParkingRecordListener> listeners;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder clientErrors = new LongAdder();
+    private final LongAdder serverErrors = new LongAdder();
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Создаёт сервер.
+
+     * @param address         адрес для прослушивания; порт 0 выбирает свободный порт
+     * @param mode            режим выполнения запросов
+     * @param platformThreads число потоков пула для режима PLATFORM
+     * @param queueCapacity   ёмкость очереди пула для режима PLATFORM
+     * @param emf             фабрика менеджеров сущностей
+     * @param plateIndex      общий индекс регистрационных номеров или null, если поиск по номеру не нужен
+     * @param listeners       потокобезопасные слушатели въездов и выездов
+     * @throws IllegalArgumentException при некорректных параметрах
+     * @throws IllegalStateException    если режим VIRTUAL недоступен в текущей JVM
+     */
+    public ApiServer(InetSocketAddress address, ExecutionMode mode, int platformThreads, int queueCapacity,
+                     EntityManagerFactory emf, PlateIndex plateIndex, List<ParkingRecordListener> listeners) {
+        this(address, mode, platformThreads, queueCapacity, emf, VehicleService.builder().plateIndex(plateIndex), false,
+                null, listeners);
+    }
+
+    /**
+     * Создаёт сервер, который поддерживает общие кэши номеров: новые номера добавляются в фильтр,
+     * а изменение и удаление автомобилей и клиентов сбрасывают записи кэша владельцев.
+     * С исходящей очередью каждое изменение записи о парковке записывается в outbox_message
+     * в той же транзакции, что и само изменение. С журналом операций изменения парковок, клиентов,
+     * автомобилей и записей о парковке журналируются так же, как из консоли.
+
+     * @param address         адрес для прослушивания; порт 0 выбирает свободный порт
+     * @param mode            режим выполнения запросов
+     * @param platformThreads число потоков пула для режима PLATFORM
+     * @param queueCapacity   ёмкость очереди пула для режима PLATFORM
+     * @param emf             фабрика менеджеров сущностей
+     * @param vehicles        общие настройки сервиса автомобилей: индекс, кэш владельцев, фильтр номеров
+     *                        и журнал изменений автомобилей
+     * @param outbox          записывать изменения записей о парковке в исходящую очередь
+     * @param journal         общий журнал операций или null, если изменения не журналируются
+     * @param listeners       потокобезопасные слушатели въездов и выездов
+     * @throws IllegalArgumentException при некорректных параметрах
+     * @throws IllegalStateException    если режим VIRTUAL недоступен в текущей JVM
+     */
+    public ApiServer(InetSocketAddress address, ExecutionMode mode, int platformThreads, int queueCapacity,
+                     EntityManagerFactory emf, VehicleService.Builder vehicles, boolean outbox, EventJournal journal,
+                     List<ParkingRecordListener> listeners) {
+        if (address == null || mode == null || emf == null || vehicles == null) {
+            throw new IllegalArgumentException(
+                    "Адрес, режим выполнения, фабрика менеджеров сущностей и настройки автомобилей обязательны");
+        }
+        if (platformThreads <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Число потоков и ёмкость очереди должны быть положительными");
+        }
+        if (mode == ExecutionMode.VIRTUAL && !isVirtualThreadsSupported()) {
+            throw new IllegalStateException("Виртуальные потоки недоступны: требуется JDK 21 или новее");
+        }
+        this.address = address;
+        this.mode = mode;
+        this.platformThreads = platformThreads;
+        this.queueCapacity = queueCapacity;
+        this.emf = emf;
+        this.vehicles = vehicles;
+        this.outbox = outbox;
+        this.journal = journal;
+        this.listeners = List.copyOf(listeners);
+    }
+
+    /**
+     * Проверяет, поддерживает ли текущая JVM виртуальные потоки.
+
+     * @return true для JDK 21 и новее
+     */
+    public static boolean isVirtualThreadsSupported() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Возвращает предпочтительный режим для текущей JVM.
+
+     * @return VIRTUAL, если виртуальные потоки доступны, иначе PLATFORM
+     */
+    public static ExecutionMode defaultMode() {
+        return isVirtualThreadsSupported() ? ExecutionMode.VIRTUAL : ExecutionMode.PLATFORM;
+    }
+
+    /**
+     * Открывает порт и начинает обслуживать запросы.
+
+     * @return фактический порт сервера
+     * @throws IllegalStateException если сервер уже запущен
+     * @throws UncheckedIOException  при ошибке открытия порта
+     */
+    public synchronized int start() {
+        if (server != null) {
+            throw new IllegalStateException("HTTP-сервер уже запущен");
+        }
+        try {
+            server = HttpServer.create(address, BACKLOG);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка открытия порта HTTP-сервера: " + e.getMessage(), e);
+        }
+        executor = mode == ExecutionMode.VIRTUAL ? newVirtualThreadExecutor() : newPlatformExecutor();
+        server.setExecutor(executor);
+        server.createContext(PREFIX, this::handle);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Прекращает приём запросов и дожидается завершения выполняемых.
+     */
+    @Override
+    public synchronized void close() {
+        if (server == null) {
+            return;
+        }
+        server.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(STOP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+    }
+
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(requests.sum(), clientErrors.sum(), serverErrors.sum());
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            // Вызов через отражение, чтобы сборка оставалась совместимой с JDK 17
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Виртуальные потоки недоступны: " + e.getMessage());
+        }
+    }
+
+    private ExecutorService newPlatformExecutor() {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(platformThreads, platformThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "api-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    private void handle(HttpExchange exchange) {
+        requests.increment();
+        EntityManager em = emf.createEntityManager();
+        try {
+            route(exchange, em);
+        } catch (HttpError e) {
+            error(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            error(exchange, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            error(exchange, 501, e.getMessage());
+        } catch (PersistenceException e) {
+            error(exchange, 500, e.getMessage());
+        } catch (IOException | UncheckedIOException e) {
+            // Клиент закрыл соединение во время ответа
+        } catch (RuntimeException e) {
+            error(exchange, 500, "Внутренняя ошибка сервера: " + e.getMessage());
+        } finally {
+            em.close();
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange, EntityManager em) throws IOException {
+        String[] segments = exchange.getRequestURI().getPath().substring(PREFIX.length()).split("/");
+        Long id = segments.length > 1 ? parseId(segments[1]) : null;
+        String action = segments.length > 2 ? segments[2] : null;
+        if (segments.length > 3 || (action != null && !segments[0].equals("records"))) {
+            throw new HttpError(404, "Ресурс не найден");
+        }
+        switch (segments[0]) {
+            case "lots" -> lots(exchange, em, id);
+            case "clients" -> clients(exchange, em, id);
+            case "vehicles" -> vehicles(exchange, em, id);
+            case "records" -> records(exchange, em, id, action);
+            default -> throw new HttpError(404, "Ресурс не найден");
+        }
+    }
+
+    private void lots(HttpExchange exchange, EntityManager em, Long id) throws IOException {
+        ParkingLotService service = new ParkingLotService(new ParkingLotDao(em), null, journal);
+        String method = exchange.getRequestMethod();
+        if (id == null) {
+            if (method.equals("GET")) {
+                List<ParkingLot> lots = service.getAllParkingLots();
+                stream(exchange, json -> writeList(json, lots, this::writeLot));
+            } else if (method.equals("POST")) {
+                ParkingLot lot = readLot(readBody(exchange), null);
+                service.createParkingLot(lot);
+                respond(exchange, 201, json -> writeLot(json, lot));
+            } else {
+                throw methodNotAllowed();
+            }
+            return;
+        }
+        requireExists(em, ParkingLot.class, id);
+        switch (method) {
+            case "GET" -> {
+                ParkingLot lot = service.getParkingLot(id);
+                respond(exchange, 200, json -> writeLot(json, lot));
+            }
+            case "PUT" -> {
+                ParkingLot lot = readLot(readBody(exchange), id);
+                service.updateParkingLot(lot);
+                respond(exchange, 200, json -> writeLot(json, lot));
+            }
+            case "DELETE" -> {
+                service.deleteParkingLot(id);
+                respond(exchange, 204, null);
+            }
+            default -> throw methodNotAllowed();
+        }
+    }
+
+    private void clients(HttpExchange exchange, EntityManager em, Long id) throws IOException {
+        ClientService service = new ClientService(new ClientDao(em), journal, vehicles.getOwnerCache());
+        String method = exchange.getRequestMethod();
+        if (id == null) {
+            if (method.equals("GET")) {
+                List<Client> clients = service.getAllClients();
+                stream(exchange, json -> writeList(json, clients, this::writeClient));
+            } else if (method.equals("POST")) {
+                Client client = readClient(readBody(exchange), null);
+                service.createClient(client);
+                respond(exchange, 201, json -> writeClient(json, client));
+            } else {
+                throw methodNotAllowed();
+            }
+            return;
+        }
+        requireExists(em, Client.class, id);
+        switch (method) {
+            case "GET" -> {
+                Client client = service.getClient(id);
+                respond(exchange, 200, json -> writeClient(json, client));
+            }
+            case "PUT" -> {
+                Client client = readClient(readBody(exchange), id);
+                service.updateClient(client);
+                respond(exchange, 200, json -> writeClient(json, client));
+            }
+            case "DELETE" -> {
+                service.deleteClient(id);
+                respond(exchange, 204, null);
+            }
+            default -> throw methodNotAllowed();
+        }
+    }
+
+    private void vehicles(HttpExchange exchange, EntityManager em, Long id) throws IOException {
+        VehicleService service = vehicles.build(new VehicleDao(em));
+        String method = exchange.getRequestMethod();
+        if (id == null) {
+            if (method.equals("GET")) {
+                Map<String, String> query = parseQuery(exchange);
+                String plate = query.get("plate");
+                List<Vehicle> vehicles = plate == null ? service.getAllVehicles()
+                        : service.findVehiclesByPlate(plate, (int) parseLong(query.getOrDefault("distance", "0"), "distance"));
+                stream(exchange, json -> writeList(json, vehicles, this::writeVehicle));
+            } else if (method.equals("POST")) {
+                Map<String, Object> body = readBody(exchange);
+                Vehicle vehicle = service.createVehicle(requireLong(body, "clientId"),
+                        optionalString(body, "licensePlate"), optionalString(body, "brand"),
+                        optionalString(body, "model"));
+                respond(exchange, 201, json -> writeVehicle(json, vehicle));
+            } else {
+                throw methodNotAllowed();
+            }
+            return;
+        }
+        requireExists(em, Vehicle.class, id);
+        switch (method) {
+            case "GET" -> {
+                Vehicle vehicle = service.getVehicle(id);
+                respond(exchange, 200, json -> writeVehicle(json, vehicle));
+            }
+            case "PUT" -> {
+                Vehicle vehicle = readVehicle(readBody(exchange), id, em);
+                service.updateVehicle(vehicle);
+                respond(exchange, 200, json -> writeVehicle(json, vehicle));
+            }
+            case "DELETE" -> {
+                service.deleteVehicle(id);
+                respond(exchange, 204, null);
+            }
+            default -> throw methodNotAllowed();
+        }
+    }
+
+    private void records(HttpExchange exchange, EntityManager em, Long id, String action) throws IOException {
+        ParkingRecordDao recordDao = new ParkingRecordDao(em, outbox);
+        ParkingRecordService service = new ParkingRecordService(recordDao, journal);
+        listeners.forEach(service::addListener);
+        String method = exchange.getRequestMethod();
+        if (id == null) {
+            if (method.equals("GET")) {
+                long after = parseLong(parseQuery(exchange).getOrDefault("after", "0"), "after");
+                stream(exchange, json -> {
+                    json.beginArray();
+                    recordDao.forEachSession(after, row -> writeSession(json, row));
+                    json.endArray();
+                });
+            } else if (method.equals("POST")) {
+                Map<String, Object> body = readBody(exchange);
+                LocalDateTime entryTime = optionalTime(body, "entryTime");
+                ParkingRecord record = service.checkIn(requireLong(body, "spaceId"), requireLong(body, "vehicleId"),
+                        entryTime == null ? LocalDateTime.now() : entryTime);
+                respond(exchange, 201, json -> writeRecord(json, record));
+            } else {
+                throw methodNotAllowed();
+            }
+            return;
+        }
+        requireExists(em, ParkingRecord.class, id);
+        if ("checkout".equals(action)) {
+            if (!method.equals("POST")) {
+                throw methodNotAllowed();
+            }
+            LocalDateTime exitTime = optionalTime(readBody(exchange), "exitTime");
+            ParkingRecord record = service.checkOut(id, exitTime == null ? LocalDateTime.now() : exitTime);
+            respond(exchange, 200, json -> writeRecord(json, record));
+            return;
+        }
+        if (action != null) {
+            throw new HttpError(404, "Ресурс не найден");
+        }
+        switch (method) {
+            case "GET" -> {
+                ParkingRecord record = service.getParkingRecord(id);
+                respond(exchange, 200, json -> writeRecord(json, record));
+            }
+            case "DELETE" -> {
+                service.deleteParkingRecord(id);
+                respond(exchange, 204, null);
+            }
+            default -> throw methodNotAllowed();
+        }
+    }
+
+    private ParkingLot readLot(Map<String, Object> body, Long id) {
+        Integer capacity = body.get("capacity") == null ? null : (int) requireLong(body, "capacity");
+        return new ParkingLot(id, optionalString(body, "name"), optionalString(body, "address"), capacity);
+    }
+
+    private Client readClient(Map<String, Object> body, Long id) {
+        return new Client(id, optionalString(body, "name"), optionalString(body, "phone"),
+                optionalString(body, "email"));
+    }
+
+    private Vehicle readVehicle(Map<String, Object> body, Long id, EntityManager em) {
+        Client client = new ClientDao(em).findById(requireLong(body, "clientId"));
+        if (client == null) {
+            throw new IllegalArgumentException("Клиент с ID " + body.get("clientId") + " не найден");
+        }
+        return new Vehicle(id, client, optionalString(body, "licensePlate"), optionalString(body, "brand"),
+                optionalString(body, "model"));
+    }
+
+    private void writeLot(JsonWriter json, ParkingLot lot) {
+        json.beginObject()
+                .name("id").value(lot.getId())
+                .name("name").value(lot.getName())
+                .name("address").value(lot.getAddress())
+                .name("capacity").value(lot.getCapacity())
+                .endObject();
+    }
+
+    private void writeClient(JsonWriter json, Client client) {
+        json.beginObject()
+                .name("id").value(client.getId())
+                .name("name").value(client.getName())
+                .name("phone").value(client.getPhone())
+                .name("email").value(client.getEmail())
+                .endObject();
+    }
+
+    private void writeVehicle(JsonWriter json, Vehicle vehicle) {
+        json.beginObject()
+                .name("id").value(vehicle.getId())
+                .name("clientId").value(vehicle.getClient().getId())
+                .name("licensePlate").value(vehicle.getLicensePlate())
+                .name("brand").value(vehicle.getBrand())
+                .name("model").value(vehicle.getModel())
+                .endObject();
+    }
+
+    private void writeRecord(JsonWriter json, ParkingRecord record) {
+        ParkingSpace space = record.getParkingSpace();
+        writeSession(json, new SessionRow(record.getId(), space.getId(), space.getParkingLot().getId(), space.getType(),
+                record.getVehicle().getId(), record.getClient().getId(), record.getEntryTime(), record.getExitTime()));
+    }
+
+    private void writeSession(JsonWriter json, SessionRow row) {
+        json.beginObject()
+                .name("id").value(row.recordId())
+                .name("spaceId").value(row.spaceId())
+                .name("lotId").value(row.lotId())
+                .name("spaceType").value(row.spaceType())
+                .name("vehicleId").value(row.vehicleId())
+                .name("clientId").value(row.clientId())
+                .name("entryTime").value(row.entryTime())
+                .name("exitTime").value(row.exitTime())
+                .endObject();
+    }
+
+    private <T> void writeList(JsonWriter json, List<T> items, BiConsumer<JsonWriter, T> writer) {
+        json.beginArray();
+        for (T item : items) {
+            writer.accept(json, item);
+        }
+        json.endArray();
+    }
+
+    /**
+     * Отправляет ответ с телом известной длины. Тело сначала записывается в память, поэтому
+     * ответ уходит одной записью в сокет без ожидания подтверждений между частями.
+
+     * @param body запись тела или null для ответа без тела
+     */
+    private void respond(HttpExchange exchange, int status, Consumer<JsonWriter> body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        StringWriter buffer = new StringWriter();
+        body.accept(new JsonWriter(buffer));
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    /**
+     * Отправляет список потоково (chunked): JSON уходит клиенту частями по мере записи,
+     * и память не зависит от длины списка.
+     */
+    private void stream(HttpExchange exchange, Consumer<JsonWriter> body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        exchange.sendResponseHeaders(200, 0);
+        JsonWriter json = new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), RESPONSE_BUFFER_SIZE));
+        body.accept(json);
+        json.close();
+    }
+
+    private void error(HttpExchange exchange, int status, String message) {
+        if (status >= 500) {
+            serverErrors.increment();
+        } else {
+            clientErrors.increment();
+        }
+        try {
+            respond(exchange, status, json -> json.beginObject().name("error").value(message).endObject());
+        } catch (IOException | UncheckedIOException e) {
+            // Заголовки уже отправлены или клиент закрыл соединение: ответ прерывается
+        }
+    }
+
+    private static void requireExists(EntityManager em, Class<?> entity, Long id) {
+        if (em.find(entity, id) == null) {
+            throw new HttpError(404, "Объект с ID " + id + " не найден");
+        }
+    }
+
+    private static HttpError methodNotAllowed() {
+        return new HttpError(405, "Метод не поддерживается");
+    }
+
+    private static Map<String, Object> readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        byte[] bytes = in.readNBytes(MAX_BODY_SIZE + 1);
+        if (bytes.length > MAX_BODY_SIZE) {
+            throw new HttpError(413, "Тело запроса слишком велико");
+        }
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        return text.isBlank() ? new HashMap<>() : JsonParser.parseObject(text);
+    }
+
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return query;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    private static Long parseId(String segment) {
+        try {
+            return Long.parseLong(segment);
+        } catch (NumberFormatException e) {
+            throw new HttpError(404, "Ресурс не найден");
+        }
+    }
+
+    private static long parseLong(String value, String field) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Параметр " + field + " должен быть целым числом");
+        }
+    }
+
+    private static long requireLong(Map<String, Object> body, String field) {
+        if (!(body.get(field) instanceof Long value)) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть целым числом");
+        }
+        return value;
+    }
+
+    private static String optionalString(Map<String, Object> body, String field) {
+        Object value = body.get(field);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть строкой");
+        }
+        return (String) value;
+    }
+
+    private static LocalDateTime optionalTime(Map<String, Object> body, String field) {
+        String value = optionalString(body, field);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Поле " + field + " должно быть датой и временем ISO-8601");
+        }
+    }
+}
\ No newline at end of file
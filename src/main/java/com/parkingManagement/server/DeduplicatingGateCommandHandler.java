@@ -0,0 +1,68 @@
+package com.parkingManagement.server;
+
+import com.parkingManagement.model.GateEvent;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.service.GateEventDeduplicator;
+
+import java.time.LocalDateTime;
+
+/**
+ * Обработчик команд ворот, который отбрасывает повторы общим слоем дедупликации до обращения
+ * к вложенному обработчику. Въезды различаются по парковке, выезды — только по номеру, так как
+ * команда выезда не называет ворота. Повтор отвечает ошибкой, а событие, обработка которого
+ * не удалась, забывается, чтобы повтор от контроллера был обработан заново.
+ * Слой дедупликации общий для всех рабочих потоков, вложенный обработчик — свой у каждого.
+ */
+public class DeduplicatingGateCommandHandler implements GateCommandHandler {
+    private static final String EXIT_GATE = "exit";
+
+    private final GateCommandHandler delegate;
+    private final GateEventDeduplicator deduplicator;
+
+    /**
+     * Создаёт обработчик.
+
+     * @param delegate     обработчик, выполняющий команды
+     * @param deduplicator общий слой дедупликации
+     * @throws IllegalArgumentException если обработчик или слой дедупликации не заданы
+     */
+    public DeduplicatingGateCommandHandler(GateCommandHandler delegate, GateEventDeduplicator deduplicator) {
+        if (delegate == null || deduplicator == null) {
+            throw new IllegalArgumentException("Обработчик и слой дедупликации обязательны");
+        }
+        this.delegate = delegate;
+        this.deduplicator = deduplicator;
+    }
+
+    @Override
+    public ParkingRecord enter(String licensePlate, long lotId) {
+        String gateId = "lot-" + lotId;
+        if (deduplicator.isDuplicate(gateId, licensePlate, GateEvent.Type.ENTRY, LocalDateTime.now())) {
+            throw new IllegalArgumentException("Повторный въезд автомобиля " + licensePlate + " отброшен");
+        }
+        try {
+            return delegate.enter(licensePlate, lotId);
+        } catch (RuntimeException e) {
+            deduplicator.forget(gateId, licensePlate, GateEvent.Type.ENTRY);
+            throw e;
+        }
+    }
+
+    @Override
+    public ParkingRecord exit(String licensePlate) {
+        if (deduplicator.isDuplicate(EXIT_GATE, licensePlate, GateEvent.Type.EXIT, LocalDateTime.now())) {
+            throw new IllegalArgumentException("Повторный выезд автомобиля " + licensePlate + " отброшен");
+        }
+        try {
+            return delegate.exit(licensePlate);
+        } catch (RuntimeException e) {
+            deduplicator.forget(EXIT_GATE, licensePlate, GateEvent.Type.EXIT);
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.parkingManagement.server;
+
+import com.parkingManagement.model.ParkingRecord;
+
+/**
+ * Обработчик команд контроллеров ворот. Сервер создаёт отдельный обработчик для каждого
+ * рабочего потока и вызывает его только из этого потока, поэтому реализация может владеть
+ * собственным EntityManager и не обязана быть потокобезопасной.
+ */
+public interface GateCommandHandler extends AutoCloseable {
+
+    /**
+     * Регистрирует въезд автомобиля на парковку.
+
+     * @param licensePlate распознанный номер автомобиля
+     * @param lotId        идентификатор парковки
+     * @return созданная запись о парковке с назначенным местом
+     * @throws IllegalArgumentException если въезд невозможен
+     */
+    ParkingRecord enter(String licensePlate, long lotId);
+
+    /**
+     * Регистрирует выезд автомобиля и завершает его открытую сессию.
+
+     * @param licensePlate распознанный номер автомобиля
+     * @return завершённая запись о парковке
+     * @throws IllegalArgumentException если открытой сессии нет
+     */
+    ParkingRecord exit(String licensePlate);
+
+    /**
+     * Освобождает ресурсы обработчика при остановке рабочего потока.
+     */
+    @Override
+    default void close() {
+    }
+}
\ No newline at end of file
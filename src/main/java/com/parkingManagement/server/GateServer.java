@@ -0,0 +1,499 @@
+package com.parkingManagement.server;
+
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.util.PlateIndex;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Неблокирующий TCP-сервер для контроллеров ворот со строковым протоколом.
+ * Контроллер держит постоянное соединение и отправляет команды, по одной в строке:
+ * <pre>
+ * ENTER &lt;номер&gt; &lt;ID парковки&gt;  →  OK &lt;ID записи&gt; &lt;номер места&gt;
+ * EXIT &lt;номер&gt;                  →  OK &lt;ID записи&gt;
+ * PING                          →  PONG
+ * </pre>
+ * Ошибка возвращается строкой {@code ERR <сообщение>}. Команды можно отправлять, не дожидаясь
+ * ответов (конвейерная обработка); ответы приходят строго в порядке команд соединения.
+ * Один поток с селектором принимает соединения, читает и пишет данные; команды выполняются
+ * пулом рабочих потоков, каждый со своим обработчиком. Команды одного номера всегда попадают
+ * в один рабочий поток, поэтому въезд и выезд автомобиля не переупорядочиваются.
+ * Если у соединения слишком много команд без ответа, непрочитанных ответов или рабочие потоки
+ * перегружены, сервер перестаёт читать из сокета, и контроллер упирается в окно TCP.
+ */
+public class GateServer implements AutoCloseable {
+    static final int MAX_LINE_LENGTH = 256;
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final int MAX_PENDING_OUTPUT = 64 * 1024;
+    private static final long WORKER_POLL_MILLIS = 100;
+
+    private final InetSocketAddress address;
+    private final int maxPipelined;
+    private final int maxQueued;
+    private final Supplier<GateCommandHandler> handlerFactory;
+    private final List<BlockingQueue<Request>> workerQueues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final ConcurrentLinkedQueue<Connection> completed = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder commands = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder pauses = new LongAdder();
+    private final List<Connection> paused = new ArrayList<>();
+    private volatile int connections;
+    private volatile boolean running;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread selectorThread;
+
+    /**
+     * Счётчики сервера.
+
+     * @param connections открытые соединения
+     * @param commands    выполненные команды
+     * @param errors      из них завершились ошибкой
+     * @param pauses      число остановок чтения из-за перегрузки
+     * @param queued      команды, ожидающие рабочих потоков или выполняемые сейчас
+     */
+    public record Metrics(int connections, long commands, long errors, long pauses, int queued) {
+    }
+
+    /**
+     * Команда соединения. Ответ заполняется рабочим потоком, остальные поля — потоком селектора.
+     */
+    private static final class Request {
+        final Connection connection;
+        final String command;
+        final String licensePlate;
+        final long lotId;
+        volatile String reply;
+
+        Request(Connection connection, String command, String licensePlate, long lotId) {
+            this.connection = connection;
+            this.command = command;
+            this.licensePlate = licensePlate;
+            this.lotId = lotId;
+        }
+    }
+
+    /**
+     * Состояние соединения; используется только потоком селектора.
+     */
+    private static final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        final ArrayDeque<Request> requests = new ArrayDeque<>();
+        ByteBuffer out = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        boolean paused;
+        boolean endOfInput;
+        boolean closed;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Создаёт сервер.
+
+     * @param address        адрес для прослушивания; порт 0 выбирает свободный порт
+     * @param workerCount    число рабочих потоков
+     * @param maxPipelined   максимальное число команд одного соединения без ответа
+     * @param maxQueued      максимальное число команд в работе по всем соединениям
+     * @param handlerFactory фабрика обработчиков, вызывается один раз в каждом рабочем потоке
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public GateServer(InetSocketAddress address, int workerCount, int maxPipelined, int maxQueued,
+                      Supplier<GateCommandHandler> handlerFactory) {
+        if (address == null || handlerFactory == null) {
+            throw new IllegalArgumentException("Адрес и фабрика обработчиков обязательны");
+        }
+        if (workerCount <= 0 || maxPipelined <= 0 || maxQueued <= 0) {
+            throw new IllegalArgumentException("Число потоков и лимиты очередей должны быть положительными");
+        }
+        this.address = address;
+        this.maxPipelined = maxPipelined;
+        this.maxQueued = maxQueued;
+        this.handlerFactory = handlerFactory;
+        for (int i = 0; i < workerCount; i++) {
+            workerQueues.add(new LinkedBlockingQueue<>());
+        }
+    }
+
+    /**
+     * Открывает порт и запускает поток селектора и рабочие потоки.
+
+     * @return фактический порт сервера
+     * @throws IllegalStateException если сервер уже запущен
+     * @throws UncheckedIOException  при ошибке открытия порта
+     */
+    public synchronized int start() {
+        if (selectorThread != null) {
+            throw new IllegalStateException("Сервер ворот уже запущен");
+        }
+        try {
+            selector = Selector.open();
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(address);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка открытия порта сервера ворот: " + e.getMessage(), e);
+        }
+        running = true;
+        for (int i = 0; i < workerQueues.size(); i++) {
+            BlockingQueue<Request> queue = workerQueues.get(i);
+            Thread worker = new Thread(() -> work(queue), "gate-worker-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        selectorThread = new Thread(this::select, "gate-selector");
+        selectorThread.setDaemon(true);
+        selectorThread.start();
+        return serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Закрывает порт и соединения. Принятые команды дорабатываются рабочими потоками,
+     * но ответы на них уже не отправляются.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = selectorThread;
+            selectorThread = null;
+        }
+        if (thread == null) {
+            return;
+        }
+        selector.wakeup();
+        try {
+            thread.join();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.clear();
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(connections, commands.sum(), errors.sum(), pauses.sum(), queued.get());
+    }
+
+    private void select() {
+        try {
+            while (running) {
+                selector.select();
+                wakeupPending.set(false);
+                Connection done;
+                while ((done = completed.poll()) != null) {
+                    flush(done);
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    if (key.isReadable()) {
+                        read(connection);
+                    }
+                    if (!connection.closed && key.isValid() && key.isWritable()) {
+                        flush(connection);
+                    }
+                }
+                resumePaused();
+            }
+        } catch (IOException e) {
+            System.err.println("Ошибка селектора сервера ворот: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                if (key.attachment() instanceof Connection connection) {
+                    closeConnection(connection);
+                }
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Ошибка закрытия сервера ворот: " + e.getMessage());
+            }
+            running = false;
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+            key.attach(new Connection(channel, key));
+            connections++;
+        }
+    }
+
+    private void read(Connection connection) {
+        int read;
+        try {
+            read = connection.channel.read(connection.in);
+        } catch (IOException e) {
+            closeConnection(connection);
+            return;
+        }
+        if (read < 0) {
+            // Контроллер закрыл свою сторону: ответы на принятые команды ещё отправляются
+            connection.endOfInput = true;
+            connection.key.interestOps(connection.key.interestOps() & ~SelectionKey.OP_READ);
+        }
+        parse(connection);
+        flush(connection);
+    }
+
+    /**
+     * Разбирает полные строки буфера чтения, пока соединение и рабочие потоки не перегружены.
+     * Если разбор остановлен лимитом, чтение из сокета приостанавливается.
+     */
+    private void parse(Connection connection) {
+        ByteBuffer in = connection.in;
+        in.flip();
+        boolean blocked = false;
+        while (in.hasRemaining()) {
+            if (!canAccept(connection)) {
+                blocked = true;
+                break;
+            }
+            int end = indexOf(in, (byte) '\n');
+            if (end < 0) {
+                break;
+            }
+            String line = new String(in.array(), in.position(), end - in.position(), StandardCharsets.UTF_8).trim();
+            in.position(end + 1);
+            if (!line.isEmpty()) {
+                submit(connection, line);
+            }
+        }
+        boolean overflow = !blocked && in.remaining() > MAX_LINE_LENGTH;
+        in.compact();
+        if (overflow) {
+            reply(connection, "ERR Слишком длинная строка");
+            connection.endOfInput = true;
+            connection.key.interestOps(connection.key.interestOps() & ~SelectionKey.OP_READ);
+        } else if (blocked && !connection.paused) {
+            connection.paused = true;
+            connection.key.interestOps(connection.key.interestOps() & ~SelectionKey.OP_READ);
+            paused.add(connection);
+            pauses.increment();
+        }
+    }
+
+    private boolean canAccept(Connection connection) {
+        return connection.requests.size() < maxPipelined && connection.out.position() < MAX_PENDING_OUTPUT
+                && queued.get() < maxQueued;
+    }
+
+    /**
+     * Продолжает разбор приостановленных соединений, у которых освободились лимиты.
+     * Соединение, снова упёршееся в лимит, возвращается в список разбором.
+     */
+    private void resumePaused() {
+        if (paused.isEmpty()) {
+            return;
+        }
+        List<Connection> waiting = new ArrayList<>(paused);
+        paused.clear();
+        for (Connection connection : waiting) {
+            if (connection.closed) {
+                continue;
+            }
+            if (!canAccept(connection)) {
+                paused.add(connection);
+                continue;
+            }
+            connection.paused = false;
+            parse(connection);
+            if (!connection.paused && !connection.endOfInput) {
+                connection.key.interestOps(connection.key.interestOps() | SelectionKey.OP_READ);
+            }
+            flush(connection);
+        }
+    }
+
+    private void submit(Connection connection, String line) {
+        String[] parts = line.split("\\s+");
+        String command = parts[0].toUpperCase(Locale.ROOT);
+        switch (command) {
+            case "PING" -> reply(connection, "PONG");
+            case "ENTER" -> {
+                if (parts.length != 3) {
+                    reply(connection, "ERR Формат: ENTER <номер> <ID парковки>");
+                    return;
+                }
+                long lotId;
+                try {
+                    lotId = Long.parseLong(parts[2]);
+                } catch (NumberFormatException e) {
+                    reply(connection, "ERR Некорректный ID парковки: " + parts[2]);
+                    return;
+                }
+                dispatch(new Request(connection, command, parts[1], lotId));
+            }
+            case "EXIT" -> {
+                if (parts.length != 2) {
+                    reply(connection, "ERR Формат: EXIT <номер>");
+                    return;
+                }
+                dispatch(new Request(connection, command, parts[1], 0));
+            }
+            default -> reply(connection, "ERR Неизвестная команда: " + parts[0]);
+        }
+    }
+
+    /**
+     * Ставит в очередь ответ, не требующий рабочего потока, сохраняя порядок ответов соединения.
+     */
+    private void reply(Connection connection, String reply) {
+        Request request = new Request(connection, null, null, 0);
+        request.reply = reply;
+        connection.requests.add(request);
+    }
+
+    private void dispatch(Request request) {
+        request.connection.requests.add(request);
+        queued.incrementAndGet();
+        int worker = Math.floorMod(PlateIndex.normalize(request.licensePlate).hashCode(), workerQueues.size());
+        workerQueues.get(worker).add(request);
+    }
+
+    private void work(BlockingQueue<Request> queue) {
+        try (GateCommandHandler handler = handlerFactory.get()) {
+            while (running || !queue.isEmpty()) {
+                Request request = queue.poll(WORKER_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (request == null) {
+                    continue;
+                }
+                request.reply = execute(handler, request);
+                queued.decrementAndGet();
+                completed.add(request.connection);
+                if (wakeupPending.compareAndSet(false, true)) {
+                    selector.wakeup();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String execute(GateCommandHandler handler, Request request) {
+        commands.increment();
+        try {
+            if (request.command.equals("ENTER")) {
+                ParkingRecord record = handler.enter(request.licensePlate, request.lotId);
+                return "OK " + record.getId() + " " + record.getParkingSpace().getSpaceNumber();
+            }
+            return "OK " + handler.exit(request.licensePlate).getId();
+        } catch (RuntimeException e) {
+            // Ошибка одной команды не должна останавливать рабочий поток
+            errors.increment();
+            return "ERR " + e.getMessage();
+        }
+    }
+
+    /**
+     * Переносит готовые ответы из начала очереди соединения в буфер записи и отправляет их.
+     * Если сокет принял не всё, запись продолжается по готовности канала.
+     */
+    private void flush(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        while (!connection.requests.isEmpty() && connection.requests.peek().reply != null) {
+            Request request = connection.requests.poll();
+            byte[] bytes = (request.reply.replace('\n', ' ') + "\n").getBytes(StandardCharsets.UTF_8);
+            if (connection.out.remaining() < bytes.length) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(connection.out.capacity() * 2,
+                        connection.out.position() + bytes.length));
+                connection.out.flip();
+                grown.put(connection.out);
+                connection.out = grown;
+            }
+            connection.out.put(bytes);
+        }
+        ByteBuffer out = connection.out;
+        try {
+            out.flip();
+            connection.channel.write(out);
+            out.compact();
+        } catch (IOException e) {
+            closeConnection(connection);
+            return;
+        }
+        SelectionKey key = connection.key;
+        if (out.position() > 0) {
+            key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        } else {
+            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+            if (connection.endOfInput && !connection.paused && connection.requests.isEmpty()) {
+                closeConnection(connection);
+            }
+        }
+    }
+
+    private void closeConnection(Connection connection) {
+        if (connection.closed) {
+            return;
+        }
+        connection.closed = true;
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            System.err.println("Ошибка закрытия соединения ворот: " + e.getMessage());
+        }
+        connections--;
+    }
+
+    private static int indexOf(ByteBuffer buffer, byte value) {
+        byte[] array = buffer.array();
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
\ No newline at end of file
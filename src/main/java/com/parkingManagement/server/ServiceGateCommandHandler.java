@@ -0,0 +1,170 @@
+package com.parkingManagement.server;
+
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.model.VehicleOwner;
+import com.parkingManagement.service.FreeSpacePool;
+import com.parkingManagement.service.ParkingRecordListener;
+import com.parkingManagement.service.ParkingRecordService;
+import com.parkingManagement.service.VehicleService;
+import com.parkingManagement.util.TinyLfuCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Обработчик команд ворот поверх сервисного слоя. Незарегистрированный номер отсекается общим
+ * фильтром номеров без запроса к базе; остальные ищутся сначала точно через общий кэш владельцев,
+ * затем по общему индексу номеров с учётом похожих символов;
+ * место берётся из общего пула свободных мест, а само место с парковкой — из общего справочного
+ * кэша мест. Автомобиль и клиент найденного владельца подставляются в запись ссылками
+ * без загрузки из базы данных. Изменения мест в кэше не отслеживаются и видны гейтам
+ * по истечении срока жизни записи кэша; место, на котором въезд упал с ошибкой, из кэша удаляется.
+ * Каждый обработчик владеет своим EntityManager и очищает контекст после каждой команды,
+ * чтобы память рабочего потока не росла с числом обработанных событий.
+ */
+public class ServiceGateCommandHandler implements GateCommandHandler {
+    /**
+     * Число мест, выдаваемых пулом на один въезд: второе место нужно, только если первое заняли мимо пула.
+     */
+    static final int FREE_SPACE_CANDIDATES = 2;
+
+    private final EntityManager em;
+    private final VehicleService vehicleService;
+    private final ParkingSpaceDao parkingSpaceDao;
+    private final ParkingRecordDao parkingRecordDao;
+    private final ParkingRecordService parkingRecordService;
+    private final FreeSpacePool freeSpacePool;
+    private final TinyLfuCache<Long, ParkingSpace> spaceCache;
+
+    /**
+     * Создаёт обработчик с собственным EntityManager. Въезды и выезды при необходимости
+     * записываются в исходящую очередь в той же транзакции, что и сами изменения.
+
+     * @param emf           фабрика менеджеров сущностей
+     * @param vehicles      общие настройки сервиса автомобилей: индекс, кэш владельцев и фильтр номеров
+     * @param freeSpacePool общий пул свободных мест
+     * @param spaceCache    общий справочный кэш мест или null, если места читаются из базы при каждом въезде
+     * @param outbox        записывать изменения в исходящую очередь
+     * @param listeners     потокобезопасные слушатели въездов и выездов
+     */
+    public ServiceGateCommandHandler(EntityManagerFactory emf, VehicleService.Builder vehicles,
+                                     FreeSpacePool freeSpacePool, TinyLfuCache<Long, ParkingSpace> spaceCache,
+                                     boolean outbox, List<ParkingRecordListener> listeners) {
+        this.em = emf.createEntityManager();
+        this.vehicleService = vehicles.build(new VehicleDao(em));
+        this.parkingSpaceDao = new ParkingSpaceDao(em);
+        this.parkingRecordDao = new ParkingRecordDao(em, outbox);
+        this.parkingRecordService = new ParkingRecordService(parkingRecordDao);
+        this.freeSpacePool = freeSpacePool;
+        this.spaceCache = spaceCache;
+        parkingRecordService.addListener(freeSpacePool);
+        listeners.forEach(parkingRecordService::addListener);
+    }
+
+    @Override
+    public ParkingRecord enter(String licensePlate, long lotId) {
+        try {
+            VehicleOwner owner = resolve(licensePlate);
+            if (parkingRecordDao.findOpenRecord(owner.vehicleId()) != null) {
+                throw new IllegalArgumentException("Автомобиль " + owner.licensePlate() + " уже на парковке");
+            }
+            List<Long> spaceIds = freeSpacePool.acquire(lotId, FREE_SPACE_CANDIDATES,
+                    () -> parkingSpaceDao.findFreeSpaceIds(lotId));
+            if (spaceIds.isEmpty()) {
+                throw new IllegalArgumentException("Нет свободных мест на парковке с ID " + lotId);
+            }
+            List<ParkingSpace> candidates = new ArrayList<>(spaceIds.size());
+            for (Long spaceId : spaceIds) {
+                ParkingSpace candidate = spaceCache == null ? parkingSpaceDao.findById(spaceId)
+                        : spaceCache.get(spaceId, this::loadSpace);
+                if (candidate != null) {
+                    candidates.add(candidate);
+                }
+            }
+            ParkingRecord record = new ParkingRecord(null, null, em.getReference(Vehicle.class, owner.vehicleId()),
+                    em.getReference(Client.class, owner.clientId()), LocalDateTime.now(), null);
+            ParkingSpace space;
+            try {
+                space = parkingRecordService.createParkingRecordOnFreeSpace(record, candidates);
+            } catch (PersistenceException e) {
+                spaceIds.forEach(spaceId -> freeSpacePool.release(lotId, spaceId));
+                if (spaceCache != null) {
+                    spaceIds.forEach(spaceCache::invalidate);
+                }
+                throw e;
+            }
+            // Места до занятого оказались заняты мимо пула, места после него не проверялись
+            for (ParkingSpace untried : candidates.subList(candidates.indexOf(space) + 1, candidates.size())) {
+                freeSpacePool.release(lotId, untried.getId());
+            }
+            return record;
+        } finally {
+            em.clear();
+        }
+    }
+
+    @Override
+    public ParkingRecord exit(String licensePlate) {
+        try {
+            VehicleOwner owner = resolve(licensePlate);
+            ParkingRecord open = parkingRecordDao.findOpenRecord(owner.vehicleId());
+            if (open == null) {
+                throw new IllegalArgumentException("Нет открытой сессии для автомобиля " + owner.licensePlate());
+            }
+            return parkingRecordService.checkOut(open.getId(), LocalDateTime.now());
+        } finally {
+            em.clear();
+        }
+    }
+
+    @Override
+    public void close() {
+        em.close();
+    }
+
+    /**
+     * Загружает место для справочного кэша и отсоединяет его: кэш разделяется рабочими потоками,
+     * поэтому место не должно принадлежать контексту одного из них.
+     */
+    private ParkingSpace loadSpace(Long spaceId) {
+        ParkingSpace space = parkingSpaceDao.findById(spaceId);
+        if (space != null) {
+            em.detach(space);
+        }
+        return space;
+    }
+
+    /**
+     * Находит владельца по точному номеру, а если такого нет — единственный автомобиль,
+     * номер которого совпадает с распознанным с точностью до похожих символов.
+     */
+    private VehicleOwner resolve(String licensePlate) {
+        if (!vehicleService.mightBeRegistered(licensePlate)) {
+            throw new IllegalArgumentException("Автомобиль с номером " + licensePlate + " не найден");
+        }
+        VehicleOwner owner = vehicleService.findOwnerByPlate(licensePlate);
+        if (owner != null) {
+            return owner;
+        }
+        List<Vehicle> vehicles = vehicleService.findVehiclesByPlate(licensePlate, 0);
+        if (vehicles.isEmpty()) {
+            throw new IllegalArgumentException("Автомобиль с номером " + licensePlate + " не найден");
+        }
+        if (vehicles.size() > 1) {
+            throw new IllegalArgumentException("Номер " + licensePlate + " соответствует нескольким автомобилям");
+        }
+        Vehicle vehicle = vehicles.get(0);
+        return new VehicleOwner(vehicle.getId(), vehicle.getLicensePlate(), vehicle.getClient().getId(),
+                vehicle.getClient().getName());
+    }
+}
\ No newline at end of file
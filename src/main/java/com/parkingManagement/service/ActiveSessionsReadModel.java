@@ -0,0 +1,85 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.JournalEvent;
+import com.parkingManagement.util.JsonParser;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Модель чтения активных сессий: открытые записи о парковке с местом, автомобилем и временем въезда.
+ * Строится по событиям въездов, выездов и удалений записей.
+ */
+public class ActiveSessionsReadModel implements ReadModel {
+    private static final Set<JournalEvent.Type> TYPES = Set.of(JournalEvent.Type.CHECK_IN,
+            JournalEvent.Type.CHECK_OUT, JournalEvent.Type.RECORD_DELETED);
+
+    private final Map<Long, ActiveSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * Активная сессия.
+
+     * @param recordId  идентификатор записи о парковке
+     * @param lotId     идентификатор парковки
+     * @param spaceId   идентификатор места
+     * @param vehicleId идентификатор автомобиля
+     * @param clientId  идентификатор клиента
+     * @param entryTime время въезда
+     */
+    public record ActiveSession(long recordId, Long lotId, Long spaceId, Long vehicleId, Long clientId,
+                                LocalDateTime entryTime) {
+    }
+
+    @Override
+    public Set<JournalEvent.Type> getEventTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public Partition getPartition() {
+        return Partition.AGGREGATE;
+    }
+
+    @Override
+    public void apply(JournalEvent event) {
+        if (event.getType() == JournalEvent.Type.CHECK_IN) {
+            Map<String, Object> payload = JsonParser.parseObject(event.getPayload());
+            sessions.put(event.getAggregateId(), new ActiveSession(event.getAggregateId(), event.getLotId(),
+                    (Long) payload.get("spaceId"), (Long) payload.get("vehicleId"), event.getClientId(),
+                    event.getOccurredAt()));
+        } else {
+            sessions.remove(event.getAggregateId());
+        }
+    }
+
+    @Override
+    public void reset() {
+        sessions.clear();
+    }
+
+    /**
+     * Возвращает активные сессии в порядке времени въезда.
+
+     * @return список активных сессий
+     */
+    public List<ActiveSession> getActiveSessions() {
+        List<ActiveSession> result = new ArrayList<>(sessions.values());
+        result.sort(Comparator.comparing(ActiveSession::entryTime).thenComparing(ActiveSession::recordId));
+        return result;
+    }
+
+    /**
+     * Возвращает активную сессию по идентификатору записи.
+
+     * @param recordId идентификатор записи
+     * @return сессия или null, если запись не открыта
+     */
+    public ActiveSession getSession(Long recordId) {
+        return sessions.get(recordId);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,359 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.BulkImportDao;
+import com.parkingManagement.util.MappedCsvReader;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Сервис массового импорта парковок, мест, клиентов и автомобилей из CSV-файлов.
+ * Файл отображается в память и делится на части по границам строк, части разбираются
+ * параллельно, каждая своим EntityManager, и записываются пакетными вставками.
+ * Внешние ключи разрешаются по загруженным заранее отображениям: парковка по названию,
+ * клиент по email. Дубликаты определяются по множествам ключей, заполненным из базы данных,
+ * поэтому повторный импорт того же файла ничего не добавляет.
+ * Отклонённые строки записываются в файл отказов: исходный заголовок со столбцом error
+ * и исходные строки с причиной отказа, так что файл можно исправить и загрузить повторно.
+ * Порядок строк в файле отказов не гарантируется.
+ */
+public class BulkImportService {
+    private static final Set<String> VALID_TYPES = Set.of("REGULAR", "DISABLED", "VIP");
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private final EntityManagerFactory emf;
+    private final int threads;
+    private final int batchSize;
+    private final PlateFilter plateFilter;
+
+    /**
+     * Результат импорта файла.
+
+     * @param imported число вставленных строк
+     * @param rejected число отклонённых строк
+     * @param elapsed  длительность импорта
+     */
+    public record ImportResult(long imported, long rejected, Duration elapsed) {
+    }
+
+    /**
+     * Преобразует поля строки CSV в параметры вставки.
+     */
+    @FunctionalInterface
+    private interface RowMapper {
+        Object[] map(String[] fields);
+    }
+
+    /**
+     * Создаёт сервис импорта.
+
+     * @param emf       фабрика EntityManager; каждый поток импорта использует свой EntityManager
+     * @param threads   число потоков разбора и вставки
+     * @param batchSize число строк в пакете вставки
+     * @throws IllegalArgumentException если число потоков или размер пакета не положительны
+     */
+    public BulkImportService(EntityManagerFactory emf, int threads, int batchSize) {
+        this(emf, threads, batchSize, null);
+    }
+
+    /**
+     * Создаёт сервис импорта, который добавляет номера импортируемых автомобилей в фильтр номеров.
+     * Номер добавляется до вставки, поэтому отклонённая базой строка даёт лишь ложноположительный ответ.
+
+     * @param emf         фабрика EntityManager; каждый поток импорта использует свой EntityManager
+     * @param threads     число потоков разбора и вставки
+     * @param batchSize   число строк в пакете вставки
+     * @param plateFilter общий фильтр зарегистрированных номеров или null
+     * @throws IllegalArgumentException если число потоков или размер пакета не положительны
+     */
+    public BulkImportService(EntityManagerFactory emf, int threads, int batchSize, PlateFilter plateFilter) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Число потоков должно быть положительным");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пакета должен быть положительным");
+        }
+        this.emf = emf;
+        this.threads = threads;
+        this.batchSize = batchSize;
+        this.plateFilter = plateFilter;
+    }
+
+    /**
+     * Импортирует парковки. Столбцы: name, address, capacity.
+
+     * @param csv         файл CSV с заголовком
+     * @param rejectFile  файл для отклонённых строк
+     * @return результат импорта
+     * @throws IllegalArgumentException если в заголовке нет нужных столбцов
+     * @throws UncheckedIOException     при ошибке чтения или записи файлов
+     */
+    public ImportResult importLots(Path csv, Path rejectFile) {
+        Set<String> keys = withDao(BulkImportDao::findLotKeys);
+        return importFile(csv, rejectFile, BulkImportDao.Table.LOT, new String[]{"name", "address", "capacity"},
+                columns -> fields -> {
+                    String name = required(fields, columns[0], "Название парковки обязательно");
+                    String address = required(fields, columns[1], "Адрес парковки обязателен");
+                    int capacity = parseCapacity(field(fields, columns[2]));
+                    if (!keys.add(name + "\0" + address)) {
+                        throw new IllegalArgumentException("Парковка с таким названием и адресом уже существует");
+                    }
+                    return new Object[]{name, address, capacity};
+                });
+    }
+
+    /**
+     * Импортирует парковочные места. Столбцы: lot_name, space_number, type.
+     * Парковка определяется по названию, поэтому парковки должны быть импортированы раньше.
+
+     * @param csv         файл CSV с заголовком
+     * @param rejectFile  файл для отклонённых строк
+     * @return результат импорта
+     * @throws IllegalArgumentException если в заголовке нет нужных столбцов
+     * @throws UncheckedIOException     при ошибке чтения или записи файлов
+     */
+    public ImportResult importSpaces(Path csv, Path rejectFile) {
+        Map<String, Long> lotIds = withDao(BulkImportDao::findLotIdsByName);
+        Set<String> keys = withDao(BulkImportDao::findSpaceKeys);
+        return importFile(csv, rejectFile, BulkImportDao.Table.SPACE,
+                new String[]{"lot_name", "space_number", "type"},
+                columns -> fields -> {
+                    String lotName = required(fields, columns[0], "Название парковки обязательно");
+                    Long lotId = lotIds.get(lotName);
+                    if (lotId == null) {
+                        throw new IllegalArgumentException(lotIds.containsKey(lotName)
+                                ? "Найдено несколько парковок с названием " + lotName
+                                : "Парковка с названием " + lotName + " не найдена");
+                    }
+                    String number = required(fields, columns[1], "Номер места обязателен");
+                    String type = required(fields, columns[2], "Тип места обязателен").toUpperCase();
+                    if (!VALID_TYPES.contains(type)) {
+                        throw new IllegalArgumentException("Тип места должен быть REGULAR, DISABLED или VIP");
+                    }
+                    if (!keys.add(lotId + "\0" + number)) {
+                        throw new IllegalArgumentException("Место с таким номером на парковке уже существует");
+                    }
+                    return new Object[]{lotId, number, type};
+                });
+    }
+
+    /**
+     * Импортирует клиентов. Столбцы: name, phone, email; phone и email могут быть пустыми.
+
+     * @param csv         файл CSV с заголовком
+     * @param rejectFile  файл для отклонённых строк
+     * @return результат импорта
+     * @throws IllegalArgumentException если в заголовке нет нужных столбцов
+     * @throws UncheckedIOException     при ошибке чтения или записи файлов
+     */
+    public ImportResult importClients(Path csv, Path rejectFile) {
+        Set<String> emails = withDao(dao -> {
+            Set<String> keys = ConcurrentHashMap.newKeySet();
+            keys.addAll(dao.findClientIdsByEmail().keySet());
+            return keys;
+        });
+        return importFile(csv, rejectFile, BulkImportDao.Table.CLIENT, new String[]{"name", "phone", "email"},
+                columns -> fields -> {
+                    String name = required(fields, columns[0], "Имя клиента обязательно");
+                    String email = field(fields, columns[2]);
+                    if (email != null && !emails.add(email)) {
+                        throw new IllegalArgumentException("Клиент с email " + email + " уже существует");
+                    }
+                    return new Object[]{name, field(fields, columns[1]), email};
+                });
+    }
+
+    /**
+     * Импортирует автомобили. Столбцы: client_email, license_plate, brand, model; brand и model
+     * могут быть пустыми. Клиент определяется по email, поэтому клиенты должны быть импортированы раньше.
+
+     * @param csv         файл CSV с заголовком
+     * @param rejectFile  файл для отклонённых строк
+     * @return результат импорта
+     * @throws IllegalArgumentException если в заголовке нет нужных столбцов
+     * @throws UncheckedIOException     при ошибке чтения или записи файлов
+     */
+    public ImportResult importVehicles(Path csv, Path rejectFile) {
+        Map<String, Long> clientIds = withDao(BulkImportDao::findClientIdsByEmail);
+        Set<String> plates = withDao(BulkImportDao::findLicensePlates);
+        return importFile(csv, rejectFile, BulkImportDao.Table.VEHICLE,
+                new String[]{"client_email", "license_plate", "brand", "model"},
+                columns -> fields -> {
+                    String email = required(fields, columns[0], "Email клиента обязателен");
+                    Long clientId = clientIds.get(email);
+                    if (clientId == null) {
+                        throw new IllegalArgumentException("Клиент с email " + email + " не найден");
+                    }
+                    String plate = required(fields, columns[1], "Регистрационный номер обязателен");
+                    if (!plates.add(plate)) {
+                        throw new IllegalArgumentException("Автомобиль с номером " + plate + " уже существует");
+                    }
+                    if (plateFilter != null) {
+                        plateFilter.put(plate);
+                    }
+                    return new Object[]{clientId, plate, field(fields, columns[2]), field(fields, columns[3])};
+                });
+    }
+
+    private ImportResult importFile(Path csv, Path rejectFile, BulkImportDao.Table table, String[] columnNames,
+                                    Function<int[], RowMapper> mapperFactory) {
+        long start = System.nanoTime();
+        String header = MappedCsvReader.readHeader(csv);
+        RowMapper mapper = mapperFactory.apply(resolveColumns(header, columnNames));
+        List<MappedCsvReader.Chunk> chunks = MappedCsvReader.split(csv, threads * CHUNKS_PER_THREAD, true);
+        AtomicLong imported = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (BufferedWriter rejects = Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8)) {
+            rejects.write(header + ",error");
+            rejects.newLine();
+            List<Future<?>> futures = new ArrayList<>();
+            for (MappedCsvReader.Chunk chunk : chunks) {
+                futures.add(executor.submit(() -> importChunk(chunk, table, mapper, rejects, imported, rejected)));
+            }
+            for (Future<?> future : futures) {
+                await(future);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи файла отказов " + rejectFile + ": " + e.getMessage(), e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return new ImportResult(imported.get(), rejected.get(), Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    private void importChunk(MappedCsvReader.Chunk chunk, BulkImportDao.Table table, RowMapper mapper,
+                             BufferedWriter rejects, AtomicLong imported, AtomicLong rejected) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            BulkImportDao dao = new BulkImportDao(em);
+            List<Object[]> rows = new ArrayList<>(batchSize);
+            List<String> lines = new ArrayList<>(batchSize);
+            MappedCsvReader.read(chunk, (offset, line, fields) -> {
+                try {
+                    rows.add(mapper.map(fields));
+                    lines.add(line);
+                } catch (IllegalArgumentException e) {
+                    reject(rejects, line, e.getMessage(), rejected);
+                }
+                if (rows.size() == batchSize) {
+                    flush(dao, table, rows, lines, rejects, imported, rejected);
+                }
+            });
+            flush(dao, table, rows, lines, rejects, imported, rejected);
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void flush(BulkImportDao dao, BulkImportDao.Table table, List<Object[]> rows, List<String> lines,
+                              BufferedWriter rejects, AtomicLong imported, AtomicLong rejected) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        List<BulkImportDao.RowError> errors = dao.insertBatch(table, rows);
+        for (BulkImportDao.RowError error : errors) {
+            reject(rejects, lines.get(error.index()), error.message(), rejected);
+        }
+        imported.addAndGet(rows.size() - errors.size());
+        rows.clear();
+        lines.clear();
+    }
+
+    private static void reject(BufferedWriter rejects, String line, String reason, AtomicLong rejected) {
+        rejected.incrementAndGet();
+        String quoted = "\"" + (reason == null ? "" : reason.replace("\r", " ").replace("\n", " ")
+                .replace("\"", "\"\"")) + "\"";
+        synchronized (rejects) {
+            try {
+                rejects.write(line);
+                rejects.write(',');
+                rejects.write(quoted);
+                rejects.newLine();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static int[] resolveColumns(String header, String[] names) {
+        List<String> fields = List.of(MappedCsvReader.parseLine(header));
+        int[] columns = new int[names.length];
+        for (int i = 0; i < names.length; i++) {
+            columns[i] = fields.indexOf(names[i]);
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("В заголовке CSV отсутствует столбец " + names[i]);
+            }
+        }
+        return columns;
+    }
+
+    private static String field(String[] fields, int column) {
+        if (column >= fields.length || fields[column].isBlank()) {
+            return null;
+        }
+        return fields[column];
+    }
+
+    private static String required(String[] fields, int column, String message) {
+        String value = field(fields, column);
+        if (value == null) {
+            throw new IllegalArgumentException(message);
+        }
+        return value;
+    }
+
+    private static int parseCapacity(String value) {
+        int capacity;
+        try {
+            capacity = value == null ? 0 : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Вместимость должна быть целым числом");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Вместимость должна быть положительной");
+        }
+        return capacity;
+    }
+
+    private <T> T withDao(Function<BulkImportDao, T> loader) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return loader.apply(new BulkImportDao(em));
+        } finally {
+            em.close();
+        }
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Импорт прерван");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Ошибка импорта: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
\ No newline at end of file
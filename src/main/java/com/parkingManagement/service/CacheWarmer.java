@@ -0,0 +1,211 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.VehicleOwner;
+import com.parkingManagement.util.PlateIndex;
+import com.parkingManagement.util.TinyLfuCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Прогрев кэшей при запуске: справочные данные парковок и мест, открытые сессии и недавно
+ * въезжавшие автомобили загружаются в подключённые кэши параллельно, каждая загрузка со своим
+ * EntityManager. {@link #run} ждёт окончания всех загрузок или наступления срока; приём событий
+ * ворот следует начинать после его возврата. Загрузки, не успевшие к сроку, продолжаются в фоне,
+ * а кэши до их окончания заполняются обычными промахами.
+ */
+public class CacheWarmer {
+    private final EntityManagerFactory emf;
+    private final int threads;
+    private final Map<String, Function<EntityManager, Long>> tasks = new LinkedHashMap<>();
+
+    /**
+     * Итоги прогрева.
+
+     * @param elapsed   время от начала прогрева до возврата
+     * @param completed true, если все загрузки завершились до срока
+     * @param loaded    число загруженных элементов по именам завершившихся загрузок
+     * @param failures  сообщения об ошибках по именам загрузок
+     * @param pending   имена загрузок, не успевших к сроку
+     */
+    public record Report(Duration elapsed, boolean completed, Map<String, Long> loaded, Map<String, String> failures,
+                         List<String> pending) {
+
+        public long getTotalLoaded() {
+            return loaded.values().stream().mapToLong(Long::longValue).sum();
+        }
+    }
+
+    /**
+     * Создаёт прогрев без загрузок.
+
+     * @param emf     фабрика менеджеров сущностей
+     * @param threads число параллельных загрузок
+     * @throws IllegalArgumentException если число потоков не положительно
+     */
+    public CacheWarmer(EntityManagerFactory emf, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Число потоков должно быть положительным");
+        }
+        this.emf = emf;
+        this.threads = threads;
+    }
+
+    /**
+     * Добавляет произвольную загрузку.
+
+     * @param name имя загрузки в отчёте
+     * @param task загрузка, получающая собственный EntityManager и возвращающая число загруженных элементов
+     * @return этот прогрев
+     * @throws IllegalArgumentException если загрузка с таким именем уже добавлена
+     */
+    public CacheWarmer add(String name, Function<EntityManager, Long> task) {
+        if (tasks.putIfAbsent(name, task) != null) {
+            throw new IllegalArgumentException("Загрузка " + name + " уже добавлена");
+        }
+        return this;
+    }
+
+    /**
+     * Добавляет загрузку номеров всех автомобилей в индекс номеров.
+
+     * @param plateIndex индекс номеров
+     * @return этот прогрев
+     */
+    public CacheWarmer plateIndex(PlateIndex plateIndex) {
+        return add("plateIndex", em -> VehicleService.builder().plateIndex(plateIndex).build(new VehicleDao(em))
+                .rebuildPlateIndex());
+    }
+
+    /**
+     * Добавляет загрузку мест вместе с их парковками в справочный кэш мест, не больше его размера.
+
+     * @param spaceCache кэш мест по идентификатору
+     * @return этот прогрев
+     */
+    public CacheWarmer referenceData(TinyLfuCache<Long, ParkingSpace> spaceCache) {
+        return add("referenceData", em -> {
+            long invalidations = spaceCache.getInvalidationCount();
+            Map<Long, ParkingSpace> spaces = new LinkedHashMap<>();
+            for (ParkingSpace space : new ParkingSpaceDao(em).findWithLots(spaceCache.getMaximumSize())) {
+                spaces.put(space.getId(), space);
+            }
+            return (long) spaceCache.putAll(spaces, invalidations);
+        });
+    }
+
+    /**
+     * Добавляет перестройку фильтра зарегистрированных номеров.
+
+     * @param plateFilter фильтр номеров
+     * @return этот прогрев
+     */
+    public CacheWarmer plateFilter(PlateFilter plateFilter) {
+        return add("plateFilter", em -> plateFilter.rebuild(new VehicleDao(em)));
+    }
+
+    /**
+     * Добавляет загрузку свободных мест всех парковок в пул одним запросом.
+
+     * @param freeSpacePool пул свободных мест
+     * @return этот прогрев
+     */
+    public CacheWarmer freeSpaces(FreeSpacePool freeSpacePool) {
+        return add("freeSpaces", em -> (long) freeSpacePool.preload(new ParkingSpaceDao(em).findFreeSpaceIdsByLot()));
+    }
+
+    /**
+     * Добавляет загрузку недавно въезжавших автомобилей в кэш владельцев, не больше его размера.
+
+     * @param ownerCache кэш владельцев по номеру
+     * @return этот прогрев
+     */
+    public CacheWarmer recentOwners(TinyLfuCache<String, VehicleOwner> ownerCache) {
+        return add("recentOwners", em -> {
+            long invalidations = ownerCache.getInvalidationCount();
+            Map<String, VehicleOwner> owners = new LinkedHashMap<>();
+            for (VehicleOwner owner : new VehicleDao(em).findRecentOwners(ownerCache.getMaximumSize())) {
+                owners.put(owner.licensePlate(), owner);
+            }
+            return (long) ownerCache.putAll(owners, invalidations);
+        });
+    }
+
+    /**
+     * Добавляет регистрацию сроков открытых сессий в мониторе превышения времени стоянки.
+
+     * @param overstayMonitor монитор превышения времени стоянки
+     * @return этот прогрев
+     */
+    public CacheWarmer openSessions(OverstayMonitor overstayMonitor) {
+        return add("openSessions",
+                em -> (long) overstayMonitor.registerOpenSessions(new ParkingRecordDao(em).findOpenSessions()));
+    }
+
+    /**
+     * Запускает все загрузки параллельно и ждёт их окончания не дольше срока.
+
+     * @param deadline максимальное время ожидания
+     * @return итоги прогрева
+     * @throws IllegalArgumentException если срок не положителен
+     */
+    public Report run(Duration deadline) {
+        if (deadline == null || deadline.isNegative() || deadline.isZero()) {
+            throw new IllegalArgumentException("Срок прогрева должен быть положительным");
+        }
+        long start = System.nanoTime();
+        long until = start + deadline.toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "cache-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Map<String, Future<Long>> running = new LinkedHashMap<>();
+        try {
+            tasks.forEach((name, task) -> running.put(name, executor.submit(() -> {
+                EntityManager em = emf.createEntityManager();
+                try {
+                    return task.apply(em);
+                } finally {
+                    em.close();
+                }
+            })));
+        } finally {
+            executor.shutdown();
+        }
+        Map<String, Long> loaded = new LinkedHashMap<>();
+        Map<String, String> failures = new LinkedHashMap<>();
+        List<String> pending = new ArrayList<>();
+        for (Map.Entry<String, Future<Long>> entry : running.entrySet()) {
+            try {
+                loaded.put(entry.getKey(), entry.getValue().get(Math.max(0, until - System.nanoTime()),
+                        TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                pending.add(entry.getKey());
+            } catch (ExecutionException e) {
+                failures.put(entry.getKey(), String.valueOf(e.getCause().getMessage()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.add(entry.getKey());
+            }
+        }
+        return new Report(Duration.ofNanos(System.nanoTime() - start), pending.isEmpty() && failures.isEmpty(),
+                loaded, failures, pending);
+    }
+}
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.parkingManagement.service;
 
 import com.parkingManagement.dao.ClientDao;
 import com.parkingManagement.model.Client;
+import com.parkingManagement.model.JournalEvent;
+import com.parkingManagement.model.VehicleOwner;
+import com.parkingManagement.util.TinyLfuCache;
 
 import java.util.List;
 
@@ -10,9 +13,35 @@ import java.util.List;
  */
 public class ClientService {
     private final ClientDao clientDao;
+    private final EventJournal journal;
+    private final TinyLfuCache<String, VehicleOwner> ownerCache;
 
     public ClientService(ClientDao clientDao) {
+        this(clientDao, null);
+    }
+
+    /**
+     * Создаёт сервис, который записывает изменения клиентов в журнал операций.
+
+     * @param clientDao DAO клиентов
+     * @param journal   журнал операций или null, если изменения не журналируются
+     */
+    public ClientService(ClientDao clientDao, EventJournal journal) {
+        this(clientDao, journal, null);
+    }
+
+    /**
+     * Создаёт сервис, который при изменении и удалении клиента синхронно удаляет
+     * из кэша владельцев записи всех его автомобилей.
+
+     * @param clientDao  DAO клиентов
+     * @param journal    журнал операций или null, если изменения не журналируются
+     * @param ownerCache общий кэш владельцев по номеру или null
+     */
+    public ClientService(ClientDao clientDao, EventJournal journal, TinyLfuCache<String, VehicleOwner> ownerCache) {
         this.clientDao = clientDao;
+        this.journal = journal;
+        this.ownerCache = ownerCache;
     }
 
     /**
@@ -24,6 +53,9 @@ public class ClientService {
     public void createClient(Client client) {
         validateClient(client, false);
         clientDao.create(client);
+        if (journal != null) {
+            journal.append(JournalEvent.Type.CLIENT_CREATED, client);
+        }
     }
 
     /**
@@ -62,6 +94,10 @@ public class ClientService {
         if (!clientDao.update(client)) {
             throw new IllegalArgumentException("Клиент с ID " + client.getId() + " не найден");
         }
+        invalidateOwners(vehiclePlates(client.getId()));
+        if (journal != null) {
+            journal.append(JournalEvent.Type.CLIENT_UPDATED, client);
+        }
     }
 
     /**
@@ -72,9 +108,27 @@ public class ClientService {
      */
     public void deleteClient(Long id) {
         validateId(id, "Идентификатор клиента");
+        List<String> plates = vehiclePlates(id);
         if (!clientDao.delete(id)) {
             throw new IllegalArgumentException("Клиент с ID " + id + " не найден");
         }
+        invalidateOwners(plates);
+        if (journal != null) {
+            journal.appendDeleted(JournalEvent.Type.CLIENT_DELETED, id);
+        }
+    }
+
+    /**
+     * Номера автомобилей клиента, которые нужно удалить из кэша владельцев; без кэша запрос не выполняется.
+     */
+    private List<String> vehiclePlates(Long clientId) {
+        return ownerCache == null ? List.of() : clientDao.findLicensePlates(clientId);
+    }
+
+    private void invalidateOwners(List<String> plates) {
+        for (String plate : plates) {
+            ownerCache.invalidate(plate);
+        }
     }
 
     /**
@@ -0,0 +1,86 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.JournalEvent;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Модель чтения статистики клиентов: число въездов, завершённых сессий, суммарное время
+ * на парковке и время последнего въезда. Строится по событиям въездов, выездов и удаления клиентов.
+ */
+public class ClientStatsReadModel implements ReadModel {
+    private static final Set<JournalEvent.Type> TYPES = Set.of(JournalEvent.Type.CHECK_IN,
+            JournalEvent.Type.CHECK_OUT, JournalEvent.Type.CLIENT_DELETED);
+
+    private final Map<Long, ClientStats> stats = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDateTime> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Статистика клиента.
+
+     * @param clientId     идентификатор клиента
+     * @param visits       число въездов
+     * @param completed    число завершённых сессий
+     * @param totalMinutes суммарная длительность завершённых сессий в минутах
+     * @param lastVisit    время последнего въезда
+     */
+    public record ClientStats(long clientId, long visits, long completed, long totalMinutes,
+                              LocalDateTime lastVisit) {
+    }
+
+    @Override
+    public Set<JournalEvent.Type> getEventTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public Partition getPartition() {
+        return Partition.CLIENT;
+    }
+
+    @Override
+    public void apply(JournalEvent event) {
+        long clientId = event.getClientId();
+        switch (event.getType()) {
+            case CHECK_IN -> {
+                entries.put(event.getAggregateId(), event.getOccurredAt());
+                stats.merge(clientId, new ClientStats(clientId, 1, 0, 0, event.getOccurredAt()),
+                        (old, added) -> new ClientStats(clientId, old.visits() + 1, old.completed(),
+                                old.totalMinutes(), later(old.lastVisit(), added.lastVisit())));
+            }
+            case CHECK_OUT -> {
+                LocalDateTime entry = entries.remove(event.getAggregateId());
+                long minutes = entry == null ? 0 : Duration.between(entry, event.getOccurredAt()).toMinutes();
+                stats.computeIfPresent(clientId, (id, old) -> new ClientStats(clientId, old.visits(),
+                        old.completed() + 1, old.totalMinutes() + minutes, old.lastVisit()));
+            }
+            case CLIENT_DELETED -> stats.remove(clientId);
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        stats.clear();
+        entries.clear();
+    }
+
+    /**
+     * Возвращает статистику клиента.
+
+     * @param clientId идентификатор клиента
+     * @return статистика или null, если у клиента нет въездов
+     */
+    public ClientStats getStats(Long clientId) {
+        return stats.get(clientId);
+    }
+
+    private static LocalDateTime later(LocalDateTime a, LocalDateTime b) {
+        return a == null || (b != null && b.isAfter(a)) ? b : a;
+    }
+}
\ No newline at end of file
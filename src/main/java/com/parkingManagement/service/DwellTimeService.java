@@ -0,0 +1,139 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.DwellSketchDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.DwellSketch;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.SessionRow;
+import com.parkingManagement.model.SpaceType;
+import com.parkingManagement.util.LogHistogram;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис перцентилей длительности стоянки.
+ * По каждой завершённой сессии пополняется гистограмма парковки, типа места и дня въезда,
+ * а перцентили за любой интервал дней получаются объединением дневных гистограмм
+ * без чтения исходных записей. Относительная погрешность оценки не превышает 1/64.
+ * Методы синхронизированы, так как DAO сервиса работают через один EntityManager:
+ * один экземпляр можно регистрировать слушателем в нескольких потоках.
+ */
+public class DwellTimeService implements ParkingRecordListener {
+    private final DwellSketchDao dwellSketchDao;
+    private final ParkingRecordDao parkingRecordDao;
+
+    public DwellTimeService(DwellSketchDao dwellSketchDao, ParkingRecordDao parkingRecordDao) {
+        this.dwellSketchDao = dwellSketchDao;
+        this.parkingRecordDao = parkingRecordDao;
+    }
+
+    /**
+     * Добавляет длительность завершённой сессии в гистограмму дня въезда.
+
+     * @param record завершённая запись о парковке
+     */
+    @Override
+    public synchronized void onCheckOut(ParkingRecord record) {
+        ParkingSpace space = record.getParkingSpace();
+        LogHistogram delta = new LogHistogram();
+        delta.record(dwellSeconds(record.getEntryTime(), record.getExitTime()));
+        dwellSketchDao.merge(space.getParkingLot().getId(), space.getType(), record.getEntryTime().toLocalDate(), delta);
+    }
+
+    /**
+     * Оценивает перцентили длительности стоянки за интервал дней въезда.
+
+     * @param lotId     идентификатор парковки
+     * @param spaceType тип парковочного места или null для всех типов
+     * @param from      первый день
+     * @param to        последний день включительно
+     * @param quantiles квантили в интервале (0, 1], например 0.5 и 0.95
+     * @return длительности в секундах в порядке квантилей; нули при отсутствии сессий
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public long[] getDwellPercentiles(Long lotId, String spaceType, LocalDate from, LocalDate to, double... quantiles) {
+        LogHistogram histogram = getDwellHistogram(lotId, spaceType, from, to);
+        long[] result = new long[quantiles.length];
+        for (int i = 0; i < quantiles.length; i++) {
+            result[i] = histogram.quantile(quantiles[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Объединяет дневные гистограммы длительностей за интервал дней въезда.
+
+     * @param lotId     идентификатор парковки
+     * @param spaceType тип парковочного места или null для всех типов
+     * @param from      первый день
+     * @param to        последний день включительно
+     * @return объединённая гистограмма длительностей в секундах
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public synchronized LogHistogram getDwellHistogram(Long lotId, String spaceType, LocalDate from, LocalDate to) {
+        if (lotId == null || lotId <= 0) {
+            throw new IllegalArgumentException("Идентификатор парковки должен быть положительным");
+        }
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Некорректный интервал дней");
+        }
+        String type = spaceType == null ? null : SpaceType.of(spaceType).name();
+        LogHistogram merged = new LogHistogram();
+        for (DwellSketch sketch : dwellSketchDao.findSketches(lotId, type, from, to)) {
+            merged.merge(LogHistogram.fromBytes(sketch.getData()));
+        }
+        return merged;
+    }
+
+    /**
+     * Пересчитывает гистограммы за интервал дней по исходным записям.
+     * Гистограммы каждого дня заменяются пересчитанными в одной транзакции, поэтому пересчёт
+     * идемпотентен, а прерванный пересчёт оставляет необработанные дни нетронутыми.
+
+     * @param from первый день
+     * @param to   последний день включительно
+     * @return число пересчитанных гистограмм
+     * @throws IllegalArgumentException при некорректном интервале
+     */
+    public synchronized int rebuild(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Некорректный интервал дней");
+        }
+        int rebuilt = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDateTime dayStart = day.atStartOfDay();
+            Map<String, LogHistogram> byLotAndType = new HashMap<>();
+            Map<String, SessionRow> keys = new HashMap<>();
+            for (SessionRow s : parkingRecordDao.findSessionsOverlapping(dayStart, dayStart.plusDays(1))) {
+                if (s.exitTime() == null || s.entryTime().isBefore(dayStart)) {
+                    continue;
+                }
+                String key = s.lotId() + "|" + s.spaceType();
+                keys.putIfAbsent(key, s);
+                byLotAndType.computeIfAbsent(key, k -> new LogHistogram())
+                        .record(dwellSeconds(s.entryTime(), s.exitTime()));
+            }
+            List<DwellSketch> sketches = new ArrayList<>();
+            for (Map.Entry<String, LogHistogram> entry : byLotAndType.entrySet()) {
+                SessionRow s = keys.get(entry.getKey());
+                LogHistogram histogram = entry.getValue();
+                sketches.add(new DwellSketch(s.lotId(), day, s.spaceType(), histogram.getTotalCount(),
+                        histogram.toBytes()));
+            }
+            dwellSketchDao.replaceDay(day, sketches);
+            rebuilt += sketches.size();
+        }
+        return rebuilt;
+    }
+
+    private static long dwellSeconds(LocalDateTime entry, LocalDateTime exit) {
+        return Math.max(0, Duration.between(entry, exit).getSeconds());
+    }
+}
\ No newline at end of file
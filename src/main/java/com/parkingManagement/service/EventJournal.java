@@ -0,0 +1,300 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.JournalDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.JournalEvent;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.util.JsonWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Журнал операций: каждое изменение парковок, мест, клиентов, автомобилей и сессий
+ * добавляется неизменяемым событием в таблицу journal_event. Подписанные модели чтения
+ * получают события сразу после записи, в порядке журнала. Любую модель можно перестроить,
+ * воспроизведя журнал с заданного смещения в нескольких потоках: каждый поток читает свою
+ * часть событий по ключу разбиения модели, поэтому события одного ключа применяются по порядку.
+ * Событие записывается после фиксации изменения отдельной транзакцией; при сбое между ними
+ * событие теряется, так что журнал не заменяет таблицы как источник истины.
+ * Журнал использует собственный EntityManager и потокобезопасен.
+ */
+public class EventJournal implements ParkingRecordListener, AutoCloseable {
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+    private final JournalDao journalDao;
+    private final List<ReadModel> subscribers = new CopyOnWriteArrayList<>();
+
+    public EventJournal(EntityManagerFactory emf) {
+        this.emf = emf;
+        this.em = emf.createEntityManager();
+        this.journalDao = new JournalDao(em);
+    }
+
+    /**
+     * Подписывает модель чтения на новые события. Уже записанные события модели не передаются,
+     * для них используется {@link #replay} или {@link #rebuild}.
+
+     * @param model модель чтения
+     */
+    public void subscribe(ReadModel model) {
+        subscribers.add(model);
+    }
+
+    /**
+     * Записывает событие изменения парковки.
+
+     * @param type  тип события
+     * @param lot   парковка после изменения
+     * @return смещение события
+     */
+    public long append(JournalEvent.Type type, ParkingLot lot) {
+        return append(type, lot.getId(), lot.getId(), null, LocalDateTime.now(), json -> json
+                .name("id").value(lot.getId())
+                .name("name").value(lot.getName())
+                .name("address").value(lot.getAddress())
+                .name("capacity").value(lot.getCapacity()));
+    }
+
+    /**
+     * Записывает событие изменения парковочного места.
+
+     * @param type  тип события
+     * @param space место после изменения
+     * @return смещение события
+     */
+    public long append(JournalEvent.Type type, ParkingSpace space) {
+        Long lotId = space.getParkingLot() == null ? null : space.getParkingLot().getId();
+        return append(type, space.getId(), lotId, null, LocalDateTime.now(), json -> json
+                .name("id").value(space.getId())
+                .name("lotId").value(lotId)
+                .name("spaceNumber").value(space.getSpaceNumber())
+                .name("type").value(space.getType()));
+    }
+
+    /**
+     * Записывает событие изменения клиента.
+
+     * @param type   тип события
+     * @param client клиент после изменения
+     * @return смещение события
+     */
+    public long append(JournalEvent.Type type, Client client) {
+        return append(type, client.getId(), null, client.getId(), LocalDateTime.now(), json -> json
+                .name("id").value(client.getId())
+                .name("name").value(client.getName())
+                .name("phone").value(client.getPhone())
+                .name("email").value(client.getEmail()));
+    }
+
+    /**
+     * Записывает событие изменения автомобиля.
+
+     * @param type    тип события
+     * @param vehicle автомобиль после изменения
+     * @return смещение события
+     */
+    public long append(JournalEvent.Type type, Vehicle vehicle) {
+        Long clientId = vehicle.getClient() == null ? null : vehicle.getClient().getId();
+        return append(type, vehicle.getId(), null, clientId, LocalDateTime.now(), json -> json
+                .name("id").value(vehicle.getId())
+                .name("clientId").value(clientId)
+                .name("licensePlate").value(vehicle.getLicensePlate())
+                .name("brand").value(vehicle.getBrand())
+                .name("model").value(vehicle.getModel()));
+    }
+
+    /**
+     * Записывает событие изменения записи о парковке. Временем события для въезда считается
+     * время въезда, для выезда — время выезда.
+
+     * @param type   тип события
+     * @param record запись о парковке после изменения или перед удалением
+     * @return смещение события
+     */
+    public long append(JournalEvent.Type type, ParkingRecord record) {
+        ParkingSpace space = record.getParkingSpace();
+        Long lotId = space == null || space.getParkingLot() == null ? null : space.getParkingLot().getId();
+        Long clientId = record.getClient() == null ? null : record.getClient().getId();
+        LocalDateTime occurredAt = type == JournalEvent.Type.CHECK_IN ? record.getEntryTime()
+                : type == JournalEvent.Type.CHECK_OUT ? record.getExitTime() : LocalDateTime.now();
+        return append(type, record.getId(), lotId, clientId, occurredAt, json -> json
+                .name("id").value(record.getId())
+                .name("spaceId").value(space == null ? null : space.getId())
+                .name("lotId").value(lotId)
+                .name("spaceType").value(space == null ? null : space.getType())
+                .name("vehicleId").value(record.getVehicle() == null ? null : record.getVehicle().getId())
+                .name("clientId").value(clientId)
+                .name("entryTime").value(record.getEntryTime())
+                .name("exitTime").value(record.getExitTime()));
+    }
+
+    /**
+     * Записывает событие удаления объекта, о котором известен только идентификатор.
+     * Для удаления парковки и клиента идентификатор одновременно служит ключом разбиения.
+
+     * @param type тип события удаления
+     * @param id   идентификатор удалённого объекта
+     * @return смещение события
+     */
+    public long appendDeleted(JournalEvent.Type type, Long id) {
+        return append(type, id, type == JournalEvent.Type.LOT_DELETED ? id : null,
+                type == JournalEvent.Type.CLIENT_DELETED ? id : null, LocalDateTime.now(),
+                json -> json.name("id").value(id));
+    }
+
+    @Override
+    public void onCheckIn(ParkingRecord record) {
+        append(JournalEvent.Type.CHECK_IN, record);
+    }
+
+    @Override
+    public void onCheckOut(ParkingRecord record) {
+        append(JournalEvent.Type.CHECK_OUT, record);
+    }
+
+    /**
+     * Очищает модель и строит её заново по всему журналу, после чего подписывает на новые события.
+
+     * @param model   модель чтения
+     * @param threads число потоков воспроизведения
+     * @return число применённых событий
+     */
+    public long rebuild(ReadModel model, int threads) {
+        return replay(model, 0, threads, true);
+    }
+
+    /**
+     * Применяет к модели события после указанного смещения и подписывает её на новые события.
+     * Основная часть журнала читается параллельно без блокировки записи; события, добавленные
+     * за это время, дочитываются под блокировкой, поэтому ни одно событие не теряется
+     * и не применяется дважды.
+
+     * @param model       модель чтения
+     * @param afterOffset смещение, после которого начинается воспроизведение
+     * @param threads     число потоков воспроизведения
+     * @return число применённых событий
+     * @throws IllegalArgumentException если число потоков не положительно
+     */
+    public long replay(ReadModel model, long afterOffset, int threads) {
+        return replay(model, afterOffset, threads, false);
+    }
+
+    /**
+     * Отписывает и при необходимости очищает модель под блокировкой записи: append, уже
+     * получивший модель в списке подписчиков, успевает применить своё событие до очистки,
+     * а событие, записанное после, применяется только воспроизведением.
+     */
+    private long replay(ReadModel model, long afterOffset, int threads, boolean reset) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Число потоков должно быть положительным");
+        }
+        long upTo;
+        synchronized (this) {
+            subscribers.remove(model);
+            if (reset) {
+                model.reset();
+            }
+            upTo = journalDao.findLastOffset();
+        }
+        long applied = replayRange(model, afterOffset, upTo, threads);
+        synchronized (this) {
+            applied += replayRange(model, upTo, journalDao.findLastOffset(), 1);
+            subscribers.add(model);
+        }
+        return applied;
+    }
+
+    /**
+     * Возвращает смещение последнего события журнала.
+
+     * @return смещение или 0 для пустого журнала
+     */
+    public synchronized long getLastOffset() {
+        return journalDao.findLastOffset();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (em.isOpen()) {
+            em.close();
+        }
+    }
+
+    private synchronized long append(JournalEvent.Type type, Long aggregateId, Long lotId, Long clientId,
+                                     LocalDateTime occurredAt, Consumer<JsonWriter> fields) {
+        StringWriter payload = new StringWriter();
+        JsonWriter json = new JsonWriter(payload).beginObject();
+        fields.accept(json);
+        json.endObject().flush();
+        JournalEvent event = new JournalEvent(null, type, aggregateId, lotId, clientId, occurredAt,
+                payload.toString());
+        try {
+            journalDao.append(event);
+        } finally {
+            em.clear();
+        }
+        for (ReadModel model : subscribers) {
+            if (model.getEventTypes().contains(type) && model.getPartition().keyOf(event) != null) {
+                model.apply(event);
+            }
+        }
+        return event.getId();
+    }
+
+    private long replayRange(ReadModel model, long afterOffset, long upToOffset, int threads) {
+        if (upToOffset <= afterOffset) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> parts = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                int partition = i;
+                parts.add(executor.submit(() -> {
+                    EntityManager replayEm = emf.createEntityManager();
+                    try {
+                        return new JournalDao(replayEm).forEachEvent(afterOffset, upToOffset, model.getEventTypes(),
+                                model.getPartition().getField(), threads, partition, model::apply);
+                    } finally {
+                        replayEm.close();
+                    }
+                }));
+            }
+            long applied = 0;
+            for (Future<Long> part : parts) {
+                applied += await(part);
+            }
+            return applied;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long await(Future<Long> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Воспроизведение журнала прервано");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Ошибка воспроизведения журнала: " + e.getCause().getMessage());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.OutboxMessage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Получатель исходящей очереди, дописывающий сообщения каждой парковки в свой файл
+ * {@code lot-<id>.jsonl} по одной строке JSON. Подтверждение возвращается только после
+ * сброса данных на диск, поэтому подтверждённое сообщение не теряется при сбое процесса.
+ */
+public class FileOutboxSink implements OutboxSink {
+    private final Path dir;
+
+    /**
+     * Создаёт получатель.
+
+     * @param dir каталог файлов парковок
+     * @throws UncheckedIOException если каталог нельзя создать
+     */
+    public FileOutboxSink(Path dir) {
+        try {
+            this.dir = Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка создания каталога " + dir + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Возвращает файл сообщений парковки.
+
+     * @param lotId идентификатор парковки
+     * @return путь к файлу
+     */
+    public Path getFile(Long lotId) {
+        return dir.resolve("lot-" + lotId + ".jsonl");
+    }
+
+    @Override
+    public void publish(Long lotId, List<OutboxMessage> messages) {
+        StringBuilder lines = new StringBuilder(messages.size() * 256);
+        for (OutboxMessage message : messages) {
+            lines.append("{\"messageId\":").append(message.getId())
+                    .append(",\"event\":").append(message.getPayload()).append("}\n");
+        }
+        Path file = getFile(lotId);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи сообщений в " + file + ": " + e.getMessage(), e);
+        }
+    }
+}
\ No newline at end of file
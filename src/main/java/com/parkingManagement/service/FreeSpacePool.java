@@ -0,0 +1,90 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Пул свободных мест парковок для быстрого выбора места при въезде без запроса к базе данных.
+ * Свободные места парковки загружаются при первом обращении и при исчерпании пула; выданное место
+ * исключается из пула, а при выезде через сервис с этим слушателем возвращается в него.
+ * Пул может отставать от базы (выезды и въезды мимо слушателя), поэтому окончательно занятость
+ * места проверяет ограничение базы данных при создании записи, а пустой пул перечитывается.
+ */
+public class FreeSpacePool implements ParkingRecordListener {
+    private final Map<Long, LinkedHashSet<Long>> freeSpaces = new HashMap<>();
+
+    /**
+     * Выдаёт до count свободных мест парковки и исключает их из пула.
+
+     * @param lotId  идентификатор парковки
+     * @param count  максимальное число мест
+     * @param loader загрузка идентификаторов свободных мест из базы данных, если пул парковки пуст
+     * @return идентификаторы мест; пустой список, если свободных мест нет
+     */
+    public synchronized List<Long> acquire(Long lotId, int count, Supplier<List<Long>> loader) {
+        LinkedHashSet<Long> free = freeSpaces.get(lotId);
+        if (free == null || free.isEmpty()) {
+            free = new LinkedHashSet<>(loader.get());
+            freeSpaces.put(lotId, free);
+        }
+        List<Long> acquired = new ArrayList<>(Math.min(count, free.size()));
+        for (Iterator<Long> iterator = free.iterator(); iterator.hasNext() && acquired.size() < count; ) {
+            acquired.add(iterator.next());
+            iterator.remove();
+        }
+        return acquired;
+    }
+
+    /**
+     * Заранее загружает свободные места парковок, например при прогреве после запуска.
+     * Парковки, пул которых уже загружен при въезде, не перезаписываются.
+
+     * @param freeSpaceIds идентификаторы свободных мест по идентификаторам парковок
+     * @return число загруженных мест
+     */
+    public synchronized int preload(Map<Long, List<Long>> freeSpaceIds) {
+        int loaded = 0;
+        for (Map.Entry<Long, List<Long>> lot : freeSpaceIds.entrySet()) {
+            if (!freeSpaces.containsKey(lot.getKey())) {
+                freeSpaces.put(lot.getKey(), new LinkedHashSet<>(lot.getValue()));
+                loaded += lot.getValue().size();
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Возвращает место в пул, если пул парковки уже загружен.
+
+     * @param lotId   идентификатор парковки
+     * @param spaceId идентификатор места
+     */
+    public synchronized void release(Long lotId, Long spaceId) {
+        LinkedHashSet<Long> free = freeSpaces.get(lotId);
+        if (free != null) {
+            free.add(spaceId);
+        }
+    }
+
+    @Override
+    public synchronized void onCheckIn(ParkingRecord record) {
+        LinkedHashSet<Long> free = freeSpaces.get(record.getParkingSpace().getParkingLot().getId());
+        if (free != null) {
+            free.remove(record.getParkingSpace().getId());
+        }
+    }
+
+    @Override
+    public void onCheckOut(ParkingRecord record) {
+        ParkingSpace space = record.getParkingSpace();
+        release(space.getParkingLot().getId(), space.getId());
+    }
+}
\ No newline at end of file
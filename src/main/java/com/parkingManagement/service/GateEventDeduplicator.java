@@ -0,0 +1,190 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.GateEvent;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.util.DeduplicationWindow;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Слой дедупликации событий ворот перед ParkingRecordService.
+ * Датчики и камеры часто присылают одно и то же событие несколько раз за секунды; повтор
+ * с теми же воротами, номером и типом события внутри окна отбрасывается до обращения к базе данных.
+ * Ключ события — 64-битный хеш ворот, номера и типа, вычисляемый без создания объектов;
+ * номер сравнивается без учёта регистра и разделителей. Вероятность ложного совпадения хешей
+ * разных событий пренебрежимо мала (порядка ёмкости окна, делённой на 2^64).
+ * Событие, обработка которого завершилась ошибкой, забывается, чтобы повтор от датчика
+ * не был отброшен вместо несостоявшегося оригинала.
+ */
+public class GateEventDeduplicator {
+    private final ParkingRecordService parkingRecordService;
+    private final DeduplicationWindow window;
+    private final LongAdder entries = new LongAdder();
+    private final LongAdder entryDuplicates = new LongAdder();
+    private final LongAdder exits = new LongAdder();
+    private final LongAdder exitDuplicates = new LongAdder();
+
+    /**
+     * Счётчики дедупликации.
+
+     * @param entries         число событий въезда
+     * @param entryDuplicates из них отброшено как повторы
+     * @param exits           число событий выезда
+     * @param exitDuplicates  из них отброшено как повторы
+     */
+    public record Metrics(long entries, long entryDuplicates, long exits, long exitDuplicates) {
+
+        /**
+         * Доля отброшенных повторов среди всех событий.
+
+         * @return доля от 0 до 1
+         */
+        public double hitRate() {
+            long total = entries + exits;
+            return total == 0 ? 0 : (double) (entryDuplicates + exitDuplicates) / total;
+        }
+    }
+
+    /**
+     * Создаёт слой дедупликации.
+
+     * @param parkingRecordService сервис записей о парковке или null, если используются только
+     *                             {@link #isDuplicate} и {@link #forget}
+     * @param window               длительность окна дедупликации
+     * @param capacity             максимальное число событий в окне
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public GateEventDeduplicator(ParkingRecordService parkingRecordService, Duration window, int capacity) {
+        if (window == null || window.toMillis() <= 0) {
+            throw new IllegalArgumentException("Окно дедупликации должно быть положительным");
+        }
+        this.parkingRecordService = parkingRecordService;
+        this.window = new DeduplicationWindow(window.toMillis(), capacity);
+    }
+
+    /**
+     * Регистрирует въезд, если он не повторяет недавнее событие тех же ворот.
+
+     * @param gateId идентификатор ворот
+     * @param record запись о парковке с автомобилем и временем въезда
+     * @return созданная запись или null, если событие отброшено как повтор
+     * @throws IllegalArgumentException при некорректных данных
+     */
+    public ParkingRecord checkIn(String gateId, ParkingRecord record) {
+        if (record == null || record.getVehicle() == null || record.getEntryTime() == null) {
+            throw new IllegalArgumentException("Автомобиль и время въезда обязательны");
+        }
+        if (isDuplicate(gateId, record.getVehicle().getLicensePlate(), GateEvent.Type.ENTRY, record.getEntryTime())) {
+            return null;
+        }
+        try {
+            parkingRecordService.createParkingRecord(record);
+        } catch (RuntimeException e) {
+            forget(gateId, record.getVehicle().getLicensePlate(), GateEvent.Type.ENTRY);
+            throw e;
+        }
+        return record;
+    }
+
+    /**
+     * Завершает сессию, если выезд не повторяет недавнее событие тех же ворот.
+
+     * @param gateId       идентификатор ворот
+     * @param licensePlate распознанный номер автомобиля
+     * @param recordId     идентификатор открытой записи
+     * @param exitTime     время выезда
+     * @return завершённая запись или null, если событие отброшено как повтор
+     * @throws IllegalArgumentException при некорректных данных
+     */
+    public ParkingRecord checkOut(String gateId, String licensePlate, Long recordId, LocalDateTime exitTime) {
+        if (isDuplicate(gateId, licensePlate, GateEvent.Type.EXIT, exitTime)) {
+            return null;
+        }
+        try {
+            return parkingRecordService.checkOut(recordId, exitTime);
+        } catch (RuntimeException e) {
+            forget(gateId, licensePlate, GateEvent.Type.EXIT);
+            throw e;
+        }
+    }
+
+    /**
+     * Проверяет событие по окну дедупликации и учитывает его в метриках. Подходит для других
+     * входов событий, например конвейера приёма или журнала ворот.
+
+     * @param gateId       идентификатор ворот
+     * @param licensePlate номер автомобиля
+     * @param type         тип события
+     * @param time         время события
+     * @return true, если событие повторяет недавнее и должно быть отброшено
+     * @throws IllegalArgumentException при некорректных данных
+     */
+    public boolean isDuplicate(String gateId, String licensePlate, GateEvent.Type type, LocalDateTime time) {
+        if (gateId == null || gateId.isEmpty()) {
+            throw new IllegalArgumentException("Идентификатор ворот обязателен");
+        }
+        if (licensePlate == null || licensePlate.trim().isEmpty()) {
+            throw new IllegalArgumentException("Регистрационный номер обязателен");
+        }
+        if (type == null || time == null) {
+            throw new IllegalArgumentException("Тип и время события обязательны");
+        }
+        long key = key(gateId, licensePlate, type);
+        boolean duplicate;
+        synchronized (window) {
+            duplicate = window.isDuplicate(key, time.toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        if (type == GateEvent.Type.ENTRY) {
+            entries.increment();
+            if (duplicate) {
+                entryDuplicates.increment();
+            }
+        } else {
+            exits.increment();
+            if (duplicate) {
+                exitDuplicates.increment();
+            }
+        }
+        return duplicate;
+    }
+
+    /**
+     * Забывает принятое событие, обработка которого не удалась, чтобы его повтор был обработан.
+     * Метрики не меняются: событие уже учтено как принятое.
+
+     * @param gateId       идентификатор ворот
+     * @param licensePlate номер автомобиля
+     * @param type         тип события
+     */
+    public void forget(String gateId, String licensePlate, GateEvent.Type type) {
+        long key = key(gateId, licensePlate, type);
+        synchronized (window) {
+            window.forget(key);
+        }
+    }
+
+    public Metrics getMetrics() {
+        return new Metrics(entries.sum(), entryDuplicates.sum(), exits.sum(), exitDuplicates.sum());
+    }
+
+    private static long key(String gateId, String licensePlate, GateEvent.Type type) {
+        return hash(hash(type.ordinal() + 1, gateId), licensePlate);
+    }
+
+    /**
+     * Добавляет к хешу буквы и цифры строки в верхнем регистре, пропуская разделители.
+     */
+    private static long hash(long seed, String value) {
+        long hash = seed * 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                hash = (hash ^ Character.toUpperCase(c)) * 0x100000001B3L;
+            }
+        }
+        return hash ^ (hash >>> 29);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,294 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.BatchCheckpointDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.GateEvent;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.util.WriteAheadLog;
+import jakarta.persistence.PersistenceException;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Сервис надёжного приёма событий ворот через журнал упреждающей записи.
+ * Событие подтверждается воротам, как только оно сохранено в журнале согласно его политике
+ * синхронизации, поэтому задержка подтверждения не зависит от базы данных. Фоновый поток
+ * переносит сохранённые события в базу пакетами по порядку номеров и в той же транзакции
+ * сдвигает контрольную точку. При запуске события после контрольной точки читаются из журнала
+ * и применяются заново, поэтому каждое событие попадает в базу ровно один раз.
+ * Пока база недоступна, события накапливаются в журнале и в памяти, а пакет повторяется после паузы.
+ * Событие, которое база отклоняет само по себе, считается отклонённым, и контрольная точка сдвигается за него.
+ */
+public class GateEventLogService implements AutoCloseable {
+    static final String CHECKPOINT_JOB = "gate-wal";
+    private static final int PAYLOAD_SIZE = 29;
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final WriteAheadLog log;
+    private final ParkingRecordDao parkingRecordDao;
+    private final BatchCheckpointDao checkpointDao;
+    private final int batchSize;
+    private final long retryDelayNanos;
+    private final ConcurrentSkipListMap<Long, GateEvent> pending = new ConcurrentSkipListMap<>();
+    private final List<ParkingRecordListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong appliedEvents = new AtomicLong();
+    private final AtomicLong rejectedEvents = new AtomicLong();
+    private volatile long appliedSequence;
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * Создаёт сервис.
+
+     * @param log              журнал событий
+     * @param parkingRecordDao DAO записей о парковке с отдельным EntityManager
+     * @param checkpointDao    DAO контрольных точек на том же EntityManager
+     * @param batchSize        максимальный размер пакета записи в базу
+     * @param retryDelay       пауза перед повтором пакета после ошибки базы данных
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public GateEventLogService(WriteAheadLog log, ParkingRecordDao parkingRecordDao, BatchCheckpointDao checkpointDao,
+                               int batchSize, Duration retryDelay) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пакета должен быть положительным");
+        }
+        if (retryDelay == null || retryDelay.isNegative()) {
+            throw new IllegalArgumentException("Пауза повтора не может быть отрицательной");
+        }
+        this.log = log;
+        this.parkingRecordDao = parkingRecordDao;
+        this.checkpointDao = checkpointDao;
+        this.batchSize = batchSize;
+        this.retryDelayNanos = retryDelay.toNanos();
+    }
+
+    /**
+     * Регистрирует слушателя событий въезда и выезда; вызывается после записи события в базу.
+
+     * @param listener слушатель
+     */
+    public void addListener(ParkingRecordListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Восстанавливает из журнала события, не перенесённые в базу, и запускает фоновый перенос.
+
+     * @return число событий, восстановленных из журнала
+     * @throws IllegalStateException если журнал короче контрольной точки (журнал утерян или подменён)
+     * @throws PersistenceException  при ошибке чтения контрольной точки
+     */
+    public synchronized int start() {
+        if (flusher != null) {
+            return 0;
+        }
+        Long checkpoint = checkpointDao.findPosition(CHECKPOINT_JOB);
+        appliedSequence = checkpoint == null ? 0 : checkpoint;
+        if (log.getLastSequence() < appliedSequence) {
+            // Новые номера совпали бы с уже применёнными и были бы пропущены
+            throw new IllegalStateException("Журнал событий ворот не соответствует контрольной точке " + appliedSequence);
+        }
+        int[] recovered = {0};
+        log.replay(appliedSequence, entry -> {
+            pending.put(entry.sequence(), decode(entry.payload()));
+            recovered[0]++;
+        });
+        running = true;
+        flusher = new Thread(this::flush, "gate-wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        return recovered[0];
+    }
+
+    /**
+     * Сохраняет событие в журнале. По возвращении событие подтверждено и будет перенесено в базу.
+
+     * @param event событие ворот
+     * @return порядковый номер события в журнале
+     * @throws IllegalArgumentException при некорректном событии
+     * @throws IllegalStateException    если сервис не запущен
+     */
+    public long record(GateEvent event) {
+        if (!running) {
+            throw new IllegalStateException("Журнал событий ворот не запущен");
+        }
+        GateIngestionPipeline.validateEvent(event);
+        long sequence = log.append(encode(event));
+        pending.put(sequence, event);
+        return sequence;
+    }
+
+    /**
+     * Останавливает фоновый перенос после текущего пакета. Неперенесённые события остаются
+     * в журнале и будут применены при следующем запуске. Журнал закрывает владелец.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = flusher;
+            flusher = null;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Ожидает переноса в базу всех событий, подтверждённых до вызова.
+
+     * @param timeout максимальное время ожидания
+     * @return true, если все события перенесены
+     */
+    public boolean awaitApplied(Duration timeout) {
+        long target = log.getLastSequence();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (appliedSequence < target) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+        return true;
+    }
+
+    public long getAppliedSequence() {
+        return appliedSequence;
+    }
+
+    public long getAppliedEvents() {
+        return appliedEvents.get();
+    }
+
+    public long getRejectedEvents() {
+        return rejectedEvents.get();
+    }
+
+    public int getBacklog() {
+        return pending.size();
+    }
+
+    private void flush() {
+        List<GateEvent> events = new ArrayList<>(batchSize);
+        while (running) {
+            // Переносятся только сохранённые события подряд от контрольной точки: номер, ещё не
+            // добавленный в очередь другим потоком, останавливает пакет до следующей итерации
+            long durable = log.getDurableSequence();
+            long next = appliedSequence + 1;
+            for (Map.Entry<Long, GateEvent> entry : pending.tailMap(next).entrySet()) {
+                if (entry.getKey() != next || next > durable || events.size() == batchSize) {
+                    break;
+                }
+                events.add(entry.getValue());
+                next++;
+            }
+            if (events.isEmpty()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            long last = next - 1;
+            try {
+                advance(events, parkingRecordDao.applyGateEvents(events, CHECKPOINT_JOB, last), last);
+            } catch (PersistenceException e) {
+                if (!applyOneByOne(events, last - events.size() + 1)) {
+                    System.err.println("Ошибка переноса событий ворот в базу, повтор: " + e.getMessage());
+                    LockSupport.parkNanos(retryDelayNanos);
+                }
+            }
+            events.clear();
+        }
+    }
+
+    /**
+     * Применяет события отклонённого пакета по одному, чтобы событие, нарушающее ограничение базы
+     * (например, повторный въезд на занятое место), не останавливало перенос остальных.
+     * Если событие не применяется, но база принимает одну контрольную точку, событие считается
+     * отклонённым и пропускается; если не принимает и её, база недоступна и пакет повторяется позже.
+
+     * @return true, если все события применены или отклонены
+     */
+    private boolean applyOneByOne(List<GateEvent> events, long firstSequence) {
+        for (int i = 0; i < events.size(); i++) {
+            List<GateEvent> single = List.of(events.get(i));
+            long sequence = firstSequence + i;
+            try {
+                advance(single, parkingRecordDao.applyGateEvents(single, CHECKPOINT_JOB, sequence), sequence);
+            } catch (PersistenceException e) {
+                try {
+                    parkingRecordDao.applyGateEvents(List.of(), CHECKPOINT_JOB, sequence);
+                } catch (PersistenceException unavailable) {
+                    return false;
+                }
+                System.err.println("Событие ворот " + sequence + " отклонено базой данных: " + e.getMessage());
+                advance(single, Collections.singletonList(null), sequence);
+            }
+        }
+        return true;
+    }
+
+    private void advance(List<GateEvent> events, List<ParkingRecord> records, long last) {
+        appliedSequence = last;
+        pending.headMap(last, true).clear();
+        appliedEvents.addAndGet(events.size());
+        notifyListeners(events, records);
+        log.truncate(last);
+    }
+
+    private void notifyListeners(List<GateEvent> events, List<ParkingRecord> records) {
+        for (int i = 0; i < events.size(); i++) {
+            ParkingRecord record = records.get(i);
+            if (record == null) {
+                rejectedEvents.incrementAndGet();
+                continue;
+            }
+            for (ParkingRecordListener listener : listeners) {
+                try {
+                    if (events.get(i).type() == GateEvent.Type.ENTRY) {
+                        listener.onCheckIn(record);
+                    } else {
+                        listener.onCheckOut(record);
+                    }
+                } catch (RuntimeException e) {
+                    // Ошибка слушателя не должна останавливать перенос событий
+                    System.err.println("Ошибка обработки события ворот: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    static byte[] encode(GateEvent event) {
+        ByteBuffer buffer = ByteBuffer.allocate(PAYLOAD_SIZE);
+        buffer.put((byte) event.type().ordinal());
+        buffer.putLong(event.vehicleId());
+        buffer.putLong(event.spaceId() == null ? 0 : event.spaceId());
+        buffer.putLong(event.time().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(event.time().getNano());
+        return buffer.array();
+    }
+
+    static GateEvent decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        GateEvent.Type type = GateEvent.Type.values()[buffer.get()];
+        long vehicleId = buffer.getLong();
+        long spaceId = buffer.getLong();
+        LocalDateTime time = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        return new GateEvent(type, vehicleId, spaceId == 0 ? null : spaceId, time);
+    }
+}
\ No newline at end of file
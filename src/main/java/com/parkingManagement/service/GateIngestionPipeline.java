@@ -0,0 +1,297 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.GateEvent;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.util.BoundedMpscQueue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Конвейер приёма событий ворот с пакетной записью.
+ * Производители кладут события в ограниченную неблокирующую очередь и получают
+ * CompletableFuture с итоговой записью о парковке. Единственный поток-потребитель собирает
+ * до batchSize событий, ожидая не дольше linger после первого события пакета, и применяет
+ * пакет одной транзакцией. При любой ошибке применения пакет повторяется по одному событию,
+ * чтобы ошибка затронула только виновное событие; сбой обработки пакета завершает его события
+ * с ошибкой, но не останавливает потребителя. Потребитель один, потому что EntityManager
+ * однопоточный; DAO конвейера должен работать с отдельным EntityManager.
+ * При заполненной очереди submit ждёт освобождения места, создавая обратное давление на ворота.
+ * Ошибка слушателя завершает future события этой ошибкой, хотя событие уже зафиксировано.
+ * Каждый future завершается: close ждёт выхода производителей из submit и завершает
+ * с ошибкой события, оставшиеся в очереди после остановки потребителя.
+ */
+public class GateIngestionPipeline implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final long FULL_PARK_NANOS = 10_000;
+
+    private final ParkingRecordDao parkingRecordDao;
+    private final BoundedMpscQueue<Pending> queue;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final List<ParkingRecordListener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong committedBatches = new AtomicLong();
+    private final AtomicLong processedEvents = new AtomicLong();
+    private final AtomicInteger activeProducers = new AtomicInteger();
+    private volatile boolean running;
+    private volatile boolean consumerWaiting;
+    private Thread consumer;
+
+    /**
+     * Событие, ожидающее записи.
+     */
+    private record Pending(GateEvent event, CompletableFuture<ParkingRecord> future) {
+    }
+
+    /**
+     * Создаёт конвейер.
+
+     * @param parkingRecordDao DAO записей о парковке с отдельным EntityManager
+     * @param queueCapacity    ёмкость очереди
+     * @param batchSize        максимальный размер пакета
+     * @param linger           максимальное ожидание добора пакета
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public GateIngestionPipeline(ParkingRecordDao parkingRecordDao, int queueCapacity, int batchSize, Duration linger) {
+        if (queueCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Ёмкость очереди и размер пакета должны быть положительными");
+        }
+        if (linger == null || linger.isNegative()) {
+            throw new IllegalArgumentException("Время ожидания пакета не может быть отрицательным");
+        }
+        this.parkingRecordDao = parkingRecordDao;
+        this.queue = new BoundedMpscQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+    }
+
+    /**
+     * Регистрирует слушателя событий въезда и выезда; вызывается после фиксации пакета.
+
+     * @param listener слушатель
+     */
+    public void addListener(ParkingRecordListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Запускает поток-потребитель.
+     */
+    public synchronized void start() {
+        if (consumer != null) {
+            return;
+        }
+        running = true;
+        consumer = new Thread(this::consume, "gate-ingestion");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Ставит событие в очередь. При заполненной очереди ожидает освобождения места.
+
+     * @param event событие ворот
+     * @return будущая запись о парковке; завершается с IllegalArgumentException, если событие отклонено,
+     *         и с ошибкой слушателя, если событие записано, но слушатель его не обработал
+     * @throws IllegalArgumentException при некорректном событии
+     * @throws IllegalStateException    если конвейер не запущен или остановлен
+     */
+    public CompletableFuture<ParkingRecord> submit(GateEvent event) {
+        validateEvent(event);
+        // Производитель регистрируется до проверки состояния: close ждёт, пока все зарегистрированные
+        // производители выйдут, поэтому событие не может попасть в очередь после её последней очистки
+        activeProducers.incrementAndGet();
+        try {
+            ensureRunning();
+            CompletableFuture<ParkingRecord> future = new CompletableFuture<>();
+            Pending pending = new Pending(event, future);
+            while (!queue.offer(pending)) {
+                ensureRunning();
+                LockSupport.parkNanos(FULL_PARK_NANOS);
+            }
+            if (consumerWaiting) {
+                LockSupport.unpark(consumer);
+            }
+            return future;
+        } finally {
+            activeProducers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Останавливает приём, дописывает события из очереди и завершает поток-потребитель.
+     * События, поставленные в очередь после выхода потребителя, завершаются с ошибкой.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = consumer;
+        }
+        while (activeProducers.get() > 0) {
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Pending pending = queue.poll(); pending != null; pending = queue.poll()) {
+            pending.future().completeExceptionally(new IllegalStateException("Конвейер событий ворот остановлен"));
+        }
+    }
+
+    public long getCommittedBatches() {
+        return committedBatches.get();
+    }
+
+    public long getProcessedEvents() {
+        return processedEvents.get();
+    }
+
+    private void consume() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            Pending first = queue.poll();
+            if (first == null) {
+                consumerWaiting = true;
+                if (running && queue.isEmpty()) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                consumerWaiting = false;
+                continue;
+            }
+            batch.add(first);
+            long deadline = System.nanoTime() + lingerNanos;
+            while (batch.size() < batchSize) {
+                Pending next = queue.poll();
+                if (next != null) {
+                    batch.add(next);
+                    continue;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || !running) {
+                    break;
+                }
+                LockSupport.parkNanos(Math.min(remaining, FULL_PARK_NANOS));
+            }
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                // Сбой одного пакета не должен останавливать поток-потребитель; ошибка
+                // передаётся производителям через future событий пакета
+                batch.forEach(pending -> pending.future().completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void process(List<Pending> batch) {
+        List<GateEvent> events = new ArrayList<>(batch.size());
+        batch.forEach(p -> events.add(p.event()));
+        List<ParkingRecord> records;
+        try {
+            records = parkingRecordDao.applyGateEvents(events);
+        } catch (RuntimeException e) {
+            records = null;
+        }
+        if (records != null) {
+            committedBatches.incrementAndGet();
+            complete(batch, records);
+        } else {
+            for (Pending pending : batch) {
+                List<ParkingRecord> single;
+                try {
+                    single = parkingRecordDao.applyGateEvents(List.of(pending.event()));
+                } catch (RuntimeException e) {
+                    pending.future().completeExceptionally(e);
+                    continue;
+                }
+                committedBatches.incrementAndGet();
+                complete(List.of(pending), single);
+            }
+        }
+        processedEvents.addAndGet(batch.size());
+    }
+
+    private void complete(List<Pending> batch, List<ParkingRecord> records) {
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            ParkingRecord record = records.get(i);
+            if (record == null) {
+                pending.future().completeExceptionally(new IllegalArgumentException(
+                        pending.event().type() == GateEvent.Type.ENTRY
+                                ? "Автомобиль или место не найдены"
+                                : "Нет открытой сессии автомобиля с ID " + pending.event().vehicleId()));
+                continue;
+            }
+            RuntimeException failure = notifyListeners(pending.event(), record);
+            if (failure == null) {
+                pending.future().complete(record);
+            } else {
+                pending.future().completeExceptionally(failure);
+            }
+        }
+    }
+
+    /**
+     * Оповещает всех слушателей о зафиксированном событии. Ошибка слушателя не прерывает
+     * оповещение остальных и не останавливает приём событий.
+
+     * @return первая ошибка слушателя с остальными в подавленных или null, если ошибок не было
+     */
+    private RuntimeException notifyListeners(GateEvent event, ParkingRecord record) {
+        RuntimeException failure = null;
+        for (ParkingRecordListener listener : listeners) {
+            try {
+                if (event.type() == GateEvent.Type.ENTRY) {
+                    listener.onCheckIn(record);
+                } else {
+                    listener.onCheckOut(record);
+                }
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        return failure;
+    }
+
+    private void ensureRunning() {
+        if (!running) {
+            throw new IllegalStateException("Конвейер событий ворот не запущен");
+        }
+    }
+
+    /**
+     * Проверяет корректность события ворот.
+
+     * @param event событие для проверки
+     * @throws IllegalArgumentException при некорректных данных
+     */
+    static void validateEvent(GateEvent event) {
+        if (event == null || event.type() == null || event.time() == null) {
+            throw new IllegalArgumentException("Тип и время события обязательны");
+        }
+        if (event.vehicleId() == null || event.vehicleId() <= 0) {
+            throw new IllegalArgumentException("Идентификатор автомобиля должен быть положительным");
+        }
+        if (event.type() == GateEvent.Type.ENTRY && (event.spaceId() == null || event.spaceId() <= 0)) {
+            throw new IllegalArgumentException("Идентификатор места должен быть положительным");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,227 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.SessionRow;
+import com.parkingManagement.util.CountMinSketch;
+import com.parkingManagement.util.SpaceSaving;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Сервис поиска самых частых автомобилей и клиентов по въездам.
+ * Для каждой парковки и дня въезда хранятся сводки Space-Saving (кандидаты в лидеры)
+ * и Count-Min Sketch (оценка частоты любого ключа) фиксированного размера.
+ * Запрос за интервал дней объединяет дневные сводки без обращения к базе данных.
+ * Хранятся только последние retentionDays дней относительно самого позднего въезда.
+ */
+public class HeavyHitterService implements ParkingRecordListener {
+    static final int SKETCH_WIDTH = 1024;
+    static final int SKETCH_DEPTH = 4;
+
+    private final ParkingRecordDao parkingRecordDao;
+    private final int capacity;
+    private final int retentionDays;
+    private final Map<Long, NavigableMap<Long, DaySummary>> summaries = new HashMap<>();
+
+    /**
+     * Лидер по числу въездов.
+
+     * @param id              идентификатор автомобиля или клиента
+     * @param count           оценка числа въездов сверху
+     * @param guaranteedCount гарантированное минимальное число въездов
+     */
+    public record HeavyHitter(Long id, long count, long guaranteedCount) {
+    }
+
+    /**
+     * Сводки по въездам одной парковки за один день.
+     */
+    private static final class DaySummary {
+        final SpaceSaving vehicles;
+        final SpaceSaving clients;
+        final CountMinSketch vehicleCounts = new CountMinSketch(SKETCH_WIDTH, SKETCH_DEPTH);
+        final CountMinSketch clientCounts = new CountMinSketch(SKETCH_WIDTH, SKETCH_DEPTH);
+
+        DaySummary(int capacity) {
+            vehicles = new SpaceSaving(capacity);
+            clients = new SpaceSaving(capacity);
+        }
+
+        void add(long vehicleId, long clientId) {
+            vehicles.offer(vehicleId, 1);
+            clients.offer(clientId, 1);
+            vehicleCounts.add(vehicleId, 1);
+            clientCounts.add(clientId, 1);
+        }
+    }
+
+    /**
+     * Создаёт сервис с указанным размером сводок и глубиной хранения.
+
+     * @param parkingRecordDao DAO записей о парковке для пакетного пересчёта
+     * @param capacity         число отслеживаемых ключей в дневной сводке
+     * @param retentionDays    число хранимых дней
+     * @throws IllegalArgumentException при неположительных параметрах
+     */
+    public HeavyHitterService(ParkingRecordDao parkingRecordDao, int capacity, int retentionDays) {
+        if (capacity <= 0 || retentionDays <= 0) {
+            throw new IllegalArgumentException("Размер сводки и глубина хранения должны быть положительными");
+        }
+        this.parkingRecordDao = parkingRecordDao;
+        this.capacity = capacity;
+        this.retentionDays = retentionDays;
+    }
+
+    /**
+     * Учитывает въезд в сводках парковки за день въезда.
+
+     * @param record сохранённая запись о парковке
+     */
+    @Override
+    public void onCheckIn(ParkingRecord record) {
+        add(record.getParkingSpace().getParkingLot().getId(), record.getEntryTime().toLocalDate(),
+                record.getVehicle().getId(), record.getClient().getId());
+    }
+
+    /**
+     * Возвращает самые частые автомобили парковки за интервал дней.
+
+     * @param lotId идентификатор парковки или null для всех парковок
+     * @param from  первый день
+     * @param to    последний день включительно
+     * @param k     число лидеров
+     * @return лидеры по убыванию числа въездов
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public List<HeavyHitter> getTopVehicles(Long lotId, LocalDate from, LocalDate to, int k) {
+        return top(lotId, from, to, k, true);
+    }
+
+    /**
+     * Возвращает самых частых клиентов парковки за интервал дней.
+
+     * @param lotId идентификатор парковки или null для всех парковок
+     * @param from  первый день
+     * @param to    последний день включительно
+     * @param k     число лидеров
+     * @return лидеры по убыванию числа въездов
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public List<HeavyHitter> getTopClients(Long lotId, LocalDate from, LocalDate to, int k) {
+        return top(lotId, from, to, k, false);
+    }
+
+    /**
+     * Оценивает сверху число въездов автомобиля за интервал дней.
+
+     * @param lotId     идентификатор парковки или null для всех парковок
+     * @param vehicleId идентификатор автомобиля
+     * @param from      первый день
+     * @param to        последний день включительно
+     * @return оценка числа въездов
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public synchronized long estimateVehicleVisits(Long lotId, Long vehicleId, LocalDate from, LocalDate to) {
+        validateWindow(from, to);
+        long total = 0;
+        for (DaySummary day : daysInWindow(lotId, from, to)) {
+            total += day.vehicleCounts.estimate(vehicleId);
+        }
+        return total;
+    }
+
+    /**
+     * Пересчитывает сводки за интервал дней по истории въездов.
+     * Сводки этих дней строятся заново, поэтому пересчёт идемпотентен.
+
+     * @param from первый день
+     * @param to   последний день включительно
+     * @return число учтённых въездов
+     * @throws IllegalArgumentException при некорректном интервале
+     */
+    public int rebuild(LocalDate from, LocalDate to) {
+        validateWindow(from, to);
+        int processed = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            LocalDateTime dayStart = day.atStartOfDay();
+            Map<Long, DaySummary> rebuilt = new HashMap<>();
+            for (SessionRow s : parkingRecordDao.findSessionsOverlapping(dayStart, dayStart.plusDays(1))) {
+                if (s.entryTime().isBefore(dayStart)) {
+                    continue;
+                }
+                rebuilt.computeIfAbsent(s.lotId(), id -> new DaySummary(capacity)).add(s.vehicleId(), s.clientId());
+                processed++;
+            }
+            replaceDay(day.toEpochDay(), rebuilt);
+        }
+        return processed;
+    }
+
+    private synchronized void add(Long lotId, LocalDate day, Long vehicleId, Long clientId) {
+        NavigableMap<Long, DaySummary> days = summaries.computeIfAbsent(lotId, id -> new TreeMap<>());
+        days.computeIfAbsent(day.toEpochDay(), d -> new DaySummary(capacity)).add(vehicleId, clientId);
+        evict(days);
+    }
+
+    private synchronized void replaceDay(long epochDay, Map<Long, DaySummary> rebuilt) {
+        summaries.values().forEach(days -> days.remove(epochDay));
+        rebuilt.forEach((lotId, summary) -> {
+            NavigableMap<Long, DaySummary> days = summaries.computeIfAbsent(lotId, id -> new TreeMap<>());
+            days.put(epochDay, summary);
+            evict(days);
+        });
+    }
+
+    private void evict(NavigableMap<Long, DaySummary> days) {
+        long oldest = days.lastKey() - retentionDays + 1;
+        days.headMap(oldest, false).clear();
+    }
+
+    private synchronized List<HeavyHitter> top(Long lotId, LocalDate from, LocalDate to, int k, boolean vehicles) {
+        validateWindow(from, to);
+        if (k <= 0) {
+            throw new IllegalArgumentException("Число лидеров должно быть положительным");
+        }
+        SpaceSaving merged = new SpaceSaving(capacity);
+        List<DaySummary> window = daysInWindow(lotId, from, to);
+        for (DaySummary day : window) {
+            merged.merge(vehicles ? day.vehicles : day.clients);
+        }
+        List<HeavyHitter> result = new ArrayList<>();
+        for (SpaceSaving.Entry entry : merged.top(k)) {
+            long sketchEstimate = 0;
+            for (DaySummary day : window) {
+                sketchEstimate += (vehicles ? day.vehicleCounts : day.clientCounts).estimate(entry.key());
+            }
+            long count = Math.min(entry.count(), sketchEstimate);
+            result.add(new HeavyHitter(entry.key(), count, Math.max(0, entry.count() - entry.error())));
+        }
+        result.sort(Comparator.comparingLong(HeavyHitter::count).reversed());
+        return result;
+    }
+
+    private List<DaySummary> daysInWindow(Long lotId, LocalDate from, LocalDate to) {
+        List<DaySummary> window = new ArrayList<>();
+        for (Map.Entry<Long, NavigableMap<Long, DaySummary>> lot : summaries.entrySet()) {
+            if (lotId == null || lotId.equals(lot.getKey())) {
+                window.addAll(lot.getValue().subMap(from.toEpochDay(), true, to.toEpochDay(), true).values());
+            }
+        }
+        return window;
+    }
+
+    private static void validateWindow(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Некорректный интервал дней");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,217 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.BatchCheckpointDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.SessionDetail;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сервис формирования месячных счетов клиентов.
+ * Сессии читаются постранично в порядке идентификатора клиента, сессии одного клиента
+ * собираются в группу и передаются в ограниченный пул потоков, который рассчитывает стоимость
+ * и пишет файл счёта. Очередь пула ограничена, поэтому чтение приостанавливается при насыщении
+ * и память не зависит от объёма истории. Контрольная точка хранит наибольший идентификатор
+ * клиента, до которого включительно все счета записаны, поэтому прерванный запуск продолжается с него.
+ */
+public class InvoiceService {
+    static final int PAGE_SIZE = 5000;
+
+    private final ParkingRecordDao parkingRecordDao;
+    private final BatchCheckpointDao checkpointDao;
+    private final TariffEngine tariffEngine;
+    private final int threads;
+
+    /**
+     * Итоги запуска формирования счетов.
+
+     * @param clients       число клиентов, для которых записаны счета
+     * @param sessions      число учтённых сессий
+     * @param totalAmount   общая сумма в копейках
+     */
+    public record InvoiceRun(int clients, long sessions, long totalAmount) {
+    }
+
+    /**
+     * Итоги по счёту одного клиента.
+     */
+    private record ClientTotal(long clientId, int sessions, long amount) {
+    }
+
+    public InvoiceService(ParkingRecordDao parkingRecordDao, BatchCheckpointDao checkpointDao,
+                          TariffEngine tariffEngine, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Число потоков должно быть положительным");
+        }
+        this.parkingRecordDao = parkingRecordDao;
+        this.checkpointDao = checkpointDao;
+        this.tariffEngine = tariffEngine;
+        this.threads = threads;
+    }
+
+    /**
+     * Формирует счета за месяц по сессиям, завершившимся в этом месяце.
+     * Каждый счёт записывается во временный файл и атомарно переименовывается,
+     * поэтому повторная обработка клиента после сбоя безопасна.
+
+     * @param month     расчётный месяц
+     * @param outputDir каталог для файлов счетов
+     * @return итоги запуска
+     * @throws IllegalArgumentException при некорректных параметрах
+     * @throws UncheckedIOException     при ошибке записи файлов
+     */
+    public InvoiceRun generateInvoices(YearMonth month, Path outputDir) {
+        if (month == null || outputDir == null) {
+            throw new IllegalArgumentException("Месяц и каталог счетов обязательны");
+        }
+        try {
+            Files.createDirectories(outputDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка создания каталога счетов: " + e.getMessage(), e);
+        }
+        String job = jobName(month);
+        LocalDateTime from = month.atDay(1).atStartOfDay();
+        LocalDateTime to = month.plusMonths(1).atDay(1).atStartOfDay();
+        Long done = checkpointDao.findPosition(job);
+        long afterClient = done == null ? 0 : done;
+        long afterRecord = Long.MAX_VALUE;
+
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        Deque<Future<ClientTotal>> pending = new ArrayDeque<>();
+        long[] totals = new long[3];
+        try {
+            List<SessionDetail> group = new ArrayList<>();
+            while (true) {
+                List<SessionDetail> page = parkingRecordDao.findCompletedSessionsByClient(
+                        from, to, afterClient, afterRecord, PAGE_SIZE);
+                for (SessionDetail row : page) {
+                    if (!group.isEmpty() && !group.get(0).clientId().equals(row.clientId())) {
+                        pending.add(submit(pool, group, month, outputDir));
+                        group = new ArrayList<>();
+                    }
+                    group.add(row);
+                }
+                if (!page.isEmpty()) {
+                    SessionDetail last = page.get(page.size() - 1);
+                    afterClient = last.clientId();
+                    afterRecord = last.recordId();
+                }
+                drain(pending, job, totals, false);
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+            }
+            if (!group.isEmpty()) {
+                pending.add(submit(pool, group, month, outputDir));
+            }
+            drain(pending, job, totals, true);
+        } finally {
+            pool.shutdownNow();
+        }
+        return new InvoiceRun((int) totals[0], totals[1], totals[2]);
+    }
+
+    /**
+     * Сбрасывает контрольную точку месяца, чтобы следующий запуск сформировал все счета заново.
+
+     * @param month расчётный месяц
+     */
+    public void resetInvoices(YearMonth month) {
+        checkpointDao.reset(jobName(month));
+    }
+
+    private Future<ClientTotal> submit(ThreadPoolExecutor pool, List<SessionDetail> sessions,
+                                       YearMonth month, Path outputDir) {
+        return pool.submit(() -> writeStatement(sessions, month, outputDir));
+    }
+
+    /**
+     * Забирает завершённые задачи в порядке отправки и сдвигает контрольную точку
+     * до последнего клиента, перед которым все счета уже записаны.
+     */
+    private void drain(Deque<Future<ClientTotal>> pending, String job, long[] totals, boolean waitAll) {
+        long watermark = -1;
+        while (!pending.isEmpty() && (waitAll || pending.peekFirst().isDone())) {
+            ClientTotal total = await(pending.pollFirst());
+            totals[0]++;
+            totals[1] += total.sessions();
+            totals[2] += total.amount();
+            watermark = total.clientId();
+        }
+        if (watermark >= 0) {
+            checkpointDao.savePosition(job, watermark);
+        }
+    }
+
+    private ClientTotal await(Future<ClientTotal> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Формирование счетов прервано");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Ошибка формирования счёта: " + e.getCause().getMessage());
+        }
+    }
+
+    private ClientTotal writeStatement(List<SessionDetail> sessions, YearMonth month, Path outputDir) {
+        SessionDetail first = sessions.get(0);
+        Path target = outputDir.resolve("invoice-" + month + "-client-" + first.clientId() + ".csv");
+        Path temp = outputDir.resolve(target.getFileName() + ".tmp");
+        long total = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write("# Счёт за " + month + "; клиент " + first.clientId() + "; " + first.clientName());
+            out.newLine();
+            out.write("record_id;license_plate;lot;space;type;entry_time;exit_time;minutes;amount");
+            out.newLine();
+            for (SessionDetail s : sessions) {
+                long amount = tariffEngine.price(s.spaceType(), s.entryTime(), s.exitTime());
+                total += amount;
+                out.write(s.recordId() + ";" + s.licensePlate() + ";" + s.lotName() + ";" + s.spaceNumber() + ";"
+                        + s.spaceType() + ";" + s.entryTime() + ";" + s.exitTime() + ";"
+                        + Duration.between(s.entryTime(), s.exitTime()).toMinutes() + ";" + formatAmount(amount));
+                out.newLine();
+            }
+            out.write("# Итого: " + sessions.size() + " сессий; " + formatAmount(total));
+            out.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи счёта клиента " + first.clientId() + ": " + e.getMessage(), e);
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи счёта клиента " + first.clientId() + ": " + e.getMessage(), e);
+        }
+        return new ClientTotal(first.clientId(), sessions.size(), total);
+    }
+
+    static String formatAmount(long kopecks) {
+        return kopecks / 100 + "." + String.format("%02d", kopecks % 100);
+    }
+
+    private static String jobName(YearMonth month) {
+        return "invoice-" + month;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,186 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.OccupancySeries;
+import com.parkingManagement.model.SessionIntervals;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.stream.IntStream;
+
+/**
+ * Сервис поминутной аналитики занятости парковок.
+ * Въезд и выезд каждой сессии превращаются в события +1/-1 в минутных корзинах окна,
+ * после чего один проход префиксной суммы даёт занятость на каждую минуту.
+ * Минутные корзины заменяют сортировку событий: сложность O(n + m) вместо O(n log n),
+ * а большие наборы делятся на части, которые обрабатываются параллельно в собственных массивах.
+ * Сессия учитывается в минуте t, если въезд не позже t, а выезд позже t.
+ */
+public class OccupancyAnalyticsService {
+    static final int BINARY_MAGIC = 0x4F434331;
+    private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    private final ParkingRecordDao parkingRecordDao;
+
+    public OccupancyAnalyticsService(ParkingRecordDao parkingRecordDao) {
+        this.parkingRecordDao = parkingRecordDao;
+    }
+
+    /**
+     * Строит поминутный ряд занятости парковки за интервал.
+
+     * @param lotId идентификатор парковки
+     * @param from  начало интервала, округляется вниз до минуты
+     * @param to    конец интервала не включительно
+     * @return ряд занятости
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public OccupancySeries getOccupancy(Long lotId, LocalDateTime from, LocalDateTime to) {
+        if (lotId == null || lotId <= 0) {
+            throw new IllegalArgumentException("Идентификатор парковки должен быть положительным");
+        }
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new IllegalArgumentException("Некорректный интервал времени");
+        }
+        LocalDateTime start = from.withSecond(0).withNano(0);
+        int minutes = (int) ((Duration.between(start, to).getSeconds() + 59) / 60);
+        SessionIntervals intervals = parkingRecordDao.loadSessionIntervals(lotId, start, start.plusMinutes(minutes));
+        int[] counts = computeOccupancy(intervals.getEntries(), intervals.getExits(), intervals.size(),
+                start.toEpochSecond(ZoneOffset.UTC) / 60, minutes);
+        return new OccupancySeries(start, counts);
+    }
+
+    /**
+     * Вычисляет поминутную занятость по примитивным массивам интервалов.
+
+     * @param entries     времена въезда в секундах от эпохи
+     * @param exits       времена выезда в секундах от эпохи или SessionIntervals.OPEN
+     * @param size        число интервалов
+     * @param startMinute первая минута окна от эпохи
+     * @param minutes     длина окна в минутах
+     * @return занятость по минутам окна
+     */
+    public static int[] computeOccupancy(long[] entries, long[] exits, int size, long startMinute, int minutes) {
+        int[] delta;
+        if (size < PARALLEL_THRESHOLD) {
+            delta = new int[minutes + 1];
+            accumulate(entries, exits, 0, size, startMinute, minutes, delta);
+        } else {
+            int parts = Runtime.getRuntime().availableProcessors();
+            int chunk = (size + parts - 1) / parts;
+            delta = IntStream.range(0, parts).parallel()
+                    .mapToObj(p -> {
+                        int[] local = new int[minutes + 1];
+                        accumulate(entries, exits, p * chunk, Math.min(size, (p + 1) * chunk), startMinute, minutes, local);
+                        return local;
+                    })
+                    .reduce((a, b) -> {
+                        for (int i = 0; i < a.length; i++) {
+                            a[i] += b[i];
+                        }
+                        return a;
+                    })
+                    .orElseGet(() -> new int[minutes + 1]);
+        }
+        int[] counts = new int[minutes];
+        int current = 0;
+        for (int i = 0; i < minutes; i++) {
+            current += delta[i];
+            counts[i] = current;
+        }
+        return counts;
+    }
+
+    private static void accumulate(long[] entries, long[] exits, int from, int to,
+                                   long startMinute, int minutes, int[] delta) {
+        for (int i = from; i < to; i++) {
+            long first = ceilMinute(entries[i]) - startMinute;
+            long end = exits[i] == SessionIntervals.OPEN ? minutes : ceilMinute(exits[i]) - startMinute;
+            if (end <= 0 || first >= minutes || end <= first) {
+                continue;
+            }
+            delta[(int) Math.max(0, first)]++;
+            delta[(int) Math.min(minutes, end)]--;
+        }
+    }
+
+    private static long ceilMinute(long epochSecond) {
+        return Math.floorDiv(epochSecond + 59, 60L);
+    }
+
+    /**
+     * Выгружает ряд в CSV: время минуты и занятость.
+
+     * @param series ряд занятости
+     * @param target файл для записи
+     * @throws UncheckedIOException при ошибке записи
+     */
+    public void exportCsv(OccupancySeries series, Path target) {
+        try (BufferedWriter out = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            out.write("minute;occupancy");
+            out.newLine();
+            int[] counts = series.counts();
+            for (int i = 0; i < counts.length; i++) {
+                out.write(series.start().plusMinutes(i) + ";" + counts[i]);
+                out.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка выгрузки ряда занятости: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Выгружает ряд в компактный двоичный формат: сигнатура, минута начала от эпохи,
+     * длина ряда и значения int в порядке big-endian.
+
+     * @param series ряд занятости
+     * @param target файл для записи
+     * @throws UncheckedIOException при ошибке записи
+     */
+    public void exportBinary(OccupancySeries series, Path target) {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target), 1 << 16))) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeLong(series.start().toEpochSecond(ZoneOffset.UTC) / 60);
+            out.writeInt(series.counts().length);
+            for (int count : series.counts()) {
+                out.writeInt(count);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка выгрузки ряда занятости: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Читает ряд из двоичного формата exportBinary.
+
+     * @param source файл для чтения
+     * @return ряд занятости
+     * @throws UncheckedIOException при ошибке чтения или неверном формате
+     */
+    public OccupancySeries importBinary(Path source) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source), 1 << 16))) {
+            if (in.readInt() != BINARY_MAGIC) {
+                throw new IOException("неверная сигнатура файла");
+            }
+            LocalDateTime start = LocalDateTime.ofEpochSecond(in.readLong() * 60, 0, ZoneOffset.UTC);
+            int[] counts = new int[in.readInt()];
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = in.readInt();
+            }
+            return new OccupancySeries(start, counts);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка чтения ряда занятости: " + e.getMessage(), e);
+        }
+    }
+}
\ No newline at end of file
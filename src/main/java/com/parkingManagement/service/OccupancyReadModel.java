@@ -0,0 +1,100 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.JournalEvent;
+import com.parkingManagement.util.JsonParser;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Модель чтения занятости парковок: вместимость и множество открытых сессий каждой парковки.
+ * Строится по событиям парковок, въездов, выездов и удалений записей.
+ */
+public class OccupancyReadModel implements ReadModel {
+    private static final Set<JournalEvent.Type> TYPES = Set.of(JournalEvent.Type.LOT_CREATED,
+            JournalEvent.Type.LOT_UPDATED, JournalEvent.Type.LOT_DELETED, JournalEvent.Type.CHECK_IN,
+            JournalEvent.Type.CHECK_OUT, JournalEvent.Type.RECORD_DELETED);
+
+    private final Map<Long, LotState> lots = new ConcurrentHashMap<>();
+
+    /**
+     * Занятость парковки.
+
+     * @param lotId    идентификатор парковки
+     * @param capacity вместимость парковки
+     * @param occupied число открытых сессий
+     */
+    public record LotOccupancy(long lotId, int capacity, int occupied) {
+    }
+
+    /**
+     * Состояние одной парковки; изменяется только потоком, которому принадлежит ключ парковки.
+     */
+    private static final class LotState {
+        private volatile int capacity;
+        private final Set<Long> openRecords = ConcurrentHashMap.newKeySet();
+    }
+
+    @Override
+    public Set<JournalEvent.Type> getEventTypes() {
+        return TYPES;
+    }
+
+    @Override
+    public Partition getPartition() {
+        return Partition.LOT;
+    }
+
+    @Override
+    public void apply(JournalEvent event) {
+        Long lotId = event.getLotId();
+        switch (event.getType()) {
+            case LOT_CREATED, LOT_UPDATED -> state(lotId).capacity =
+                    ((Number) JsonParser.parseObject(event.getPayload()).get("capacity")).intValue();
+            case LOT_DELETED -> lots.remove(lotId);
+            case CHECK_IN -> state(lotId).openRecords.add(event.getAggregateId());
+            case CHECK_OUT, RECORD_DELETED -> state(lotId).openRecords.remove(event.getAggregateId());
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    public void reset() {
+        lots.clear();
+    }
+
+    /**
+     * Возвращает занятость парковки.
+
+     * @param lotId идентификатор парковки
+     * @return занятость или null, если парковка неизвестна модели
+     */
+    public LotOccupancy getOccupancy(Long lotId) {
+        LotState state = lots.get(lotId);
+        return state == null ? null : new LotOccupancy(lotId, state.capacity, state.openRecords.size());
+    }
+
+    /**
+     * Возвращает занятость всех парковок в порядке идентификатора.
+
+     * @return занятость по идентификатору парковки
+     */
+    public Map<Long, LotOccupancy> getOccupancy() {
+        Map<Long, LotOccupancy> result = new TreeMap<>();
+        for (Long lotId : new HashSet<>(lots.keySet())) {
+            LotOccupancy occupancy = getOccupancy(lotId);
+            if (occupancy != null) {
+                result.put(lotId, occupancy);
+            }
+        }
+        return result;
+    }
+
+    private LotState state(Long lotId) {
+        return lots.computeIfAbsent(lotId, id -> new LotState());
+    }
+}
\ No newline at end of file
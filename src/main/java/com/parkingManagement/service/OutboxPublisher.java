@@ -0,0 +1,171 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.OutboxDao;
+import com.parkingManagement.model.OutboxMessage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Публикатор исходящей очереди: читает сообщения outbox_message пакетами в порядке записи,
+ * группирует их по парковкам и передаёт получателю, а подтверждённые сообщения удаляет
+ * одним запросом на пакет. Доставка «хотя бы один раз»: сообщение удаляется только после
+ * подтверждения, и сбой между подтверждением и удалением приводит к повторной доставке.
+ * Порядок сохраняется внутри парковки: если доставка сообщений парковки не удалась,
+ * её более поздние сообщения в этом проходе пропускаются, а остальные парковки публикуются дальше.
+ * Публикатор использует собственный EntityManager.
+ */
+public class OutboxPublisher implements AutoCloseable {
+    private final EntityManager em;
+    private final OutboxDao outboxDao;
+    private final OutboxSink sink;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private long published;
+    private long failures;
+    private long batches;
+    private ScheduledExecutorService poller;
+
+    /**
+     * Показатели публикатора.
+
+     * @param published число подтверждённых и удалённых сообщений
+     * @param failures  число неудачных попыток доставки пакета парковки
+     * @param batches   число прочитанных пакетов
+     * @param pending   число сообщений, ожидающих доставки
+     */
+    public record Metrics(long published, long failures, long batches, long pending) {
+    }
+
+    /**
+     * Создаёт публикатор.
+
+     * @param emf          фабрика менеджеров сущностей
+     * @param sink         получатель сообщений
+     * @param batchSize    максимальное число сообщений в пакете
+     * @param pollInterval интервал опроса очереди в фоновом режиме
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public OutboxPublisher(EntityManagerFactory emf, OutboxSink sink, int batchSize, Duration pollInterval) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Получатель сообщений обязателен");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пакета должен быть положительным");
+        }
+        if (pollInterval == null || pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("Интервал опроса должен быть положительным");
+        }
+        this.em = emf.createEntityManager();
+        this.outboxDao = new OutboxDao(em);
+        this.sink = sink;
+        this.batchSize = batchSize;
+        this.pollInterval = pollInterval;
+    }
+
+    /**
+     * Доставляет все сообщения, накопленные к моменту вызова, пакетами.
+
+     * @return число подтверждённых сообщений
+     */
+    public synchronized long drain() {
+        Set<Long> blockedLots = new HashSet<>();
+        long acknowledgedTotal = 0;
+        long afterId = 0;
+        try {
+            while (true) {
+                List<OutboxMessage> batch = outboxDao.findBatch(afterId, batchSize);
+                if (batch.isEmpty()) {
+                    return acknowledgedTotal;
+                }
+                batches++;
+                afterId = batch.get(batch.size() - 1).getId();
+                Map<Long, List<OutboxMessage>> byLot = new LinkedHashMap<>();
+                for (OutboxMessage message : batch) {
+                    if (!blockedLots.contains(message.getLotId())) {
+                        byLot.computeIfAbsent(message.getLotId(), k -> new ArrayList<>()).add(message);
+                    }
+                }
+                List<Long> acknowledged = new ArrayList<>(batch.size());
+                for (Map.Entry<Long, List<OutboxMessage>> lot : byLot.entrySet()) {
+                    try {
+                        sink.publish(lot.getKey(), lot.getValue());
+                    } catch (RuntimeException e) {
+                        failures++;
+                        blockedLots.add(lot.getKey());
+                        continue;
+                    }
+                    for (OutboxMessage message : lot.getValue()) {
+                        acknowledged.add(message.getId());
+                    }
+                }
+                outboxDao.deleteByIds(acknowledged);
+                published += acknowledged.size();
+                acknowledgedTotal += acknowledged.size();
+            }
+        } finally {
+            em.clear();
+        }
+    }
+
+    /**
+     * Запускает периодическую доставку сообщений в фоновом потоке.
+     */
+    public synchronized void start() {
+        if (poller == null) {
+            poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "outbox-publisher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = pollInterval.toMillis();
+            poller.scheduleWithFixedDelay(() -> {
+                try {
+                    drain();
+                } catch (RuntimeException e) {
+                    // Недоставленные сообщения остаются в очереди до следующего опроса
+                    System.err.println("Ошибка публикации исходящих сообщений: " + e.getMessage());
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized Metrics getMetrics() {
+        return new Metrics(published, failures, batches, outboxDao.countPending());
+    }
+
+    /**
+     * Останавливает фоновую доставку и закрывает EntityManager публикатора.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService stopping;
+        synchronized (this) {
+            stopping = poller;
+            poller = null;
+        }
+        if (stopping != null) {
+            stopping.shutdown();
+            try {
+                stopping.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            if (em.isOpen()) {
+                em.close();
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.OutboxMessage;
+
+import java.util.List;
+
+/**
+ * Получатель сообщений исходящей очереди для внешних потребителей.
+ */
+public interface OutboxSink {
+    /**
+     * Доставляет сообщения одной парковки в порядке их записи. Возврат без исключения означает
+     * подтверждение: после него сообщения удаляются из очереди. При исключении все сообщения
+     * будут доставлены повторно, поэтому получатель должен допускать дубликаты по идентификатору.
+
+     * @param lotId    идентификатор парковки
+     * @param messages сообщения парковки в порядке идентификатора
+     * @throws RuntimeException если сообщения не доставлены
+     */
+    void publish(Long lotId, List<OutboxMessage> messages);
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.parkingManagement.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Обработчик превышения максимального времени стоянки.
+ */
+public interface OverstayListener {
+    /**
+     * Вызывается, когда открытая сессия превысила максимальное время стоянки.
+
+     * @param recordId идентификатор записи о парковке
+     * @param deadline момент, до которого автомобиль должен был выехать
+     */
+    void onOverstay(Long recordId, LocalDateTime deadline);
+}
\ No newline at end of file
@@ -0,0 +1,205 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.SessionRow;
+import com.parkingManagement.model.SpaceType;
+import com.parkingManagement.util.TimingWheel;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Монитор превышения максимального времени стоянки.
+ * При въезде срок выезда регистрируется в иерархическом колесе таймеров с шагом в одну секунду,
+ * при выезде таймер отменяется; продвижение колеса сообщает обработчикам о просроченных сессиях.
+ * Лимит берётся из настроек парковки, затем типа места, затем общего значения;
+ * сессии без лимита не отслеживаются.
+ */
+public class OverstayMonitor implements ParkingRecordListener, AutoCloseable {
+    private final ParkingRecordDao parkingRecordDao;
+    private final Duration defaultMaxStay;
+    private final Map<Long, Duration> lotMaxStay = new HashMap<>();
+    private final Map<SpaceType, Duration> typeMaxStay = new EnumMap<>(SpaceType.class);
+    private final List<OverstayListener> listeners = new CopyOnWriteArrayList<>();
+    private final TimingWheel wheel;
+    private ScheduledExecutorService ticker;
+
+    /**
+     * Создаёт монитор.
+
+     * @param parkingRecordDao DAO записей о парковке для загрузки открытых сессий
+     * @param defaultMaxStay   общий лимит стоянки или null, если его нет
+     * @param now              текущее время
+     */
+    public OverstayMonitor(ParkingRecordDao parkingRecordDao, Duration defaultMaxStay, LocalDateTime now) {
+        this.parkingRecordDao = parkingRecordDao;
+        this.defaultMaxStay = defaultMaxStay;
+        this.wheel = new TimingWheel(toEpoch(now), 1024);
+    }
+
+    /**
+     * Задаёт лимит стоянки для парковки; он важнее лимита типа места.
+
+     * @param lotId   идентификатор парковки
+     * @param maxStay максимальное время стоянки
+     * @return этот монитор
+     */
+    public synchronized OverstayMonitor setMaxStay(Long lotId, Duration maxStay) {
+        lotMaxStay.put(lotId, validateMaxStay(maxStay));
+        return this;
+    }
+
+    /**
+     * Задаёт лимит стоянки для типа места.
+
+     * @param type    тип места
+     * @param maxStay максимальное время стоянки
+     * @return этот монитор
+     */
+    public synchronized OverstayMonitor setMaxStay(SpaceType type, Duration maxStay) {
+        typeMaxStay.put(type, validateMaxStay(maxStay));
+        return this;
+    }
+
+    public void addListener(OverstayListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Регистрирует сроки всех открытых сессий, например после запуска приложения.
+
+     * @return число зарегистрированных сроков
+     */
+    public int registerOpenSessions() {
+        return registerOpenSessions(parkingRecordDao.findOpenSessions());
+    }
+
+    /**
+     * Регистрирует сроки открытых сессий, загруженных вызывающим кодом.
+
+     * @param openSessions открытые сессии
+     * @return число зарегистрированных сроков
+     */
+    public int registerOpenSessions(List<SessionRow> openSessions) {
+        int registered = 0;
+        for (SessionRow row : openSessions) {
+            if (register(row.recordId(), row.lotId(), row.spaceType(), row.entryTime())) {
+                registered++;
+            }
+        }
+        return registered;
+    }
+
+    /**
+     * Регистрирует срок выезда открытой сессии.
+
+     * @param record сохранённая запись о парковке
+     */
+    @Override
+    public void onCheckIn(ParkingRecord record) {
+        if (record.getExitTime() == null) {
+            register(record.getId(), record.getParkingSpace().getParkingLot().getId(),
+                    record.getParkingSpace().getType(), record.getEntryTime());
+        }
+    }
+
+    /**
+     * Отменяет срок выезда завершённой сессии.
+
+     * @param record завершённая запись о парковке
+     */
+    @Override
+    public synchronized void onCheckOut(ParkingRecord record) {
+        wheel.cancel(record.getId());
+    }
+
+    /**
+     * Продвигает время монитора и сообщает обработчикам о просроченных сессиях.
+
+     * @param now текущее время
+     * @return число просроченных сессий
+     */
+    public int advance(LocalDateTime now) {
+        List<long[]> expired = new ArrayList<>();
+        synchronized (this) {
+            wheel.advanceTo(toEpoch(now), (key, tick) -> expired.add(new long[]{key, tick}));
+        }
+        for (long[] timer : expired) {
+            LocalDateTime deadline = LocalDateTime.ofEpochSecond(timer[1], 0, ZoneOffset.UTC);
+            for (OverstayListener listener : listeners) {
+                listener.onOverstay(timer[0], deadline);
+            }
+        }
+        return expired.size();
+    }
+
+    /**
+     * Запускает ежесекундное продвижение монитора по системным часам в фоновом потоке.
+     */
+    public synchronized void start() {
+        if (ticker == null) {
+            ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "overstay-monitor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            ticker.scheduleAtFixedRate(() -> {
+                try {
+                    advance(LocalDateTime.now());
+                } catch (RuntimeException e) {
+                    // Ошибка обработчика не должна останавливать дальнейшие проверки
+                    System.err.println("Ошибка обработки просроченной стоянки: " + e.getMessage());
+                }
+            }, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Останавливает фоновое продвижение монитора.
+     */
+    @Override
+    public synchronized void close() {
+        if (ticker != null) {
+            ticker.shutdownNow();
+            ticker = null;
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return wheel.size();
+    }
+
+    private synchronized boolean register(Long recordId, Long lotId, String spaceType, LocalDateTime entryTime) {
+        Duration maxStay = lotMaxStay.get(lotId);
+        if (maxStay == null) {
+            maxStay = typeMaxStay.getOrDefault(SpaceType.of(spaceType), defaultMaxStay);
+        }
+        if (maxStay == null) {
+            return false;
+        }
+        wheel.schedule(recordId, toEpoch(entryTime.plus(maxStay)));
+        return true;
+    }
+
+    private static Duration validateMaxStay(Duration maxStay) {
+        if (maxStay == null || maxStay.isNegative() || maxStay.isZero()) {
+            throw new IllegalArgumentException("Максимальное время стоянки должно быть положительным");
+        }
+        return maxStay;
+    }
+
+    private static long toEpoch(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
\ No newline at end of file
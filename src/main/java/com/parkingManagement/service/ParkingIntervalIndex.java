@@ -0,0 +1,326 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.SessionRow;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс интервалов сессий для запросов «кто стоял в момент T».
+ * Для каждой парковки ведётся дерево интервалов: декартово дерево по времени въезда,
+ * в каждом узле которого хранится максимальное время выезда в поддереве. Поиск спускается
+ * только в поддеревья, где есть выезд позже T, и не заходит правее первого въезда после T,
+ * поэтому снимок парковки строится за O(log n + k) в типичном случае. Индекс строится по истории
+ * методом rebuild и обновляется событиями въезда и выезда, в том числе пришедшими во время
+ * перестройки; изменения записей в обход событий
+ * (редактирование и удаление) учитываются только при следующей перестройке.
+ */
+public class ParkingIntervalIndex implements ParkingRecordListener {
+    private static final long OPEN = Long.MAX_VALUE;
+
+    private final ParkingRecordDao parkingRecordDao;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Long, Node> lots = new HashMap<>();
+    private Map<Long, Long> spaceLots = new HashMap<>();
+    private List<SessionRow> pending;
+
+    /**
+     * Узел дерева интервалов.
+     */
+    private static final class Node {
+        final long start;
+        final long recordId;
+        final int priority;
+        long end;
+        long maxEnd;
+        SessionRow row;
+        Node left;
+        Node right;
+
+        Node(SessionRow row, long start, long end, int priority) {
+            this.row = row;
+            this.start = start;
+            this.recordId = row.recordId();
+            this.end = end;
+            this.maxEnd = end;
+            this.priority = priority;
+        }
+
+        int compareKey(long otherStart, long otherRecordId) {
+            int byStart = Long.compare(start, otherStart);
+            return byStart != 0 ? byStart : Long.compare(recordId, otherRecordId);
+        }
+
+        void update() {
+            maxEnd = end;
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+        }
+    }
+
+    public ParkingIntervalIndex(ParkingRecordDao parkingRecordDao) {
+        this.parkingRecordDao = parkingRecordDao;
+    }
+
+    /**
+     * Перестраивает индекс по всей истории записей о парковке.
+     * Новый индекс строится отдельно и подменяет текущий, запросы во время перестройки
+     * обслуживаются старым индексом. События, пришедшие во время перестройки, применяются
+     * к старому индексу и запоминаются, а перед подменой применяются к новому: сессия, которой
+     * в нём нет, добавляется, а прочитанная до выезда закрывается.
+
+     * @return число проиндексированных сессий
+     */
+    public synchronized long rebuild() {
+        Map<Long, Node> builtLots = new HashMap<>();
+        Map<Long, Long> builtSpaces = new HashMap<>();
+        lock.writeLock().lock();
+        try {
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long count;
+        try {
+            count = parkingRecordDao.forEachSession(0, row -> {
+                builtSpaces.put(row.spaceId(), row.lotId());
+                builtLots.put(row.lotId(), insert(builtLots.get(row.lotId()), node(row)));
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            for (SessionRow row : pending) {
+                builtSpaces.put(row.spaceId(), row.lotId());
+                Node root = builtLots.get(row.lotId());
+                if (find(root, toEpoch(row.entryTime()), row.recordId()) == null) {
+                    builtLots.put(row.lotId(), insert(root, node(row)));
+                } else if (row.exitTime() != null) {
+                    close(root, toEpoch(row.entryTime()), row.recordId(), row.exitTime());
+                }
+            }
+            pending = null;
+            lots = builtLots;
+            spaceLots = builtSpaces;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return count;
+    }
+
+    /**
+     * Добавляет сессию в индекс при въезде.
+
+     * @param record сохранённая запись о парковке
+     */
+    @Override
+    public void onCheckIn(ParkingRecord record) {
+        SessionRow row = row(record);
+        Node node = node(row);
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(row);
+            }
+            spaceLots.put(row.spaceId(), row.lotId());
+            lots.put(row.lotId(), insert(lots.get(row.lotId()), node));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Закрывает интервал сессии при выезде.
+
+     * @param record завершённая запись о парковке
+     */
+    @Override
+    public void onCheckOut(ParkingRecord record) {
+        Long lotId = record.getParkingSpace().getParkingLot().getId();
+        SessionRow row = row(record);
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(row);
+            }
+            close(lots.get(lotId), toEpoch(record.getEntryTime()), record.getId(), record.getExitTime());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает снимок парковки: сессии, занимавшие места в момент at.
+     * Сессия занимает место, если въезд не позже at, а выезд позже at или не наступил.
+
+     * @param lotId идентификатор парковки
+     * @param at    момент времени
+     * @return сессии в порядке времени въезда
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public List<SessionRow> getLotSnapshot(Long lotId, LocalDateTime at) {
+        validateId(lotId, "Идентификатор парковки");
+        if (at == null) {
+            throw new IllegalArgumentException("Момент времени обязателен");
+        }
+        List<SessionRow> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            collect(lots.get(lotId), toEpoch(at), result);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Находит сессию, занимавшую место в момент at.
+
+     * @param spaceId идентификатор парковочного места
+     * @param at      момент времени
+     * @return сессия или null, если место было свободно
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public SessionRow findOccupant(Long spaceId, LocalDateTime at) {
+        validateId(spaceId, "Идентификатор места");
+        Long lotId;
+        lock.readLock().lock();
+        try {
+            lotId = spaceLots.get(spaceId);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (lotId == null) {
+            return null;
+        }
+        for (SessionRow row : getLotSnapshot(lotId, at)) {
+            if (row.spaceId().equals(spaceId)) {
+                return row;
+            }
+        }
+        return null;
+    }
+
+    private static SessionRow row(ParkingRecord record) {
+        return new SessionRow(record.getId(), record.getParkingSpace().getId(),
+                record.getParkingSpace().getParkingLot().getId(), record.getParkingSpace().getType(),
+                record.getVehicle().getId(), record.getClient().getId(), record.getEntryTime(), record.getExitTime());
+    }
+
+    private static Node node(SessionRow row) {
+        return new Node(row, toEpoch(row.entryTime()), row.exitTime() == null ? OPEN : toEpoch(row.exitTime()),
+                ThreadLocalRandom.current().nextInt());
+    }
+
+    private static Node insert(Node root, Node node) {
+        if (root == null) {
+            return node;
+        }
+        if (root.compareKey(node.start, node.recordId) > 0) {
+            root.left = insert(root.left, node);
+            if (root.left.priority > root.priority) {
+                root = rotateRight(root);
+            }
+        } else {
+            root.right = insert(root.right, node);
+            if (root.right.priority > root.priority) {
+                root = rotateLeft(root);
+            }
+        }
+        root.update();
+        return root;
+    }
+
+    private static Node find(Node root, long start, long recordId) {
+        Node node = root;
+        while (node != null) {
+            int cmp = node.compareKey(start, recordId);
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp > 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    private static void close(Node root, long start, long recordId, LocalDateTime exitTime) {
+        if (root == null) {
+            return;
+        }
+        int cmp = root.compareKey(start, recordId);
+        if (cmp == 0) {
+            SessionRow row = root.row;
+            root.row = new SessionRow(row.recordId(), row.spaceId(), row.lotId(), row.spaceType(),
+                    row.vehicleId(), row.clientId(), row.entryTime(), exitTime);
+            root.end = toEpoch(exitTime);
+        } else {
+            close(cmp > 0 ? root.left : root.right, start, recordId, exitTime);
+        }
+        root.update();
+    }
+
+    private static void collect(Node node, long t, List<SessionRow> out) {
+        if (node == null || node.maxEnd <= t) {
+            return;
+        }
+        collect(node.left, t, out);
+        if (node.start <= t) {
+            if (node.end > t) {
+                out.add(node.row);
+            }
+            collect(node.right, t, out);
+        }
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        node.update();
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        node.update();
+        return right;
+    }
+
+    private static long toEpoch(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Проверяет корректность идентификатора.
+
+     * @param id      идентификатор
+     * @param field   название поля для сообщения об ошибке
+     * @throws IllegalArgumentException при некорректном идентификаторе
+     */
+    private void validateId(Long id, String field) {
+        if (id == null || id <= 0) {
+            throw new IllegalArgumentException(field + " должен быть положительным");
+        }
+    }
+}
\ No newline at end of file
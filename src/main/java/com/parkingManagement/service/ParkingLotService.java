@@ -1,8 +1,14 @@
 package com.parkingManagement.service;
 
 import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.VisitorSketchDao;
+import com.parkingManagement.model.JournalEvent;
+import com.parkingManagement.model.LotVisitorSketch;
 import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.util.HyperLogLog;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -10,9 +16,28 @@ import java.util.List;
  */
 public class ParkingLotService {
     private final ParkingLotDao parkingLotDao;
+    private final VisitorSketchDao visitorSketchDao;
+    private final EventJournal journal;
 
     public ParkingLotService(ParkingLotDao parkingLotDao) {
+        this(parkingLotDao, null);
+    }
+
+    public ParkingLotService(ParkingLotDao parkingLotDao, VisitorSketchDao visitorSketchDao) {
+        this(parkingLotDao, visitorSketchDao, null);
+    }
+
+    /**
+     * Создаёт сервис, который записывает изменения парковок в журнал операций.
+
+     * @param parkingLotDao    DAO парковок
+     * @param visitorSketchDao DAO скетчей посетителей или null
+     * @param journal          журнал операций или null, если изменения не журналируются
+     */
+    public ParkingLotService(ParkingLotDao parkingLotDao, VisitorSketchDao visitorSketchDao, EventJournal journal) {
         this.parkingLotDao = parkingLotDao;
+        this.visitorSketchDao = visitorSketchDao;
+        this.journal = journal;
     }
 
     /**
@@ -24,6 +49,9 @@ public class ParkingLotService {
     public void createParkingLot(ParkingLot parkingLot) {
         validateParkingLot(parkingLot, false);
         parkingLotDao.create(parkingLot);
+        if (journal != null) {
+            journal.append(JournalEvent.Type.LOT_CREATED, parkingLot);
+        }
     }
 
     /**
@@ -62,6 +90,9 @@ public class ParkingLotService {
         if (!parkingLotDao.update(parkingLot)) {
             throw new IllegalArgumentException("Парковка с ID " + parkingLot.getId() + " не найдена");
         }
+        if (journal != null) {
+            journal.append(JournalEvent.Type.LOT_UPDATED, parkingLot);
+        }
     }
 
     /**
@@ -75,6 +106,54 @@ public class ParkingLotService {
         if (!parkingLotDao.delete(id)) {
             throw new IllegalArgumentException("Парковка с ID " + id + " не найдена");
         }
+        if (journal != null) {
+            journal.appendDeleted(JournalEvent.Type.LOT_DELETED, id);
+        }
+    }
+
+    /**
+     * Оценивает число уникальных автомобилей парковки за интервал дней по дневным скетчам HyperLogLog.
+     * Стандартная относительная погрешность оценки около 1.6% (HyperLogLog.STANDARD_ERROR).
+
+     * @param lotId идентификатор парковки
+     * @param from  первый день
+     * @param to    последний день включительно
+     * @return оценка числа уникальных автомобилей
+     * @throws IllegalArgumentException при некорректных параметрах
+     * @throws IllegalStateException    если скетчи не подключены
+     */
+    public long countDistinctVehicles(Long lotId, LocalDate from, LocalDate to) {
+        validateId(lotId, "Идентификатор парковки");
+        return countDistinctVehicles(List.of(lotId), from, to);
+    }
+
+    /**
+     * Оценивает число уникальных автомобилей группы парковок за интервал дней.
+     * Автомобиль, посетивший несколько парковок группы, учитывается один раз.
+
+     * @param lotIds идентификаторы парковок
+     * @param from   первый день
+     * @param to     последний день включительно
+     * @return оценка числа уникальных автомобилей
+     * @throws IllegalArgumentException при некорректных параметрах
+     * @throws IllegalStateException    если скетчи не подключены
+     */
+    public long countDistinctVehicles(Collection<Long> lotIds, LocalDate from, LocalDate to) {
+        if (visitorSketchDao == null) {
+            throw new IllegalStateException("Статистика уникальных автомобилей не подключена");
+        }
+        if (lotIds == null || lotIds.isEmpty()) {
+            throw new IllegalArgumentException("Список парковок не может быть пустым");
+        }
+        lotIds.forEach(id -> validateId(id, "Идентификатор парковки"));
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Некорректный интервал дней");
+        }
+        HyperLogLog merged = new HyperLogLog();
+        for (LotVisitorSketch sketch : visitorSketchDao.findSketches(lotIds, from, to)) {
+            merged.merge(HyperLogLog.fromBytes(sketch.getRegisters()));
+        }
+        return merged.estimate();
     }
 
     /**
@@ -0,0 +1,26 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.ParkingRecord;
+
+/**
+ * Слушатель событий жизненного цикла парковочной сессии.
+ * Вызывается сервисом после успешной фиксации транзакции.
+ */
+public interface ParkingRecordListener {
+
+    /**
+     * Вызывается после регистрации въезда.
+
+     * @param record сохранённая запись о парковке
+     */
+    default void onCheckIn(ParkingRecord record) {
+    }
+
+    /**
+     * Вызывается после завершения сессии (установлено время выезда).
+
+     * @param record завершённая запись о парковке
+     */
+    default void onCheckOut(ParkingRecord record) {
+    }
+}
\ No newline at end of file
@@ -1,18 +1,51 @@
 package com.parkingManagement.service;
 
 import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.JournalEvent;
 import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
 
 /**
  * Сервис для управления записями о парковке в системе управления парковкой.
  */
 public class ParkingRecordService {
     private final ParkingRecordDao parkingRecordDao;
+    private final List<ParkingRecordListener> listeners = new CopyOnWriteArrayList<>();
+    private final EventJournal journal;
 
     public ParkingRecordService(ParkingRecordDao parkingRecordDao) {
+        this(parkingRecordDao, null);
+    }
+
+    /**
+     * Создаёт сервис, который записывает въезды, выезды, изменения и удаления записей в журнал операций.
+     * Журнал регистрируется первым слушателем въездов и выездов. Запись в журнал идёт отдельной
+     * транзакцией под блокировкой журнала, поэтому въезды и выезды всех потоков на время записи
+     * события выстраиваются в очередь за журналом.
+
+     * @param parkingRecordDao DAO записей о парковке
+     * @param journal          журнал операций или null, если изменения не журналируются
+     */
+    public ParkingRecordService(ParkingRecordDao parkingRecordDao, EventJournal journal) {
         this.parkingRecordDao = parkingRecordDao;
+        this.journal = journal;
+        if (journal != null) {
+            listeners.add(journal);
+        }
+    }
+
+    /**
+     * Регистрирует слушателя событий въезда и выезда.
+
+     * @param listener слушатель
+     */
+    public void addListener(ParkingRecordListener listener) {
+        listeners.add(listener);
     }
 
     /**
@@ -24,6 +57,109 @@ public class ParkingRecordService {
     public void createParkingRecord(ParkingRecord record) {
         validateParkingRecord(record, false);
         parkingRecordDao.create(record);
+        notifyCreated(record);
+    }
+
+    /**
+     * Регистрирует въезд автомобиля на место по идентификаторам.
+     * Автомобиль и клиент заранее не загружаются: клиент берётся из автомобиля на стороне
+     * базы данных, а их существование проверяют внешние ключи. Въезд стоит двух обращений
+     * к базе данных в одной транзакции: вставки записи и чтения места с парковкой, которое
+     * нужно исходящей очереди и слушателям.
+
+     * @param spaceId   идентификатор места
+     * @param vehicleId идентификатор автомобиля
+     * @param entryTime время въезда
+     * @return созданная запись; у автомобиля и клиента доступны только идентификаторы без загрузки
+     * @throws IllegalArgumentException при некорректных данных, если место или автомобиль не найдены
+     *                                  или место занято
+     */
+    public ParkingRecord checkIn(Long spaceId, Long vehicleId, LocalDateTime entryTime) {
+        validateId(spaceId, "Идентификатор места");
+        validateId(vehicleId, "Идентификатор автомобиля");
+        validateEntryTime(entryTime);
+        ParkingRecord record = parkingRecordDao.checkIn(spaceId, vehicleId, entryTime);
+        if (record == null) {
+            throw new IllegalArgumentException("Место с ID " + spaceId + " или автомобиль с ID " + vehicleId
+                    + " не найдены");
+        }
+        notifyCheckIn(record);
+        return record;
+    }
+
+    /**
+     * Регистрирует въезд автомобиля по точному регистрационному номеру,
+     * так же как {@link #checkIn(Long, Long, LocalDateTime)}.
+
+     * @param spaceId      идентификатор места
+     * @param licensePlate регистрационный номер автомобиля
+     * @param entryTime    время въезда
+     * @return созданная запись; у автомобиля и клиента доступны только идентификаторы без загрузки
+     * @throws IllegalArgumentException при некорректных данных, если место или автомобиль не найдены
+     *                                  или место занято
+     */
+    public ParkingRecord checkInByPlate(Long spaceId, String licensePlate, LocalDateTime entryTime) {
+        validateId(spaceId, "Идентификатор места");
+        if (licensePlate == null || licensePlate.trim().isEmpty()) {
+            throw new IllegalArgumentException("Регистрационный номер обязателен");
+        }
+        validateEntryTime(entryTime);
+        ParkingRecord record = parkingRecordDao.checkInByPlate(spaceId, licensePlate.trim(), entryTime);
+        if (record == null) {
+            throw new IllegalArgumentException("Место с ID " + spaceId + " или автомобиль с номером "
+                    + licensePlate.trim() + " не найдены");
+        }
+        notifyCheckIn(record);
+        return record;
+    }
+
+    /**
+     * Создаёт запись о парковке на первом свободном месте из списка кандидатов.
+     * Пересечение сессий отсекается ограничением базы данных, поэтому занятость
+     * мест заранее не проверяется: при конфликте берётся следующее место.
+
+     * @param record     запись о парковке без назначенного места
+     * @param candidates места-кандидаты в порядке предпочтения
+     * @return место, на котором создана запись
+     * @throws IllegalArgumentException при некорректных данных или если все места заняты
+     */
+    public ParkingSpace createParkingRecordOnFreeSpace(ParkingRecord record, List<ParkingSpace> candidates) {
+        if (candidates == null || candidates.isEmpty()) {
+            throw new IllegalArgumentException("Список мест не может быть пустым");
+        }
+        for (ParkingSpace space : candidates) {
+            record.setParkingSpace(space);
+            validateParkingRecord(record, false);
+            if (parkingRecordDao.tryCreate(record) == ParkingRecordDao.CreateResult.CREATED) {
+                notifyCreated(record);
+                return space;
+            }
+        }
+        throw new IllegalArgumentException("Нет свободных мест среди предложенных");
+    }
+
+    /**
+     * Завершает открытую сессию, устанавливая время выезда.
+
+     * @param id       идентификатор записи
+     * @param exitTime время выезда
+     * @return завершённая запись о парковке
+     * @throws IllegalArgumentException если запись не найдена, уже завершена или время выезда некорректно
+     */
+    public ParkingRecord checkOut(Long id, LocalDateTime exitTime) {
+        ParkingRecord record = getParkingRecord(id);
+        if (record.getExitTime() != null) {
+            throw new IllegalArgumentException("Запись с ID " + id + " уже завершена");
+        }
+        if (exitTime == null || !exitTime.isAfter(record.getEntryTime())) {
+            throw new IllegalArgumentException("Время выезда должно быть позже времени въезда");
+        }
+        record.setExitTime(exitTime);
+        if (!parkingRecordDao.update(record)) {
+            throw new IllegalArgumentException("Запись с ID " + id + " не найдена");
+        }
+        notifyCheckOut(record);
+        return record;
     }
 
     /**
@@ -52,16 +188,24 @@ public class ParkingRecordService {
     }
 
     /**
-     * Обновляет запись о парковке.
+     * Обновляет запись о парковке. Если обновление закрывает открытую сессию, оно считается выездом:
+     * слушатели получают событие выезда, а журнал — событие выезда вместо изменения записи,
+     * как и исходящая очередь.
 
      * @param record запись о парковке для обновления
      * @throws IllegalArgumentException если запись не найдена
      */
     public void updateParkingRecord(ParkingRecord record) {
         validateParkingRecord(record, true);
+        boolean checkOut = record.getExitTime() != null && parkingRecordDao.findExitTime(record.getId()) == null;
         if (!parkingRecordDao.update(record)) {
             throw new IllegalArgumentException("Запись с ID " + record.getId() + " не найдена");
         }
+        if (checkOut) {
+            notifyCheckOut(record);
+        } else if (journal != null) {
+            journal.append(JournalEvent.Type.RECORD_UPDATED, record);
+        }
     }
 
     /**
@@ -72,9 +216,72 @@ public class ParkingRecordService {
      */
     public void deleteParkingRecord(Long id) {
         validateId(id, "Идентификатор записи");
+        ParkingRecord deleted = journal == null ? null : parkingRecordDao.findById(id);
         if (!parkingRecordDao.delete(id)) {
             throw new IllegalArgumentException("Запись с ID " + id + " не найдена");
         }
+        if (deleted != null) {
+            journal.append(JournalEvent.Type.RECORD_DELETED, deleted);
+        }
+    }
+
+    /**
+     * Оповещает слушателей о въезде. Запись уже зафиксирована, поэтому ошибка слушателя
+     * не прерывает оповещение остальных; после оповещения всех слушателей первая ошибка
+     * выбрасывается вызывающему, остальные добавляются к ней подавленными.
+
+     * @param record созданная запись
+     * @throws RuntimeException первая ошибка слушателя
+     */
+    private void notifyCheckIn(ParkingRecord record) {
+        throwIfFailed(notify(record, ParkingRecordListener::onCheckIn, null));
+    }
+
+    /**
+     * Оповещает слушателей о выезде так же, как {@link #notifyCheckIn}.
+
+     * @param record завершённая запись
+     * @throws RuntimeException первая ошибка слушателя
+     */
+    private void notifyCheckOut(ParkingRecord record) {
+        throwIfFailed(notify(record, ParkingRecordListener::onCheckOut, null));
+    }
+
+    /**
+     * Оповещает слушателей о въезде созданной записи, а для уже завершённой записи — и о выезде,
+     * даже если оповещение о въезде завершилось ошибкой.
+
+     * @param record созданная запись
+     * @throws RuntimeException первая ошибка слушателя
+     */
+    private void notifyCreated(ParkingRecord record) {
+        RuntimeException failure = notify(record, ParkingRecordListener::onCheckIn, null);
+        if (record.getExitTime() != null) {
+            failure = notify(record, ParkingRecordListener::onCheckOut, failure);
+        }
+        throwIfFailed(failure);
+    }
+
+    private RuntimeException notify(ParkingRecord record, BiConsumer<ParkingRecordListener, ParkingRecord> event,
+                                    RuntimeException failure) {
+        for (ParkingRecordListener listener : listeners) {
+            try {
+                event.accept(listener, record);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                } else {
+                    failure.addSuppressed(e);
+                }
+            }
+        }
+        return failure;
+    }
+
+    private static void throwIfFailed(RuntimeException failure) {
+        if (failure != null) {
+            throw failure;
+        }
     }
 
     /**
@@ -103,7 +310,11 @@ public class ParkingRecordService {
                 record.getClient().getId() <= 0) {
             throw new IllegalArgumentException("Идентификатор клиента должен быть положительным");
         }
-        if (record.getEntryTime() == null) {
+        validateEntryTime(record.getEntryTime());
+    }
+
+    private void validateEntryTime(LocalDateTime entryTime) {
+        if (entryTime == null) {
             throw new IllegalArgumentException("Время въезда обязательно");
         }
     }
@@ -1,6 +1,7 @@
 package com.parkingManagement.service;
 
 import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.model.JournalEvent;
 import com.parkingManagement.model.ParkingSpace;
 
 import java.util.List;
@@ -12,9 +13,21 @@ import java.util.Set;
 public class ParkingSpaceService {
     private static final Set<String> VALID_TYPES = Set.of("REGULAR", "DISABLED", "VIP");
     private final ParkingSpaceDao parkingSpaceDao;
+    private final EventJournal journal;
 
     public ParkingSpaceService(ParkingSpaceDao parkingSpaceDao) {
+        this(parkingSpaceDao, null);
+    }
+
+    /**
+     * Создаёт сервис, который записывает изменения мест в журнал операций.
+
+     * @param parkingSpaceDao DAO парковочных мест
+     * @param journal         журнал операций или null, если изменения не журналируются
+     */
+    public ParkingSpaceService(ParkingSpaceDao parkingSpaceDao, EventJournal journal) {
         this.parkingSpaceDao = parkingSpaceDao;
+        this.journal = journal;
     }
 
     /**
@@ -26,6 +39,32 @@ public class ParkingSpaceService {
     public void createParkingSpace(ParkingSpace parkingSpace) {
         validateParkingSpace(parkingSpace, false);
         parkingSpaceDao.create(parkingSpace);
+        if (journal != null) {
+            journal.append(JournalEvent.Type.SPACE_CREATED, parkingSpace);
+        }
+    }
+
+    /**
+     * Создаёт парковочное место на парковке по её идентификатору, не загружая парковку:
+     * место вставляется одной командой, существование парковки проверяет внешний ключ.
+
+     * @param lotId       идентификатор парковки
+     * @param spaceNumber номер места
+     * @param type        тип места
+     * @return созданное место; парковка в нём не загружена, доступен только её идентификатор
+     * @throws IllegalArgumentException при некорректных данных или если парковка не найдена
+     */
+    public ParkingSpace createParkingSpace(Long lotId, String spaceNumber, String type) {
+        validateId(lotId, "Идентификатор парковки");
+        validateNumberAndType(spaceNumber, type);
+        ParkingSpace parkingSpace = parkingSpaceDao.create(lotId, spaceNumber, type);
+        if (parkingSpace == null) {
+            throw new IllegalArgumentException("Парковка с ID " + lotId + " не найдена");
+        }
+        if (journal != null) {
+            journal.append(JournalEvent.Type.SPACE_CREATED, parkingSpace);
+        }
+        return parkingSpace;
     }
 
     /**
@@ -64,6 +103,9 @@ public class ParkingSpaceService {
         if (!parkingSpaceDao.update(parkingSpace)) {
             throw new IllegalArgumentException("Место с ID " + parkingSpace.getId() + " не найдено");
         }
+        if (journal != null) {
+            journal.append(JournalEvent.Type.SPACE_UPDATED, parkingSpace);
+        }
     }
 
     /**
@@ -77,6 +119,9 @@ public class ParkingSpaceService {
         if (!parkingSpaceDao.delete(id)) {
             throw new IllegalArgumentException("Место с ID " + id + " не найдено");
         }
+        if (journal != null) {
+            journal.appendDeleted(JournalEvent.Type.SPACE_DELETED, id);
+        }
     }
 
     /**
@@ -97,13 +142,17 @@ public class ParkingSpaceService {
                 parkingSpace.getParkingLot().getId() <= 0) {
             throw new IllegalArgumentException("Идентификатор парковки должен быть положительным");
         }
-        if (parkingSpace.getSpaceNumber() == null || parkingSpace.getSpaceNumber().trim().isEmpty()) {
+        validateNumberAndType(parkingSpace.getSpaceNumber(), parkingSpace.getType());
+    }
+
+    private void validateNumberAndType(String spaceNumber, String type) {
+        if (spaceNumber == null || spaceNumber.trim().isEmpty()) {
             throw new IllegalArgumentException("Номер места обязателен");
         }
-        if (parkingSpace.getType() == null || parkingSpace.getType().trim().isEmpty()) {
+        if (type == null || type.trim().isEmpty()) {
             throw new IllegalArgumentException("Тип места обязателен");
         }
-        if (!VALID_TYPES.contains(parkingSpace.getType().toUpperCase())) {
+        if (!VALID_TYPES.contains(type.toUpperCase())) {
             throw new IllegalArgumentException("Тип места должен быть REGULAR, DISABLED или VIP");
         }
     }
@@ -0,0 +1,121 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.util.BloomFilter;
+import com.parkingManagement.util.PlateIndex;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Отрицательный кэш незарегистрированных номеров: фильтр Блума по нормализованным номерам
+ * всех автомобилей. Если фильтр отвечает «нет», автомобиля с таким номером (с точностью
+ * до похожих символов) точно нет, и запрос к базе данных не нужен; ответ «возможно» проверяется
+ * обычным поиском. Удалённые и изменённые номера из фильтра не удаляются и дают лишние
+ * положительные ответы до следующей перестройки.
+ *
+ * <p>Перестройка не блокирует проверки: новый фильтр заполняется из базы рядом с действующим,
+ * добавления на время перестройки пишутся в оба, после чего ссылка атомарно заменяется.
+ *
+ * <p>Номер должен добавляться каждым путём создания и изменения автомобилей, который работает
+ * рядом с фильтром (сервис автомобилей, HTTP API, массовый импорт); номера, записанные в базу
+ * мимо фильтра, отсекаются до следующей перестройки.
+ */
+public class PlateFilter {
+    private final long expectedPlates;
+    private final double falsePositiveRate;
+    private final Object rebuildLock = new Object();
+    private volatile BloomFilter current;
+    private volatile BloomFilter building;
+    private final AtomicLong inserted = new AtomicLong();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder negatives = new LongAdder();
+
+    /**
+     * Показатели фильтра.
+
+     * @param lookups           число проверок
+     * @param negatives         число проверок, завершённых без обращения к базе данных
+     * @param inserted          число номеров, добавленных с последней перестройки
+     * @param bitCount          размер фильтра в битах
+     * @param falsePositiveRate оценка доли ложноположительных ответов по заполненности
+     */
+    public record Stats(long lookups, long negatives, long inserted, long bitCount, double falsePositiveRate) {
+    }
+
+    /**
+     * Создаёт пустой фильтр.
+
+     * @param expectedPlates    ожидаемое число зарегистрированных номеров
+     * @param falsePositiveRate допустимая доля ложноположительных ответов в интервале (0, 1)
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public PlateFilter(long expectedPlates, double falsePositiveRate) {
+        this.current = new BloomFilter(expectedPlates, falsePositiveRate);
+        this.expectedPlates = expectedPlates;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Добавляет номер зарегистрированного автомобиля.
+
+     * @param licensePlate регистрационный номер
+     */
+    public void put(String licensePlate) {
+        String key = PlateIndex.normalize(licensePlate);
+        // Строящийся фильтр читается до записи в действующий: если перестройка началась позже,
+        // её чтение из базы уже увидит этот номер, а если раньше — номер попадёт в оба фильтра,
+        // и замена действующего фильтра не может его потерять
+        BloomFilter next = building;
+        current.put(key);
+        if (next != null) {
+            next.put(key);
+        }
+        inserted.incrementAndGet();
+    }
+
+    /**
+     * Проверяет, может ли номер принадлежать зарегистрированному автомобилю.
+
+     * @param licensePlate регистрационный номер
+     * @return false, если автомобиля с таким номером точно нет
+     */
+    public boolean mightContain(String licensePlate) {
+        lookups.increment();
+        if (current.mightContain(PlateIndex.normalize(licensePlate))) {
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /**
+     * Строит фильтр заново по номерам из базы данных и заменяет им действующий.
+     * Размер нового фильтра рассчитывается на большее из ожидаемого числа номеров
+     * и удвоенного числа номеров в прежнем фильтре.
+
+     * @param vehicleDao DAO автомобилей
+     * @return число загруженных номеров
+     */
+    public long rebuild(VehicleDao vehicleDao) {
+        synchronized (rebuildLock) {
+            BloomFilter next = new BloomFilter(Math.max(expectedPlates, inserted.get() * 2), falsePositiveRate);
+            building = next;
+            long count;
+            try {
+                count = vehicleDao.forEachPlate((id, plate) -> next.put(PlateIndex.normalize(plate)));
+                current = next;
+            } finally {
+                building = null;
+            }
+            inserted.set(count);
+            return count;
+        }
+    }
+
+    public Stats getStats() {
+        BloomFilter filter = current;
+        return new Stats(lookups.sum(), negatives.sum(), inserted.get(), filter.getBitCount(),
+                filter.estimateFalsePositiveRate());
+    }
+}
\ No newline at end of file
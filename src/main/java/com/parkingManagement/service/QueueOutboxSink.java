@@ -0,0 +1,74 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.OutboxMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Получатель исходящей очереди в виде ограниченной очереди в памяти процесса. Служит заменой
+ * брокера сообщений для потребителей в том же процессе и в тестах. Пакет парковки принимается
+ * целиком или не принимается вовсе: при нехватке места публикация завершается исключением,
+ * и сообщения остаются в исходящей очереди до следующей попытки.
+ */
+public class QueueOutboxSink implements OutboxSink {
+    private final BlockingQueue<OutboxMessage> queue;
+
+    /**
+     * Создаёт получатель.
+
+     * @param capacity вместимость очереди
+     * @throws IllegalArgumentException если вместимость не положительна
+     */
+    public QueueOutboxSink(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Вместимость очереди должна быть положительной");
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Принимает пакет сообщений парковки.
+
+     * @param lotId    идентификатор парковки
+     * @param messages сообщения парковки в порядке идентификатора
+     * @throws IllegalStateException если в очереди нет места для всего пакета
+     */
+    @Override
+    public synchronized void publish(Long lotId, List<OutboxMessage> messages) {
+        if (queue.remainingCapacity() < messages.size()) {
+            throw new IllegalStateException("Очередь сообщений переполнена");
+        }
+        queue.addAll(messages);
+    }
+
+    /**
+     * Забирает следующее сообщение, ожидая его не дольше указанного времени.
+
+     * @param timeout время ожидания
+     * @param unit    единица времени ожидания
+     * @return сообщение или null, если за время ожидания сообщений не появилось
+     * @throws InterruptedException если ожидание прервано
+     */
+    public OutboxMessage poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    /**
+     * Забирает все сообщения, накопленные в очереди.
+
+     * @return сообщения в порядке поступления
+     */
+    public List<OutboxMessage> drain() {
+        List<OutboxMessage> messages = new ArrayList<>(queue.size());
+        queue.drainTo(messages);
+        return messages;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+}
\ No newline at end of file
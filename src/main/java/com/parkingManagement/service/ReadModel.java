@@ -0,0 +1,82 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.JournalEvent;
+
+import java.util.Set;
+
+/**
+ * Модель чтения, которая строится по событиям журнала операций.
+ * При воспроизведении события делятся между потоками по ключу разбиения, поэтому
+ * {@link #apply} вызывается параллельно для разных значений ключа, но последовательно
+ * и в порядке журнала для одного значения. События, у которых ключ разбиения не задан,
+ * модели не передаются.
+ */
+public interface ReadModel {
+
+    /**
+     * Ключ разбиения событий между потоками воспроизведения.
+     */
+    enum Partition {
+        /** Идентификатор изменённого объекта. */
+        AGGREGATE("aggregateId"),
+        /** Идентификатор парковки. */
+        LOT("lotId"),
+        /** Идентификатор клиента. */
+        CLIENT("clientId");
+
+        private final String field;
+
+        Partition(String field) {
+            this.field = field;
+        }
+
+        /**
+         * Возвращает имя поля события, по которому выполняется разбиение.
+
+         * @return имя поля JournalEvent
+         */
+        public String getField() {
+            return field;
+        }
+
+        /**
+         * Возвращает значение ключа разбиения события.
+
+         * @param event событие
+         * @return значение ключа или null, если оно не задано
+         */
+        public Long keyOf(JournalEvent event) {
+            return switch (this) {
+                case AGGREGATE -> event.getAggregateId();
+                case LOT -> event.getLotId();
+                case CLIENT -> event.getClientId();
+            };
+        }
+    }
+
+    /**
+     * Возвращает типы событий, которые нужны модели.
+
+     * @return множество типов событий
+     */
+    Set<JournalEvent.Type> getEventTypes();
+
+    /**
+     * Возвращает ключ разбиения событий модели.
+
+     * @return ключ разбиения
+     */
+    Partition getPartition();
+
+    /**
+     * Применяет событие к модели.
+
+     * @param event событие журнала
+     */
+    void apply(JournalEvent event);
+
+    /**
+     * Очищает модель перед полным перестроением.
+     */
+    void reset();
+}
\ No newline at end of file
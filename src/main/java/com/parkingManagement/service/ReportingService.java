@@ -0,0 +1,132 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.RollupDao;
+import com.parkingManagement.model.ClientDailyRollup;
+import com.parkingManagement.model.LotDailyRollup;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Сервис отчётов по парковкам и клиентам.
+ * Читает только дневные агрегаты и никогда не обращается к исходным записям о парковке.
+ */
+public class ReportingService {
+    private final RollupDao rollupDao;
+
+    public ReportingService(RollupDao rollupDao) {
+        this.rollupDao = rollupDao;
+    }
+
+    /**
+     * Итоги по парковке за интервал.
+
+     * @param lotId             идентификатор парковки
+     * @param visitCount        число визитов
+     * @param totalDwellMinutes суммарное время стоянки в минутах
+     * @param peakOccupancy     максимальная дневная пиковая занятость
+     * @param visitsByType      число визитов по типам мест
+     */
+    public record LotReport(Long lotId, long visitCount, long totalDwellMinutes, int peakOccupancy,
+                            Map<String, Long> visitsByType) {
+
+        /**
+         * Возвращает среднюю длительность стоянки в минутах.
+
+         * @return средняя длительность или 0, если визитов не было
+         */
+        public double averageDwellMinutes() {
+            return visitCount == 0 ? 0 : (double) totalDwellMinutes / visitCount;
+        }
+    }
+
+    /**
+     * Итоги по клиенту за интервал.
+
+     * @param clientId          идентификатор клиента
+     * @param visitCount        число визитов
+     * @param totalDwellMinutes суммарное время стоянки в минутах
+     */
+    public record ClientReport(Long clientId, long visitCount, long totalDwellMinutes) {
+    }
+
+    /**
+     * Строит отчёт по парковке за интервал дней включительно.
+
+     * @param lotId идентификатор парковки
+     * @param from  первый день
+     * @param to    последний день
+     * @return отчёт по парковке
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public LotReport getLotReport(Long lotId, LocalDate from, LocalDate to) {
+        validateId(lotId, "Идентификатор парковки");
+        validateRange(from, to);
+        List<LotDailyRollup> rollups = rollupDao.findLotRollups(lotId, from, to);
+        long visits = 0;
+        long dwell = 0;
+        int peak = 0;
+        Map<String, Long> byType = new TreeMap<>();
+        for (LotDailyRollup r : rollups) {
+            visits += r.getVisitCount();
+            dwell += r.getTotalDwellMinutes();
+            peak = Math.max(peak, r.getPeakOccupancy());
+            byType.merge(r.getSpaceType(), r.getVisitCount(), Long::sum);
+        }
+        return new LotReport(lotId, visits, dwell, peak, byType);
+    }
+
+    /**
+     * Строит месячный отчёт по парковке.
+
+     * @param lotId идентификатор парковки
+     * @param month месяц
+     * @return отчёт по парковке
+     */
+    public LotReport getLotMonthlyReport(Long lotId, YearMonth month) {
+        return getLotReport(lotId, month.atDay(1), month.atEndOfMonth());
+    }
+
+    /**
+     * Строит отчёт по клиенту за интервал дней включительно.
+
+     * @param clientId идентификатор клиента
+     * @param from     первый день
+     * @param to       последний день
+     * @return отчёт по клиенту
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public ClientReport getClientReport(Long clientId, LocalDate from, LocalDate to) {
+        validateId(clientId, "Идентификатор клиента");
+        validateRange(from, to);
+        long visits = 0;
+        long dwell = 0;
+        for (ClientDailyRollup r : rollupDao.findClientRollups(clientId, from, to)) {
+            visits += r.getVisitCount();
+            dwell += r.getTotalDwellMinutes();
+        }
+        return new ClientReport(clientId, visits, dwell);
+    }
+
+    private void validateRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Некорректный интервал дней");
+        }
+    }
+
+    /**
+     * Проверяет корректность идентификатора.
+
+     * @param id      идентификатор
+     * @param field   название поля для сообщения об ошибке
+     * @throws IllegalArgumentException при некорректном идентификаторе
+     */
+    private void validateId(Long id, String field) {
+        if (id == null || id <= 0) {
+            throw new IllegalArgumentException(field + " должен быть положительным");
+        }
+    }
+}
\ No newline at end of file
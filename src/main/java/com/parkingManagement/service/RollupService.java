@@ -0,0 +1,177 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.BatchCheckpointDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.RollupDao;
+import com.parkingManagement.model.ClientDailyRollup;
+import com.parkingManagement.model.LotDailyRollup;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.SessionRow;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сервис поддержки дневных агрегатов по парковкам и клиентам.
+ * Обновляет агрегаты инкрементально по событиям въезда и выезда и умеет
+ * пересчитывать их пакетно с возобновлением с последнего обработанного дня.
+ * Визиты и время стоянки относятся ко дню въезда.
+ * Методы синхронизированы, так как DAO сервиса работают через один EntityManager:
+ * один экземпляр можно регистрировать слушателем в нескольких потоках.
+ */
+public class RollupService implements ParkingRecordListener {
+    static final String BACKFILL_JOB = "rollup-backfill";
+
+    private final RollupDao rollupDao;
+    private final ParkingRecordDao parkingRecordDao;
+    private final BatchCheckpointDao checkpointDao;
+
+    public RollupService(RollupDao rollupDao, ParkingRecordDao parkingRecordDao, BatchCheckpointDao checkpointDao) {
+        this.rollupDao = rollupDao;
+        this.parkingRecordDao = parkingRecordDao;
+        this.checkpointDao = checkpointDao;
+    }
+
+    /**
+     * Обновляет пиковую занятость по текущему числу открытых сессий на парковке.
+
+     * @param record сохранённая запись о парковке
+     */
+    @Override
+    public synchronized void onCheckIn(ParkingRecord record) {
+        if (record.getExitTime() != null) {
+            return;
+        }
+        ParkingSpace space = record.getParkingSpace();
+        Long lotId = space.getParkingLot().getId();
+        long occupancy = parkingRecordDao.countOpenSessions(lotId, space.getType());
+        rollupDao.raisePeak(lotId, space.getType(), record.getEntryTime().toLocalDate(), (int) occupancy);
+    }
+
+    /**
+     * Добавляет завершённую сессию в агрегаты дня въезда.
+
+     * @param record завершённая запись о парковке
+     */
+    @Override
+    public synchronized void onCheckOut(ParkingRecord record) {
+        ParkingSpace space = record.getParkingSpace();
+        rollupDao.addSession(space.getParkingLot().getId(), space.getType(), record.getClient().getId(),
+                record.getEntryTime().toLocalDate(), dwellMinutes(record.getEntryTime(), record.getExitTime()));
+    }
+
+    /**
+     * Пересчитывает агрегаты за интервал дней по исходным записям.
+     * После каждого дня сохраняется контрольная точка интервала, поэтому прерванный запуск
+     * того же интервала продолжается со следующего необработанного дня. Завершённый запуск
+     * удаляет свою контрольную точку, и повторный запуск пересчитывает интервал заново.
+     * Пересчёт дня идемпотентен.
+
+     * @param from первый день
+     * @param to   последний день включительно
+     * @return число пересчитанных дней
+     * @throws IllegalArgumentException при некорректном интервале
+     */
+    public synchronized int backfill(LocalDate from, LocalDate to) {
+        if (from == null || to == null || to.isBefore(from)) {
+            throw new IllegalArgumentException("Некорректный интервал дней");
+        }
+        String job = backfillJob(from, to);
+        LocalDate day = from;
+        Long done = checkpointDao.findPosition(job);
+        if (done != null && done >= from.toEpochDay()) {
+            day = LocalDate.ofEpochDay(done + 1);
+        }
+        int processed = 0;
+        for (; !day.isAfter(to); day = day.plusDays(1)) {
+            rebuildDay(day);
+            checkpointDao.savePosition(job, day.toEpochDay());
+            processed++;
+        }
+        checkpointDao.reset(job);
+        return processed;
+    }
+
+    /**
+     * Сбрасывает контрольную точку прерванного пакетного пересчёта интервала.
+
+     * @param from первый день интервала
+     * @param to   последний день интервала
+     */
+    public synchronized void resetBackfill(LocalDate from, LocalDate to) {
+        checkpointDao.reset(backfillJob(from, to));
+    }
+
+    /**
+     * Возвращает имя контрольной точки пересчёта интервала: у каждого интервала своя точка,
+     * чтобы пересчёт одного интервала не пропускал дни другого.
+     */
+    static String backfillJob(LocalDate from, LocalDate to) {
+        return BACKFILL_JOB + "-" + from + "-" + to;
+    }
+
+    private void rebuildDay(LocalDate day) {
+        LocalDateTime dayStart = day.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        List<SessionRow> sessions = parkingRecordDao.findSessionsOverlapping(dayStart, dayEnd);
+
+        Map<String, LotDailyRollup> lotRollups = new HashMap<>();
+        Map<Long, ClientDailyRollup> clientRollups = new HashMap<>();
+        Map<String, List<SessionRow>> byLotAndType = new HashMap<>();
+        for (SessionRow s : sessions) {
+            String key = s.lotId() + "|" + s.spaceType();
+            byLotAndType.computeIfAbsent(key, k -> new ArrayList<>()).add(s);
+            LotDailyRollup lotRollup = lotRollups.computeIfAbsent(key,
+                    k -> new LotDailyRollup(s.lotId(), day, s.spaceType()));
+            if (s.exitTime() == null || s.entryTime().isBefore(dayStart)) {
+                continue;
+            }
+            long dwell = dwellMinutes(s.entryTime(), s.exitTime());
+            lotRollup.setVisitCount(lotRollup.getVisitCount() + 1);
+            lotRollup.setTotalDwellMinutes(lotRollup.getTotalDwellMinutes() + dwell);
+            ClientDailyRollup clientRollup = clientRollups.computeIfAbsent(s.clientId(),
+                    id -> new ClientDailyRollup(id, day));
+            clientRollup.setVisitCount(clientRollup.getVisitCount() + 1);
+            clientRollup.setTotalDwellMinutes(clientRollup.getTotalDwellMinutes() + dwell);
+        }
+        byLotAndType.forEach((key, group) ->
+                lotRollups.get(key).setPeakOccupancy(peakOccupancy(group, dayStart, dayEnd)));
+        rollupDao.replaceDay(day, lotRollups.values(), clientRollups.values());
+    }
+
+    /**
+     * Вычисляет максимальное число одновременных сессий внутри дня заметающей прямой.
+     * Интервалы полуоткрытые, поэтому выезд обрабатывается раньше въезда в тот же момент.
+     */
+    static int peakOccupancy(List<SessionRow> sessions, LocalDateTime dayStart, LocalDateTime dayEnd) {
+        long[] events = new long[sessions.size() * 2];
+        int n = 0;
+        for (SessionRow s : sessions) {
+            LocalDateTime start = s.entryTime().isBefore(dayStart) ? dayStart : s.entryTime();
+            LocalDateTime end = s.exitTime() == null || s.exitTime().isAfter(dayEnd) ? dayEnd : s.exitTime();
+            long startSec = Duration.between(dayStart, start).getSeconds();
+            long endSec = Duration.between(dayStart, end).getSeconds();
+            events[n++] = startSec << 1 | 1;
+            events[n++] = endSec << 1;
+        }
+        Arrays.sort(events, 0, n);
+        int current = 0;
+        int peak = 0;
+        for (int i = 0; i < n; i++) {
+            current += (events[i] & 1) == 1 ? 1 : -1;
+            peak = Math.max(peak, current);
+        }
+        return peak;
+    }
+
+    private static long dwellMinutes(LocalDateTime entry, LocalDateTime exit) {
+        return Duration.between(entry, exit).toMinutes();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,351 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.SessionRow;
+import com.parkingManagement.model.SpaceType;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Колоночное хранилище истории сессий в памяти для аналитических запросов.
+ * Каждая сессия занимает 28 байт в примитивных столбцах: плотный индекс места, автомобиль,
+ * клиент, въезд и выезд в секундах от эпохи. Парковка и тип места хранятся один раз
+ * в словаре мест. Столбцы разбиты на блоки по 65536 сессий; для каждого блока ведутся
+ * границы (зоны) времени въезда, выезда и индекса места, по которым блоки без подходящих
+ * сессий пропускаются целиком. Блоки сканируются параллельно.
+ * Новые сессии догружаются методом refresh или поступают через события въезда и выезда.
+ * Загруженные идентификаторы отмечаются в битовом множестве (бит на идентификатор), поэтому
+ * сессия, пришедшая и из загрузки, и из события, добавляется один раз в любом порядке, а события
+ * с меньшим идентификатором, чем уже загруженные, не теряются. Выезд сессии, которая ещё
+ * не загружена, запоминается и применяется при её добавлении.
+ */
+public class SessionColumnStore implements ParkingRecordListener {
+    public static final long OPEN = Long.MAX_VALUE;
+    static final int CHUNK_SIZE = 1 << 16;
+    private static final int BYTES_PER_SESSION = 4 + 4 + 4 + 8 + 8;
+
+    private final ParkingRecordDao parkingRecordDao;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Chunk> chunks = new ArrayList<>();
+    private final Map<Long, Integer> spaceIndex = new HashMap<>();
+    private final Map<Long, Long> openPositions = new HashMap<>();
+    private final Map<Long, Long> pendingExits = new HashMap<>();
+    private final BitSet loaded = new BitSet();
+    private long[] spaceLots = new long[256];
+    private byte[] spaceTypes = new byte[256];
+    private long refreshedUpTo;
+    private long size;
+
+    /**
+     * Результат агрегации по отфильтрованным сессиям.
+
+     * @param sessions          число сессий, пересекающихся с интервалом
+     * @param completedSessions число завершённых сессий среди них
+     * @param totalDwellSeconds суммарная длительность завершённых сессий в секундах
+     * @param maxDwellSeconds   максимальная длительность завершённой сессии в секундах
+     */
+    public record Aggregate(long sessions, long completedSessions, long totalDwellSeconds, long maxDwellSeconds) {
+        public double averageDwellSeconds() {
+            return completedSessions == 0 ? 0 : (double) totalDwellSeconds / completedSessions;
+        }
+    }
+
+    /**
+     * Блок столбцов с зонами значений.
+     */
+    private static final class Chunk {
+        int[] spaces = new int[1024];
+        int[] vehicles = new int[1024];
+        int[] clients = new int[1024];
+        long[] entries = new long[1024];
+        long[] exits = new long[1024];
+        int size;
+        long minEntry = Long.MAX_VALUE;
+        long maxEntry = Long.MIN_VALUE;
+        long maxClosedExit = Long.MIN_VALUE;
+        int openCount;
+        int minSpace = Integer.MAX_VALUE;
+        int maxSpace = Integer.MIN_VALUE;
+
+        void add(int space, int vehicle, int client, long entry, long exit) {
+            if (size == spaces.length) {
+                int capacity = Math.min(CHUNK_SIZE, size * 2);
+                spaces = Arrays.copyOf(spaces, capacity);
+                vehicles = Arrays.copyOf(vehicles, capacity);
+                clients = Arrays.copyOf(clients, capacity);
+                entries = Arrays.copyOf(entries, capacity);
+                exits = Arrays.copyOf(exits, capacity);
+            }
+            spaces[size] = space;
+            vehicles[size] = vehicle;
+            clients[size] = client;
+            entries[size] = entry;
+            exits[size] = exit;
+            size++;
+            minEntry = Math.min(minEntry, entry);
+            maxEntry = Math.max(maxEntry, entry);
+            if (exit == OPEN) {
+                openCount++;
+            } else {
+                maxClosedExit = Math.max(maxClosedExit, exit);
+            }
+            minSpace = Math.min(minSpace, space);
+            maxSpace = Math.max(maxSpace, space);
+        }
+
+        void close(int offset, long exit) {
+            exits[offset] = exit;
+            openCount--;
+            maxClosedExit = Math.max(maxClosedExit, exit);
+        }
+
+        long maxExit() {
+            return openCount > 0 ? OPEN : maxClosedExit;
+        }
+    }
+
+    public SessionColumnStore(ParkingRecordDao parkingRecordDao) {
+        this.parkingRecordDao = parkingRecordDao;
+    }
+
+    /**
+     * Догружает из базы данных сессии после последней сессии, прочитанной предыдущей загрузкой.
+     * Первый вызов загружает всю историю потоком без создания сущностей. Сессии, уже добавленные
+     * событиями, пропускаются.
+
+     * @return число добавленных сессий
+     */
+    public long refresh() {
+        long after;
+        lock.readLock().lock();
+        try {
+            after = refreshedUpTo;
+        } finally {
+            lock.readLock().unlock();
+        }
+        long[] added = {0};
+        long[] last = {after};
+        parkingRecordDao.forEachSession(after, row -> {
+            if (add(row)) {
+                added[0]++;
+            }
+            last[0] = row.recordId();
+        });
+        lock.writeLock().lock();
+        try {
+            refreshedUpTo = Math.max(refreshedUpTo, last[0]);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return added[0];
+    }
+
+    /**
+     * Добавляет открытую или завершённую сессию при въезде.
+
+     * @param record сохранённая запись о парковке
+     */
+    @Override
+    public void onCheckIn(ParkingRecord record) {
+        add(new SessionRow(record.getId(), record.getParkingSpace().getId(),
+                record.getParkingSpace().getParkingLot().getId(), record.getParkingSpace().getType(),
+                record.getVehicle().getId(), record.getClient().getId(), record.getEntryTime(), record.getExitTime()));
+    }
+
+    /**
+     * Проставляет время выезда открытой сессии.
+
+     * @param record завершённая запись о парковке
+     */
+    @Override
+    public void onCheckOut(ParkingRecord record) {
+        lock.writeLock().lock();
+        try {
+            Long position = openPositions.remove(record.getId());
+            if (position != null) {
+                chunks.get((int) (position >>> 16))
+                        .close((int) (position & (CHUNK_SIZE - 1)), toEpoch(record.getExitTime()));
+            } else if (!loaded.get(bit(record.getId()))) {
+                pendingExits.put(record.getId(), toEpoch(record.getExitTime()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет сессию из плоской проекции. Сессии с уже загруженным идентификатором пропускаются.
+
+     * @param row проекция сессии
+     * @return true, если сессия добавлена
+     */
+    public boolean add(SessionRow row) {
+        return append(row.recordId(), row.spaceId(), row.lotId(), SpaceType.of(row.spaceType()), row.vehicleId(),
+                row.clientId(), toEpoch(row.entryTime()), row.exitTime() == null ? OPEN : toEpoch(row.exitTime()));
+    }
+
+    /**
+     * Добавляет сессию в примитивном виде. Сессии с уже загруженным идентификатором пропускаются.
+
+     * @param recordId  идентификатор записи
+     * @param spaceId   идентификатор места
+     * @param lotId     идентификатор парковки
+     * @param type      тип места
+     * @param vehicleId идентификатор автомобиля
+     * @param clientId  идентификатор клиента
+     * @param entrySec  въезд в секундах от эпохи
+     * @param exitSec   выезд в секундах от эпохи или OPEN
+     * @return true, если сессия добавлена
+     * @throws IllegalArgumentException если идентификатор не помещается в битовое множество
+     */
+    public boolean append(long recordId, long spaceId, long lotId, SpaceType type, long vehicleId, long clientId,
+                          long entrySec, long exitSec) {
+        int bit = bit(recordId);
+        lock.writeLock().lock();
+        try {
+            if (loaded.get(bit)) {
+                return false;
+            }
+            loaded.set(bit);
+            Long pendingExit = pendingExits.remove(recordId);
+            if (pendingExit != null && exitSec == OPEN) {
+                exitSec = pendingExit;
+            }
+            int space = spaceIndex.computeIfAbsent(spaceId, id -> registerSpace(lotId, type));
+            if (chunks.isEmpty() || chunks.get(chunks.size() - 1).size == CHUNK_SIZE) {
+                chunks.add(new Chunk());
+            }
+            Chunk chunk = chunks.get(chunks.size() - 1);
+            if (exitSec == OPEN) {
+                openPositions.put(recordId, (long) (chunks.size() - 1) << 16 | chunk.size);
+            }
+            chunk.add(space, (int) vehicleId, (int) clientId, entrySec, exitSec);
+            size++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Агрегирует сессии, пересекающиеся с интервалом [from, to), с фильтром по парковке и типу места.
+
+     * @param lotId идентификатор парковки или null для всех парковок
+     * @param type  тип места или null для всех типов
+     * @param from  начало интервала
+     * @param to    конец интервала
+     * @return результат агрегации
+     * @throws IllegalArgumentException при некорректном интервале
+     */
+    public Aggregate aggregate(Long lotId, SpaceType type, LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !to.isAfter(from)) {
+            throw new IllegalArgumentException("Некорректный интервал времени");
+        }
+        long fromSec = toEpoch(from);
+        long toSec = toEpoch(to);
+        lock.readLock().lock();
+        try {
+            int spaces = spaceIndex.size();
+            boolean[] match = new boolean[spaces];
+            int firstMatch = Integer.MAX_VALUE;
+            int lastMatch = Integer.MIN_VALUE;
+            for (int i = 0; i < spaces; i++) {
+                match[i] = (lotId == null || spaceLots[i] == lotId) && (type == null || spaceTypes[i] == type.ordinal());
+                if (match[i]) {
+                    firstMatch = Math.min(firstMatch, i);
+                    lastMatch = Math.max(lastMatch, i);
+                }
+            }
+            int first = firstMatch;
+            int last = lastMatch;
+            long[] total = chunks.parallelStream()
+                    .filter(c -> c.minEntry < toSec && c.maxExit() > fromSec && c.maxSpace >= first && c.minSpace <= last)
+                    .map(c -> scan(c, match, fromSec, toSec))
+                    .reduce(new long[4], (a, b) -> new long[]{a[0] + b[0], a[1] + b[1], a[2] + b[2], Math.max(a[3], b[3])});
+            return new Aggregate(total[0], total[1], total[2], total[3]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static long[] scan(Chunk chunk, boolean[] match, long fromSec, long toSec) {
+        long sessions = 0;
+        long completed = 0;
+        long dwell = 0;
+        long maxDwell = 0;
+        int[] spaces = chunk.spaces;
+        long[] entries = chunk.entries;
+        long[] exits = chunk.exits;
+        for (int i = 0; i < chunk.size; i++) {
+            long entry = entries[i];
+            long exit = exits[i];
+            if (entry < toSec && exit > fromSec && match[spaces[i]]) {
+                sessions++;
+                if (exit != OPEN) {
+                    completed++;
+                    dwell += exit - entry;
+                    maxDwell = Math.max(maxDwell, exit - entry);
+                }
+            }
+        }
+        return new long[]{sessions, completed, dwell, maxDwell};
+    }
+
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Оценивает объём памяти под столбцы и словарь мест.
+
+     * @return число байт
+     */
+    public long memoryBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = (long) spaceLots.length * (Long.BYTES + 1) + loaded.size() / Byte.SIZE;
+            for (Chunk chunk : chunks) {
+                bytes += (long) chunk.spaces.length * BYTES_PER_SESSION;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int registerSpace(long lotId, SpaceType type) {
+        int index = spaceIndex.size();
+        if (index == spaceLots.length) {
+            spaceLots = Arrays.copyOf(spaceLots, index * 2);
+            spaceTypes = Arrays.copyOf(spaceTypes, index * 2);
+        }
+        spaceLots[index] = lotId;
+        spaceTypes[index] = (byte) type.ordinal();
+        return index;
+    }
+
+    private static int bit(long recordId) {
+        if (recordId < 0 || recordId > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Идентификатор записи " + recordId + " вне диапазона хранилища");
+        }
+        return (int) recordId;
+    }
+
+    private static long toEpoch(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
\ No newline at end of file
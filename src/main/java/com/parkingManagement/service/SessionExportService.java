@@ -0,0 +1,299 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.BatchCheckpointDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.model.SessionDetail;
+import com.parkingManagement.util.ChannelOutput;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Сервис потоковой выгрузки истории парковок в CSV или компактный двоичный формат.
+ * Сессии читаются одним запросом с соединениями в порядке идентификатора и сразу пишутся
+ * в файл через буфер фиксированного размера, поэтому память не зависит от объёма истории.
+ * Файл пишется во временный и атомарно переименовывается. Инкрементальная выгрузка хранит
+ * в контрольной точке идентификатор последней выгруженной сессии и продолжает с него, но выгружает
+ * только завершённые сессии до наименьшей открытой: сессия, завершённая позже соседей с большими
+ * идентификаторами, попадает в выгрузку после завершения, и ни одна сессия не выгружается дважды.
+ * Долгая открытая сессия задерживает выгрузку следующих за ней до своего завершения.
+ *
+ * <p>Двоичный формат: заголовок {@code PKSX} и байт версии, затем строки подряд до конца файла.
+ * Строка: разность идентификатора записи с предыдущей строкой (varint), идентификатор клиента (varint),
+ * имя клиента, номер автомобиля, название парковки, номер места и тип места (строки с префиксом
+ * длины, см. {@link ChannelOutput#writeString}), время въезда в секундах UTC (zigzag varint),
+ * длительность в секундах плюс один или 0 для открытой сессии (zigzag varint).
+ */
+public class SessionExportService {
+    static final byte[] BINARY_MAGIC = {'P', 'K', 'S', 'X'};
+    static final int BINARY_VERSION = 1;
+    static final String CSV_HEADER = "record_id,client_id,client_name,license_plate,lot_name,space_number," +
+            "space_type,entry_time,exit_time\n";
+
+    private final ParkingRecordDao parkingRecordDao;
+    private final BatchCheckpointDao checkpointDao;
+
+    /**
+     * Формат файла выгрузки.
+     */
+    public enum Format {
+        /** CSV в UTF-8 с заголовком. */
+        CSV,
+        /** Двоичный формат со строками с префиксом длины. */
+        BINARY
+    }
+
+    /**
+     * Итоги выгрузки.
+
+     * @param rows         число выгруженных сессий
+     * @param bytes        размер данных до сжатия
+     * @param lastRecordId идентификатор последней выгруженной сессии или начальный, если сессий нет
+     */
+    public record ExportResult(long rows, long bytes, long lastRecordId) {
+    }
+
+    public SessionExportService(ParkingRecordDao parkingRecordDao, BatchCheckpointDao checkpointDao) {
+        this.parkingRecordDao = parkingRecordDao;
+        this.checkpointDao = checkpointDao;
+    }
+
+    /**
+     * Выгружает всю историю парковок.
+
+     * @param file   файл выгрузки
+     * @param format формат файла
+     * @param gzip   сжимать файл в формате gzip
+     * @return итоги выгрузки
+     * @throws IllegalArgumentException при некорректных параметрах
+     * @throws UncheckedIOException     при ошибке записи файла
+     */
+    public ExportResult export(Path file, Format format, boolean gzip) {
+        return export(0, Long.MAX_VALUE, file, format, gzip);
+    }
+
+    /**
+     * Выгружает завершённые сессии, появившиеся после предыдущей выгрузки задачи, до наименьшей
+     * открытой сессии и сдвигает контрольную точку задачи.
+     * Если запуск прерван до переименования файла, контрольная точка не меняется и следующий
+     * запуск повторит ту же выгрузку.
+
+     * @param job    имя задачи выгрузки
+     * @param file   файл выгрузки
+     * @param format формат файла
+     * @param gzip   сжимать файл в формате gzip
+     * @return итоги выгрузки
+     * @throws IllegalArgumentException при некорректных параметрах
+     * @throws UncheckedIOException     при ошибке записи файла
+     */
+    public ExportResult exportIncremental(String job, Path file, Format format, boolean gzip) {
+        if (job == null || job.isBlank()) {
+            throw new IllegalArgumentException("Имя задачи выгрузки обязательно");
+        }
+        String checkpoint = "export-" + job;
+        long after = Objects.requireNonNullElse(checkpointDao.findPosition(checkpoint), 0L);
+        Long lowestOpen = parkingRecordDao.findLowestOpenRecordId(after);
+        ExportResult result = export(after, lowestOpen == null ? Long.MAX_VALUE : lowestOpen, file, format, gzip);
+        if (result.rows() > 0) {
+            checkpointDao.savePosition(checkpoint, result.lastRecordId());
+        }
+        return result;
+    }
+
+    /**
+     * Читает файл в двоичном формате, сжатый или нет.
+
+     * @param file     файл выгрузки
+     * @param consumer обработчик сессий
+     * @return число прочитанных сессий
+     * @throws UncheckedIOException     при ошибке чтения файла
+     * @throws IllegalArgumentException если файл не является двоичной выгрузкой
+     */
+    public static long readBinary(Path file, Consumer<SessionDetail> consumer) {
+        try (InputStream in = open(file)) {
+            for (byte b : BINARY_MAGIC) {
+                if (in.read() != b) {
+                    throw new IllegalArgumentException("Файл " + file + " не является двоичной выгрузкой сессий");
+                }
+            }
+            if (in.read() != BINARY_VERSION) {
+                throw new IllegalArgumentException("Неподдерживаемая версия двоичной выгрузки");
+            }
+            long count = 0;
+            long recordId = 0;
+            int first;
+            while ((first = in.read()) >= 0) {
+                recordId += readVarLong(in, first);
+                long clientId = readVarLong(in, in.read());
+                String clientName = readString(in);
+                String plate = readString(in);
+                String lotName = readString(in);
+                String spaceNumber = readString(in);
+                String spaceType = readString(in);
+                long entry = unzigzag(readVarLong(in, in.read()));
+                long duration = readVarLong(in, in.read());
+                LocalDateTime entryTime = LocalDateTime.ofEpochSecond(entry, 0, ZoneOffset.UTC);
+                LocalDateTime exitTime = duration == 0 ? null
+                        : LocalDateTime.ofEpochSecond(entry + unzigzag(duration - 1), 0, ZoneOffset.UTC);
+                consumer.accept(new SessionDetail(recordId, clientId, clientName, plate, lotName, spaceNumber,
+                        spaceType, entryTime, exitTime));
+                count++;
+            }
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка чтения выгрузки " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private ExportResult export(long afterRecordId, long beforeRecordId, Path file, Format format, boolean gzip) {
+        if (file == null || format == null) {
+            throw new IllegalArgumentException("Файл и формат выгрузки обязательны");
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long[] last = {afterRecordId};
+        long rows;
+        long bytes;
+        try (ChannelOutput out = new ChannelOutput(temp, gzip)) {
+            if (format == Format.CSV) {
+                out.writeText(CSV_HEADER);
+            } else {
+                out.writeBytes(BINARY_MAGIC);
+                out.writeByte(BINARY_VERSION);
+            }
+            rows = parkingRecordDao.forEachSessionDetail(afterRecordId, beforeRecordId, session -> {
+                try {
+                    if (format == Format.CSV) {
+                        writeCsv(out, session);
+                    } else {
+                        writeBinary(out, session, last[0]);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                last[0] = session.recordId();
+            });
+            bytes = out.getWritten();
+        } catch (IOException e) {
+            deleteTemp(temp);
+            throw new UncheckedIOException("Ошибка записи выгрузки " + file + ": " + e.getMessage(), e);
+        } catch (RuntimeException e) {
+            deleteTemp(temp);
+            if (e instanceof UncheckedIOException io) {
+                throw new UncheckedIOException("Ошибка записи выгрузки " + file + ": " + io.getCause().getMessage(),
+                        io.getCause());
+            }
+            throw e;
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи выгрузки " + file + ": " + e.getMessage(), e);
+        }
+        return new ExportResult(rows, bytes, last[0]);
+    }
+
+    private static void deleteTemp(Path temp) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+            // Временный файл будет перезаписан следующим запуском
+        }
+    }
+
+    private static void writeCsv(ChannelOutput out, SessionDetail s) throws IOException {
+        StringBuilder line = new StringBuilder(128);
+        line.append(s.recordId()).append(',').append(s.clientId()).append(',');
+        appendCsv(line, s.clientName()).append(',');
+        appendCsv(line, s.licensePlate()).append(',');
+        appendCsv(line, s.lotName()).append(',');
+        appendCsv(line, s.spaceNumber()).append(',');
+        appendCsv(line, s.spaceType()).append(',');
+        line.append(s.entryTime()).append(',');
+        if (s.exitTime() != null) {
+            line.append(s.exitTime());
+        }
+        out.writeText(line.append('\n').toString());
+    }
+
+    private static StringBuilder appendCsv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? line.append('"').append(value.replace("\"", "\"\"")).append('"') : line.append(value);
+    }
+
+    private static void writeBinary(ChannelOutput out, SessionDetail s, long previousRecordId) throws IOException {
+        out.writeVarLong(s.recordId() - previousRecordId);
+        out.writeVarLong(s.clientId());
+        out.writeString(s.clientName());
+        out.writeString(s.licensePlate());
+        out.writeString(s.lotName());
+        out.writeString(s.spaceNumber());
+        out.writeString(s.spaceType());
+        long entry = s.entryTime().toEpochSecond(ZoneOffset.UTC);
+        out.writeVarLong(zigzag(entry));
+        out.writeVarLong(s.exitTime() == null ? 0 : zigzag(s.exitTime().toEpochSecond(ZoneOffset.UTC) - entry) + 1);
+    }
+
+    private static InputStream open(Path file) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        in.mark(2);
+        boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+        in.reset();
+        return gzip ? new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16) : in;
+    }
+
+    private static long readVarLong(InputStream in, int first) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b = first;
+        while (true) {
+            if (b < 0) {
+                throw new EOFException("Неожиданный конец файла");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+            b = in.read();
+        }
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        long length = readVarLong(in, in.read());
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = in.readNBytes((int) (length - 1));
+        if (bytes.length != length - 1) {
+            throw new EOFException("Неожиданный конец файла");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,197 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.SpaceType;
+import com.parkingManagement.model.TariffPlan;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Движок расчёта стоимости парковочной сессии.
+ * Тарифные планы компилируются в таблицы префиксных сумм по минутам недели, поэтому
+ * стоимость любого интервала вычисляется несколькими обращениями к массиву без выделения памяти.
+ * Неполная минута стоянки оплачивается как полная, итог округляется до копейки.
+ */
+public class TariffEngine {
+    static final int MINUTES_PER_DAY = 24 * 60;
+    static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    /**
+     * Смещение начала эпохи (четверг 1970-01-01) относительно понедельника в минутах.
+     */
+    private static final int EPOCH_WEEK_OFFSET = 3 * MINUTES_PER_DAY;
+    /**
+     * Внутренние суммы хранятся в 1/6000 копейки: ставка за час даёт 1/60 копейки за минуту,
+     * а процент ступени добавляет множитель 100.
+     */
+    private static final long UNITS_PER_KOPECK = 60L * 100L;
+
+    private final Compiled[] compiled = new Compiled[SpaceType.values().length];
+
+    /**
+     * Скомпилированный план: префиксные суммы ставок по минутам недели и ступени.
+     */
+    private static final class Compiled {
+        final long[] prefix = new long[MINUTES_PER_WEEK + 1];
+        final long weekTotal;
+        final int[] tierStart;
+        final int[] tierPercent;
+        final int graceMinutes;
+        final long capUnits;
+
+        Compiled(TariffPlan plan) {
+            long[] rates = new long[MINUTES_PER_WEEK];
+            Arrays.fill(rates, plan.getDefaultHourlyRate());
+            for (TariffPlan.Period period : plan.getPeriods()) {
+                int from = period.from().getHour() * 60 + period.from().getMinute();
+                int to = period.to().getHour() * 60 + period.to().getMinute();
+                int length = to > from ? to - from : MINUTES_PER_DAY - from + to;
+                period.days().forEach(day -> {
+                    int start = day.ordinal() * MINUTES_PER_DAY + from;
+                    for (int i = 0; i < length; i++) {
+                        rates[(start + i) % MINUTES_PER_WEEK] = period.hourlyRate();
+                    }
+                });
+            }
+            for (int i = 0; i < MINUTES_PER_WEEK; i++) {
+                prefix[i + 1] = prefix[i] + rates[i];
+            }
+            weekTotal = prefix[MINUTES_PER_WEEK];
+
+            List<TariffPlan.Tier> tiers = plan.getTiers().stream()
+                    .sorted(Comparator.comparingInt(TariffPlan.Tier::fromMinute))
+                    .toList();
+            boolean hasZeroTier = !tiers.isEmpty() && tiers.get(0).fromMinute() == 0;
+            int count = tiers.size() + (hasZeroTier ? 0 : 1);
+            tierStart = new int[count];
+            tierPercent = new int[count];
+            int k = 0;
+            if (!hasZeroTier) {
+                tierPercent[k++] = 100;
+            }
+            for (TariffPlan.Tier tier : tiers) {
+                tierStart[k] = tier.fromMinute();
+                tierPercent[k++] = tier.percent();
+            }
+            graceMinutes = plan.getGraceMinutes();
+            capUnits = plan.getDailyCap() * UNITS_PER_KOPECK;
+        }
+
+        /**
+         * Сумма ставок за length минут, начиная с минуты недели start.
+         */
+        long rangeSum(int start, long length) {
+            long sum = length / MINUTES_PER_WEEK * weekTotal;
+            int end = start + (int) (length % MINUTES_PER_WEEK);
+            if (end <= MINUTES_PER_WEEK) {
+                return sum + prefix[end] - prefix[start];
+            }
+            return sum + weekTotal - prefix[start] + prefix[end - MINUTES_PER_WEEK];
+        }
+
+        long price(long entryMinute, long duration) {
+            if (duration <= graceMinutes) {
+                return 0;
+            }
+            int entryOfWeek = (int) Math.floorMod(entryMinute + EPOCH_WEEK_OFFSET, (long) MINUTES_PER_WEEK);
+            long total = 0;
+            for (long blockStart = 0; blockStart < duration; blockStart += MINUTES_PER_DAY) {
+                long blockEnd = Math.min(duration, blockStart + MINUTES_PER_DAY);
+                long block = 0;
+                for (int t = 0; t < tierStart.length; t++) {
+                    long segStart = Math.max(tierStart[t], blockStart);
+                    long segEnd = t + 1 < tierStart.length ? Math.min(tierStart[t + 1], blockEnd) : blockEnd;
+                    if (segStart < segEnd) {
+                        int startOfWeek = (int) ((entryOfWeek + segStart) % MINUTES_PER_WEEK);
+                        block += tierPercent[t] * rangeSum(startOfWeek, segEnd - segStart);
+                    }
+                }
+                total += capUnits > 0 ? Math.min(block, capUnits) : block;
+            }
+            return (total + UNITS_PER_KOPECK / 2) / UNITS_PER_KOPECK;
+        }
+    }
+
+    /**
+     * Создаёт движок и компилирует тарифные планы.
+
+     * @param plans тарифные планы по типам мест
+     * @throws IllegalArgumentException если планы не заданы
+     */
+    public TariffEngine(Map<SpaceType, TariffPlan> plans) {
+        if (plans == null || plans.isEmpty()) {
+            throw new IllegalArgumentException("Тарифные планы не заданы");
+        }
+        plans.forEach((type, plan) -> compiled[type.ordinal()] = new Compiled(plan));
+    }
+
+    /**
+     * Рассчитывает стоимость сессии в копейках.
+
+     * @param typeOrdinal      порядковый номер типа места (SpaceType.ordinal())
+     * @param entryEpochSecond время въезда в секундах от эпохи (UTC-шкала локального времени)
+     * @param exitEpochSecond  время выезда в секундах от эпохи
+     * @return стоимость в копейках
+     * @throws IllegalArgumentException если тариф для типа не задан или выезд раньше въезда
+     */
+    public long price(int typeOrdinal, long entryEpochSecond, long exitEpochSecond) {
+        Compiled plan = compiled[typeOrdinal];
+        if (plan == null) {
+            throw new IllegalArgumentException("Для типа места " + SpaceType.ofOrdinal(typeOrdinal) + " не задан тариф");
+        }
+        if (exitEpochSecond < entryEpochSecond) {
+            throw new IllegalArgumentException("Время выезда должно быть позже времени въезда");
+        }
+        long entryMinute = Math.floorDiv(entryEpochSecond, 60L);
+        long duration = (exitEpochSecond - entryEpochSecond + 59) / 60;
+        return plan.price(entryMinute, duration);
+    }
+
+    /**
+     * Рассчитывает стоимость сессии в копейках.
+
+     * @param spaceType тип парковочного места
+     * @param entryTime время въезда
+     * @param exitTime  время выезда
+     * @return стоимость в копейках
+     */
+    public long price(String spaceType, LocalDateTime entryTime, LocalDateTime exitTime) {
+        return price(SpaceType.of(spaceType).ordinal(),
+                entryTime.toEpochSecond(ZoneOffset.UTC), exitTime.toEpochSecond(ZoneOffset.UTC));
+    }
+
+    /**
+     * Рассчитывает стоимость завершённой записи о парковке, например при выезде.
+
+     * @param record завершённая запись о парковке
+     * @return стоимость в копейках
+     * @throws IllegalArgumentException если сессия не завершена
+     */
+    public long price(ParkingRecord record) {
+        if (record.getExitTime() == null) {
+            throw new IllegalArgumentException("Сессия ещё не завершена");
+        }
+        return price(record.getParkingSpace().getType(), record.getEntryTime(), record.getExitTime());
+    }
+
+    /**
+     * Рассчитывает стоимость множества сессий параллельно.
+
+     * @param typeOrdinals      порядковые номера типов мест
+     * @param entryEpochSeconds времена въезда в секундах от эпохи
+     * @param exitEpochSeconds  времена выезда в секундах от эпохи
+     * @return стоимости в копейках в том же порядке
+     */
+    public long[] priceBatch(int[] typeOrdinals, long[] entryEpochSeconds, long[] exitEpochSeconds) {
+        if (typeOrdinals.length != entryEpochSeconds.length || typeOrdinals.length != exitEpochSeconds.length) {
+            throw new IllegalArgumentException("Размеры массивов должны совпадать");
+        }
+        long[] prices = new long[typeOrdinals.length];
+        Arrays.parallelSetAll(prices, i -> price(typeOrdinals[i], entryEpochSeconds[i], exitEpochSeconds[i]));
+        return prices;
+    }
+}
\ No newline at end of file
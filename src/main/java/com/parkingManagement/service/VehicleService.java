@@ -1,18 +1,121 @@
 package com.parkingManagement.service;
 
 import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.JournalEvent;
 import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.model.VehicleOwner;
+import com.parkingManagement.util.PlateIndex;
+import com.parkingManagement.util.TinyLfuCache;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Сервис для управления автомобилями в системе управления парковкой.
  */
 public class VehicleService {
+    static final int MAX_PLATE_DISTANCE = 2;
+
     private final VehicleDao vehicleDao;
+    private final PlateIndex plateIndex;
+    private final EventJournal journal;
+    private final TinyLfuCache<String, VehicleOwner> ownerCache;
+    private final PlateFilter plateFilter;
+
+    /**
+     * Общие для всех сервисов автомобилей индекс номеров, журнал, кэш владельцев и фильтр номеров.
+     * Настройки собираются один раз, а каждый поток или запрос строит по ним сервис со своим DAO.
+     * Не заданные части не используются.
+     */
+    public static final class Builder {
+        private PlateIndex plateIndex;
+        private EventJournal journal;
+        private TinyLfuCache<String, VehicleOwner> ownerCache;
+        private PlateFilter plateFilter;
+
+        private Builder() {
+        }
+
+        /**
+         * Подключает индекс номеров, который обновляется при создании, изменении и удалении автомобилей.
+
+         * @param plateIndex индекс номеров
+         * @return эти настройки
+         */
+        public Builder plateIndex(PlateIndex plateIndex) {
+            this.plateIndex = plateIndex;
+            return this;
+        }
+
+        /**
+         * Подключает журнал операций для изменений автомобилей.
+
+         * @param journal журнал операций
+         * @return эти настройки
+         */
+        public Builder journal(EventJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        /**
+         * Подключает кэш поиска владельца по номеру. Изменение и удаление автомобиля
+         * синхронно удаляют из кэша записи его прежнего и нового номера.
+
+         * @param ownerCache общий кэш владельцев по номеру
+         * @return эти настройки
+         */
+        public Builder ownerCache(TinyLfuCache<String, VehicleOwner> ownerCache) {
+            this.ownerCache = ownerCache;
+            return this;
+        }
+
+        /**
+         * Подключает фильтр зарегистрированных номеров, который пополняется при создании
+         * и изменении автомобилей и отсекает поиск незарегистрированных номеров без запроса к базе.
+
+         * @param plateFilter общий фильтр зарегистрированных номеров
+         * @return эти настройки
+         */
+        public Builder plateFilter(PlateFilter plateFilter) {
+            this.plateFilter = plateFilter;
+            return this;
+        }
+
+        public TinyLfuCache<String, VehicleOwner> getOwnerCache() {
+            return ownerCache;
+        }
+
+        /**
+         * Создаёт сервис с этими настройками.
+
+         * @param vehicleDao DAO автомобилей
+         * @return сервис автомобилей
+         */
+        public VehicleService build(VehicleDao vehicleDao) {
+            return new VehicleService(vehicleDao, this);
+        }
+    }
 
     public VehicleService(VehicleDao vehicleDao) {
+        this(vehicleDao, new Builder());
+    }
+
+    private VehicleService(VehicleDao vehicleDao, Builder builder) {
         this.vehicleDao = vehicleDao;
+        this.plateIndex = builder.plateIndex;
+        this.journal = builder.journal;
+        this.ownerCache = builder.ownerCache;
+        this.plateFilter = builder.plateFilter;
+    }
+
+    /**
+     * Создаёт пустые настройки сервиса.
+
+     * @return настройки без индекса, журнала, кэша и фильтра
+     */
+    public static Builder builder() {
+        return new Builder();
     }
 
     /**
@@ -24,6 +127,41 @@ public class VehicleService {
     public void createVehicle(Vehicle vehicle) {
         validateVehicle(vehicle, false);
         vehicleDao.create(vehicle);
+        registerCreated(vehicle);
+    }
+
+    /**
+     * Создаёт автомобиль клиента по идентификатору клиента, не загружая клиента:
+     * автомобиль вставляется одной командой, существование клиента проверяет внешний ключ.
+
+     * @param clientId     идентификатор клиента
+     * @param licensePlate регистрационный номер
+     * @param brand        марка или null
+     * @param model        модель или null
+     * @return созданный автомобиль; клиент в нём не загружен, доступен только его идентификатор
+     * @throws IllegalArgumentException при некорректных данных или если клиент не найден
+     */
+    public Vehicle createVehicle(Long clientId, String licensePlate, String brand, String model) {
+        validateId(clientId, "Идентификатор клиента");
+        validateLicensePlate(licensePlate);
+        Vehicle vehicle = vehicleDao.create(clientId, licensePlate, brand, model);
+        if (vehicle == null) {
+            throw new IllegalArgumentException("Клиент с ID " + clientId + " не найден");
+        }
+        registerCreated(vehicle);
+        return vehicle;
+    }
+
+    private void registerCreated(Vehicle vehicle) {
+        if (plateIndex != null) {
+            plateIndex.put(vehicle.getId(), vehicle.getLicensePlate());
+        }
+        if (plateFilter != null) {
+            plateFilter.put(vehicle.getLicensePlate());
+        }
+        if (journal != null) {
+            journal.append(JournalEvent.Type.VEHICLE_CREATED, vehicle);
+        }
     }
 
     /**
@@ -59,9 +197,21 @@ public class VehicleService {
      */
     public void updateVehicle(Vehicle vehicle) {
         validateVehicle(vehicle, true);
+        String previousPlate = previousPlate(vehicle.getId());
         if (!vehicleDao.update(vehicle)) {
             throw new IllegalArgumentException("Автомобиль с ID " + vehicle.getId() + " не найден");
         }
+        invalidateOwner(previousPlate);
+        invalidateOwner(vehicle.getLicensePlate());
+        if (plateIndex != null) {
+            plateIndex.put(vehicle.getId(), vehicle.getLicensePlate());
+        }
+        if (plateFilter != null) {
+            plateFilter.put(vehicle.getLicensePlate());
+        }
+        if (journal != null) {
+            journal.append(JournalEvent.Type.VEHICLE_UPDATED, vehicle);
+        }
     }
 
     /**
@@ -72,9 +222,128 @@ public class VehicleService {
      */
     public void deleteVehicle(Long id) {
         validateId(id, "Идентификатор автомобиля");
+        String previousPlate = previousPlate(id);
         if (!vehicleDao.delete(id)) {
             throw new IllegalArgumentException("Автомобиль с ID " + id + " не найден");
         }
+        invalidateOwner(previousPlate);
+        if (plateIndex != null) {
+            plateIndex.remove(id);
+        }
+        if (journal != null) {
+            journal.appendDeleted(JournalEvent.Type.VEHICLE_DELETED, id);
+        }
+    }
+
+    /**
+     * Заполняет индекс номеров всеми автомобилями из базы данных без его очистки: номера,
+     * изменённые другими потоками во время чтения, не перезаписываются, а номера удалённых
+     * автомобилей убираются после полного прочтения.
+
+     * @return число проиндексированных автомобилей
+     * @throws IllegalStateException если индекс номеров не подключён или уже перестраивается
+     */
+    public long rebuildPlateIndex() {
+        requirePlateIndex();
+        plateIndex.beginRebuild();
+        boolean complete = false;
+        try {
+            long count = vehicleDao.forEachPlate(plateIndex::load);
+            complete = true;
+            return count;
+        } finally {
+            plateIndex.endRebuild(complete);
+        }
+    }
+
+    /**
+     * Строит фильтр зарегистрированных номеров заново по базе данных, не блокируя проверки.
+
+     * @return число загруженных номеров
+     * @throws IllegalStateException если фильтр номеров не подключён
+     */
+    public long rebuildPlateFilter() {
+        if (plateFilter == null) {
+            throw new IllegalStateException("Фильтр регистрационных номеров не подключён");
+        }
+        return plateFilter.rebuild(vehicleDao);
+    }
+
+    /**
+     * Проверяет по фильтру номеров, может ли номер принадлежать зарегистрированному автомобилю.
+     * Без подключённого фильтра любой номер считается возможным.
+
+     * @param licensePlate регистрационный номер
+     * @return false, если автомобиля с таким номером с точностью до похожих символов точно нет
+     */
+    public boolean mightBeRegistered(String licensePlate) {
+        return plateFilter == null || plateFilter.mightContain(licensePlate);
+    }
+
+    /**
+     * Находит автомобили по распознанному камерой номеру с учётом похожих символов
+     * и не более maxDistance ошибочных символов.
+
+     * @param licensePlate распознанный номер
+     * @param maxDistance  допустимое число ошибок от 0 до 2
+     * @return автомобили по возрастанию числа ошибок
+     * @throws IllegalArgumentException при некорректных параметрах
+     * @throws IllegalStateException    если индекс номеров не подключён
+     */
+    public List<Vehicle> findVehiclesByPlate(String licensePlate, int maxDistance) {
+        requirePlateIndex();
+        if (licensePlate == null || licensePlate.trim().isEmpty()) {
+            throw new IllegalArgumentException("Регистрационный номер обязателен");
+        }
+        if (maxDistance < 0 || maxDistance > MAX_PLATE_DISTANCE) {
+            throw new IllegalArgumentException("Допустимое число ошибок должно быть от 0 до " + MAX_PLATE_DISTANCE);
+        }
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (PlateIndex.Match match : plateIndex.find(licensePlate, maxDistance, 10)) {
+            Vehicle vehicle = vehicleDao.findById(match.vehicleId());
+            if (vehicle != null) {
+                vehicles.add(vehicle);
+            }
+        }
+        return vehicles;
+    }
+
+    /**
+     * Находит автомобиль и его владельца по точному регистрационному номеру. Номер, отсутствующий
+     * в подключённом фильтре, сразу считается ненайденным; иначе при подключённом кэше
+     * база данных запрашивается только при промахе.
+
+     * @param licensePlate регистрационный номер
+     * @return снимок автомобиля с владельцем или null, если автомобиль не найден
+     * @throws IllegalArgumentException если номер не указан
+     */
+    public VehicleOwner findOwnerByPlate(String licensePlate) {
+        if (licensePlate == null || licensePlate.trim().isEmpty()) {
+            throw new IllegalArgumentException("Регистрационный номер обязателен");
+        }
+        if (!mightBeRegistered(licensePlate)) {
+            return null;
+        }
+        return ownerCache == null ? loadOwner(licensePlate) : ownerCache.get(licensePlate, this::loadOwner);
+    }
+
+    private VehicleOwner loadOwner(String licensePlate) {
+        Vehicle vehicle = vehicleDao.findByLicensePlate(licensePlate);
+        return vehicle == null ? null : new VehicleOwner(vehicle.getId(), vehicle.getLicensePlate(),
+                vehicle.getClient().getId(), vehicle.getClient().getName());
+    }
+
+    /**
+     * Номер автомобиля в базе данных до изменения; без кэша владельцев запрос не выполняется.
+     */
+    private String previousPlate(Long vehicleId) {
+        return ownerCache == null ? null : vehicleDao.findLicensePlateById(vehicleId);
+    }
+
+    private void invalidateOwner(String licensePlate) {
+        if (ownerCache != null && licensePlate != null) {
+            ownerCache.invalidate(licensePlate);
+        }
     }
 
     /**
@@ -95,11 +364,21 @@ public class VehicleService {
                 vehicle.getClient().getId() <= 0) {
             throw new IllegalArgumentException("Идентификатор клиента должен быть положительным");
         }
-        if (vehicle.getLicensePlate() == null || vehicle.getLicensePlate().trim().isEmpty()) {
+        validateLicensePlate(vehicle.getLicensePlate());
+    }
+
+    private void validateLicensePlate(String licensePlate) {
+        if (licensePlate == null || licensePlate.trim().isEmpty()) {
             throw new IllegalArgumentException("Регистрационный номер обязателен");
         }
     }
 
+    private void requirePlateIndex() {
+        if (plateIndex == null) {
+            throw new IllegalStateException("Индекс регистрационных номеров не подключён");
+        }
+    }
+
     /**
      * Проверяет корректность идентификатора.
 
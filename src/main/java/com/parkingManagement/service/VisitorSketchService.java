@@ -0,0 +1,56 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.VisitorSketchDao;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.util.HyperLogLog;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Сервис обновления дневных скетчей уникальных автомобилей по въездам.
+ * Скетч текущего дня парковки держится в памяти, а в базу данных записывается
+ * только при изменении регистров, поэтому повторные въезды знакомых автомобилей
+ * не порождают запись. В памяти хранятся скетчи двух последних дней въезда.
+ * Если запись не удалась, скетч удаляется из памяти и при следующем въезде читается из базы заново.
+ */
+public class VisitorSketchService implements ParkingRecordListener {
+    private final VisitorSketchDao visitorSketchDao;
+    private final Map<String, HyperLogLog> current = new HashMap<>();
+    private long latestDay = Long.MIN_VALUE;
+
+    public VisitorSketchService(VisitorSketchDao visitorSketchDao) {
+        this.visitorSketchDao = visitorSketchDao;
+    }
+
+    /**
+     * Добавляет автомобиль в скетч парковки за день въезда.
+
+     * @param record сохранённая запись о парковке
+     */
+    @Override
+    public synchronized void onCheckIn(ParkingRecord record) {
+        Long lotId = record.getParkingSpace().getParkingLot().getId();
+        LocalDate day = record.getEntryTime().toLocalDate();
+        if (day.toEpochDay() > latestDay) {
+            latestDay = day.toEpochDay();
+            current.keySet().removeIf(key -> Long.parseLong(key.substring(key.indexOf('|') + 1)) < latestDay - 1);
+        }
+        String key = lotId + "|" + day.toEpochDay();
+        HyperLogLog sketch = current.computeIfAbsent(key, k -> {
+            byte[] registers = visitorSketchDao.findRegisters(lotId, day);
+            return registers == null ? new HyperLogLog() : HyperLogLog.fromBytes(registers);
+        });
+        if (sketch.add(record.getVehicle().getId())) {
+            try {
+                visitorSketchDao.save(lotId, day, sketch.toBytes());
+            } catch (RuntimeException e) {
+                // Регистры в памяти уже изменены; без сброса следующий въезд того же автомобиля
+                // не изменит их и не повторит запись
+                current.remove(key);
+                throw e;
+            }
+        }
+    }
+}
\ No newline at end of file
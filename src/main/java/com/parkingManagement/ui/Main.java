@@ -2,14 +2,25 @@ package com.parkingManagement.ui;
 
 import com.parkingManagement.dao.*;
 import com.parkingManagement.model.*;
+import com.parkingManagement.server.ApiServer;
+import com.parkingManagement.server.DeduplicatingGateCommandHandler;
+import com.parkingManagement.server.GateServer;
+import com.parkingManagement.server.ServiceGateCommandHandler;
 import com.parkingManagement.service.*;
 import com.parkingManagement.util.HibernateUtil;
+import com.parkingManagement.util.PlateIndex;
+import com.parkingManagement.util.TinyLfuCache;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.PersistenceException;
 
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Scanner;
 
@@ -17,6 +28,18 @@ import java.util.Scanner;
  * Главный класс консольного приложения для управления парковкой.
  */
 public class Main {
+    private static final Duration WARMUP_DEADLINE = Duration.ofSeconds(30);
+    private static final Duration CONSOLE_WARMUP_DEADLINE = Duration.ofMinutes(10);
+    private static final int OWNER_CACHE_SIZE = 100_000;
+    private static final Duration OWNER_CACHE_TTL = Duration.ofMinutes(10);
+    private static final int SPACE_CACHE_SIZE = 100_000;
+    private static final Duration SPACE_CACHE_TTL = Duration.ofMinutes(5);
+    private static final long EXPECTED_PLATES = 1_000_000;
+    private static final double PLATE_FILTER_FALSE_POSITIVE_RATE = 0.01;
+    private static final Duration GATE_DEDUP_WINDOW = Duration.ofSeconds(10);
+    private static final int GATE_DEDUP_CAPACITY = 100_000;
+    private static final int GATE_WORKERS = 8;
+
     private static EntityManagerFactory emf;
     private static EntityManager em;
     private static Scanner scanner;
@@ -25,28 +48,164 @@ public class Main {
     private static ClientService clientService;
     private static VehicleService vehicleService;
     private static ParkingRecordService parkingRecordService;
+    private static final List<EntityManager> listenerEntityManagers = new ArrayList<>();
+
+    /**
+     * Запускает консольное меню. С аргументом {@code --http=<порт>} дополнительно поднимает HTTP API,
+     * с аргументом {@code --gates=<порт>} — TCP-сервер контроллеров ворот с дедупликацией повторов,
+     * с аргументом {@code --outbox=<каталог>} записывает изменения сессий в исходящую очередь
+     * и публикует их в файлы парковок в указанном каталоге. HTTP API и ворота пишут в тот же
+     * журнал операций и ту же исходящую очередь, что и консоль, и уведомляют тех же слушателей аналитики.
+     * Индекс номеров, фильтр зарегистрированных номеров и кэш владельцев общие для всех путей; вместе с пулом
+     * свободных мест и справочным кэшем мест ворот они прогреваются при запуске: без сервера ворот запуск ждёт
+     * полной загрузки, с ним — не дольше срока прогрева.
 
+     * @param args аргументы командной строки
+     */
     public static void main(String[] args) {
+        ApiServer apiServer = null;
+        GateServer gateServer = null;
+        EventJournal journal = null;
+        OutboxPublisher outboxPublisher = null;
         try {
             emf = HibernateUtil.getEntityManagerFactory();
             em = emf.createEntityManager();
             scanner = new Scanner(System.in);
-            parkingLotService = new ParkingLotService(new ParkingLotDao(em));
-            parkingSpaceService = new ParkingSpaceService(new ParkingSpaceDao(em));
-            clientService = new ClientService(new ClientDao(em));
-            vehicleService = new VehicleService(new VehicleDao(em));
-            parkingRecordService = new ParkingRecordService(new ParkingRecordDao(em));
+            journal = new EventJournal(emf);
+            parkingLotService = new ParkingLotService(new ParkingLotDao(em), new VisitorSketchDao(em), journal);
+            parkingSpaceService = new ParkingSpaceService(new ParkingSpaceDao(em), journal);
+            PlateIndex plateIndex = new PlateIndex();
+            PlateFilter plateFilter = new PlateFilter(EXPECTED_PLATES, PLATE_FILTER_FALSE_POSITIVE_RATE);
+            TinyLfuCache<String, VehicleOwner> ownerCache = new TinyLfuCache<>(OWNER_CACHE_SIZE, OWNER_CACHE_TTL);
+            FreeSpacePool freeSpacePool = new FreeSpacePool();
+            TinyLfuCache<Long, ParkingSpace> spaceCache = new TinyLfuCache<>(SPACE_CACHE_SIZE, SPACE_CACHE_TTL);
+            boolean gates = Arrays.stream(args).anyMatch(arg -> arg.startsWith("--gates="));
+            CacheWarmer warmer = new CacheWarmer(emf, 4).plateIndex(plateIndex).plateFilter(plateFilter)
+                    .recentOwners(ownerCache);
+            if (gates) {
+                warmer.freeSpaces(freeSpacePool).referenceData(spaceCache);
+            }
+            // Ворота не ждут дольше срока: до окончания загрузки нечёткий поиск по номеру неполон,
+            // а кэши владельцев и мест и пул свободных мест заполняются промахами
+            CacheWarmer.Report warmup = warmer.run(gates ? WARMUP_DEADLINE : CONSOLE_WARMUP_DEADLINE);
+            System.out.println("Прогрев кэшей: " + warmup.getTotalLoaded() + " элементов за "
+                    + warmup.elapsed().toMillis() + " мс" + (warmup.completed() ? ""
+                    : ", не завершены: " + warmup.pending() + ", ошибки: " + warmup.failures()));
+            VehicleService.Builder vehicles = VehicleService.builder().plateIndex(plateIndex).ownerCache(ownerCache)
+                    .journal(journal);
+            if (warmup.loaded().containsKey("plateFilter")) {
+                vehicles.plateFilter(plateFilter);
+            } else {
+                // Недостроенный фильтр отвечал бы «нет» на номера зарегистрированных автомобилей
+                System.out.println("Фильтр номеров отключён: он не построен к сроку прогрева");
+            }
+            clientService = new ClientService(new ClientDao(em), journal, ownerCache);
+            vehicleService = vehicles.build(new VehicleDao(em));
+            String outboxDir = null;
+            for (String arg : args) {
+                if (arg.startsWith("--outbox=")) {
+                    outboxDir = arg.substring(9);
+                }
+            }
+            ParkingRecordDao parkingRecordDao = new ParkingRecordDao(em, outboxDir != null);
+            if (outboxDir != null) {
+                outboxPublisher = new OutboxPublisher(emf, new FileOutboxSink(Path.of(outboxDir)), 500,
+                        Duration.ofSeconds(1));
+                outboxPublisher.start();
+            }
+            List<ParkingRecordListener> listeners = createSessionListeners();
+            parkingRecordService = new ParkingRecordService(parkingRecordDao, journal);
+            listeners.forEach(parkingRecordService::addListener);
+
+            for (String arg : args) {
+                if (arg.startsWith("--http=")) {
+                    apiServer = new ApiServer(new InetSocketAddress(Integer.parseInt(arg.substring(7))),
+                            ApiServer.defaultMode(), 32, 1024, emf, vehicles, outboxDir != null,
+                            journal, listeners);
+                    System.out.println("HTTP API запущен на порту " + apiServer.start()
+                            + " (режим " + apiServer.getMode() + ")");
+                } else if (arg.startsWith("--gates=")) {
+                    gateServer = startGateServer(Integer.parseInt(arg.substring(8)), vehicles, freeSpacePool,
+                            spaceCache, outboxDir != null, journal, listeners);
+                }
+            }
 
             runMainMenu();
         } catch (PersistenceException e) {
             System.out.println("Ошибка подключения к базе данных: " + e.getMessage());
         } finally {
+            if (apiServer != null) apiServer.close();
+            if (gateServer != null) gateServer.close();
+            if (outboxPublisher != null) outboxPublisher.close();
+            if (journal != null) journal.close();
+            listenerEntityManagers.forEach(EntityManager::close);
             if (em != null && em.isOpen()) em.close();
             if (scanner != null) scanner.close();
             HibernateUtil.shutdown();
         }
     }
 
+    /**
+     * Создаёт слушателей въездов и выездов, общих для консоли, HTTP API и ворот: дневные агрегаты,
+     * гистограммы длительностей, самые частые автомобили и скетчи уникальных посетителей.
+     * Каждый слушатель работает через собственный EntityManager и потокобезопасен, поэтому
+     * рабочие потоки HTTP API и ворот вызывают его одновременно с консолью.
+
+     * @return слушатели въездов и выездов
+     */
+    private static List<ParkingRecordListener> createSessionListeners() {
+        EntityManager rollupEm = openListenerEntityManager();
+        EntityManager dwellEm = openListenerEntityManager();
+        EntityManager heavyHitterEm = openListenerEntityManager();
+        EntityManager visitorEm = openListenerEntityManager();
+        return List.of(
+                new RollupService(new RollupDao(rollupEm), new ParkingRecordDao(rollupEm),
+                        new BatchCheckpointDao(rollupEm)),
+                new DwellTimeService(new DwellSketchDao(dwellEm), new ParkingRecordDao(dwellEm)),
+                new HeavyHitterService(new ParkingRecordDao(heavyHitterEm), 1000, 31),
+                new VisitorSketchService(new VisitorSketchDao(visitorEm)));
+    }
+
+    /**
+     * Открывает EntityManager слушателя; он закрывается при завершении приложения.
+
+     * @return новый EntityManager
+     */
+    private static EntityManager openListenerEntityManager() {
+        EntityManager listenerEm = emf.createEntityManager();
+        listenerEntityManagers.add(listenerEm);
+        return listenerEm;
+    }
+
+    /**
+     * Запускает сервер ворот. Рабочие потоки получают собственные обработчики с общими индексом
+     * номеров, пулом свободных мест, справочным кэшем мест и слоем дедупликации; въезды и выезды
+     * журналируются и передаются общим слушателям.
+
+     * @param port          порт сервера
+     * @param vehicles      общие настройки сервиса автомобилей
+     * @param freeSpacePool прогретый пул свободных мест
+     * @param spaceCache    прогретый справочный кэш мест
+     * @param outbox        записывать въезды и выезды в исходящую очередь
+     * @param journal       журнал операций
+     * @param listeners     потокобезопасные слушатели въездов и выездов
+     * @return запущенный сервер
+     */
+    private static GateServer startGateServer(int port, VehicleService.Builder vehicles, FreeSpacePool freeSpacePool,
+                                              TinyLfuCache<Long, ParkingSpace> spaceCache, boolean outbox,
+                                              EventJournal journal, List<ParkingRecordListener> listeners) {
+        GateEventDeduplicator deduplicator = new GateEventDeduplicator(null, GATE_DEDUP_WINDOW, GATE_DEDUP_CAPACITY);
+        List<ParkingRecordListener> gateListeners = new ArrayList<>();
+        gateListeners.add(journal);
+        gateListeners.addAll(listeners);
+        GateServer server = new GateServer(new InetSocketAddress(port), GATE_WORKERS, 16, 1024,
+                () -> new DeduplicatingGateCommandHandler(
+                        new ServiceGateCommandHandler(emf, vehicles, freeSpacePool, spaceCache, outbox, gateListeners),
+                        deduplicator));
+        System.out.println("Сервер ворот запущен на порту " + server.start());
+        return server;
+    }
+
     /**
      * Запускает главное меню приложения.
      */
@@ -281,11 +440,9 @@ public class Main {
                 switch (choice) {
                     case 1 -> {
                         long lotId = getLongInput("Введите ID парковки: ");
-                        ParkingLot parkingLot = parkingLotService.getParkingLot(lotId);
                         String number = getStringInput("Введите номер места: ", false);
                         String type = getStringInput("Введите тип (REGULAR/DISABLED/VIP): ", false);
-                        ParkingSpace space = new ParkingSpace(null, parkingLot, number, type);
-                        parkingSpaceService.createParkingSpace(space);
+                        ParkingSpace space = parkingSpaceService.createParkingSpace(lotId, number, type);
                         System.out.println("Место создано с ID: " + space.getId());
                     }
                     case 2 -> {
@@ -433,13 +590,11 @@ public class Main {
                 switch (choice) {
                     case 1 -> {
                         long clientId = getLongInput("Введите ID клиента: ");
-                        Client client = clientService.getClient(clientId);
                         String licensePlate = getStringInput("Введите рег. номер: ", false);
                         String brand = getStringInput("Введите марку: ", true);
                         String model = getStringInput("Введите модель: ", true);
-                        Vehicle vehicle = new Vehicle(null, client, licensePlate,
+                        Vehicle vehicle = vehicleService.createVehicle(clientId, licensePlate,
                                 brand.isEmpty() ? null : brand, model.isEmpty() ? null : model);
-                        vehicleService.createVehicle(vehicle);
                         System.out.println("Автомобиль создан с ID: " + vehicle.getId());
                     }
                     case 2 -> {
@@ -516,15 +671,13 @@ public class Main {
                 switch (choice) {
                     case 1 -> {
                         long spaceId = getLongInput("Введите ID парковочного места: ");
-                        ParkingSpace space = parkingSpaceService.getParkingSpace(spaceId);
-                        long vehicleId = getLongInput("Введите ID автомобиля: ");
-                        Vehicle vehicle = vehicleService.getVehicle(vehicleId);
-                        long clientId = getLongInput("Введите ID клиента: ");
-                        Client client = clientService.getClient(clientId);
+                        String vehicleKey = getStringInput("Введите ID или рег. номер автомобиля: ", false);
                         LocalDateTime entryTime = getDateTimeInput("Введите время въезда (гггг-мм-дд чч:мм:сс): ");
                         if (entryTime == null) continue;
-                        ParkingRecord record = new ParkingRecord(null, space, vehicle, client, entryTime, null);
-                        parkingRecordService.createParkingRecord(record);
+                        // Клиент записи берётся из автомобиля, место и автомобиль заранее не загружаются
+                        ParkingRecord record = vehicleKey.matches("\\d+")
+                                ? parkingRecordService.checkIn(spaceId, Long.parseLong(vehicleKey), entryTime)
+                                : parkingRecordService.checkInByPlate(spaceId, vehicleKey, entryTime);
                         System.out.println("Запись создана с ID: " + record.getId());
                     }
                     case 2 -> {
@@ -0,0 +1,124 @@
+package com.parkingManagement.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Фильтр Блума для строк на массиве long. Отрицательный ответ точен, положительный ошибочен
+ * с вероятностью, заданной при создании для ожидаемого числа элементов. Размер массива
+ * и число хеш-функций выбираются по стандартным формулам m = -n·ln p / ln²2, k = m/n·ln 2;
+ * k позиций получаются двойным хешированием: из 64-битного хеша строки выводятся два независимо
+ * перемешанных значения h1 и h2, и i-я позиция равна h1 + i·h2 по модулю числа битов.
+ * Биты устанавливаются атомарным OR, поэтому добавления и проверки из разных потоков
+ * безопасны без блокировок, и добавленный элемент сразу виден всем потокам.
+ */
+public class BloomFilter {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final double LN2 = Math.log(2);
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+
+    /**
+     * Создаёт пустой фильтр.
+
+     * @param expectedInsertions ожидаемое число элементов
+     * @param falsePositiveRate  допустимая доля ложноположительных ответов в интервале (0, 1)
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Ожидаемое число элементов должно быть положительным");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("Доля ложноположительных ответов должна быть в интервале (0, 1)");
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        long wordCount = Math.max(1, (bits + 63) >>> 6);
+        if (wordCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Фильтр слишком велик для " + expectedInsertions + " элементов");
+        }
+        this.words = new long[(int) wordCount];
+        this.bitCount = wordCount << 6;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * LN2));
+    }
+
+    /**
+     * Добавляет строку.
+
+     * @param value строка
+     */
+    public void put(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int index = (int) (bit >>> 6);
+            if (((long) WORDS.getAcquire(words, index) & mask) == 0) {
+                WORDS.getAndBitwiseOr(words, index, mask);
+            }
+        }
+    }
+
+    /**
+     * Проверяет, могла ли строка быть добавлена.
+
+     * @param value строка
+     * @return false, если строка точно не добавлялась; true, если, вероятно, добавлялась
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        long h1 = mix(hash);
+        long h2 = mix(hash + 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if (((long) WORDS.getAcquire(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Оценивает долю ложноположительных ответов по текущей заполненности битов.
+
+     * @return оценка доли ложноположительных ответов
+     */
+    public double estimateFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length; i++) {
+            set += Long.bitCount((long) WORDS.getAcquire(words, i));
+        }
+        return Math.pow((double) set / bitCount, hashCount);
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    private static long hash(String value) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        return h;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,99 @@
+package com.parkingManagement.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограниченная неблокирующая очередь для многих производителей и одного потребителя
+ * на кольцевом буфере с порядковыми номерами ячеек (схема Вьюкова).
+ * Производители занимают позицию через CAS, а ячейка публикуется записью порядкового номера,
+ * поэтому ни добавление, ни извлечение не используют блокировок.
+ * Метод poll может вызывать только один поток.
+
+ * @param <T> тип элементов
+ */
+public class BoundedMpscQueue<T> {
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final int mask;
+    private volatile long dequeuePosition;
+
+    /**
+     * Создаёт очередь.
+
+     * @param capacity ёмкость, округляется вверх до степени двойки
+     * @throws IllegalArgumentException при неположительной ёмкости
+     */
+    public BoundedMpscQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость очереди должна быть положительной");
+        }
+        int size = capacity < 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * Добавляет элемент, если в очереди есть место.
+
+     * @param item элемент
+     * @return false, если очередь заполнена
+     */
+    public boolean offer(T item) {
+        long position = enqueuePosition.get();
+        int index;
+        while (true) {
+            index = (int) (position & mask);
+            long difference = sequences.getAcquire(index) - position;
+            if (difference == 0) {
+                if (enqueuePosition.compareAndSet(position, position + 1)) {
+                    break;
+                }
+                position = enqueuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = enqueuePosition.get();
+            }
+        }
+        buffer[index] = item;
+        sequences.setRelease(index, position + 1);
+        return true;
+    }
+
+    /**
+     * Извлекает элемент. Вызывается только потоком-потребителем.
+
+     * @return элемент или null, если очередь пуста
+     */
+    @SuppressWarnings("unchecked")
+    public T poll() {
+        long position = dequeuePosition;
+        int index = (int) (position & mask);
+        if (sequences.getAcquire(index) != position + 1) {
+            return null;
+        }
+        T item = (T) buffer[index];
+        buffer[index] = null;
+        sequences.setRelease(index, position + mask + 1);
+        dequeuePosition = position + 1;
+        return item;
+    }
+
+    public int size() {
+        return (int) Math.max(0, enqueuePosition.get() - dequeuePosition);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+}
\ No newline at end of file
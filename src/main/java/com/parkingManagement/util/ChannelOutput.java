@@ -0,0 +1,157 @@
+package com.parkingManagement.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Буферизованная запись в файл через FileChannel с необязательным сжатием gzip.
+ * Данные накапливаются в буфере фиксированного размера и сбрасываются в канал целиком,
+ * поэтому память не зависит от объёма записанных данных. Числа кодируются в формате
+ * varint (по 7 бит в байте, старший бит — признак продолжения), строки — длиной varint
+ * и байтами UTF-8.
+ */
+public final class ChannelOutput implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final GZIPOutputStream gzip;
+    private final ByteBuffer buffer;
+    private long written;
+
+    /**
+     * Открывает файл для записи, заменяя его содержимое.
+
+     * @param file файл
+     * @param gzip сжимать данные в формате gzip
+     * @throws IOException при ошибке открытия файла
+     */
+    public ChannelOutput(Path file, boolean gzip) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        OutputStream out = Channels.newOutputStream(channel);
+        this.gzip = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        this.buffer = gzip ? ByteBuffer.allocate(BUFFER_SIZE) : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    /**
+     * Записывает байт.
+
+     * @param value байт
+     * @throws IOException при ошибке записи
+     */
+    public void writeByte(int value) throws IOException {
+        ensure(1);
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Записывает массив байтов.
+
+     * @param bytes байты
+     * @throws IOException при ошибке записи
+     */
+    public void writeBytes(byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Записывает неотрицательное число в формате varint.
+
+     * @param value число
+     * @throws IOException при ошибке записи
+     */
+    public void writeVarLong(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Записывает строку с префиксом длины: 0 для null, иначе длина в байтах UTF-8 плюс один.
+
+     * @param value строка или null
+     * @throws IOException при ошибке записи
+     */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            writeVarLong(0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length + 1L);
+        writeBytes(bytes);
+    }
+
+    /**
+     * Записывает текст в UTF-8 без префикса длины.
+
+     * @param text текст
+     * @throws IOException при ошибке записи
+     */
+    public void writeText(String text) throws IOException {
+        writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Возвращает число байтов, переданных на запись, до сжатия.
+
+     * @return число байтов
+     */
+    public long getWritten() {
+        return written + buffer.position();
+    }
+
+    /**
+     * Сбрасывает буфер, завершает сжатие и закрывает файл.
+
+     * @throws IOException при ошибке записи
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            if (gzip != null) {
+                gzip.finish();
+            }
+            channel.force(false);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        written += buffer.remaining();
+        if (gzip != null) {
+            gzip.write(buffer.array(), 0, buffer.limit());
+        } else {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+        buffer.clear();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.parkingManagement.util;
+
+/**
+ * Count-Min Sketch для оценки частот целочисленных ключей в фиксированной памяти.
+ * Оценка никогда не меньше истинной частоты и с вероятностью не менее 1 - 2^-depth
+ * превышает её не более чем на 2 * total / width.
+ */
+public class CountMinSketch {
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L,
+            0xFF51AFD7ED558CCDL, 0xC4CEB9FE1A85EC53L, 0x94D049BB133111EBL, 0xBF58476D1CE4E5B9L
+    };
+
+    private final int width;
+    private final int depth;
+    private final long[] table;
+    private long totalCount;
+
+    /**
+     * Создаёт пустой Count-Min Sketch.
+
+     * @param width ширина строки, степень двойки
+     * @param depth число строк от 1 до 8
+     * @throws IllegalArgumentException при некорректных размерах
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Ширина должна быть положительной степенью двойки");
+        }
+        if (depth <= 0 || depth > SEEDS.length) {
+            throw new IllegalArgumentException("Глубина должна быть от 1 до " + SEEDS.length);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.table = new long[width * depth];
+    }
+
+    /**
+     * Увеличивает частоту ключа.
+
+     * @param key   ключ
+     * @param count приращение
+     */
+    public void add(long key, long count) {
+        for (int row = 0; row < depth; row++) {
+            table[row * width + bucket(key, row)] += count;
+        }
+        totalCount += count;
+    }
+
+    /**
+     * Оценивает частоту ключа сверху.
+
+     * @param key ключ
+     * @return оценка частоты
+     */
+    public long estimate(long key) {
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, table[row * width + bucket(key, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Добавляет частоты другого скетча с теми же размерами.
+
+     * @param other скетч для объединения
+     * @throws IllegalArgumentException при различающихся размерах
+     */
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Размеры скетчей должны совпадать");
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    private int bucket(long key, int row) {
+        long h = (key + SEEDS[row]) * 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 29;
+        return (int) h & (width - 1);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package com.parkingManagement.util;
+
+/**
+ * Окно дедупликации событий по 64-битным ключам с ограничением по времени и по числу ключей.
+ * Ключи хранятся в кольцевом буфере в порядке поступления и в хеш-множестве с открытой
+ * адресацией; устаревшие ключи вытесняются с хвоста буфера и удаляются из множества сдвигом
+ * назад, поэтому проверка выполняется за O(1) и не создаёт объектов.
+ * Окно отсчитывается от первого появления ключа: повторы внутри окна его не продлевают.
+ * Класс не потокобезопасен.
+ */
+public class DeduplicationWindow {
+    private static final long EMPTY = 0;
+
+    private final long windowMillis;
+    private final long[] ringKeys;
+    private final long[] ringTimes;
+    private final long[] table;
+    private final int tableMask;
+    private int tail;
+    private int size;
+
+    /**
+     * Создаёт окно.
+
+     * @param windowMillis длительность окна в миллисекундах
+     * @param capacity     максимальное число ключей в окне; при переполнении вытесняется самый старый
+     * @throws IllegalArgumentException при неположительных параметрах
+     */
+    public DeduplicationWindow(long windowMillis, int capacity) {
+        if (windowMillis <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Длительность и ёмкость окна должны быть положительными");
+        }
+        this.windowMillis = windowMillis;
+        this.ringKeys = new long[capacity];
+        this.ringTimes = new long[capacity];
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity * 2 - 1)) << 1;
+        this.table = new long[tableSize];
+        this.tableMask = tableSize - 1;
+    }
+
+    /**
+     * Проверяет, встречался ли ключ в окне, и запоминает его, если нет.
+
+     * @param key        ключ события
+     * @param timeMillis время события в миллисекундах
+     * @return true, если событие повторное
+     */
+    public boolean isDuplicate(long key, long timeMillis) {
+        key = key == EMPTY ? 1 : key;
+        while (size > 0 && ringTimes[tail] <= timeMillis - windowMillis) {
+            evictOldest();
+        }
+        int index = mix(key) & tableMask;
+        while (table[index] != EMPTY) {
+            if (table[index] == key) {
+                return true;
+            }
+            index = (index + 1) & tableMask;
+        }
+        if (size == ringKeys.length) {
+            evictOldest();
+            index = mix(key) & tableMask;
+            while (table[index] != EMPTY) {
+                index = (index + 1) & tableMask;
+            }
+        }
+        table[index] = key;
+        int head = (tail + size) % ringKeys.length;
+        ringKeys[head] = key;
+        ringTimes[head] = timeMillis;
+        size++;
+        return false;
+    }
+
+    /**
+     * Забывает ключ, чтобы следующее событие с ним не считалось повтором, например если обработка
+     * принятого события не удалась. Ячейка ключа в буфере помечается пустой, чтобы её вытеснение
+     * не удалило из множества тот же ключ, запомненный заново. Поиск ячейки линеен по размеру окна,
+     * поэтому метод рассчитан на редкие сбои, а не на каждое событие.
+
+     * @param key ключ события
+     */
+    public void forget(long key) {
+        key = key == EMPTY ? 1 : key;
+        for (int i = size - 1; i >= 0; i--) {
+            int slot = (tail + i) % ringKeys.length;
+            if (ringKeys[slot] == key) {
+                ringKeys[slot] = EMPTY;
+                remove(key);
+                return;
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void evictOldest() {
+        if (ringKeys[tail] != EMPTY) {
+            remove(ringKeys[tail]);
+        }
+        tail = (tail + 1) % ringKeys.length;
+        size--;
+    }
+
+    /**
+     * Удаляет ключ из множества, сдвигая назад следующие за ним ключи той же цепочки.
+     */
+    private void remove(long key) {
+        int index = mix(key) & tableMask;
+        while (table[index] != key) {
+            if (table[index] == EMPTY) {
+                return;
+            }
+            index = (index + 1) & tableMask;
+        }
+        int hole = index;
+        int next = (hole + 1) & tableMask;
+        while (table[next] != EMPTY) {
+            int home = mix(table[next]) & tableMask;
+            // Ключ переносится в дыру, если его исходная позиция не лежит между дырой и текущей позицией
+            if (((next - home) & tableMask) >= ((next - hole) & tableMask)) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & tableMask;
+        }
+        table[hole] = EMPTY;
+    }
+
+    private static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xFF51AFD7ED558CCDL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,106 @@
+package com.parkingManagement.util;
+
+import java.util.Arrays;
+
+/**
+ * HyperLogLog для оценки числа различных целочисленных ключей.
+ * Используется 2^12 регистров по одному байту, стандартная относительная погрешность
+ * оценки составляет 1.04 / sqrt(4096), то есть около 1.6%. Для малых множеств применяется
+ * линейный подсчёт по пустым регистрам. Скетчи объединяются поэлементным максимумом регистров.
+ */
+public class HyperLogLog {
+    public static final int PRECISION = 12;
+    public static final int REGISTERS = 1 << PRECISION;
+    public static final double STANDARD_ERROR = 1.04 / Math.sqrt(REGISTERS);
+
+    private final byte[] registers;
+
+    /**
+     * Создаёт пустой скетч.
+     */
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    /**
+     * Восстанавливает скетч из массива регистров.
+
+     * @param registers регистры, полученные из toBytes
+     * @return скетч
+     * @throws IllegalArgumentException при неверной длине массива
+     */
+    public static HyperLogLog fromBytes(byte[] registers) {
+        if (registers == null || registers.length != REGISTERS) {
+            throw new IllegalArgumentException("Скетч должен содержать " + REGISTERS + " регистров");
+        }
+        HyperLogLog hll = new HyperLogLog();
+        System.arraycopy(registers, 0, hll.registers, 0, REGISTERS);
+        return hll;
+    }
+
+    /**
+     * Добавляет ключ.
+
+     * @param key ключ
+     * @return true, если скетч изменился
+     */
+    public boolean add(long key) {
+        long hash = mix(key);
+        int index = (int) (hash >>> (64 - PRECISION));
+        byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Объединяет скетч с другим скетчем.
+
+     * @param other скетч для объединения
+     */
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    /**
+     * Оценивает число различных ключей.
+
+     * @return оценка мощности множества
+     */
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / REGISTERS);
+        double estimate = alpha * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public byte[] toBytes() {
+        return Arrays.copyOf(registers, REGISTERS);
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 29;
+        h *= 0x94D049BB133111EBL;
+        h ^= h >>> 32;
+        return h;
+    }
+}
\ No newline at end of file
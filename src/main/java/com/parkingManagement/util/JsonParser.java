@@ -0,0 +1,211 @@
+package com.parkingManagement.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Разбор небольших JSON-документов (тел запросов) в дерево из Map, List, String, Long, Double,
+ * Boolean и null. Целые числа без дробной части и экспоненты возвращаются как Long.
+ */
+public final class JsonParser {
+    private final String json;
+    private int position;
+
+    private JsonParser(String json) {
+        this.json = json;
+    }
+
+    /**
+     * Разбирает JSON-объект.
+
+     * @param json текст документа
+     * @return поля объекта в порядке следования
+     * @throws IllegalArgumentException если документ не является корректным JSON-объектом
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> parseObject(String json) {
+        if (json == null) {
+            throw new IllegalArgumentException("Некорректный JSON: пустой документ");
+        }
+        JsonParser parser = new JsonParser(json);
+        parser.skipWhitespace();
+        if (parser.peek() != '{') {
+            throw parser.error("ожидался объект");
+        }
+        Object value = parser.readValue();
+        parser.skipWhitespace();
+        if (parser.position != json.length()) {
+            throw parser.error("лишние символы после документа");
+        }
+        return (Map<String, Object>) value;
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        char c = peek();
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                expect("true");
+                return Boolean.TRUE;
+            case 'f':
+                expect("false");
+                return Boolean.FALSE;
+            case 'n':
+                expect("null");
+                return null;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber();
+                }
+                throw error("неожиданный символ '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        Map<String, Object> object = new LinkedHashMap<>();
+        position++;
+        skipWhitespace();
+        if (peek() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() != '"') {
+                throw error("ожидалось имя поля");
+            }
+            String name = readString();
+            skipWhitespace();
+            if (next() != ':') {
+                throw error("ожидалось ':'");
+            }
+            object.put(name, readValue());
+            skipWhitespace();
+            char c = next();
+            if (c == '}') {
+                return object;
+            }
+            if (c != ',') {
+                throw error("ожидалось ',' или '}'");
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        List<Object> array = new ArrayList<>();
+        position++;
+        skipWhitespace();
+        if (peek() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            array.add(readValue());
+            skipWhitespace();
+            char c = next();
+            if (c == ']') {
+                return array;
+            }
+            if (c != ',') {
+                throw error("ожидалось ',' или ']'");
+            }
+        }
+    }
+
+    private String readString() {
+        position++;
+        StringBuilder sb = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return sb.toString();
+            }
+            if (c < 0x20) {
+                throw error("управляющий символ в строке");
+            }
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            char escape = next();
+            switch (escape) {
+                case '"', '\\', '/' -> sb.append(escape);
+                case 'b' -> sb.append('\b');
+                case 'f' -> sb.append('\f');
+                case 'n' -> sb.append('\n');
+                case 'r' -> sb.append('\r');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (position + 4 > json.length()) {
+                        throw error("неполная escape-последовательность");
+                    }
+                    try {
+                        sb.append((char) Integer.parseInt(json.substring(position, position + 4), 16));
+                    } catch (NumberFormatException e) {
+                        throw error("некорректная escape-последовательность");
+                    }
+                    position += 4;
+                }
+                default -> throw error("некорректная escape-последовательность");
+            }
+        }
+    }
+
+    private Object readNumber() {
+        int start = position;
+        boolean integral = true;
+        while (position < json.length()) {
+            char c = json.charAt(position);
+            if (c == '.' || c == 'e' || c == 'E') {
+                integral = false;
+            } else if (!(c == '-' || c == '+' || (c >= '0' && c <= '9'))) {
+                break;
+            }
+            position++;
+        }
+        String text = json.substring(start, position);
+        try {
+            return integral ? (Object) Long.parseLong(text) : (Object) Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw error("некорректное число " + text);
+        }
+    }
+
+    private void expect(String literal) {
+        if (!json.startsWith(literal, position)) {
+            throw error("ожидалось " + literal);
+        }
+        position += literal.length();
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+            position++;
+        }
+    }
+
+    private char peek() {
+        if (position >= json.length()) {
+            throw error("неожиданный конец документа");
+        }
+        return json.charAt(position);
+    }
+
+    private char next() {
+        char c = peek();
+        position++;
+        return c;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("Некорректный JSON в позиции " + position + ": " + message);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.parkingManagement.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+
+/**
+ * Потоковая запись JSON без промежуточного дерева объектов: значения пишутся в Writer по мере
+ * вызовов, поэтому большой список можно отдавать клиенту, не держа его целиком в памяти.
+ * Запятые между элементами расставляются автоматически; корректность вложенности
+ * (парность begin/end, имя перед значением в объекте) остаётся на вызывающем коде.
+ * Класс не потокобезопасен.
+ */
+public class JsonWriter implements Flushable, Closeable {
+    private static final int MAX_DEPTH = 64;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final boolean[] hasElements = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() {
+        return open('{');
+    }
+
+    public JsonWriter endObject() {
+        return close('}');
+    }
+
+    public JsonWriter beginArray() {
+        return open('[');
+    }
+
+    public JsonWriter endArray() {
+        return close(']');
+    }
+
+    /**
+     * Пишет имя поля объекта; следующим вызовом должно быть его значение.
+
+     * @param name имя поля
+     * @return этот же объект
+     */
+    public JsonWriter name(String name) {
+        separate();
+        string(name);
+        write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        if (value == null) {
+            return nullValue();
+        }
+        separate();
+        string(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        separate();
+        write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(Number value) {
+        if (value == null) {
+            return nullValue();
+        }
+        separate();
+        write(value.toString());
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        separate();
+        write(value ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Пишет дату и время строкой в формате ISO-8601.
+
+     * @param value дата и время или null
+     * @return этот же объект
+     */
+    public JsonWriter value(LocalDateTime value) {
+        return value(value == null ? null : value.toString());
+    }
+
+    public JsonWriter nullValue() {
+        separate();
+        write("null");
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи JSON: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            out.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private JsonWriter open(char bracket) {
+        separate();
+        write(bracket);
+        hasElements[++depth] = false;
+        return this;
+    }
+
+    private JsonWriter close(char bracket) {
+        depth--;
+        write(bracket);
+        return this;
+    }
+
+    /**
+     * Ставит запятую перед элементом массива или полем объекта, если он не первый.
+     */
+    private void separate() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (hasElements[depth]) {
+            write(',');
+        }
+        hasElements[depth] = true;
+    }
+
+    private void string(String value) {
+        write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            write(value, start, i);
+            switch (c) {
+                case '"' -> write("\\\"");
+                case '\\' -> write("\\\\");
+                case '\n' -> write("\\n");
+                case '\r' -> write("\\r");
+                case '\t' -> write("\\t");
+                default -> write("\\u00" + HEX[c >> 4] + HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        write(value, start, value.length());
+        write('"');
+    }
+
+    private void write(char c) {
+        try {
+            out.write(c);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private void write(String s) {
+        write(s, 0, s.length());
+    }
+
+    private void write(String s, int from, int to) {
+        try {
+            out.write(s, from, to - from);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка записи JSON: " + e.getMessage(), e);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package com.parkingManagement.util;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Логарифмически-линейная гистограмма неотрицательных целых значений для оценки квантилей
+ * (схема HDR-гистограммы). Значения меньше 128 хранятся точно; остальные попадают в корзины
+ * шириной не более 1/64 от нижней границы, поэтому оценка квантиля по середине корзины
+ * отличается от точного значения не более чем на 1/64 от него.
+ * Гистограммы объединяются сложением счётчиков и сериализуются в разреженный формат
+ * (только непустые корзины, переменная длина чисел).
+ */
+public class LogHistogram {
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int BUCKETS = LINEAR_LIMIT + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private long[] counts = new long[LINEAR_LIMIT];
+    private long totalCount;
+
+    /**
+     * Добавляет значение в гистограмму.
+
+     * @param value неотрицательное значение
+     * @throws IllegalArgumentException при отрицательном значении
+     */
+    public void record(long value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Значение не может быть отрицательным");
+        }
+        int index = indexOf(value);
+        ensureCapacity(index + 1);
+        counts[index]++;
+        totalCount++;
+    }
+
+    /**
+     * Добавляет в эту гистограмму все значения другой гистограммы.
+
+     * @param other гистограмма для объединения
+     */
+    public void merge(LogHistogram other) {
+        ensureCapacity(other.counts.length);
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+    }
+
+    /**
+     * Оценивает квантиль по правилу ближайшего ранга.
+
+     * @param quantile квантиль в интервале (0, 1]
+     * @return оценка значения квантиля или 0 для пустой гистограммы
+     * @throws IllegalArgumentException при квантиле вне интервала
+     */
+    public long quantile(double quantile) {
+        if (!(quantile > 0 && quantile <= 1)) {
+            throw new IllegalArgumentException("Квантиль должен быть в интервале (0, 1]");
+        }
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return midpointOf(i);
+            }
+        }
+        return midpointOf(counts.length - 1);
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Сериализует гистограмму: число непустых корзин, затем пары (приращение индекса, счётчик)
+     * в формате переменной длины.
+
+     * @return компактное двоичное представление
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        int nonEmpty = 0;
+        for (long count : counts) {
+            if (count != 0) {
+                nonEmpty++;
+            }
+        }
+        writeVarLong(out, nonEmpty);
+        int previous = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                writeVarLong(out, i - previous);
+                writeVarLong(out, counts[i]);
+                previous = i;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Восстанавливает гистограмму из представления toBytes.
+
+     * @param bytes двоичное представление
+     * @return гистограмма
+     * @throws IllegalArgumentException при повреждённых данных
+     */
+    public static LogHistogram fromBytes(byte[] bytes) {
+        LogHistogram histogram = new LogHistogram();
+        int[] position = {0};
+        long nonEmpty = readVarLong(bytes, position);
+        int index = 0;
+        for (long i = 0; i < nonEmpty; i++) {
+            index += (int) readVarLong(bytes, position);
+            long count = readVarLong(bytes, position);
+            if (index >= BUCKETS) {
+                throw new IllegalArgumentException("Повреждённые данные гистограммы");
+            }
+            histogram.ensureCapacity(index + 1);
+            histogram.counts[index] = count;
+            histogram.totalCount += count;
+        }
+        return histogram;
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long midpointOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long lower = (long) ((index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lower + ((1L << shift) - 1) / 2;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(size, Math.min(BUCKETS, counts.length * 2)));
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] bytes, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= bytes.length) {
+                throw new IllegalArgumentException("Повреждённые данные гистограммы");
+            }
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Повреждённые данные гистограммы");
+    }
+}
\ No newline at end of file
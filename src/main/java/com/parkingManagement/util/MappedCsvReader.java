@@ -0,0 +1,220 @@
+package com.parkingManagement.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Чтение CSV-файла в UTF-8 через отображение в память с разбиением на независимые части.
+ * Файл делится на части примерно равного размера, границы сдвигаются к началу следующей строки,
+ * поэтому части можно разбирать параллельно без общего состояния. Каждая часть отображается
+ * в память отдельно, так что размер файла не ограничен 2 ГБ.
+ * Поддерживаются поля в кавычках с удвоенной кавычкой внутри; перевод строки внутри поля
+ * не поддерживается, так как граница части может попасть внутрь такого поля.
+ */
+public final class MappedCsvReader {
+    private static final int MAX_CHUNK_SIZE = Integer.MAX_VALUE - 1024;
+
+    /**
+     * Часть файла: байты [start, end), начинающиеся с начала строки.
+
+     * @param file  файл
+     * @param start смещение первого байта
+     * @param end   смещение после последнего байта
+     */
+    public record Chunk(Path file, long start, long end) {
+    }
+
+    /**
+     * Обработчик строк CSV.
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+
+        /**
+         * Обрабатывает строку.
+
+         * @param offset смещение строки в файле
+         * @param line   исходный текст строки без перевода строки
+         * @param fields разобранные поля
+         */
+        void accept(long offset, String line, String[] fields);
+    }
+
+    private MappedCsvReader() {
+    }
+
+    /**
+     * Делит файл на части по границам строк.
+
+     * @param file       файл
+     * @param parts      желаемое число частей
+     * @param skipHeader пропустить первую строку (заголовок)
+     * @return части файла в порядке следования; пустые части не возвращаются
+     * @throws UncheckedIOException при ошибке чтения
+     */
+    public static List<Chunk> split(Path file, int parts, boolean skipHeader) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = skipHeader ? nextLineStart(channel, 0, size) : 0;
+            long step = Math.max(1, Math.min((size - start) / Math.max(1, parts) + 1, MAX_CHUNK_SIZE));
+            List<Chunk> chunks = new ArrayList<>();
+            while (start < size) {
+                long end = start + step >= size ? size : nextLineStart(channel, start + step, size);
+                chunks.add(new Chunk(file, start, end));
+                start = end;
+            }
+            return chunks;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка чтения файла " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Читает первую строку файла (заголовок).
+
+     * @param file файл
+     * @return текст первой строки или пустая строка для пустого файла
+     * @throws UncheckedIOException при ошибке чтения
+     */
+    public static String readHeader(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long end = nextLineStart(channel, 0, channel.size());
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, end);
+            byte[] bytes = new byte[(int) end];
+            buffer.get(bytes);
+            return new String(bytes, 0, trimLineEnd(bytes, 0, bytes.length), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка чтения файла " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Разбирает строки части файла и передаёт их обработчику. Пустые строки пропускаются.
+
+     * @param chunk   часть файла
+     * @param handler обработчик строк
+     * @throws UncheckedIOException при ошибке чтения
+     */
+    public static void read(Chunk chunk, RowHandler handler) {
+        try (FileChannel channel = FileChannel.open(chunk.file(), StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(),
+                    chunk.end() - chunk.start());
+            byte[] line = new byte[256];
+            List<String> fields = new ArrayList<>();
+            int length = 0;
+            long lineOffset = chunk.start();
+            int limit = buffer.limit();
+            for (int i = 0; i <= limit; i++) {
+                byte b = i < limit ? buffer.get(i) : (byte) '\n';
+                if (b != '\n') {
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[length++] = b;
+                    continue;
+                }
+                int end = trimLineEnd(line, 0, length);
+                if (end > 0) {
+                    parseFields(line, end, fields);
+                    handler.accept(lineOffset, new String(line, 0, end, StandardCharsets.UTF_8),
+                            fields.toArray(new String[0]));
+                }
+                length = 0;
+                lineOffset = chunk.start() + i + 1;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка чтения файла " + chunk.file() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Разбирает одну строку CSV, например заголовок, на поля.
+
+     * @param line текст строки без перевода строки
+     * @return поля строки
+     */
+    public static String[] parseLine(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        List<String> fields = new ArrayList<>();
+        parseFields(bytes, trimLineEnd(bytes, 0, bytes.length), fields);
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Разбирает строку на поля по запятым с учётом кавычек. Пробелы вокруг полей без кавычек удаляются.
+     */
+    static void parseFields(byte[] line, int length, List<String> fields) {
+        fields.clear();
+        int i = 0;
+        while (true) {
+            if (i < length && line[i] == '"') {
+                byte[] value = new byte[length];
+                int size = 0;
+                i++;
+                while (i < length) {
+                    if (line[i] == '"') {
+                        if (i + 1 < length && line[i + 1] == '"') {
+                            value[size++] = '"';
+                            i += 2;
+                            continue;
+                        }
+                        i++;
+                        break;
+                    }
+                    value[size++] = line[i++];
+                }
+                fields.add(new String(value, 0, size, StandardCharsets.UTF_8));
+                while (i < length && line[i] != ',') {
+                    i++;
+                }
+            } else {
+                int start = i;
+                while (i < length && line[i] != ',') {
+                    i++;
+                }
+                fields.add(new String(line, start, i - start, StandardCharsets.UTF_8).trim());
+            }
+            if (i >= length) {
+                return;
+            }
+            i++;
+        }
+    }
+
+    private static int trimLineEnd(byte[] line, int from, int to) {
+        while (to > from && (line[to - 1] == '\r' || line[to - 1] == '\n')) {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * Находит начало строки, следующей за позицией.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,588 @@
+package com.parkingManagement.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс регистрационных номеров для нечёткого поиска с учётом ошибок распознавания камер.
+ * Номер нормализуется: кириллические буквы заменяются латинскими двойниками, а символы,
+ * которые камеры путают (O/Q/D и 0, I/L и 1, Z и 2, S и 5, G и 6, B и 8), приводятся к одному
+ * представителю, поэтому типичные ошибки распознавания дают точное совпадение.
+ * Остальные ошибки ищутся по расстоянию Левенштейна через разбиение на сегменты (принцип Дирихле):
+ * если номер разбит на k + 1 частей и отличается от запроса не более чем на k правок, хотя бы одна
+ * часть входит в запрос без изменений со сдвигом не больше k. Для k = 1 и k = 2 хранятся свои
+ * разбиения, кандидаты берутся точным поиском частей по хешу и проверяются расстоянием
+ * с ограниченной полосой.
+ * Индекс перестраивается без очистки ({@link #beginRebuild}, {@link #load}, {@link #endRebuild}):
+ * поиск во время перестройки видит прежние номера, а изменения через {@link #put} и {@link #remove}
+ * не затираются прочитанными раньше них номерами.
+ */
+public class PlateIndex {
+    private static final int MAX_DISTANCE = 2;
+    private static final int OTHER = 37;
+    private static final int PACKED_CHARS = 10;
+    private static final long UNPACKED = -1;
+    private static final char[] FOLD = new char[128];
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            FOLD[c] = Character.isLetterOrDigit(c) ? Character.toUpperCase(c) : 0;
+        }
+        String confusable = "O0Q0D0I1L1Z2S5G6B8";
+        for (int i = 0; i < confusable.length(); i += 2) {
+            FOLD[confusable.charAt(i)] = confusable.charAt(i + 1);
+            FOLD[Character.toLowerCase(confusable.charAt(i))] = confusable.charAt(i + 1);
+        }
+    }
+
+    /**
+     * Найденный номер.
+
+     * @param vehicleId       идентификатор автомобиля
+     * @param normalizedPlate нормализованный номер
+     * @param distance        расстояние Левенштейна между нормализованными номерами
+     */
+    public record Match(long vehicleId, String normalizedPlate, int distance) {
+    }
+
+    /**
+     * Рабочие массивы одного потока: отметки просмотренных кандидатов и строки расстояния.
+     */
+    private static final class Scratch {
+        int[] stamps = new int[0];
+        int epoch;
+        int[] previous = new int[32];
+        int[] current = new int[32];
+        long[] peq = new long[OTHER + 1];
+    }
+
+    /**
+     * Список номеров с одной частью. Маски символов и упакованные номера лежат рядом с номерами
+     * слотов, поэтому кандидаты проверяются последовательным проходом без обращений к данным номеров.
+     */
+    private static final class Posting {
+        int size;
+        int[] slots = new int[2];
+        long[] signatures = new long[2];
+        long[] packed = new long[2];
+
+        void add(int slot, long signature, long packedKey) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+                signatures = Arrays.copyOf(signatures, size * 2);
+                packed = Arrays.copyOf(packed, size * 2);
+            }
+            slots[size] = slot;
+            signatures[size] = signature;
+            packed[size++] = packedKey;
+        }
+
+        void remove(int slot) {
+            for (int j = 0; j < size; j++) {
+                if (slots[j] == slot) {
+                    size--;
+                    slots[j] = slots[size];
+                    signatures[j] = signatures[size];
+                    packed[j] = packed[size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final Map<Long, Posting> postings = new HashMap<>();
+    private byte[][] keys = new byte[1024][];
+    private long[] owners = new long[1024];
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private int slotCount;
+    private Set<Long> rebuildTouched;
+    private Set<Long> rebuildLoaded;
+
+    /**
+     * Нормализует номер для сравнения.
+
+     * @param plate регистрационный номер
+     * @return номер без разделителей, в верхнем регистре, со свёрнутыми похожими символами
+     */
+    public static String normalize(String plate) {
+        StringBuilder result = new StringBuilder(plate.length());
+        for (int i = 0; i < plate.length(); i++) {
+            char c = foldCyrillic(plate.charAt(i));
+            if (c < 128) {
+                if (FOLD[c] != 0) {
+                    result.append(FOLD[c]);
+                }
+            } else if (Character.isLetterOrDigit(c)) {
+                result.append(Character.toUpperCase(c));
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Добавляет номер автомобиля или заменяет прежний номер этого автомобиля.
+
+     * @param vehicleId идентификатор автомобиля
+     * @param plate     регистрационный номер
+     */
+    public void put(long vehicleId, String plate) {
+        byte[] key = encode(normalize(plate));
+        lock.writeLock().lock();
+        try {
+            if (rebuildTouched != null) {
+                rebuildTouched.add(vehicleId);
+            }
+            store(vehicleId, key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет номер автомобиля из индекса.
+
+     * @param vehicleId идентификатор автомобиля
+     * @return true, если номер был в индексе
+     */
+    public boolean remove(long vehicleId) {
+        lock.writeLock().lock();
+        try {
+            if (rebuildTouched != null) {
+                rebuildTouched.add(vehicleId);
+            }
+            Integer slot = slots.remove(vehicleId);
+            if (slot == null) {
+                return false;
+            }
+            release(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет все номера.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            postings.clear();
+            keys = new byte[1024][];
+            owners = new long[1024];
+            freeCount = 0;
+            slotCount = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Начинает перестройку индекса. До {@link #endRebuild} номера из базы данных добавляются
+     * через {@link #load}, прежние номера остаются доступны поиску.
+
+     * @throws IllegalStateException если перестройка уже идёт
+     */
+    public void beginRebuild() {
+        lock.writeLock().lock();
+        try {
+            if (rebuildTouched != null) {
+                throw new IllegalStateException("Перестройка индекса номеров уже идёт");
+            }
+            rebuildTouched = new HashSet<>();
+            rebuildLoaded = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Добавляет номер, прочитанный при перестройке. Номер автомобиля, который с начала перестройки
+     * изменён или удалён через {@link #put} или {@link #remove}, не меняется: прочитанный номер
+     * может быть старее.
+
+     * @param vehicleId идентификатор автомобиля
+     * @param plate     регистрационный номер
+     * @throws IllegalStateException если перестройка не начата
+     */
+    public void load(long vehicleId, String plate) {
+        byte[] key = encode(normalize(plate));
+        lock.writeLock().lock();
+        try {
+            if (rebuildTouched == null) {
+                throw new IllegalStateException("Перестройка индекса номеров не начата");
+            }
+            rebuildLoaded.add(vehicleId);
+            if (!rebuildTouched.contains(vehicleId)) {
+                store(vehicleId, key);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Завершает перестройку. После полного прочтения базы данных удаляются номера, которые
+     * не были прочитаны и не менялись за время перестройки; после прерванного чтения индекс
+     * остаётся как есть.
+
+     * @param complete true, если прочитаны все автомобили
+     * @return число удалённых номеров
+     */
+    public int endRebuild(boolean complete) {
+        lock.writeLock().lock();
+        try {
+            int removed = 0;
+            if (complete && rebuildTouched != null) {
+                Iterator<Map.Entry<Long, Integer>> iterator = slots.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Long, Integer> entry = iterator.next();
+                    if (!rebuildLoaded.contains(entry.getKey()) && !rebuildTouched.contains(entry.getKey())) {
+                        iterator.remove();
+                        release(entry.getValue());
+                        removed++;
+                    }
+                }
+            }
+            rebuildTouched = null;
+            rebuildLoaded = null;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет номера на расстоянии не больше maxDistance от нормализованного запроса.
+
+     * @param plate       распознанный номер
+     * @param maxDistance максимальное расстояние Левенштейна от 0 до 2
+     * @param limit       максимальное число результатов
+     * @return совпадения по возрастанию расстояния, затем номера
+     * @throws IllegalArgumentException при расстоянии вне допустимого диапазона
+     */
+    public List<Match> find(String plate, int maxDistance, int limit) {
+        if (maxDistance < 0 || maxDistance > MAX_DISTANCE) {
+            throw new IllegalArgumentException("Допустимое число ошибок должно быть от 0 до " + MAX_DISTANCE);
+        }
+        byte[] query = encode(normalize(plate));
+        long querySignature = signature(query);
+        int k = Math.max(1, maxDistance);
+        List<Match> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            Scratch work = scratch.get();
+            if (work.stamps.length < slotCount || work.epoch == Integer.MAX_VALUE) {
+                work.stamps = new int[keys.length];
+                work.epoch = 0;
+            }
+            int epoch = ++work.epoch;
+            prepare(query, work);
+            for (int length = Math.max(1, query.length - maxDistance); length <= query.length + maxDistance; length++) {
+                if (length <= k) {
+                    // Слишком короткие номера не делятся на k + 1 частей: проверяются все номера этой длины
+                    for (int slot = 0; slot < slotCount; slot++) {
+                        if (keys[slot] != null && keys[slot].length == length && work.stamps[slot] != epoch) {
+                            work.stamps[slot] = epoch;
+                            check(query, slot, maxDistance, work, matches);
+                        }
+                    }
+                    continue;
+                }
+                for (int part = 0; part <= k; part++) {
+                    int start = partStart(length, k, part);
+                    int partLength = partStart(length, k, part + 1) - start;
+                    int from = start - maxDistance;
+                    int to = start + maxDistance;
+                    if (maxDistance == k) {
+                        // Окно сдвигов с учётом множественных совпадений (PassJoin): части левее
+                        // могут быть сдвинуты не более чем на свой номер, правее — с учётом разницы длин
+                        int delta = query.length - length;
+                        from = Math.max(start - part, start + delta - (k - part));
+                        to = Math.min(start + part, start + delta + (k - part));
+                    }
+                    from = Math.max(0, from);
+                    to = Math.min(query.length - partLength, to);
+                    for (int position = from; position <= to; position++) {
+                        long segment = segmentKey(query, position, partLength, length, k, part);
+                        Posting posting = postings.get(segment);
+                        if (posting == null) {
+                            continue;
+                        }
+                        for (int j = 0; j < posting.size; j++) {
+                            // Каждая правка меняет присутствие не более двух символов, поэтому сравнение
+                            // наборов символов отсекает большинство кандидатов без подсчёта расстояния
+                            if (Long.bitCount(posting.signatures[j] ^ querySignature) > 2 * maxDistance) {
+                                continue;
+                            }
+                            long packedKey = posting.packed[j];
+                            int distance = packedKey == UNPACKED || query.length > Long.SIZE
+                                    ? distance(query, keys[posting.slots[j]], maxDistance, work)
+                                    : distance(query.length, packedKey, work);
+                            int slot = posting.slots[j];
+                            if (distance <= maxDistance && work.stamps[slot] != epoch) {
+                                work.stamps[slot] = epoch;
+                                matches.add(new Match(owners[slot], decode(keys[slot]), distance));
+                            }
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        matches.sort(Comparator.comparingInt(Match::distance).thenComparing(Match::normalizedPlate));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void check(byte[] query, int slot, int maxDistance, Scratch work, List<Match> matches) {
+        byte[] key = keys[slot];
+        if (key == null) {
+            return;
+        }
+        long packedKey = pack(key);
+        int distance = packedKey == UNPACKED || query.length > Long.SIZE ? distance(query, key, maxDistance, work)
+                : distance(query.length, packedKey, work);
+        if (distance <= maxDistance) {
+            matches.add(new Match(owners[slot], decode(key), distance));
+        }
+    }
+
+    private void store(long vehicleId, byte[] key) {
+        Integer existing = slots.remove(vehicleId);
+        if (existing != null) {
+            release(existing);
+        }
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : allocate();
+        keys[slot] = key;
+        owners[slot] = vehicleId;
+        slots.put(vehicleId, slot);
+        long signature = signature(key);
+        long packedKey = pack(key);
+        for (long segment : segments(key)) {
+            postings.computeIfAbsent(segment, unused -> new Posting()).add(slot, signature, packedKey);
+        }
+    }
+
+    private int allocate() {
+        if (slotCount == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            owners = Arrays.copyOf(owners, owners.length * 2);
+        }
+        return slotCount++;
+    }
+
+    private void release(int slot) {
+        for (long segment : segments(keys[slot])) {
+            Posting posting = postings.get(segment);
+            posting.remove(slot);
+            if (posting.size == 0) {
+                postings.remove(segment);
+            }
+        }
+        keys[slot] = null;
+        owners[slot] = 0;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    /**
+     * Ключи частей номера для разбиений на 2 и 3 части. Номера не длиннее k частей не индексируются
+     * для этого k и проверяются при поиске перебором.
+     */
+    private static long[] segments(byte[] key) {
+        long[] result = new long[(key.length > 1 ? 2 : 0) + (key.length > 2 ? 3 : 0)];
+        int index = 0;
+        for (int k = 1; k <= MAX_DISTANCE; k++) {
+            if (key.length <= k) {
+                continue;
+            }
+            for (int part = 0; part <= k; part++) {
+                int start = partStart(key.length, k, part);
+                result[index++] = segmentKey(key, start, partStart(key.length, k, part + 1) - start, key.length, k, part);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Начало части номера длины length при разбиении на k + 1 частей почти равной длины.
+     */
+    private static int partStart(int length, int k, int part) {
+        return part * length / (k + 1);
+    }
+
+    /**
+     * Хеш части вместе с длиной номера, числом частей и номером части.
+     * Совпадение хешей разных частей даёт лишнего кандидата, который отсеивается проверкой расстояния.
+     */
+    private static long segmentKey(byte[] codes, int start, int partLength, int length, int k, int part) {
+        long hash = ((long) length << 8 | (long) k << 4 | part) * 0x9E3779B97F4A7C15L;
+        for (int i = start; i < start + partLength; i++) {
+            hash = (hash ^ codes[i]) * 0x100000001B3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Упаковывает номер до 10 символов в число: длина в старших 4 битах, символы по 6 бит.
+
+     * @return упакованный номер или UNPACKED для более длинного номера
+     */
+    private static long pack(byte[] key) {
+        if (key.length > PACKED_CHARS) {
+            return UNPACKED;
+        }
+        long packedKey = (long) key.length << 60;
+        for (int i = 0; i < key.length; i++) {
+            packedKey |= (long) key[i] << (6 * i);
+        }
+        return packedKey;
+    }
+
+    /**
+     * Строит битовые маски позиций символов запроса для битово-параллельного расстояния.
+     */
+    private static void prepare(byte[] query, Scratch work) {
+        Arrays.fill(work.peq, 0);
+        for (int i = 0; i < Math.min(query.length, Long.SIZE); i++) {
+            work.peq[query[i]] |= 1L << i;
+        }
+    }
+
+    /**
+     * Расстояние Левенштейна между запросом длины не больше 64 и упакованным номером
+     * по битово-параллельному алгоритму Майерса в варианте Хюрё: один проход по символам номера
+     * с постоянным числом операций над словом на символ.
+     */
+    private static int distance(int queryLength, long packedKey, Scratch work) {
+        if (queryLength == 0) {
+            return (int) (packedKey >>> 60);
+        }
+        long last = 1L << (queryLength - 1);
+        long pv = queryLength == Long.SIZE ? -1L : (1L << queryLength) - 1;
+        long mv = 0;
+        int score = queryLength;
+        int length = (int) (packedKey >>> 60);
+        for (int i = 0; i < length; i++) {
+            long eq = work.peq[(int) (packedKey >>> (6 * i)) & 0x3F];
+            long xv = eq | mv;
+            long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if ((ph & last) != 0) {
+                score++;
+            } else if ((mh & last) != 0) {
+                score--;
+            }
+            ph = (ph << 1) | 1;
+            mh <<= 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
+        }
+        return score;
+    }
+
+    /**
+     * Расстояние Левенштейна с полосой ширины 2k + 1 и досрочным выходом.
+
+     * @return расстояние или maxDistance + 1, если оно больше maxDistance
+     */
+    private static int distance(byte[] a, byte[] b, int maxDistance, Scratch work) {
+        int limit = maxDistance + 1;
+        if (Math.abs(a.length - b.length) > maxDistance) {
+            return limit;
+        }
+        if (work.previous.length <= b.length) {
+            work.previous = new int[b.length + 1];
+            work.current = new int[b.length + 1];
+        }
+        int[] previous = work.previous;
+        int[] current = work.current;
+        for (int j = 0; j <= b.length; j++) {
+            previous[j] = Math.min(j, limit);
+        }
+        for (int i = 1; i <= a.length; i++) {
+            int from = Math.max(1, i - maxDistance);
+            int to = Math.min(b.length, i + maxDistance);
+            current[from - 1] = from == 1 ? Math.min(i, limit) : limit;
+            int rowMin = current[from - 1];
+            for (int j = from; j <= to; j++) {
+                int cost = a[i - 1] == b[j - 1] ? 0 : 1;
+                // Ячейка строки выше за пределами её полосы считается недостижимой
+                int up = j <= i - 1 + maxDistance ? previous[j] : limit;
+                int value = Math.min(previous[j - 1] + cost, Math.min(up, current[j - 1]) + 1);
+                current[j] = Math.min(value, limit);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return limit;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length];
+    }
+
+    /**
+     * Набор символов номера в виде битовой маски.
+     */
+    private static long signature(byte[] codes) {
+        long mask = 0;
+        for (byte code : codes) {
+            mask |= 1L << code;
+        }
+        return mask;
+    }
+
+    private static byte[] encode(String normalized) {
+        byte[] codes = new byte[normalized.length()];
+        for (int i = 0; i < codes.length; i++) {
+            char c = normalized.charAt(i);
+            codes[i] = (byte) (c >= '0' && c <= '9' ? c - '0' + 1 : c >= 'A' && c <= 'Z' ? c - 'A' + 11 : OTHER);
+        }
+        return codes;
+    }
+
+    private static String decode(byte[] codes) {
+        char[] chars = new char[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            int code = codes[i];
+            chars[i] = code <= 10 ? (char) ('0' + code - 1) : code < OTHER ? (char) ('A' + code - 11) : '?';
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Заменяет кириллические буквы российских номеров латинскими двойниками.
+     */
+    private static char foldCyrillic(char c) {
+        int index = "АВЕКМНОРСТУХавекмнорстух".indexOf(c);
+        return index < 0 ? c : "ABEKMHOPCTYXABEKMHOPCTYX".charAt(index);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,190 @@
+package com.parkingManagement.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Алгоритм Space-Saving для поиска самых частых целочисленных ключей в фиксированной памяти.
+ * Отслеживается не более capacity ключей; при переполнении вытесняется ключ с минимальным
+ * счётчиком, а новый ключ наследует его счётчик как погрешность. Любой ключ с частотой
+ * больше total / capacity гарантированно присутствует в сводке.
+ * Минимальный счётчик находится в индексированной куче на примитивных массивах.
+ */
+public class SpaceSaving {
+    private final int capacity;
+    private final long[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<Long, Integer> positions;
+    private int size;
+    private long totalCount;
+
+    /**
+     * Элемент сводки.
+
+     * @param key   ключ
+     * @param count оценка частоты сверху
+     * @param error максимальное завышение оценки
+     */
+    public record Entry(long key, long count, long error) {
+    }
+
+    /**
+     * Создаёт пустую сводку.
+
+     * @param capacity максимальное число отслеживаемых ключей
+     * @throws IllegalArgumentException при неположительной ёмкости
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость должна быть положительной");
+        }
+        this.capacity = capacity;
+        this.keys = new long[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Учитывает вхождения ключа.
+
+     * @param key   ключ
+     * @param count число вхождений
+     */
+    public void offer(long key, long count) {
+        totalCount += count;
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] += count;
+            siftDown(position);
+            return;
+        }
+        if (size < capacity) {
+            keys[size] = key;
+            counts[size] = count;
+            errors[size] = 0;
+            positions.put(key, size);
+            siftUp(size++);
+            return;
+        }
+        long evicted = counts[0];
+        positions.remove(keys[0]);
+        keys[0] = key;
+        counts[0] = evicted + count;
+        errors[0] = evicted;
+        positions.put(key, 0);
+        siftDown(0);
+    }
+
+    /**
+     * Возвращает самые частые ключи по убыванию оценки.
+
+     * @param k максимальное число ключей
+     * @return список элементов
+     */
+    public List<Entry> top(int k) {
+        List<Entry> entries = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            entries.add(new Entry(keys[i], counts[i], errors[i]));
+        }
+        entries.sort(Comparator.comparingLong(Entry::count).reversed().thenComparingLong(Entry::key));
+        return entries.size() > k ? new ArrayList<>(entries.subList(0, k)) : entries;
+    }
+
+    /**
+     * Добавляет в эту сводку элементы другой сводки. Ключи, отсутствующие в заполненной
+     * сводке, могли иметь в ней частоту до её минимального счётчика, который учитывается как погрешность.
+
+     * @param other сводка для объединения
+     */
+    public void merge(SpaceSaving other) {
+        long thisMin = minCount();
+        long otherMin = other.minCount();
+        List<Entry> combined = new ArrayList<>(size + other.size);
+        for (int i = 0; i < size; i++) {
+            Integer position = other.positions.get(keys[i]);
+            combined.add(position == null
+                    ? new Entry(keys[i], counts[i] + otherMin, errors[i] + otherMin)
+                    : new Entry(keys[i], counts[i] + other.counts[position], errors[i] + other.errors[position]));
+        }
+        for (int i = 0; i < other.size; i++) {
+            if (!positions.containsKey(other.keys[i])) {
+                combined.add(new Entry(other.keys[i], other.counts[i] + thisMin, other.errors[i] + thisMin));
+            }
+        }
+        combined.sort(Comparator.comparingLong(Entry::count).reversed());
+        positions.clear();
+        size = Math.min(capacity, combined.size());
+        for (int i = 0; i < size; i++) {
+            Entry entry = combined.get(i);
+            keys[i] = entry.key();
+            counts[i] = entry.count();
+            errors[i] = entry.error();
+            positions.put(entry.key(), i);
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+        totalCount += other.totalCount;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    private long minCount() {
+        return size == capacity ? counts[0] : 0;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (counts[parent] <= counts[i]) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && counts[left] < counts[smallest]) {
+                smallest = left;
+            }
+            if (right < size && counts[right] < counts[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        long key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+        long count = counts[a];
+        counts[a] = counts[b];
+        counts[b] = count;
+        long error = errors[a];
+        errors[a] = errors[b];
+        errors[b] = error;
+        positions.put(keys[a], a);
+        positions.put(keys[b], b);
+    }
+}
\ No newline at end of file
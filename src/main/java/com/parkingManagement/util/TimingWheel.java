@@ -0,0 +1,275 @@
+package com.parkingManagement.util;
+
+import java.util.Arrays;
+
+/**
+ * Иерархическое колесо таймеров с ключами типа long.
+ * Шесть уровней по 64 слота покрывают 64^6 тиков; таймер попадает на уровень,
+ * соответствующий удалённости срока, и при повороте старшего уровня переносится на младшие.
+ * Вставка и отмена выполняются за O(1): таймеры хранятся в двусвязных списках слотов
+ * на примитивных массивах, а поиск по ключу идёт через открытую хеш-таблицу,
+ * поэтому таймер занимает порядка 40 байт без отдельных объектов.
+ * Класс не потокобезопасен.
+ */
+public class TimingWheel {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 6;
+    private static final int NONE = -1;
+
+    private final int[] heads = new int[LEVELS * SLOTS];
+    private long[] keys;
+    private long[] expiries;
+    private int[] next;
+    private int[] prev;
+    private int[] slots;
+    private int free = NONE;
+    private int allocated;
+    private int size;
+    private long currentTick;
+
+    private long[] indexKeys;
+    private int[] indexNodes;
+    private int indexMask;
+
+    /**
+     * Обработчик сработавших таймеров.
+     */
+    @FunctionalInterface
+    public interface ExpiryHandler {
+        /**
+         * Вызывается для каждого сработавшего таймера.
+
+         * @param key        ключ таймера
+         * @param expiryTick тик срабатывания
+         */
+        void expired(long key, long expiryTick);
+    }
+
+    /**
+     * Создаёт колесо с начальным тиком.
+
+     * @param startTick   текущий тик
+     * @param initialSize начальная ёмкость
+     */
+    public TimingWheel(long startTick, int initialSize) {
+        int capacity = Math.max(16, initialSize);
+        this.currentTick = startTick;
+        Arrays.fill(heads, NONE);
+        keys = new long[capacity];
+        expiries = new long[capacity];
+        next = new int[capacity];
+        prev = new int[capacity];
+        slots = new int[capacity];
+        int indexCapacity = Integer.highestOneBit(capacity * 2 - 1) * 2;
+        indexKeys = new long[indexCapacity];
+        indexNodes = new int[indexCapacity];
+        Arrays.fill(indexNodes, NONE);
+        indexMask = indexCapacity - 1;
+    }
+
+    /**
+     * Ставит таймер или переносит существующий таймер с тем же ключом.
+     * Срок в прошлом срабатывает при следующем продвижении колеса.
+
+     * @param key        ключ таймера
+     * @param expiryTick тик срабатывания
+     */
+    public void schedule(long key, long expiryTick) {
+        cancel(key);
+        int node = allocate();
+        keys[node] = key;
+        expiries[node] = expiryTick;
+        indexPut(key, node);
+        place(node, currentTick + 1);
+        size++;
+    }
+
+    /**
+     * Отменяет таймер.
+
+     * @param key ключ таймера
+     * @return true, если таймер существовал
+     */
+    public boolean cancel(long key) {
+        int node = indexRemove(key);
+        if (node == NONE) {
+            return false;
+        }
+        unlink(node);
+        release(node);
+        size--;
+        return true;
+    }
+
+    /**
+     * Продвигает колесо до указанного тика и передаёт обработчику сработавшие таймеры.
+
+     * @param tick    новый текущий тик
+     * @param handler обработчик сработавших таймеров
+     * @return число сработавших таймеров
+     */
+    public int advanceTo(long tick, ExpiryHandler handler) {
+        int fired = 0;
+        while (currentTick < tick) {
+            if (size == 0) {
+                currentTick = tick;
+                break;
+            }
+            currentTick++;
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level * SLOTS + (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1)));
+                }
+            }
+            int slot = (int) (currentTick & (SLOTS - 1));
+            int node = heads[slot];
+            while (node != NONE) {
+                int following = next[node];
+                if (expiries[node] <= currentTick) {
+                    long key = keys[node];
+                    long expiry = expiries[node];
+                    indexRemove(key);
+                    unlink(node);
+                    release(node);
+                    size--;
+                    fired++;
+                    handler.expired(key, expiry);
+                }
+                node = following;
+            }
+        }
+        return fired;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    private void cascade(int slot) {
+        int node = heads[slot];
+        heads[slot] = NONE;
+        while (node != NONE) {
+            int following = next[node];
+            place(node, currentTick);
+            node = following;
+        }
+    }
+
+    private void place(int node, long earliestTick) {
+        long expiry = Math.max(expiries[node], earliestTick);
+        long delta = expiry - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        if (level == LEVELS - 1 && delta >= 1L << (SLOT_BITS * LEVELS)) {
+            expiry = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        int slot = level * SLOTS + (int) ((expiry >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        slots[node] = slot;
+        prev[node] = NONE;
+        next[node] = heads[slot];
+        if (heads[slot] != NONE) {
+            prev[heads[slot]] = node;
+        }
+        heads[slot] = node;
+    }
+
+    private void unlink(int node) {
+        if (prev[node] != NONE) {
+            next[prev[node]] = next[node];
+        } else {
+            heads[slots[node]] = next[node];
+        }
+        if (next[node] != NONE) {
+            prev[next[node]] = prev[node];
+        }
+    }
+
+    private int allocate() {
+        if (free != NONE) {
+            int node = free;
+            free = next[node];
+            return node;
+        }
+        if (allocated == keys.length) {
+            int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            expiries = Arrays.copyOf(expiries, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+            slots = Arrays.copyOf(slots, capacity);
+        }
+        return allocated++;
+    }
+
+    private void release(int node) {
+        next[node] = free;
+        free = node;
+    }
+
+    private void indexPut(long key, int node) {
+        if ((size + 1) * 2 > indexNodes.length) {
+            resizeIndex();
+        }
+        int i = hash(key) & indexMask;
+        while (indexNodes[i] != NONE) {
+            i = (i + 1) & indexMask;
+        }
+        indexKeys[i] = key;
+        indexNodes[i] = node;
+    }
+
+    private int indexRemove(long key) {
+        int i = hash(key) & indexMask;
+        while (indexNodes[i] != NONE) {
+            if (indexKeys[i] == key) {
+                int node = indexNodes[i];
+                int gap = i;
+                int j = (i + 1) & indexMask;
+                while (indexNodes[j] != NONE) {
+                    int home = hash(indexKeys[j]) & indexMask;
+                    if (((j - home) & indexMask) >= ((j - gap) & indexMask)) {
+                        indexKeys[gap] = indexKeys[j];
+                        indexNodes[gap] = indexNodes[j];
+                        gap = j;
+                    }
+                    j = (j + 1) & indexMask;
+                }
+                indexNodes[gap] = NONE;
+                return node;
+            }
+            i = (i + 1) & indexMask;
+        }
+        return NONE;
+    }
+
+    private void resizeIndex() {
+        long[] oldKeys = indexKeys;
+        int[] oldNodes = indexNodes;
+        indexKeys = new long[oldKeys.length * 2];
+        indexNodes = new int[oldNodes.length * 2];
+        Arrays.fill(indexNodes, NONE);
+        indexMask = indexNodes.length - 1;
+        for (int i = 0; i < oldNodes.length; i++) {
+            if (oldNodes[i] != NONE) {
+                int j = hash(oldKeys[i]) & indexMask;
+                while (indexNodes[j] != NONE) {
+                    j = (j + 1) & indexMask;
+                }
+                indexKeys[j] = oldKeys[i];
+                indexNodes[j] = oldNodes[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,409 @@
+package com.parkingManagement.util;
+
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Ограниченный по размеру кэш с политикой W-TinyLFU и временем жизни записей.
+ * Новые ключи попадают в окно LRU (1% размера); вытесненный из окна кандидат допускается
+ * в основную область, только если по оценке частотного скетча он встречался чаще, чем жертва
+ * из испытательного сегмента. Основная область — сегментированный LRU: повторное обращение
+ * переводит запись из испытательного сегмента в защищённый (80% основной области).
+ * Скетч хранит 4-битные счётчики по 16 в одном long (8 байт на запись кэша); после 10 обращений
+ * на запись все счётчики делятся пополам, чтобы кэш следовал за недавней популярностью.
+ *
+ * <p>Чтение идёт без блокировки по ConcurrentHashMap; обновление порядка и частот после попадания
+ * выполняется, только если блокировка политики свободна, иначе пропускается, как потерянное событие
+ * буфера чтения. Загрузка промаха выполняется вне блокировки; её результат не сохраняется, если
+ * за время загрузки кэш инвалидировали, поэтому устаревшее значение не переживает инвалидацию.
+ *
+ * @param <K> тип ключа
+ * @param <V> тип значения
+ */
+public class TinyLfuCache<K, V> {
+    private static final int SAMPLE_FACTOR = 10;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private final int maximumSize;
+    private final int windowMax;
+    private final int protectedMax;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final Map<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock policyLock = new ReentrantLock();
+    private final LinkedHashSet<Node<K, V>> window = new LinkedHashSet<>();
+    private final LinkedHashSet<Node<K, V>> probation = new LinkedHashSet<>();
+    private final LinkedHashSet<Node<K, V>> protectedSegment = new LinkedHashSet<>();
+    private final long[] sketch;
+    private final long sampleSize;
+    private long samples;
+    private volatile long invalidations;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LogHistogram loadNanos = new LogHistogram();
+    private long loads;
+    private long totalLoadNanos;
+
+    /**
+     * Показатели кэша.
+
+     * @param hits             число попаданий
+     * @param misses           число промахов
+     * @param loads            число загрузок при промахах
+     * @param evictions        число вытесненных записей
+     * @param size             текущее число записей
+     * @param averageLoadNanos среднее время загрузки в наносекундах
+     * @param p99LoadNanos     99-й перцентиль времени загрузки в наносекундах
+     */
+    public record Stats(long hits, long misses, long loads, long evictions, int size,
+                        long averageLoadNanos, long p99LoadNanos) {
+
+        /**
+         * Возвращает долю попаданий среди обращений.
+
+         * @return доля попаданий или 0, если обращений не было
+         */
+        public double hitRatio() {
+            long requests = hits + misses;
+            return requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final long writeTime;
+
+        Node(K key, V value, long writeTime) {
+            this.key = key;
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+    }
+
+    /**
+     * Создаёт кэш по системным часам.
+
+     * @param maximumSize максимальное число записей
+     * @param ttl         время жизни записи после загрузки
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public TinyLfuCache(int maximumSize, Duration ttl) {
+        this(maximumSize, ttl, System::nanoTime);
+    }
+
+    /**
+     * Создаёт кэш с заданным источником времени.
+
+     * @param maximumSize максимальное число записей
+     * @param ttl         время жизни записи после загрузки
+     * @param ticker      источник времени в наносекундах
+     * @throws IllegalArgumentException при некорректных параметрах
+     */
+    public TinyLfuCache(int maximumSize, Duration ttl, LongSupplier ticker) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным");
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("Время жизни записи должно быть положительным");
+        }
+        this.maximumSize = maximumSize;
+        this.windowMax = Math.max(1, maximumSize / 100);
+        this.protectedMax = (maximumSize - windowMax) * 8 / 10;
+        this.ttlNanos = ttl.toNanos();
+        this.ticker = ticker;
+        this.sketch = new long[Math.max(16, Integer.highestOneBit(Math.max(1, maximumSize - 1)) << 1)];
+        this.sampleSize = (long) SAMPLE_FACTOR * maximumSize;
+    }
+
+    /**
+     * Возвращает значение ключа, при промахе загружая его. Значение null от загрузчика
+     * не кэшируется.
+
+     * @param key    ключ
+     * @param loader загрузка значения при промахе
+     * @return значение или null, если загрузчик его не нашёл
+     */
+    public V get(K key, Function<K, V> loader) {
+        Node<K, V> node = data.get(key);
+        long now = ticker.getAsLong();
+        if (node != null) {
+            if (now - node.writeTime < ttlNanos) {
+                hits.increment();
+                afterRead(node);
+                return node.value;
+            }
+            expire(node);
+        }
+        misses.increment();
+        long generation = invalidations;
+        V value = loader.apply(key);
+        long loaded = ticker.getAsLong();
+        policyLock.lock();
+        try {
+            loads++;
+            totalLoadNanos += loaded - now;
+            loadNanos.record(Math.max(0, loaded - now));
+            recordAccess(key);
+            if (value != null && generation == invalidations) {
+                put(key, value, loaded);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+        return value;
+    }
+
+    /**
+     * Возвращает значение ключа без загрузки и без учёта в показателях.
+
+     * @param key ключ
+     * @return значение или null, если записи нет или она устарела
+     */
+    public V getIfPresent(K key) {
+        Node<K, V> node = data.get(key);
+        return node != null && ticker.getAsLong() - node.writeTime < ttlNanos ? node.value : null;
+    }
+
+    /**
+     * Заранее заполняет кэш значениями, прочитанными пакетом, например при прогреве после запуска.
+     * Каждое значение учитывается как одно обращение к ключу. Если после чтения значений кэш
+     * инвалидировали, ничего не сохраняется, чтобы не вернуть в кэш устаревшие данные.
+
+     * @param entries           значения по ключам в порядке убывания важности
+     * @param invalidationCount значение {@link #getInvalidationCount()} до чтения значений
+     * @return число сохранённых записей
+     */
+    public int putAll(Map<K, V> entries, long invalidationCount) {
+        policyLock.lock();
+        try {
+            if (invalidationCount != invalidations) {
+                return 0;
+            }
+            long now = ticker.getAsLong();
+            for (Map.Entry<K, V> entry : entries.entrySet()) {
+                recordAccess(entry.getKey());
+                put(entry.getKey(), entry.getValue(), now);
+            }
+            return entries.size();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает число инвалидаций кэша; используется с {@link #putAll}.
+
+     * @return число инвалидаций
+     */
+    public long getInvalidationCount() {
+        return invalidations;
+    }
+
+    /**
+     * Удаляет запись ключа. Загрузки, начатые до вызова, свои значения не сохранят.
+
+     * @param key ключ
+     */
+    public void invalidate(K key) {
+        policyLock.lock();
+        try {
+            invalidations++;
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                remove(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет все записи, значения которых удовлетворяют условию.
+
+     * @param condition условие удаления
+     * @return число удалённых записей
+     */
+    public int invalidateIf(Predicate<V> condition) {
+        policyLock.lock();
+        try {
+            invalidations++;
+            int removed = 0;
+            for (Node<K, V> node : data.values()) {
+                if (condition.test(node.value)) {
+                    remove(node);
+                    removed++;
+                }
+            }
+            return removed;
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Удаляет все записи.
+     */
+    public void invalidateAll() {
+        policyLock.lock();
+        try {
+            invalidations++;
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    public int getMaximumSize() {
+        return maximumSize;
+    }
+
+    public Stats getStats() {
+        policyLock.lock();
+        try {
+            return new Stats(hits.sum(), misses.sum(), loads, evictions.sum(), data.size(),
+                    loads == 0 ? 0 : totalLoadNanos / loads, loadNanos.quantile(0.99));
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void afterRead(Node<K, V> node) {
+        if (!policyLock.tryLock()) {
+            return;
+        }
+        try {
+            recordAccess(node.key);
+            if (data.get(node.key) != node) {
+                return;
+            }
+            if (window.remove(node)) {
+                window.add(node);
+            } else if (probation.remove(node)) {
+                protectedSegment.add(node);
+                if (protectedSegment.size() > protectedMax) {
+                    Node<K, V> demoted = protectedSegment.iterator().next();
+                    protectedSegment.remove(demoted);
+                    probation.add(demoted);
+                }
+            } else if (protectedSegment.remove(node)) {
+                protectedSegment.add(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    private void expire(Node<K, V> node) {
+        policyLock.lock();
+        try {
+            if (data.get(node.key) == node) {
+                remove(node);
+            }
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    /**
+     * Добавляет запись в окно и, если окно переполнено, проводит его старейшую запись через фильтр допуска.
+     * Вызывается под блокировкой политики.
+     */
+    private void put(K key, V value, long now) {
+        Node<K, V> previous = data.get(key);
+        if (previous != null) {
+            remove(previous);
+        }
+        Node<K, V> node = new Node<>(key, value, now);
+        data.put(key, node);
+        window.add(node);
+        if (window.size() <= windowMax) {
+            return;
+        }
+        Node<K, V> candidate = window.iterator().next();
+        window.remove(candidate);
+        if (probation.size() + protectedSegment.size() < maximumSize - windowMax) {
+            probation.add(candidate);
+            return;
+        }
+        LinkedHashSet<Node<K, V>> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        Node<K, V> victim = victimSegment.isEmpty() ? null : victimSegment.iterator().next();
+        if (victim != null && frequency(candidate.key) > frequency(victim.key)) {
+            remove(victim);
+            probation.add(candidate);
+        } else {
+            data.remove(candidate.key, candidate);
+        }
+        evictions.increment();
+    }
+
+    private void remove(Node<K, V> node) {
+        data.remove(node.key, node);
+        if (!window.remove(node) && !probation.remove(node)) {
+            protectedSegment.remove(node);
+        }
+    }
+
+    /**
+     * Увеличивает четыре счётчика ключа, не выходя за предел 15, и при накоплении выборки
+     * делит все счётчики пополам. Вызывается под блокировкой политики.
+     */
+    private void recordAccess(K key) {
+        long hash = spread(key);
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int counter = counterIndex(hash, row);
+            int index = counter >>> 4;
+            int shift = (counter & 15) << 2;
+            if (((sketch[index] >>> shift) & 0xF) != 0xF) {
+                sketch[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++samples >= sampleSize) {
+            for (int i = 0; i < sketch.length; i++) {
+                sketch[i] = (sketch[i] >>> 1) & RESET_MASK;
+            }
+            samples /= 2;
+        }
+    }
+
+    private int frequency(K key) {
+        long hash = spread(key);
+        int min = 0xF;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int counter = counterIndex(hash, row);
+            min = Math.min(min, (int) (sketch[counter >>> 4] >>> ((counter & 15) << 2)) & 0xF);
+        }
+        return min;
+    }
+
+    private int counterIndex(long hash, int row) {
+        long h = (hash + SEEDS[row]) * 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        return (int) h & ((sketch.length << 4) - 1);
+    }
+
+    private static long spread(Object key) {
+        long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,370 @@
+package com.parkingManagement.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал упреждающей записи в отображаемых в память файлах сегментов.
+ * Каждая запись хранит длину, контрольную сумму CRC32C, порядковый номер и данные;
+ * номера идут подряд без пропусков. Сегмент заранее выделяется целиком, при заполнении
+ * журнал переходит к новому сегменту, имя которого содержит номер первой записи.
+ * При открытии журнал дочитывает последний сегмент до первой повреждённой или недописанной
+ * записи и продолжает запись с этого места, поэтому оборванный хвост после сбоя отбрасывается.
+ * Политика синхронизации определяет, когда append считает запись надёжно сохранённой:
+ * ALWAYS сбрасывает на диск каждую запись, BATCH объединяет сброс одновременных записей
+ * (групповая фиксация), INTERVAL сбрасывает журнал фоновым потоком с заданным периодом.
+ */
+public class WriteAheadLog implements AutoCloseable {
+    private static final int HEADER_SIZE = 16;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".wal";
+
+    /**
+     * Политика сброса записей на диск.
+     */
+    public enum SyncPolicy {
+        ALWAYS,
+        BATCH,
+        INTERVAL
+    }
+
+    /**
+     * Запись журнала.
+
+     * @param sequence порядковый номер
+     * @param payload  данные записи
+     */
+    public record Entry(long sequence, byte[] payload) {
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final SyncPolicy policy;
+    private final Object syncLock = new Object();
+    private final CRC32C crc = new CRC32C();
+    private final List<Segment> segments = new ArrayList<>();
+    private Segment active;
+    private long lastSequence;
+    private volatile long durableSequence;
+    private volatile boolean closed;
+    private Thread syncer;
+
+    /**
+     * Сегмент журнала: файл, его отображение в память и номер первой записи.
+     */
+    private static final class Segment {
+        final Path path;
+        final long firstSequence;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        Segment(Path path, long firstSequence, int size) throws IOException {
+            this.path = path;
+            this.firstSequence = firstSequence;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    /**
+     * Открывает журнал в каталоге, создавая его при необходимости.
+
+     * @param directory   каталог сегментов
+     * @param segmentSize размер сегмента в байтах
+     * @param policy      политика синхронизации
+     * @param interval    период фонового сброса для политики INTERVAL, для остальных не используется
+     * @throws IllegalArgumentException при некорректных параметрах
+     * @throws UncheckedIOException     при ошибке открытия файлов
+     */
+    public WriteAheadLog(Path directory, int segmentSize, SyncPolicy policy, Duration interval) {
+        if (directory == null || policy == null) {
+            throw new IllegalArgumentException("Каталог журнала и политика синхронизации обязательны");
+        }
+        if (segmentSize < HEADER_SIZE * 2) {
+            throw new IllegalArgumentException("Размер сегмента слишком мал");
+        }
+        if (policy == SyncPolicy.INTERVAL && (interval == null || interval.isNegative() || interval.isZero())) {
+            throw new IllegalArgumentException("Период сброса журнала должен быть положительным");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.policy = policy;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path path : files.filter(WriteAheadLog::isSegment).sorted().toList()) {
+                    segments.add(new Segment(path, firstSequenceOf(path), segmentSize));
+                }
+            }
+            if (segments.isEmpty()) {
+                active = openSegment(1);
+                lastSequence = 0;
+            } else {
+                active = segments.get(segments.size() - 1);
+                lastSequence = active.firstSequence - 1;
+                active.buffer.position(scan(active, null, Long.MIN_VALUE));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка открытия журнала: " + e.getMessage(), e);
+        }
+        durableSequence = lastSequence;
+        if (policy == SyncPolicy.INTERVAL) {
+            long periodNanos = interval.toNanos();
+            syncer = new Thread(() -> {
+                while (!closed) {
+                    LockSupport.parkNanos(periodNanos);
+                    if (!closed) {
+                        sync();
+                    }
+                }
+            }, "wal-sync");
+            syncer.setDaemon(true);
+            syncer.start();
+        }
+    }
+
+    /**
+     * Дописывает запись в журнал. По возвращении запись сохранена согласно политике синхронизации.
+
+     * @param payload данные записи
+     * @return порядковый номер записи
+     * @throws IllegalArgumentException если запись пуста или не помещается в сегмент
+     * @throws IllegalStateException    если журнал закрыт
+     * @throws UncheckedIOException     при ошибке создания сегмента
+     */
+    public long append(byte[] payload) {
+        if (payload == null || payload.length == 0) {
+            // Нулевая длина в заголовке означает конец записей сегмента
+            throw new IllegalArgumentException("Запись журнала не может быть пустой");
+        }
+        if (HEADER_SIZE + payload.length > segmentSize) {
+            throw new IllegalArgumentException("Запись не помещается в сегмент журнала");
+        }
+        long sequence;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Журнал закрыт");
+            }
+            if (active.buffer.remaining() < HEADER_SIZE + payload.length) {
+                rotate();
+            }
+            sequence = ++lastSequence;
+            crc.reset();
+            crc.update(longBytes(sequence));
+            crc.update(payload);
+            MappedByteBuffer buffer = active.buffer;
+            int start = buffer.position();
+            buffer.position(start + 4);
+            buffer.putInt((int) crc.getValue());
+            buffer.putLong(sequence);
+            buffer.put(payload);
+            // Длина пишется последней: пока её нет, запись при чтении считается недописанной
+            buffer.putInt(start, payload.length);
+            if (policy == SyncPolicy.ALWAYS) {
+                buffer.force();
+                durableSequence = sequence;
+            }
+        }
+        if (policy == SyncPolicy.BATCH) {
+            syncUpTo(sequence);
+        }
+        return sequence;
+    }
+
+    /**
+     * Сбрасывает на диск все записанные записи.
+     */
+    public void sync() {
+        syncUpTo(Long.MAX_VALUE);
+    }
+
+    /**
+     * Передаёт обработчику записи с номером больше указанного в порядке номеров.
+
+     * @param afterSequence номер, после которого начинается чтение
+     * @param consumer      обработчик записей
+     */
+    public synchronized void replay(long afterSequence, Consumer<Entry> consumer) {
+        for (int i = 0; i < segments.size(); i++) {
+            // Сегмент пропускается целиком, если следующий начинается не позже первой нужной записи
+            if (i + 1 < segments.size() && segments.get(i + 1).firstSequence <= afterSequence + 1) {
+                continue;
+            }
+            scan(segments.get(i), consumer, afterSequence);
+        }
+    }
+
+    /**
+     * Удаляет сегменты, все записи которых уже применены. Активный сегмент не удаляется.
+
+     * @param appliedSequence номер последней применённой записи
+     * @throws UncheckedIOException при ошибке удаления файла
+     */
+    public synchronized void truncate(long appliedSequence) {
+        while (segments.size() > 1 && segments.get(1).firstSequence <= appliedSequence + 1) {
+            Segment segment = segments.remove(0);
+            try {
+                segment.channel.close();
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Ошибка удаления сегмента журнала: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+
+    public long getDurableSequence() {
+        return durableSequence;
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Сбрасывает записи на диск и закрывает файлы сегментов.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (syncer != null) {
+            LockSupport.unpark(syncer);
+        }
+        synchronized (syncLock) {
+            synchronized (this) {
+                active.buffer.force();
+                durableSequence = lastSequence;
+                for (Segment segment : segments) {
+                    try {
+                        segment.channel.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Ошибка закрытия журнала: " + e.getMessage(), e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Сбрасывает активный сегмент, если запись с указанным номером ещё не сохранена.
+     * Потоки, ожидающие сброса, обслуживаются одним вызовом force, который охватывает
+     * все записи, появившиеся к его началу.
+     */
+    private void syncUpTo(long sequence) {
+        synchronized (syncLock) {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            MappedByteBuffer buffer;
+            long target;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                buffer = active.buffer;
+                target = lastSequence;
+            }
+            buffer.force();
+            if (target > durableSequence) {
+                durableSequence = target;
+            }
+        }
+    }
+
+    /**
+     * Переходит к новому сегменту. Заполненный сегмент предварительно сбрасывается на диск,
+     * поэтому сброс активного сегмента достаточен для надёжности всех предыдущих записей.
+     */
+    private void rotate() {
+        active.buffer.force();
+        try {
+            active = openSegment(lastSequence + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка создания сегмента журнала: " + e.getMessage(), e);
+        }
+    }
+
+    private Segment openSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        Segment segment = new Segment(path, firstSequence, segmentSize);
+        segments.add(segment);
+        return segment;
+    }
+
+    /**
+     * Читает записи сегмента до первой недописанной или повреждённой.
+     * Для активного сегмента при открытии обновляет последний номер журнала.
+
+     * @return позиция после последней корректной записи
+     */
+    private int scan(Segment segment, Consumer<Entry> consumer, long afterSequence) {
+        ByteBuffer buffer = segment.buffer.duplicate();
+        int limit = segment == active && consumer != null ? active.buffer.position() : buffer.capacity();
+        CRC32C check = new CRC32C();
+        int position = 0;
+        long expected = segment.firstSequence;
+        while (position + HEADER_SIZE <= limit) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > limit) {
+                break;
+            }
+            long sequence = buffer.getLong(position + 8);
+            if (sequence != expected) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + HEADER_SIZE, payload);
+            check.reset();
+            check.update(longBytes(sequence));
+            check.update(payload);
+            if ((int) check.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            if (consumer != null && sequence > afterSequence) {
+                consumer.accept(new Entry(sequence, payload));
+            }
+            if (consumer == null) {
+                lastSequence = sequence;
+            }
+            position += HEADER_SIZE + length;
+            expected++;
+        }
+        return position;
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(8).putLong(value).array();
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long firstSequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
\ No newline at end of file
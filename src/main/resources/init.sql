@@ -42,4 +42,80 @@ CREATE TABLE parking_record (
                                 entry_time TIMESTAMP NOT NULL,
                                 exit_time TIMESTAMP,
                                 CHECK (exit_time IS NULL OR exit_time > entry_time)
-);
\ No newline at end of file
+);
+
+CREATE TABLE batch_checkpoint (
+                                  job_name VARCHAR(50) PRIMARY KEY,
+                                  last_position BIGINT NOT NULL,
+                                  updated_at TIMESTAMP NOT NULL
+);
+
+CREATE TABLE lot_daily_rollup (
+                                  id SERIAL PRIMARY KEY,
+                                  parking_lot_id INTEGER NOT NULL REFERENCES parking_lot(id) ON DELETE CASCADE,
+                                  rollup_day DATE NOT NULL,
+                                  space_type VARCHAR(20) NOT NULL,
+                                  visit_count BIGINT NOT NULL DEFAULT 0,
+                                  total_dwell_minutes BIGINT NOT NULL DEFAULT 0,
+                                  peak_occupancy INTEGER NOT NULL DEFAULT 0,
+                                  CONSTRAINT unique_lot_day_type UNIQUE (parking_lot_id, rollup_day, space_type)
+);
+
+CREATE TABLE client_daily_rollup (
+                                     id SERIAL PRIMARY KEY,
+                                     client_id INTEGER NOT NULL REFERENCES client(id) ON DELETE CASCADE,
+                                     rollup_day DATE NOT NULL,
+                                     visit_count BIGINT NOT NULL DEFAULT 0,
+                                     total_dwell_minutes BIGINT NOT NULL DEFAULT 0,
+                                     CONSTRAINT unique_client_day UNIQUE (client_id, rollup_day)
+);
+
+CREATE TABLE dwell_sketch (
+                              id SERIAL PRIMARY KEY,
+                              parking_lot_id INTEGER NOT NULL REFERENCES parking_lot(id) ON DELETE CASCADE,
+                              sketch_day DATE NOT NULL,
+                              space_type VARCHAR(20) NOT NULL,
+                              sample_count BIGINT NOT NULL DEFAULT 0,
+                              sketch_data BYTEA NOT NULL,
+                              CONSTRAINT unique_sketch_lot_day_type UNIQUE (parking_lot_id, sketch_day, space_type)
+);
+
+CREATE TABLE lot_visitor_sketch (
+                                    id SERIAL PRIMARY KEY,
+                                    parking_lot_id INTEGER NOT NULL REFERENCES parking_lot(id) ON DELETE CASCADE,
+                                    sketch_day DATE NOT NULL,
+                                    registers BYTEA NOT NULL,
+                                    CONSTRAINT unique_visitor_lot_day UNIQUE (parking_lot_id, sketch_day)
+);
+
+CREATE TABLE journal_event (
+                               id BIGSERIAL PRIMARY KEY,
+                               event_type VARCHAR(30) NOT NULL,
+                               aggregate_id BIGINT NOT NULL,
+                               parking_lot_id BIGINT,
+                               client_id BIGINT,
+                               occurred_at TIMESTAMP NOT NULL,
+                               payload VARCHAR(4000) NOT NULL
+);
+
+CREATE TABLE outbox_message (
+                                id BIGSERIAL PRIMARY KEY,
+                                message_type VARCHAR(20) NOT NULL,
+                                record_id BIGINT NOT NULL,
+                                parking_lot_id BIGINT NOT NULL,
+                                created_at TIMESTAMP NOT NULL,
+                                payload VARCHAR(1000) NOT NULL
+);
+
+CREATE INDEX idx_parking_record_entry_time ON parking_record (entry_time);
+CREATE INDEX idx_parking_record_open ON parking_record (parking_space_id) WHERE exit_time IS NULL;
+CREATE INDEX idx_parking_record_vehicle_open ON parking_record (vehicle_id) WHERE exit_time IS NULL;
+-- Постраничное чтение завершённых сессий по клиентам для счетов идёт в порядке (client_id, id).
+CREATE INDEX idx_parking_record_client ON parking_record (client_id, id);
+
+-- Запрет пересекающихся сессий [entry_time, exit_time) на одном месте; открытая сессия длится бесконечно.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+ALTER TABLE parking_record
+    ADD CONSTRAINT no_overlapping_sessions
+        EXCLUDE USING gist (parking_space_id WITH =, tsrange(entry_time, exit_time, '[)') WITH &&);
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.parkingManagement.benchmark;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.server.ApiServer;
+import com.parkingManagement.util.PlateIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Генератор нагрузки для HTTP API: сравнивает режимы выполнения запросов VIRTUAL и PLATFORM.
+ * Несколько клиентов одновременно запрашивают автомобили по идентификатору (GET /api/vehicles/{id})
+ * и поиск по номеру (GET /api/vehicles?plate=); выводятся пропускная способность и задержки p50/p99.
+ * Режим VIRTUAL пропускается на JDK младше 21. Использует тестовую базу H2 (parkingPUTest).
+ * Параметры: число автомобилей, число одновременных клиентов, запросов на клиента, потоков пула PLATFORM.
+ */
+public class ApiServerLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int vehicleCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int requestsPerClient = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+        int platformThreads = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        EntityManager setupEm = emf.createEntityManager();
+        PlateIndex plateIndex = new PlateIndex();
+        long[] vehicleIds = new long[vehicleCount];
+        String[] plates = new String[vehicleCount];
+        Client client = new Client(null, "Нагрузочный клиент", "+79000000000", "load@example.com");
+        new ClientDao(setupEm).create(client);
+        for (int i = 0; i < vehicleCount; i++) {
+            plates[i] = "M" + i;
+            Vehicle vehicle = new Vehicle(null, client, plates[i], "Марка", "Модель");
+            new VehicleDao(setupEm).create(vehicle);
+            vehicleIds[i] = vehicle.getId();
+            plateIndex.put(vehicle.getId(), plates[i]);
+            if (i % 1000 == 0) {
+                setupEm.clear();
+            }
+        }
+        setupEm.close();
+
+        for (ApiServer.ExecutionMode mode : ApiServer.ExecutionMode.values()) {
+            if (mode == ApiServer.ExecutionMode.VIRTUAL && !ApiServer.isVirtualThreadsSupported()) {
+                System.out.println("VIRTUAL: пропущен, виртуальные потоки доступны начиная с JDK 21");
+                continue;
+            }
+            try (ApiServer server = new ApiServer(new InetSocketAddress("127.0.0.1", 0), mode, platformThreads,
+                    1024, emf, plateIndex, List.of())) {
+                String base = "http://127.0.0.1:" + server.start() + "/api/vehicles";
+                run(mode.name() + " (прогрев)", base, clients, requestsPerClient / 5, vehicleIds, plates);
+                run(mode.name(), base, clients, requestsPerClient, vehicleIds, plates);
+            }
+        }
+        emf.close();
+    }
+
+    private static void run(String name, String base, int clients, int requestsPerClient, long[] vehicleIds,
+                            String[] plates) throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long[] latencies = new long[clients * requestsPerClient];
+        int[] failures = new int[clients];
+        List<Thread> threads = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            threads.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < requestsPerClient; i++) {
+                    int vehicle = random.nextInt(vehicleIds.length);
+                    String uri = i % 4 == 0 ? base + "?plate=" + plates[vehicle] : base + "/" + vehicleIds[vehicle];
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<String> response = http.send(HttpRequest.newBuilder(URI.create(uri)).build(),
+                                HttpResponse.BodyHandlers.ofString());
+                        if (response.statusCode() != 200) {
+                            failures[client]++;
+                        }
+                    } catch (Exception e) {
+                        failures[client]++;
+                    }
+                    latencies[client * requestsPerClient + i] = System.nanoTime() - start;
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        Arrays.sort(latencies);
+        int total = latencies.length;
+        System.out.printf("%s: %d запросов за %.2f с, %.0f запросов/с, p50 %.2f мс, p99 %.2f мс, ошибок %d%n", name,
+                total, seconds, total / seconds, latencies[total / 2] / 1e6, latencies[(int) (total * 0.99)] / 1e6,
+                Arrays.stream(failures).sum());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package com.parkingManagement.benchmark;
+
+import com.parkingManagement.service.BulkImportService;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Генератор нагрузки для массового импорта: создаёт CSV-файлы с клиентами и автомобилями,
+ * загружает их через BulkImportService и выводит время и скорость импорта.
+ * Каждая тысячная строка автомобилей содержит неизвестный email и попадает в файл отказов.
+ * Использует тестовую базу H2 (parkingPUTest).
+ * Параметры: число автомобилей, число клиентов, число потоков, размер пакета.
+ */
+public class BulkImportLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int vehicleCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int clientCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        int batchSize = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+        Path dir = Files.createTempDirectory("bulk-import");
+        Path clients = dir.resolve("clients.csv");
+        Path vehicles = dir.resolve("vehicles.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(clients, StandardCharsets.UTF_8)) {
+            writer.write("name,phone,email\n");
+            for (int i = 0; i < clientCount; i++) {
+                writer.write("Клиент " + i + ",+7900" + i + ",client" + i + "@example.com\n");
+            }
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(vehicles, StandardCharsets.UTF_8)) {
+            writer.write("client_email,license_plate,brand,model\n");
+            for (int i = 0; i < vehicleCount; i++) {
+                String email = i % 1000 == 999 ? "unknown@example.com" : "client" + (i % clientCount) + "@example.com";
+                writer.write(email + ",V" + i + ",Toyota,Camry\n");
+            }
+        }
+
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        BulkImportService service = new BulkImportService(emf, threads, batchSize);
+        print("Клиенты", service.importClients(clients, dir.resolve("clients-rejects.csv")));
+        print("Автомобили", service.importVehicles(vehicles, dir.resolve("vehicles-rejects.csv")));
+        emf.close();
+    }
+
+    private static void print(String name, BulkImportService.ImportResult result) {
+        double seconds = result.elapsed().toNanos() / 1e9;
+        System.out.printf("%s: загружено %d, отклонено %d за %.2f с, %.0f строк/с%n", name, result.imported(),
+                result.rejected(), seconds, (result.imported() + result.rejected()) / seconds);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package com.parkingManagement.benchmark;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.GateEvent;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.service.GateIngestionPipeline;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntFunction;
+
+/**
+ * Генератор нагрузки для конвейера приёма событий ворот: несколько «ворот» одновременно отправляют
+ * въезды, а затем выезды всех автомобилей, как при разъезде со стадиона. Выводит пропускную
+ * способность в событиях в секунду и задержки p50/p99 от отправки до фиксации.
+ * Использует тестовую базу H2 (parkingPUTest). Параметры: число автомобилей, число ворот,
+ * размер пакета, ожидание пакета в миллисекундах.
+ */
+public class GateIngestionLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int vehicleCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int gates = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        long lingerMillis = args.length > 3 ? Long.parseLong(args[3]) : 2;
+
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        EntityManager setupEm = emf.createEntityManager();
+        long[] vehicleIds = new long[vehicleCount];
+        long[] spaceIds = new long[vehicleCount];
+        Client client = new Client(null, "Нагрузочный клиент", "+79000000000", "load@example.com");
+        new ClientDao(setupEm).create(client);
+        ParkingLot lot = new ParkingLot(null, "Стадион", "ул. Спортивная, 1", vehicleCount);
+        new ParkingLotDao(setupEm).create(lot);
+        for (int i = 0; i < vehicleCount; i++) {
+            ParkingSpace space = new ParkingSpace(null, lot, "S" + i, "REGULAR");
+            new ParkingSpaceDao(setupEm).create(space);
+            Vehicle vehicle = new Vehicle(null, client, "L" + i, "Марка", "Модель");
+            new VehicleDao(setupEm).create(vehicle);
+            vehicleIds[i] = vehicle.getId();
+            spaceIds[i] = space.getId();
+            if (i % 1000 == 0) {
+                setupEm.clear();
+            }
+        }
+        setupEm.close();
+
+        EntityManager pipelineEm = emf.createEntityManager();
+        try (GateIngestionPipeline pipeline = new GateIngestionPipeline(new ParkingRecordDao(pipelineEm),
+                8192, batchSize, Duration.ofMillis(lingerMillis))) {
+            pipeline.start();
+            LocalDateTime start = LocalDateTime.of(2024, 3, 15, 18, 0);
+            run("Въезды", pipeline, gates, vehicleCount, i -> GateEvent.entry(vehicleIds[i], spaceIds[i], start));
+            run("Выезды", pipeline, gates, vehicleCount, i -> GateEvent.exit(vehicleIds[i], start.plusHours(3)));
+            System.out.printf("Пакетов зафиксировано: %d%n", pipeline.getCommittedBatches());
+        }
+        pipelineEm.close();
+        emf.close();
+    }
+
+    private static void run(String name, GateIngestionPipeline pipeline, int gates, int count,
+                            IntFunction<GateEvent> events) throws InterruptedException {
+        long[] latencies = new long[count];
+        List<Thread> threads = new ArrayList<>();
+        long begin = System.nanoTime();
+        for (int g = 0; g < gates; g++) {
+            int gate = g;
+            threads.add(new Thread(() -> {
+                List<CompletableFuture<ParkingRecord>> futures = new ArrayList<>();
+                for (int i = gate; i < count; i += gates) {
+                    int index = i;
+                    long submitted = System.nanoTime();
+                    futures.add(pipeline.submit(events.apply(index))
+                            .whenComplete((r, e) -> latencies[index] = System.nanoTime() - submitted));
+                }
+                futures.forEach(CompletableFuture::join);
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        Arrays.sort(latencies);
+        System.out.printf("%s: %d событий за %.2f с, %.0f событий/с, p50 %.2f мс, p99 %.2f мс%n", name, count,
+                seconds, count / seconds, latencies[count / 2] / 1e6, latencies[(int) (count * 0.99)] / 1e6);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.parkingManagement.benchmark;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.model.VehicleOwner;
+import com.parkingManagement.server.GateServer;
+import com.parkingManagement.server.ServiceGateCommandHandler;
+import com.parkingManagement.service.CacheWarmer;
+import com.parkingManagement.service.FreeSpacePool;
+import com.parkingManagement.service.VehicleService;
+import com.parkingManagement.util.PlateIndex;
+import com.parkingManagement.util.TinyLfuCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Генератор нагрузки для TCP-сервера ворот: каждое «ворото» держит своё соединение и отправляет
+ * команды конвейером, не дожидаясь ответов, а отдельный поток читает ответы. Сначала все
+ * автомобили въезжают, затем выезжают. Перед запуском сервера кэши прогреваются.
+ * Выводит итоги прогрева, пропускную способность в командах в секунду
+ * и показатели общего кэша владельцев по номеру.
+ * Использует тестовую базу H2 (parkingPUTest). Параметры: число автомобилей, число соединений,
+ * число рабочих потоков сервера.
+ */
+public class GateServerLoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int vehicleCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int gates = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int workers = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+        EntityManagerFactory emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        EntityManager setupEm = emf.createEntityManager();
+        PlateIndex plateIndex = new PlateIndex();
+        String[] plates = new String[vehicleCount];
+        Client client = new Client(null, "Нагрузочный клиент", "+79000000000", "load@example.com");
+        new ClientDao(setupEm).create(client);
+        ParkingLot lot = new ParkingLot(null, "Стадион", "ул. Спортивная, 1", vehicleCount);
+        new ParkingLotDao(setupEm).create(lot);
+        for (int i = 0; i < vehicleCount; i++) {
+            new ParkingSpaceDao(setupEm).create(new ParkingSpace(null, lot, String.format("S%06d", i), "REGULAR"));
+            plates[i] = "L" + i;
+            Vehicle vehicle = new Vehicle(null, client, plates[i], "Марка", "Модель");
+            new VehicleDao(setupEm).create(vehicle);
+            if (i % 1000 == 0) {
+                setupEm.clear();
+            }
+        }
+        setupEm.close();
+        FreeSpacePool freeSpacePool = new FreeSpacePool();
+        TinyLfuCache<String, VehicleOwner> ownerCache = new TinyLfuCache<>(vehicleCount, Duration.ofMinutes(10));
+        TinyLfuCache<Long, ParkingSpace> spaceCache = new TinyLfuCache<>(vehicleCount, Duration.ofMinutes(10));
+        CacheWarmer.Report warmup = new CacheWarmer(emf, 4).plateIndex(plateIndex).freeSpaces(freeSpacePool)
+                .recentOwners(ownerCache).referenceData(spaceCache).run(Duration.ofSeconds(30));
+        System.out.printf("Прогрев: %s за %d мс%n", warmup.loaded(), warmup.elapsed().toMillis());
+
+        try (GateServer server = new GateServer(new InetSocketAddress("127.0.0.1", 0), workers, 64, 4096,
+                () -> new ServiceGateCommandHandler(emf,
+                        VehicleService.builder().plateIndex(plateIndex).ownerCache(ownerCache), freeSpacePool,
+                        spaceCache, false, List.of()))) {
+            int port = server.start();
+            long lotId = lot.getId();
+            run("Въезды", port, gates, vehicleCount, i -> "ENTER " + plates[i] + " " + lotId);
+            run("Выезды", port, gates, vehicleCount, i -> "EXIT " + plates[i]);
+            System.out.printf("Ошибок: %d, остановок чтения: %d%n", server.getMetrics().errors(),
+                    server.getMetrics().pauses());
+            TinyLfuCache.Stats stats = ownerCache.getStats();
+            System.out.printf("Кэш владельцев: попаданий %.1f%%, загрузка в среднем %d мкс, p99 %d мкс%n",
+                    stats.hitRatio() * 100, stats.averageLoadNanos() / 1000, stats.p99LoadNanos() / 1000);
+        }
+        emf.close();
+    }
+
+    private static void run(String name, int port, int gates, int count, IntFunction<String> commands)
+            throws Exception {
+        AtomicLong errors = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        List<Socket> sockets = new ArrayList<>();
+        for (int g = 0; g < gates; g++) {
+            sockets.add(new Socket("127.0.0.1", port));
+        }
+        long begin = System.nanoTime();
+        for (int g = 0; g < gates; g++) {
+            int gate = g;
+            Socket socket = sockets.get(g);
+            int expected = (count - gate + gates - 1) / gates;
+            threads.add(new Thread(() -> {
+                try {
+                    OutputStream out = socket.getOutputStream();
+                    for (int i = gate; i < count; i += gates) {
+                        out.write((commands.apply(i) + "\n").getBytes(StandardCharsets.UTF_8));
+                    }
+                    out.flush();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            threads.add(new Thread(() -> {
+                try {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                            StandardCharsets.UTF_8));
+                    for (int i = 0; i < expected; i++) {
+                        if (!in.readLine().startsWith("OK")) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        System.out.printf("%s: %d команд по %d соединениям за %.2f с, %.0f команд/с, ошибок %d%n", name, count,
+                gates, seconds, count / seconds, errors.get());
+    }
+}
\ No newline at end of file
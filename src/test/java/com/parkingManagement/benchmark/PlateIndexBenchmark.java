@@ -0,0 +1,99 @@
+package com.parkingManagement.benchmark;
+
+import com.parkingManagement.util.PlateIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH-бенчмарк нечёткого поиска PlateIndex на миллионе номеров российского формата:
+ * точное совпадение после нормализации и поиск с одной и двумя ошибками распознавания.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class PlateIndexBenchmark {
+    private static final String LETTERS = "АВЕКМНОРСТУХ";
+    private static final int QUERIES = 1024;
+
+    @Param({"1000000"})
+    public int plates;
+
+    private PlateIndex index;
+    private String[] exact;
+    private String[] oneError;
+    private String[] twoErrors;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        index = new PlateIndex();
+        SplittableRandom random = new SplittableRandom(42);
+        String[] all = new String[plates];
+        for (int i = 0; i < plates; i++) {
+            all[i] = "" + letter(random) + random.nextInt(100, 1000) + letter(random) + letter(random)
+                    + (random.nextInt(4) == 0 ? random.nextInt(100, 800) : random.nextInt(10, 100));
+            index.put(i + 1, all[i]);
+        }
+        exact = new String[QUERIES];
+        oneError = new String[QUERIES];
+        twoErrors = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            String plate = all[random.nextInt(plates)];
+            exact[i] = plate.replace('О', '0').replace('В', '8');
+            oneError[i] = misread(plate, random);
+            twoErrors[i] = misread(misread(plate, random), random);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<PlateIndex.Match> findConfusable() {
+        return index.find(exact[next++ & (QUERIES - 1)], 0, 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<PlateIndex.Match> findOneError() {
+        return index.find(oneError[next++ & (QUERIES - 1)], 1, 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<PlateIndex.Match> findTwoErrors() {
+        return index.find(twoErrors[next++ & (QUERIES - 1)], 2, 10);
+    }
+
+    private static char letter(SplittableRandom random) {
+        return LETTERS.charAt(random.nextInt(LETTERS.length()));
+    }
+
+    private static String misread(String plate, SplittableRandom random) {
+        int position = random.nextInt(plate.length());
+        return plate.substring(0, position) + (char) ('0' + random.nextInt(10)) + plate.substring(position + 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PlateIndexBenchmark.class.getSimpleName()).build()).run();
+    }
+}
\ No newline at end of file
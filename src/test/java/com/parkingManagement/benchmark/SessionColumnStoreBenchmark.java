@@ -0,0 +1,73 @@
+package com.parkingManagement.benchmark;
+
+import com.parkingManagement.model.SpaceType;
+import com.parkingManagement.service.SessionColumnStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH-бенчмарк фильтрованной агрегации SessionColumnStore: вся история и окно в один месяц.
+ * Для 100 млн сессий нужна куча около 4 ГБ (-Xmx4g) и параметр -p sessions=100000000.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SessionColumnStoreBenchmark {
+    private static final LocalDateTime BASE = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Param({"10000000"})
+    public int sessions;
+
+    private SessionColumnStore store;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new SessionColumnStore(null);
+        SplittableRandom random = new SplittableRandom(42);
+        long base = BASE.toEpochSecond(ZoneOffset.UTC);
+        long step = 5L * 365 * 24 * 3600 / sessions;
+        for (int i = 0; i < sessions; i++) {
+            long space = random.nextInt(5000);
+            long entry = base + i * step;
+            store.append(i + 1, space, space % 50, SpaceType.ofOrdinal((int) (space % 3)),
+                    random.nextInt(1_000_000), random.nextInt(300_000), entry, entry + random.nextInt(60, 36_000));
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SessionColumnStore.Aggregate aggregateLotWholeHistory() {
+        return store.aggregate(7L, null, BASE, BASE.plusYears(5));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SessionColumnStore.Aggregate aggregateTypeOneMonth() {
+        return store.aggregate(null, SpaceType.VIP, BASE.plusYears(2), BASE.plusYears(2).plusMonths(1));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SessionColumnStoreBenchmark.class.getSimpleName()).build()).run();
+    }
+}
\ No newline at end of file
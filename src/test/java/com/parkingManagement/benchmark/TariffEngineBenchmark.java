@@ -0,0 +1,92 @@
+package com.parkingManagement.benchmark;
+
+import com.parkingManagement.model.SpaceType;
+import com.parkingManagement.model.TariffPlan;
+import com.parkingManagement.service.TariffEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH-бенчмарк расчёта стоимости сессий TariffEngine: одиночный вызов и пакет из миллиона сессий.
+ * Запуск: mvn test-compile, затем
+ * java -cp target/test-classes:target/classes:&lt;зависимости&gt; com.parkingManagement.benchmark.TariffEngineBenchmark
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TariffEngineBenchmark {
+    private static final int SESSIONS = 1_000_000;
+
+    private TariffEngine engine;
+    private int[] types;
+    private long[] entries;
+    private long[] exits;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        TariffPlan regular = new TariffPlan(6000)
+                .addPeriod(LocalTime.of(22, 0), LocalTime.of(6, 0), 1500)
+                .addPeriod(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY), LocalTime.MIDNIGHT, LocalTime.MIDNIGHT, 3000)
+                .addTier(180, 70)
+                .setGraceMinutes(15)
+                .setDailyCap(60000);
+        engine = new TariffEngine(Map.of(
+                SpaceType.REGULAR, regular,
+                SpaceType.DISABLED, new TariffPlan(0),
+                SpaceType.VIP, new TariffPlan(15000).setDailyCap(150000)));
+
+        SplittableRandom random = new SplittableRandom(42);
+        long base = LocalDateTime.of(2024, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        types = new int[SESSIONS];
+        entries = new long[SESSIONS];
+        exits = new long[SESSIONS];
+        for (int i = 0; i < SESSIONS; i++) {
+            types[i] = random.nextInt(SpaceType.values().length);
+            entries[i] = base + random.nextLong(365L * 24 * 3600);
+            exits[i] = entries[i] + random.nextLong(60, 3L * 24 * 3600);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long priceSingleSession() {
+        int i = cursor;
+        cursor = i + 1 == SESSIONS ? 0 : i + 1;
+        return engine.price(types[i], entries[i], exits[i]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long[] priceMillionSessions() {
+        return engine.priceBatch(types, entries, exits);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TariffEngineBenchmark.class.getSimpleName()).build()).run();
+    }
+}
\ No newline at end of file
@@ -8,18 +8,21 @@ import com.parkingManagement.model.ParkingRecord;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceException;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 
@@ -277,4 +280,68 @@ class ParkingRecordDaoTest {
         // Проверка
         assertFalse(result, "Удаление несуществующей записи должно вернуть false");
     }
+
+    @DisplayName("Создание записи о парковке через tryCreate без конфликта")
+    @Test
+    void testTryCreateParkingRecord() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        parkingLotDao.create(lot);
+
+        ParkingSpace space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        parkingSpaceDao.create(space);
+
+        Vehicle vehicle = new Vehicle(null, client, "АВС123", "Toyota", "Camry");
+        vehicleDao.create(vehicle);
+
+        ParkingRecord record = new ParkingRecord(null, space, vehicle, client, LocalDateTime.now(), null);
+
+        // Действие
+        ParkingRecordDao.CreateResult result = parkingRecordDao.tryCreate(record);
+
+        // Проверка
+        assertEquals(ParkingRecordDao.CreateResult.CREATED, result, "Запись должна быть создана");
+        assertNotNull(parkingRecordDao.findById(record.getId()), "Запись должна быть сохранена");
+    }
+
+    @DisplayName("Распознавание нарушения ограничения против пересечения сессий")
+    @Test
+    void testIsOverlapViolation() {
+        // Подготовка
+        PersistenceException overlap = new PersistenceException("could not execute statement",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01"));
+        PersistenceException unique = new PersistenceException("could not execute statement",
+                new SQLException("duplicate key value violates unique constraint", "23505"));
+
+        // Действие и проверка
+        assertTrue(ParkingRecordDao.isOverlapViolation(overlap), "Код 23P01 должен распознаваться как конфликт");
+        assertFalse(ParkingRecordDao.isOverlapViolation(unique), "Другие нарушения не являются конфликтом места");
+    }
+
+    @DisplayName("Ошибка обработчика при потоковом чтении сессий откатывает транзакцию чтения")
+    @Test
+    void testForEachSessionRollsBackOnConsumerFailure() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        parkingLotDao.create(lot);
+        ParkingSpace space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        parkingSpaceDao.create(space);
+        Vehicle vehicle = new Vehicle(null, client, "АВС123", "Toyota", "Camry");
+        vehicleDao.create(vehicle);
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, LocalDateTime.now(), null));
+
+        // Действие
+        assertThrows(IllegalStateException.class, () -> parkingRecordDao.forEachSession(0, row -> {
+            throw new IllegalStateException("Сбой обработчика");
+        }));
+
+        // Проверка
+        assertFalse(em.getTransaction().isActive(), "Транзакция чтения не должна оставаться открытой");
+        assertEquals(1, parkingRecordDao.forEachSession(0, row -> { }), "После ошибки чтение должно работать");
+    }
 }
\ No newline at end of file
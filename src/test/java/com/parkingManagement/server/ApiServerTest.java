@@ -0,0 +1,184 @@
+package com.parkingManagement.server;
+
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.model.JournalEvent;
+import com.parkingManagement.model.OutboxMessage;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.service.EventJournal;
+import com.parkingManagement.service.VehicleService;
+import com.parkingManagement.util.JsonParser;
+import com.parkingManagement.util.PlateIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования HTTP API ApiServer с использованием методологии AAA.
+ */
+class ApiServerTest {
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private final HttpClient http = HttpClient.newHttpClient();
+    private EventJournal journal;
+    private ApiServer server;
+    private String baseUrl;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных и запускает сервер в режиме по умолчанию с исходящей очередью
+     * и журналом операций перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM OutboxMessage").executeUpdate();
+        em.createQuery("DELETE FROM JournalEvent").executeUpdate();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+        journal = new EventJournal(emf);
+        server = new ApiServer(new InetSocketAddress("127.0.0.1", 0), ApiServer.defaultMode(), 4, 64,
+                emf, VehicleService.builder().plateIndex(new PlateIndex()).journal(journal), true, journal, List.of());
+        baseUrl = "http://127.0.0.1:" + server.start() + "/api/";
+    }
+
+    /**
+     * Останавливает сервер и закрывает журнал после каждого теста.
+     */
+    @AfterEach
+    void tearDown() {
+        server.close();
+        journal.close();
+    }
+
+    @DisplayName("Клиент, автомобиль и сессия создаются и читаются через API")
+    @Test
+    void testCheckInAndCheckOutThroughApi() throws Exception {
+        // Подготовка
+        Map<String, Object> lot = json(send("POST", "lots",
+                "{\"name\": \"Центр \\\"Плаза\\\"\", \"address\": \"ул. Тестовая, 1\", \"capacity\": 10}", 201));
+        ParkingSpace space = new ParkingSpace(null, em.find(ParkingLot.class, lot.get("id")), "A1", "REGULAR");
+        new ParkingSpaceDao(em).create(space);
+        Map<String, Object> client = json(send("POST", "clients",
+                "{\"name\": \"Иван Иванов\", \"phone\": \"+79123456789\", \"email\": \"ivan@example.com\"}", 201));
+        Map<String, Object> vehicle = json(send("POST", "vehicles",
+                "{\"clientId\": " + client.get("id") + ", \"licensePlate\": \"А123ВС77\", \"brand\": \"Toyota\"}", 201));
+
+        // Действие
+        Map<String, Object> record = json(send("POST", "records", "{\"vehicleId\": " + vehicle.get("id")
+                + ", \"spaceId\": " + space.getId() + ", \"entryTime\": \"2024-03-15T08:00:00\"}", 201));
+        Map<String, Object> closed = json(send("POST", "records/" + record.get("id") + "/checkout",
+                "{\"exitTime\": \"2024-03-15T10:30:00\"}", 200));
+        String found = send("GET", "vehicles?plate=A123BC77", null, 200);
+
+        // Проверка
+        assertEquals("Центр \"Плаза\"", lot.get("name"), "Кавычки в строках должны экранироваться");
+        assertEquals(client.get("id"), record.get("clientId"), "Клиент сессии должен определяться по автомобилю");
+        assertNull(record.get("exitTime"));
+        assertEquals("2024-03-15T10:30", closed.get("exitTime"));
+        assertTrue(found.contains("\"id\":" + vehicle.get("id")), "Автомобиль должен находиться по похожему номеру");
+        assertEquals(List.of(OutboxMessage.Type.CHECK_IN, OutboxMessage.Type.CHECK_OUT),
+                em.createQuery("SELECT m.type FROM OutboxMessage m WHERE m.recordId = :id ORDER BY m.id",
+                        OutboxMessage.Type.class).setParameter("id", record.get("id")).getResultList(),
+                "Въезд и выезд через API должны попадать в исходящую очередь");
+        assertEquals(List.of(JournalEvent.Type.LOT_CREATED, JournalEvent.Type.CLIENT_CREATED,
+                        JournalEvent.Type.VEHICLE_CREATED, JournalEvent.Type.CHECK_IN, JournalEvent.Type.CHECK_OUT),
+                em.createQuery("SELECT e.type FROM JournalEvent e ORDER BY e.id", JournalEvent.Type.class)
+                        .getResultList(), "Изменения через API должны журналироваться");
+    }
+
+    @DisplayName("Список сессий отдаётся потоково, начиная после указанного идентификатора")
+    @Test
+    void testRecordsAreStreamedAfterCursor() throws Exception {
+        // Подготовка
+        Map<String, Object> lot = json(send("POST", "lots", "{\"name\": \"П\", \"address\": \"А\", \"capacity\": 100}", 201));
+        Map<String, Object> client = json(send("POST", "clients", "{\"name\": \"Пётр\"}", 201));
+        ParkingLot lotEntity = em.find(ParkingLot.class, lot.get("id"));
+        long firstId = 0;
+        for (int i = 0; i < 50; i++) {
+            ParkingSpace space = new ParkingSpace(null, lotEntity, "S" + i, "REGULAR");
+            new ParkingSpaceDao(em).create(space);
+            Map<String, Object> vehicle = json(send("POST", "vehicles",
+                    "{\"clientId\": " + client.get("id") + ", \"licensePlate\": \"P" + i + "\"}", 201));
+            Map<String, Object> record = json(send("POST", "records",
+                    "{\"vehicleId\": " + vehicle.get("id") + ", \"spaceId\": " + space.getId() + "}", 201));
+            if (i == 0) {
+                firstId = (Long) record.get("id");
+            }
+        }
+
+        // Действие
+        String all = send("GET", "records", null, 200);
+        String tail = send("GET", "records?after=" + firstId, null, 200);
+
+        // Проверка
+        assertEquals(50, all.split("\"spaceType\"").length - 1, "Должны вернуться все сессии");
+        assertEquals(49, tail.split("\"spaceType\"").length - 1, "Сессии до курсора не должны возвращаться");
+        assertTrue(all.startsWith("[{") && all.endsWith("}]"), "Ответ должен быть JSON-массивом");
+    }
+
+    @DisplayName("Ошибки возвращаются с кодами HTTP и сообщением в JSON")
+    @Test
+    void testErrorsAreMappedToStatusCodes() throws Exception {
+        // Действие и проверка
+        assertEquals("Объект с ID 999 не найден", json(send("GET", "clients/999", null, 404)).get("error"));
+        assertEquals("Имя клиента обязательно", json(send("POST", "clients", "{\"phone\": \"1\"}", 400)).get("error"));
+        assertTrue(((String) json(send("POST", "clients", "{\"name\": ", 400)).get("error")).startsWith("Некорректный JSON"));
+        send("PATCH", "clients", "{}", 405);
+        send("GET", "unknown", null, 404);
+        assertEquals(5, server.getMetrics().clientErrors(), "Ошибки клиента должны учитываться");
+    }
+
+    private String send(String method, String path, String body, int expectedStatus) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(expectedStatus, response.statusCode(), response.body());
+        return response.body();
+    }
+
+    private static Map<String, Object> json(String body) {
+        return JsonParser.parseObject(body);
+    }
+}
\ No newline at end of file
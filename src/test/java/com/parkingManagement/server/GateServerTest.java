@@ -0,0 +1,210 @@
+package com.parkingManagement.server;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.service.FreeSpacePool;
+import com.parkingManagement.service.GateEventDeduplicator;
+import com.parkingManagement.service.VehicleService;
+import com.parkingManagement.util.PlateIndex;
+import com.parkingManagement.util.TinyLfuCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования TCP-сервера ворот GateServer с использованием методологии AAA.
+ */
+class GateServerTest {
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingLot lot;
+    private PlateIndex plateIndex;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных и создаёт парковку с двумя местами и два автомобиля перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 2);
+        new ParkingLotDao(em).create(lot);
+        new ParkingSpaceDao(em).create(new ParkingSpace(null, lot, "A1", "REGULAR"));
+        new ParkingSpaceDao(em).create(new ParkingSpace(null, lot, "A2", "REGULAR"));
+        plateIndex = new PlateIndex();
+        for (String plate : List.of("А123ВС77", "В456ОР99")) {
+            Vehicle vehicle = new Vehicle(null, client, plate, "Toyota", "Camry");
+            new VehicleDao(em).create(vehicle);
+            plateIndex.put(vehicle.getId(), plate);
+        }
+    }
+
+    @DisplayName("Конвейер команд одного соединения получает ответы в порядке команд")
+    @Test
+    void testPipelinedCommandsAreAnsweredInOrder() throws Exception {
+        // Подготовка
+        FreeSpacePool freeSpacePool = new FreeSpacePool();
+        TinyLfuCache<Long, ParkingSpace> spaceCache = new TinyLfuCache<>(16, Duration.ofMinutes(5));
+        try (GateServer server = new GateServer(new InetSocketAddress("127.0.0.1", 0), 1, 16, 256,
+                () -> new ServiceGateCommandHandler(emf, VehicleService.builder().plateIndex(plateIndex),
+                        freeSpacePool, spaceCache, false, List.of()));
+             Socket socket = new Socket("127.0.0.1", server.start())) {
+            BufferedReader reader = reader(socket);
+
+            // Действие
+            send(socket, "PING\nENTER A123BC77 " + lot.getId() + "\nenter b456op99 " + lot.getId()
+                    + "\nEXIT A123BC77\nHELLO\nEXIT X000XX00\n");
+
+            // Проверка
+            assertEquals("PONG", reader.readLine());
+            assertTrue(reader.readLine().matches("OK \\d+ A1"), "Первый въезд должен занять место A1");
+            assertTrue(reader.readLine().matches("OK \\d+ A2"), "Номер должен распознаваться без учёта регистра и алфавита");
+            assertTrue(reader.readLine().matches("OK \\d+"), "Выезд должен завершить сессию");
+            assertEquals("ERR Неизвестная команда: HELLO", reader.readLine());
+            assertEquals("ERR Автомобиль с номером X000XX00 не найден", reader.readLine());
+            em.clear();
+            assertEquals(1L, em.createQuery("SELECT COUNT(p) FROM ParkingRecord p WHERE p.exitTime IS NULL", Long.class)
+                    .getSingleResult(), "На парковке должен остаться один автомобиль");
+            assertEquals(2, spaceCache.size(), "Занятые места должны попасть в справочный кэш");
+        }
+    }
+
+    @DisplayName("При перегрузке рабочих потоков сервер перестаёт читать и затем отвечает на все команды")
+    @Test
+    void testBackpressurePausesReading() throws Exception {
+        // Подготовка
+        CountDownLatch release = new CountDownLatch(1);
+        GateCommandHandler slow = new GateCommandHandler() {
+            @Override
+            public ParkingRecord enter(String licensePlate, long lotId) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ParkingRecord exit(String licensePlate) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalArgumentException("Нет открытой сессии для автомобиля " + licensePlate);
+            }
+        };
+        try (GateServer server = new GateServer(new InetSocketAddress("127.0.0.1", 0), 1, 4, 4, () -> slow);
+             Socket socket = new Socket("127.0.0.1", server.start())) {
+            BufferedReader reader = reader(socket);
+            StringBuilder commands = new StringBuilder();
+            for (int i = 0; i < 20; i++) {
+                commands.append("EXIT P").append(i).append('\n');
+            }
+
+            // Действие
+            send(socket, commands.toString());
+            long deadline = System.currentTimeMillis() + 5000;
+            while (server.getMetrics().pauses() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            int queuedWhilePaused = server.getMetrics().queued();
+            release.countDown();
+
+            // Проверка
+            assertTrue(queuedWhilePaused <= 4, "В работе не должно быть больше команд, чем позволяет лимит");
+            for (int i = 0; i < 20; i++) {
+                assertEquals("ERR Нет открытой сессии для автомобиля P" + i, reader.readLine());
+            }
+            assertTrue(server.getMetrics().pauses() > 0, "Чтение должно приостанавливаться при перегрузке");
+            assertEquals(20, server.getMetrics().commands());
+        }
+    }
+
+    @DisplayName("Повторы команд отбрасываются общим слоем дедупликации, а неудавшиеся команды повторяются")
+    @Test
+    void testDuplicateCommandsAreDropped() throws Exception {
+        // Подготовка
+        FreeSpacePool freeSpacePool = new FreeSpacePool();
+        GateEventDeduplicator deduplicator = new GateEventDeduplicator(null, Duration.ofSeconds(10), 1024);
+        try (GateServer server = new GateServer(new InetSocketAddress("127.0.0.1", 0), 1, 16, 256,
+                () -> new DeduplicatingGateCommandHandler(
+                        new ServiceGateCommandHandler(emf, VehicleService.builder().plateIndex(plateIndex),
+                        freeSpacePool, null, false, List.of()), deduplicator));
+             Socket socket = new Socket("127.0.0.1", server.start())) {
+            BufferedReader reader = reader(socket);
+
+            // Действие
+            send(socket, "ENTER A123BC77 " + lot.getId() + "\nENTER A123BC77 " + lot.getId()
+                    + "\nEXIT X000XX00\nEXIT X000XX00\n");
+
+            // Проверка
+            assertTrue(reader.readLine().matches("OK \\d+ A1"), "Первый въезд должен занять место");
+            assertEquals("ERR Повторный въезд автомобиля A123BC77 отброшен", reader.readLine());
+            assertEquals("ERR Автомобиль с номером X000XX00 не найден", reader.readLine());
+            assertEquals("ERR Автомобиль с номером X000XX00 не найден", reader.readLine(),
+                    "Неудавшийся выезд не должен считаться повтором");
+            assertEquals(new GateEventDeduplicator.Metrics(2, 1, 2, 0), deduplicator.getMetrics());
+        }
+    }
+
+    private static BufferedReader reader(Socket socket) throws Exception {
+        socket.setSoTimeout(10_000);
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static void send(Socket socket, String text) throws Exception {
+        OutputStream out = socket.getOutputStream();
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+}
\ No newline at end of file
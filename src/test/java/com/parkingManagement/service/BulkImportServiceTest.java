@@ -0,0 +1,156 @@
+package com.parkingManagement.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования BulkImportService с использованием методологии AAA.
+ */
+class BulkImportServiceTest {
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private PlateFilter plateFilter;
+    private BulkImportService importService;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+        plateFilter = new PlateFilter(10_000, 0.01);
+        importService = new BulkImportService(emf, 4, 50, plateFilter);
+    }
+
+    @DisplayName("Импорт разрешает внешние ключи и записывает некорректные строки в файл отказов")
+    @Test
+    void testImportResolvesKeysAndRejectsBadRows() throws IOException {
+        // Подготовка
+        Path lots = write("lots.csv", "name,address,capacity",
+                "Центр,\"ул. Ленина, 1\",100", "Вокзал,ул. Мира 5,0", ",ул. Пустая,10");
+        Path spaces = write("spaces.csv", "lot_name,space_number,type",
+                "Центр,A1,regular", "Центр,A2,VIP", "Центр,A1,REGULAR", "Вокзал,B1,REGULAR", "Центр,A3,TRUCK");
+        Path clients = write("clients.csv", "name,phone,email",
+                "Иван,+79123456789,ivan@example.com", "\"Пётр \"\"Большой\"\"\",,petr@example.com", ",1,x@example.com");
+        Path vehicles = write("vehicles.csv", "client_email,license_plate,brand,model",
+                "ivan@example.com,А123ВС77,Toyota,Camry", "petr@example.com,В456ОР99,,",
+                "nobody@example.com,С789ТТ50,Lada,Vesta", "ivan@example.com,А123ВС77,Toyota,Camry");
+        Path rejects = dir.resolve("rejects.csv");
+
+        // Действие
+        BulkImportService.ImportResult lotResult = importService.importLots(lots, dir.resolve("lots-rejects.csv"));
+        BulkImportService.ImportResult spaceResult = importService.importSpaces(spaces, dir.resolve("spaces-rejects.csv"));
+        BulkImportService.ImportResult clientResult = importService.importClients(clients, dir.resolve("clients-rejects.csv"));
+        BulkImportService.ImportResult vehicleResult = importService.importVehicles(vehicles, rejects);
+
+        // Проверка
+        assertEquals(1, lotResult.imported());
+        assertEquals(2, lotResult.rejected());
+        assertEquals(2, spaceResult.imported());
+        assertEquals(3, spaceResult.rejected(), "Дубликат, неизвестная парковка и неверный тип должны отклоняться");
+        assertEquals(2, clientResult.imported());
+        assertEquals(2, vehicleResult.imported());
+        assertEquals(2, vehicleResult.rejected());
+        assertEquals("Пётр \"Большой\"", em.createQuery("SELECT c.name FROM Client c WHERE c.email = 'petr@example.com'",
+                String.class).getSingleResult(), "Кавычки в полях должны разбираться");
+        assertEquals(1L, em.createQuery("SELECT COUNT(v) FROM Vehicle v WHERE v.licensePlate = 'А123ВС77' " +
+                "AND v.client.email = 'ivan@example.com'", Long.class).getSingleResult());
+        List<String> rejected = Files.readAllLines(rejects, StandardCharsets.UTF_8);
+        assertEquals("client_email,license_plate,brand,model,error", rejected.get(0));
+        assertTrue(rejected.contains("nobody@example.com,С789ТТ50,Lada,Vesta,\"Клиент с email nobody@example.com не найден\""));
+        assertTrue(plateFilter.mightContain("В456ОР99"), "Импортированный номер должен попасть в фильтр номеров");
+        assertTrue(Files.readAllLines(dir.resolve("lots-rejects.csv"), StandardCharsets.UTF_8)
+                .contains("Вокзал,ул. Мира 5,0,\"Вместимость должна быть положительной\""));
+    }
+
+    @DisplayName("Большой файл загружается параллельно, ошибки базы отклоняют только свои строки")
+    @Test
+    void testLargeFileIsImportedInParallelAndIsIdempotent() throws IOException {
+        // Подготовка
+        write("clients.csv", "name,phone,email", "Клиент,,fleet@example.com");
+        importService.importClients(dir.resolve("clients.csv"), dir.resolve("clients-rejects.csv"));
+        StringBuilder csv = new StringBuilder("client_email,license_plate,brand,model\r\n");
+        for (int i = 0; i < 5000; i++) {
+            String plate = i % 1000 == 7 ? "СЛИШКОМ-ДЛИННЫЙ-НОМЕР-" + i : "P" + i;
+            csv.append("fleet@example.com,").append(plate).append(",Марка,Модель\r\n");
+        }
+        Path vehicles = dir.resolve("vehicles.csv");
+        Files.writeString(vehicles, csv, StandardCharsets.UTF_8);
+        Path rejects = dir.resolve("rejects.csv");
+
+        // Действие
+        BulkImportService.ImportResult first = importService.importVehicles(vehicles, rejects);
+        BulkImportService.ImportResult second = importService.importVehicles(vehicles, dir.resolve("again.csv"));
+
+        // Проверка
+        assertEquals(4995, first.imported());
+        assertEquals(5, first.rejected(), "База данных должна отклонить только слишком длинные номера");
+        assertEquals(4995L, em.createQuery("SELECT COUNT(v) FROM Vehicle v", Long.class).getSingleResult());
+        assertEquals(6, Files.readAllLines(rejects, StandardCharsets.UTF_8).size());
+        assertEquals(0, second.imported(), "Повторный импорт не должен создавать дубликаты");
+        assertEquals(5000, second.rejected());
+    }
+
+    @DisplayName("Файл без нужного столбца отклоняется целиком")
+    @Test
+    void testMissingColumnIsRejected() throws IOException {
+        // Подготовка
+        Path lots = write("lots.csv", "name,capacity", "Центр,100");
+
+        // Действие и проверка
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> importService.importLots(lots, dir.resolve("rejects.csv")));
+        assertEquals("В заголовке CSV отсутствует столбец address", e.getMessage());
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
\ No newline at end of file
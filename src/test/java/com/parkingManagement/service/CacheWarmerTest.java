@@ -0,0 +1,169 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.model.VehicleOwner;
+import com.parkingManagement.util.PlateIndex;
+import com.parkingManagement.util.TinyLfuCache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования прогрева кэшей CacheWarmer с использованием методологии AAA.
+ */
+class CacheWarmerTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 15, 8, 0);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingLot lot;
+    private List<ParkingSpace> spaces;
+    private List<Vehicle> vehicles;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных и создаёт парковку с тремя местами, три автомобиля и их сессии перед каждым тестом:
+     * первый автомобиль въезжал раньше всех, третий ещё стоит на парковке.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        lot = new ParkingLot(null, "Центр", "ул. Ленина, 1", 3);
+        new ParkingLotDao(em).create(lot);
+        spaces = List.of(new ParkingSpace(null, lot, "A1", "REGULAR"),
+                new ParkingSpace(null, lot, "A2", "REGULAR"), new ParkingSpace(null, lot, "A3", "REGULAR"));
+        spaces.forEach(new ParkingSpaceDao(em)::create);
+        Client client = new Client(null, "Иван", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        vehicles = List.of(new Vehicle(null, client, "А001АА77", null, null),
+                new Vehicle(null, client, "В002ВВ77", null, null), new Vehicle(null, client, "С003СС77", null, null));
+        vehicles.forEach(new VehicleDao(em)::create);
+        ParkingRecordDao recordDao = new ParkingRecordDao(em);
+        for (int i = 0; i < 3; i++) {
+            LocalDateTime entry = DAY.plusHours(i);
+            recordDao.create(new ParkingRecord(null, spaces.get(i), vehicles.get(i), client, entry,
+                    i == 2 ? null : entry.plusMinutes(30)));
+        }
+    }
+
+    @DisplayName("Прогрев параллельно заполняет все подключённые кэши, и въезд обходится без запросов к базе")
+    @Test
+    void testWarmupFillsConfiguredCaches() {
+        // Подготовка
+        PlateIndex plateIndex = new PlateIndex();
+        PlateFilter plateFilter = new PlateFilter(100, 0.01);
+        FreeSpacePool freeSpacePool = new FreeSpacePool();
+        TinyLfuCache<String, VehicleOwner> ownerCache = new TinyLfuCache<>(2, Duration.ofMinutes(5));
+        TinyLfuCache<Long, ParkingSpace> spaceCache = new TinyLfuCache<>(10, Duration.ofMinutes(5));
+        OverstayMonitor overstayMonitor = new OverstayMonitor(new ParkingRecordDao(em), Duration.ofHours(4), DAY);
+        CacheWarmer warmer = new CacheWarmer(emf, 3).plateIndex(plateIndex).plateFilter(plateFilter)
+                .freeSpaces(freeSpacePool).recentOwners(ownerCache).openSessions(overstayMonitor)
+                .referenceData(spaceCache);
+
+        // Действие
+        CacheWarmer.Report report = warmer.run(Duration.ofSeconds(30));
+
+        // Проверка
+        assertTrue(report.completed());
+        assertEquals(Map.of("plateIndex", 3L, "plateFilter", 3L, "freeSpaces", 2L, "recentOwners", 2L,
+                "openSessions", 1L, "referenceData", 3L), report.loaded());
+        assertEquals(14, report.getTotalLoaded());
+        assertEquals(3, plateIndex.size());
+        assertTrue(plateFilter.mightContain("A001AA77"));
+        assertEquals(2, freeSpacePool.acquire(lot.getId(), 5, () -> {
+            throw new AssertionError("Пул свободных мест должен быть прогрет");
+        }).size());
+        assertEquals("С003СС77", ownerCache.getIfPresent("С003СС77").licensePlate(),
+                "Последний въехавший автомобиль должен быть в кэше");
+        assertEquals("В002ВВ77", ownerCache.getIfPresent("В002ВВ77").licensePlate());
+        assertEquals(null, ownerCache.getIfPresent("А001АА77"), "Прогрев не должен превышать размер кэша");
+        assertEquals(1, overstayMonitor.getPendingCount());
+        ParkingSpace cached = spaceCache.getIfPresent(spaces.get(0).getId());
+        assertEquals("A1", cached.getSpaceNumber());
+        assertEquals("Центр", cached.getParkingLot().getName(), "Парковка места должна загружаться вместе с ним");
+    }
+
+    @DisplayName("Прогрев возвращается к сроку, сообщая о незавершённых и упавших загрузках")
+    @Test
+    void testWarmupStopsWaitingAtDeadline() throws InterruptedException {
+        // Подготовка
+        CountDownLatch release = new CountDownLatch(1);
+        TinyLfuCache<String, VehicleOwner> ownerCache = new TinyLfuCache<>(10, Duration.ofMinutes(5));
+        CacheWarmer warmer = new CacheWarmer(emf, 2)
+                .add("slow", em -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return 0L;
+                })
+                .add("broken", em -> {
+                    throw new IllegalStateException("Нет соединения");
+                })
+                .recentOwners(ownerCache);
+
+        // Действие
+        // Срок с запасом на первый запрос холодного Hibernate; медленная загрузка ждёт дольше любого срока
+        CacheWarmer.Report report = warmer.run(Duration.ofSeconds(3));
+        release.countDown();
+
+        // Проверка
+        assertFalse(report.completed());
+        assertEquals(List.of("slow"), report.pending());
+        assertEquals(Map.of("broken", "Нет соединения"), report.failures());
+        assertEquals(Map.of("recentOwners", 3L), report.loaded());
+        assertTrue(report.elapsed().toMillis() < 10_000, "Прогрев не должен ждать дольше срока");
+        assertThrows(IllegalArgumentException.class, () -> warmer.add("slow", em -> 0L));
+    }
+}
\ No newline at end of file
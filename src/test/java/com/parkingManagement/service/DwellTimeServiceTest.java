@@ -0,0 +1,247 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.DwellSketchDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.DwellSketch;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.util.LogHistogram;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования перцентилей длительности стоянки DwellTimeService с использованием методологии AAA.
+ */
+class DwellTimeServiceTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingRecordDao parkingRecordDao;
+    private ParkingRecordService parkingRecordService;
+    private DwellTimeService dwellTimeService;
+    private ParkingSpace space;
+    private Vehicle vehicle;
+    private Client client;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Подготавливает сервисы, очищает базу данных и создаёт справочные данные перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM DwellSketch").executeUpdate();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        parkingRecordDao = new ParkingRecordDao(em);
+        parkingRecordService = new ParkingRecordService(parkingRecordDao);
+        dwellTimeService = new DwellTimeService(new DwellSketchDao(em), parkingRecordDao);
+
+        client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        new ParkingLotDao(em).create(lot);
+        space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        new ParkingSpaceDao(em).create(space);
+        vehicle = new Vehicle(null, client, "АВС123", "Toyota", "Camry");
+        new VehicleDao(em).create(vehicle);
+    }
+
+    @DisplayName("Объединённые гистограммы дают перцентили с относительной погрешностью не более 1/64")
+    @Test
+    void testMergedQuantilesWithinErrorBound() {
+        // Подготовка
+        Random random = new Random(42);
+        long[] exact = new long[50_000];
+        LogHistogram[] days = new LogHistogram[30];
+        for (int i = 0; i < days.length; i++) {
+            days[i] = new LogHistogram();
+        }
+        for (int i = 0; i < exact.length; i++) {
+            exact[i] = (long) Math.exp(6 + random.nextGaussian() * 1.5);
+            days[i % days.length].record(exact[i]);
+        }
+        Arrays.sort(exact);
+
+        // Действие
+        LogHistogram merged = new LogHistogram();
+        for (LogHistogram day : days) {
+            merged.merge(LogHistogram.fromBytes(day.toBytes()));
+        }
+
+        // Проверка
+        assertEquals(exact.length, merged.getTotalCount(), "Объединение должно сохранить число значений");
+        for (double q : new double[]{0.01, 0.5, 0.9, 0.95, 0.99, 1.0}) {
+            long expected = exact[(int) Math.ceil(q * exact.length) - 1];
+            long actual = merged.quantile(q);
+            assertTrue(Math.abs(actual - expected) <= expected / 64,
+                    "Квантиль " + q + ": оценка " + actual + " при точном значении " + expected);
+        }
+        assertTrue(merged.toBytes().length < 2048, "Сериализованная гистограмма должна быть компактной");
+    }
+
+    @DisplayName("Завершение сессии пополняет гистограмму, перцентили объединяются за интервал дней")
+    @Test
+    void testCheckOutUpdatesPercentiles() {
+        // Подготовка
+        parkingRecordService.addListener(dwellTimeService);
+        int[] minutes = {30, 60, 90, 120};
+        for (int i = 0; i < minutes.length; i++) {
+            ParkingRecord record = new ParkingRecord(null, space, vehicle, client, DAY.plusDays(i).atTime(9, 0), null);
+            parkingRecordService.createParkingRecord(record);
+            parkingRecordService.checkOut(record.getId(), record.getEntryTime().plusMinutes(minutes[i]));
+        }
+        Long lotId = space.getParkingLot().getId();
+
+        // Действие
+        long[] all = dwellTimeService.getDwellPercentiles(lotId, null, DAY, DAY.plusDays(3), 0.5, 1.0);
+        long[] firstTwo = dwellTimeService.getDwellPercentiles(lotId, "REGULAR", DAY, DAY.plusDays(1), 1.0);
+
+        // Проверка
+        assertTrue(Math.abs(all[0] - 3600) <= 3600 / 64, "Медиана должна быть около 60 минут");
+        assertTrue(Math.abs(all[1] - 7200) <= 7200 / 64, "Максимум должен быть около 120 минут");
+        assertTrue(Math.abs(firstTwo[0] - 3600) <= 3600 / 64, "Максимум первых двух дней должен быть около 60 минут");
+        assertArrayEquals(new long[]{0}, dwellTimeService.getDwellPercentiles(lotId, "VIP", DAY, DAY, 0.5),
+                "Без сессий перцентиль должен быть равен нулю");
+    }
+
+    @DisplayName("Пересчёт по истории совпадает с инкрементальным обновлением")
+    @Test
+    void testRebuildMatchesIncremental() {
+        // Подготовка
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, DAY.atTime(8, 0), DAY.atTime(8, 45)));
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, DAY.atTime(10, 0), DAY.atTime(13, 0)));
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, DAY.atTime(14, 0), null));
+
+        // Действие
+        int rebuilt = dwellTimeService.rebuild(DAY, DAY);
+        dwellTimeService.rebuild(DAY, DAY);
+
+        // Проверка
+        assertEquals(1, rebuilt, "Должна быть пересчитана одна гистограмма");
+        LogHistogram histogram = dwellTimeService.getDwellHistogram(space.getParkingLot().getId(), null, DAY, DAY);
+        assertEquals(2, histogram.getTotalCount(), "Открытая сессия не должна учитываться, пересчёт идемпотентен");
+        assertTrue(Math.abs(histogram.quantile(1.0) - 10800) <= 10800 / 64, "Максимум должен быть около 3 часов");
+    }
+
+    @DisplayName("Одновременные объединения гистограммы одного дня не теряют значений")
+    @Test
+    void testConcurrentMergesAreNotLost() throws Exception {
+        // Подготовка
+        Long lotId = space.getParkingLot().getId();
+        int threads = 4;
+        int mergesPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Действие
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                EntityManager workerEm = emf.createEntityManager();
+                try {
+                    DwellSketchDao workerDao = new DwellSketchDao(workerEm);
+                    start.await();
+                    for (int i = 0; i < mergesPerThread; i++) {
+                        LogHistogram delta = new LogHistogram();
+                        delta.record(600);
+                        workerDao.merge(lotId, "REGULAR", DAY, delta);
+                    }
+                    return null;
+                } finally {
+                    workerEm.close();
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Проверка
+        LogHistogram histogram = dwellTimeService.getDwellHistogram(lotId, "REGULAR", DAY, DAY);
+        assertEquals(threads * mergesPerThread, histogram.getTotalCount(), "Все значения должны быть учтены");
+    }
+
+    @DisplayName("Ошибка пересчёта дня не удаляет гистограммы этого и последующих дней")
+    @Test
+    void testFailedRebuildKeepsRemainingDays() {
+        // Подготовка
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, DAY.atTime(8, 0), DAY.atTime(9, 0)));
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client,
+                DAY.plusDays(1).atTime(8, 0), DAY.plusDays(1).atTime(10, 0)));
+        dwellTimeService.rebuild(DAY, DAY.plusDays(1));
+        DwellTimeService failing = new DwellTimeService(new DwellSketchDao(em) {
+            @Override
+            public void replaceDay(LocalDate day, Collection<DwellSketch> sketches) {
+                throw new PersistenceException("Имитация сбоя базы данных");
+            }
+        }, parkingRecordDao);
+        Long lotId = space.getParkingLot().getId();
+
+        // Действие
+        assertThrows(PersistenceException.class, () -> failing.rebuild(DAY, DAY.plusDays(1)));
+
+        // Проверка
+        assertEquals(1, dwellTimeService.getDwellHistogram(lotId, null, DAY, DAY).getTotalCount(),
+                "Гистограмма первого дня должна сохраниться");
+        assertEquals(1, dwellTimeService.getDwellHistogram(lotId, null, DAY.plusDays(1), DAY.plusDays(1))
+                .getTotalCount(), "Гистограмма второго дня должна сохраниться");
+    }
+}
\ No newline at end of file
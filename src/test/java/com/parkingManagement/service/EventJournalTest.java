@@ -0,0 +1,205 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.JournalDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.JournalEvent;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Класс для тестирования журнала операций EventJournal и моделей чтения с использованием методологии AAA.
+ */
+class EventJournalTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 15, 8, 0);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private EventJournal journal;
+    private ParkingLotService lotService;
+    private ParkingSpaceService spaceService;
+    private ClientService clientService;
+    private VehicleService vehicleService;
+    private ParkingRecordService recordService;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных и создаёт сервисы, записывающие изменения в журнал, перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM JournalEvent").executeUpdate();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        journal = new EventJournal(emf);
+        lotService = new ParkingLotService(new ParkingLotDao(em), null, journal);
+        spaceService = new ParkingSpaceService(new ParkingSpaceDao(em), journal);
+        clientService = new ClientService(new ClientDao(em), journal);
+        vehicleService = VehicleService.builder().journal(journal).build(new VehicleDao(em));
+        recordService = new ParkingRecordService(new ParkingRecordDao(em), journal);
+    }
+
+    /**
+     * Закрывает журнал после каждого теста.
+     */
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @DisplayName("Изменения сервисов записываются в журнал и обновляют подписанные модели чтения")
+    @Test
+    void testMutationsAreJournaledAndProjected() {
+        // Подготовка
+        OccupancyReadModel occupancy = new OccupancyReadModel();
+        ActiveSessionsReadModel active = new ActiveSessionsReadModel();
+        journal.subscribe(occupancy);
+        journal.subscribe(active);
+        ParkingLot lot = new ParkingLot(null, "Центр", "ул. Ленина, 1", 10);
+        lotService.createParkingLot(lot);
+        ParkingSpace space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        spaceService.createParkingSpace(space);
+        Client client = new Client(null, "Иван", "+79123456789", "ivan@example.com");
+        clientService.createClient(client);
+        Vehicle vehicle = new Vehicle(null, client, "А123ВС77", "Toyota", "Camry");
+        vehicleService.createVehicle(vehicle);
+
+        // Действие
+        ParkingRecord first = new ParkingRecord(null, space, vehicle, client, DAY, null);
+        recordService.createParkingRecord(first);
+        lot.setCapacity(20);
+        lotService.updateParkingLot(lot);
+        ParkingOccupancySnapshot beforeExit = snapshot(occupancy, active, lot.getId());
+        recordService.checkOut(first.getId(), DAY.plusHours(2));
+        ParkingRecord second = new ParkingRecord(null, space, vehicle, client, DAY.plusHours(3), null);
+        recordService.createParkingRecord(second);
+        recordService.deleteParkingRecord(second.getId());
+
+        // Проверка
+        List<JournalEvent.Type> types = new ArrayList<>();
+        new JournalDao(em).forEachEvent(0, Long.MAX_VALUE, List.of(JournalEvent.Type.values()),
+                "aggregateId", 1, 0, event -> types.add(event.getType()));
+        assertEquals(List.of(JournalEvent.Type.LOT_CREATED, JournalEvent.Type.SPACE_CREATED,
+                JournalEvent.Type.CLIENT_CREATED, JournalEvent.Type.VEHICLE_CREATED, JournalEvent.Type.CHECK_IN,
+                JournalEvent.Type.LOT_UPDATED, JournalEvent.Type.CHECK_OUT, JournalEvent.Type.CHECK_IN,
+                JournalEvent.Type.RECORD_DELETED), types);
+        assertEquals(new ParkingOccupancySnapshot(20, 1, 1), beforeExit);
+        assertEquals(new ParkingOccupancySnapshot(20, 0, 0), snapshot(occupancy, active, lot.getId()));
+    }
+
+    @DisplayName("Модели чтения перестраиваются параллельным воспроизведением журнала с тем же результатом")
+    @Test
+    void testParallelRebuildMatchesLiveProjection() {
+        // Подготовка
+        OccupancyReadModel liveOccupancy = new OccupancyReadModel();
+        ClientStatsReadModel liveStats = new ClientStatsReadModel();
+        journal.subscribe(liveOccupancy);
+        journal.subscribe(liveStats);
+        List<ParkingSpace> spaces = new ArrayList<>();
+        for (int l = 0; l < 3; l++) {
+            ParkingLot lot = new ParkingLot(null, "Парковка " + l, "Адрес " + l, 50);
+            lotService.createParkingLot(lot);
+            for (int s = 0; s < 4; s++) {
+                ParkingSpace space = new ParkingSpace(null, lot, "S" + s, "REGULAR");
+                spaceService.createParkingSpace(space);
+                spaces.add(space);
+            }
+        }
+        List<Client> clients = new ArrayList<>();
+        List<Vehicle> vehicles = new ArrayList<>();
+        for (int c = 0; c < 5; c++) {
+            Client client = new Client(null, "Клиент " + c, null, "c" + c + "@example.com");
+            clientService.createClient(client);
+            clients.add(client);
+            Vehicle vehicle = new Vehicle(null, client, "P" + c, null, null);
+            vehicleService.createVehicle(vehicle);
+            vehicles.add(vehicle);
+        }
+        for (int i = 0; i < 60; i++) {
+            LocalDateTime entry = DAY.plusHours(i);
+            boolean open = i >= 55;
+            recordService.createParkingRecord(new ParkingRecord(null, spaces.get(i % spaces.size()),
+                    vehicles.get(i % 5), clients.get(i % 5), entry, open ? null : entry.plusMinutes(30 + i)));
+        }
+        long offset = journal.getLastOffset();
+
+        // Действие
+        OccupancyReadModel rebuiltOccupancy = new OccupancyReadModel();
+        ClientStatsReadModel rebuiltStats = new ClientStatsReadModel();
+        long occupancyEvents = journal.rebuild(rebuiltOccupancy, 4);
+        journal.rebuild(rebuiltStats, 3);
+        OccupancyReadModel caughtUp = new OccupancyReadModel();
+        journal.replay(caughtUp, 0, 2);
+        recordService.checkOut(recordService.getAllParkingRecords().stream()
+                .filter(r -> r.getExitTime() == null).findFirst().orElseThrow().getId(), DAY.plusDays(10));
+
+        // Проверка
+        assertEquals(3 + 60 + 60 - 5, occupancyEvents);
+        assertEquals(liveOccupancy.getOccupancy(), rebuiltOccupancy.getOccupancy());
+        assertEquals(4, liveOccupancy.getOccupancy().values().stream().mapToInt(o -> o.occupied()).sum(),
+                "После выезда одна из пяти открытых сессий должна закрыться");
+        assertEquals(liveOccupancy.getOccupancy(), caughtUp.getOccupancy(),
+                "Подписка после воспроизведения не должна терять события");
+        for (Client client : clients) {
+            assertEquals(liveStats.getStats(client.getId()), rebuiltStats.getStats(client.getId()));
+        }
+        assertEquals(12, liveStats.getStats(clients.get(0).getId()).visits());
+        assertNull(rebuiltOccupancy.getOccupancy(-1L));
+        assertEquals(offset + 1, journal.getLastOffset());
+    }
+
+    private static ParkingOccupancySnapshot snapshot(OccupancyReadModel occupancy, ActiveSessionsReadModel active,
+                                                     Long lotId) {
+        OccupancyReadModel.LotOccupancy lot = occupancy.getOccupancy(lotId);
+        return new ParkingOccupancySnapshot(lot.capacity(), lot.occupied(), active.getActiveSessions().size());
+    }
+
+    private record ParkingOccupancySnapshot(int capacity, int occupied, int active) {
+    }
+}
\ No newline at end of file
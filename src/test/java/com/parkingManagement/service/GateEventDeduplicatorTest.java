@@ -0,0 +1,168 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.GateEvent;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования дедупликации событий ворот GateEventDeduplicator с использованием методологии AAA.
+ */
+class GateEventDeduplicatorTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 15, 8, 0);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private GateEventDeduplicator deduplicator;
+    private ParkingSpace space;
+    private Vehicle vehicle;
+    private Client client;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных и создаёт место и автомобиль перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        new ParkingLotDao(em).create(lot);
+        space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        new ParkingSpaceDao(em).create(space);
+        vehicle = new Vehicle(null, client, "А123ВС77", "Toyota", "Camry");
+        new VehicleDao(em).create(vehicle);
+        deduplicator = new GateEventDeduplicator(new ParkingRecordService(new ParkingRecordDao(em)),
+                Duration.ofSeconds(10), 1024);
+    }
+
+    @DisplayName("Повторы въезда и выезда в окне отбрасываются до обращения к базе")
+    @Test
+    void testDuplicatesWithinWindowAreDropped() {
+        // Действие
+        ParkingRecord first = deduplicator.checkIn("north", newRecord(BASE));
+        ParkingRecord repeated = deduplicator.checkIn("north", newRecord(BASE.plusSeconds(2)));
+        ParkingRecord closed = deduplicator.checkOut("south", "а123 вс77", first.getId(), BASE.plusHours(1));
+        ParkingRecord repeatedExit = deduplicator.checkOut("south", "А123ВС77", first.getId(),
+                BASE.plusHours(1).plusSeconds(1));
+
+        // Проверка
+        assertNotNull(first, "Первый въезд должен быть записан");
+        assertNull(repeated, "Повтор въезда должен быть отброшен");
+        assertNotNull(closed, "Первый выезд должен завершить сессию");
+        assertNull(repeatedExit, "Повтор выезда должен быть отброшен без ошибки");
+        assertEquals(1L, em.createQuery("SELECT COUNT(p) FROM ParkingRecord p", Long.class).getSingleResult(),
+                "Должна быть создана одна запись");
+        GateEventDeduplicator.Metrics metrics = deduplicator.getMetrics();
+        assertEquals(new GateEventDeduplicator.Metrics(2, 1, 2, 1), metrics);
+        assertEquals(0.5, metrics.hitRate(), 1e-9, "Половина событий должна быть отброшена");
+    }
+
+    @DisplayName("Событие после окна, с других ворот или другого типа не считается повтором")
+    @Test
+    void testDistinctKeysAndExpiredWindow() {
+        // Действие
+        boolean first = deduplicator.isDuplicate("north", "А123ВС77", GateEvent.Type.ENTRY, BASE);
+        boolean otherGate = deduplicator.isDuplicate("south", "А123ВС77", GateEvent.Type.ENTRY, BASE);
+        boolean otherType = deduplicator.isDuplicate("north", "А123ВС77", GateEvent.Type.EXIT, BASE);
+        boolean insideWindow = deduplicator.isDuplicate("north", "А123ВС77", GateEvent.Type.ENTRY, BASE.plusSeconds(9));
+        boolean afterWindow = deduplicator.isDuplicate("north", "А123ВС77", GateEvent.Type.ENTRY, BASE.plusSeconds(10));
+
+        // Проверка
+        assertFalse(first);
+        assertFalse(otherGate, "События разных ворот не должны совпадать");
+        assertFalse(otherType, "Въезд и выезд не должны совпадать");
+        assertTrue(insideWindow, "Повтор внутри окна должен быть отброшен");
+        assertFalse(afterWindow, "Событие после окна должно быть принято");
+    }
+
+    @DisplayName("Въезд, отклонённый сервисом, не отбрасывает повтор как дубликат")
+    @Test
+    void testFailedCheckInIsForgotten() {
+        // Подготовка
+        ParkingRecord invalid = new ParkingRecord(null, null, vehicle, client, BASE, null);
+
+        // Действие
+        assertThrows(IllegalArgumentException.class, () -> deduplicator.checkIn("north", invalid));
+        ParkingRecord retried = deduplicator.checkIn("north", newRecord(BASE.plusSeconds(1)));
+        ParkingRecord repeated = deduplicator.checkIn("north", newRecord(BASE.plusSeconds(2)));
+
+        // Проверка
+        assertNotNull(retried, "Повтор неудавшегося въезда должен быть обработан");
+        assertNull(repeated, "Повтор успешного въезда должен быть отброшен");
+        assertEquals(1L, em.createQuery("SELECT COUNT(p) FROM ParkingRecord p", Long.class).getSingleResult());
+    }
+
+    @DisplayName("Окно вытесняет самые старые ключи при переполнении")
+    @Test
+    void testWindowEvictsOldestWhenFull() {
+        // Подготовка
+        GateEventDeduplicator small = new GateEventDeduplicator(null, Duration.ofMinutes(1), 100);
+        for (int i = 0; i < 10_000; i++) {
+            small.isDuplicate("gate", "P" + i, GateEvent.Type.ENTRY, BASE);
+        }
+
+        // Действие
+        boolean recent = small.isDuplicate("gate", "P9999", GateEvent.Type.ENTRY, BASE);
+        boolean evicted = small.isDuplicate("gate", "P0", GateEvent.Type.ENTRY, BASE);
+
+        // Проверка
+        assertTrue(recent, "Недавний ключ должен остаться в окне");
+        assertFalse(evicted, "Самый старый ключ должен быть вытеснен");
+    }
+
+    private ParkingRecord newRecord(LocalDateTime entryTime) {
+        return new ParkingRecord(null, space, vehicle, client, entryTime, null);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,272 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.BatchCheckpointDao;
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.GateEvent;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.util.WriteAheadLog;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования журнала событий ворот GateEventLogService с использованием методологии AAA.
+ */
+class GateEventLogServiceTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 15, 8, 0);
+    private static final int SEGMENT_SIZE = 512;
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private EntityManager serviceEm;
+    private final List<Vehicle> vehicles = new ArrayList<>();
+    private final List<ParkingSpace> spaces = new ArrayList<>();
+
+    @TempDir
+    Path walDir;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных и создаёт автомобили и места перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM BatchCheckpoint").executeUpdate();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 100);
+        new ParkingLotDao(em).create(lot);
+        vehicles.clear();
+        spaces.clear();
+        for (int i = 0; i < 20; i++) {
+            ParkingSpace space = new ParkingSpace(null, lot, "A" + i, "REGULAR");
+            new ParkingSpaceDao(em).create(space);
+            spaces.add(space);
+            Vehicle vehicle = new Vehicle(null, client, "А" + (100 + i) + "ВС", "Toyota", "Camry");
+            new VehicleDao(em).create(vehicle);
+            vehicles.add(vehicle);
+        }
+        serviceEm = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager сервиса после каждого теста.
+     */
+    @AfterEach
+    void tearDown() {
+        serviceEm.close();
+    }
+
+    @DisplayName("Подтверждённые события переносятся в базу, применённые сегменты удаляются")
+    @Test
+    void testEventsAreAppliedAndSegmentsTruncated() {
+        // Подготовка
+        try (WriteAheadLog log = openLog(WriteAheadLog.SyncPolicy.BATCH);
+             GateEventLogService service = newService(log)) {
+            service.start();
+
+            // Действие
+            for (int i = 0; i < vehicles.size(); i++) {
+                service.record(GateEvent.entry(vehicles.get(i).getId(), spaces.get(i).getId(), BASE));
+            }
+            for (Vehicle vehicle : vehicles) {
+                service.record(GateEvent.exit(vehicle.getId(), BASE.plusHours(1)));
+            }
+            service.record(GateEvent.exit(vehicles.get(0).getId(), BASE.plusHours(2)));
+
+            // Проверка
+            assertTrue(service.awaitApplied(Duration.ofSeconds(10)), "События должны быть перенесены в базу");
+            assertEquals(41, service.getAppliedEvents());
+            assertEquals(1, service.getRejectedEvents(), "Повторный выезд должен быть отклонён");
+            assertEquals(1, log.getSegmentCount(), "Применённые сегменты должны быть удалены");
+            assertEquals(41L, new BatchCheckpointDao(em).findPosition(GateEventLogService.CHECKPOINT_JOB));
+            assertEquals(20L, countCompletedSessions());
+        }
+    }
+
+    @DisplayName("После сбоя события из журнала применяются при запуске ровно один раз")
+    @Test
+    void testReplayAfterCrashIsIdempotent() {
+        // Подготовка: события подтверждены журналом, но процесс упал до переноса в базу
+        try (WriteAheadLog log = openLog(WriteAheadLog.SyncPolicy.ALWAYS)) {
+            for (int i = 0; i < vehicles.size(); i++) {
+                log.append(GateEventLogService.encode(
+                        GateEvent.entry(vehicles.get(i).getId(), spaces.get(i).getId(), BASE)));
+            }
+        }
+
+        // Действие
+        int recovered;
+        try (WriteAheadLog log = openLog(WriteAheadLog.SyncPolicy.ALWAYS);
+             GateEventLogService service = newService(log)) {
+            recovered = service.start();
+            assertTrue(service.awaitApplied(Duration.ofSeconds(10)), "События должны быть перенесены в базу");
+        }
+        int recoveredAgain;
+        try (WriteAheadLog log = openLog(WriteAheadLog.SyncPolicy.ALWAYS);
+             GateEventLogService service = newService(log)) {
+            recoveredAgain = service.start();
+        }
+
+        // Проверка
+        assertEquals(20, recovered, "Все подтверждённые события должны быть восстановлены");
+        assertEquals(0, recoveredAgain, "Применённые события не должны восстанавливаться повторно");
+        em.clear();
+        assertEquals(20L, em.createQuery("SELECT COUNT(p) FROM ParkingRecord p", Long.class).getSingleResult(),
+                "Сессии не должны дублироваться");
+    }
+
+    @DisplayName("Оборванная последняя запись журнала отбрасывается при открытии")
+    @Test
+    void testTornTailIsDiscarded() throws IOException {
+        // Подготовка
+        try (WriteAheadLog log = openLog(WriteAheadLog.SyncPolicy.INTERVAL)) {
+            for (int i = 0; i < 3; i++) {
+                log.append(GateEventLogService.encode(GateEvent.exit(vehicles.get(i).getId(), BASE)));
+            }
+        }
+        Path segment;
+        try (var files = Files.list(walDir)) {
+            segment = files.sorted().reduce((a, b) -> b).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Портится последний байт данных третьей записи (заголовок 16 байт + 29 байт данных)
+            channel.write(ByteBuffer.wrap(new byte[]{0x7F}), 3 * 45 - 1);
+        }
+
+        // Действие
+        List<WriteAheadLog.Entry> entries = new ArrayList<>();
+        long appended;
+        try (WriteAheadLog log = openLog(WriteAheadLog.SyncPolicy.BATCH)) {
+            appended = log.append(GateEventLogService.encode(GateEvent.exit(vehicles.get(3).getId(), BASE)));
+            log.replay(0, entries::add);
+        }
+
+        // Проверка
+        assertEquals(3, appended, "Номер повреждённой записи должен быть выдан заново");
+        assertEquals(3, entries.size());
+        assertEquals(vehicles.get(3).getId(), GateEventLogService.decode(entries.get(2).payload()).vehicleId(),
+                "На месте повреждённой записи должна оказаться новая");
+    }
+
+    @DisplayName("Событие, отклонённое базой, пропускается, а остальные события пакета применяются")
+    @Test
+    void testEventRejectedByDatabaseDoesNotStallLog() {
+        // Подготовка: повторный въезд на занятое место нарушает ограничение базы данных
+        GateEvent duplicate = GateEvent.entry(vehicles.get(1).getId(), spaces.get(0).getId(), BASE.plusMinutes(5));
+        ParkingRecordDao dao = new ParkingRecordDao(serviceEm) {
+            @Override
+            public List<ParkingRecord> applyGateEvents(List<GateEvent> events, String job, long position) {
+                if (events.contains(duplicate)) {
+                    throw new PersistenceException("нарушено ограничение no_overlapping_sessions");
+                }
+                return super.applyGateEvents(events, job, position);
+            }
+        };
+        try (WriteAheadLog log = openLog(WriteAheadLog.SyncPolicy.BATCH);
+             GateEventLogService service = new GateEventLogService(log, dao, new BatchCheckpointDao(serviceEm),
+                     8, Duration.ofMillis(10))) {
+            service.start();
+
+            // Действие
+            service.record(GateEvent.entry(vehicles.get(0).getId(), spaces.get(0).getId(), BASE));
+            service.record(duplicate);
+            service.record(GateEvent.exit(vehicles.get(0).getId(), BASE.plusHours(1)));
+
+            // Проверка
+            assertTrue(service.awaitApplied(Duration.ofSeconds(10)), "Отклонённое событие не должно останавливать перенос");
+            assertEquals(3, service.getAppliedEvents());
+            assertEquals(1, service.getRejectedEvents());
+            assertEquals(3L, new BatchCheckpointDao(em).findPosition(GateEventLogService.CHECKPOINT_JOB));
+            assertEquals(1L, countCompletedSessions());
+        }
+    }
+
+    @DisplayName("Пустая запись не принимается журналом")
+    @Test
+    void testEmptyPayloadIsRejected() {
+        // Подготовка
+        try (WriteAheadLog log = openLog(WriteAheadLog.SyncPolicy.BATCH)) {
+
+            // Действие
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> log.append(new byte[0]));
+
+            // Проверка
+            assertEquals("Запись журнала не может быть пустой", exception.getMessage());
+            assertEquals(0, log.getLastSequence());
+        }
+    }
+
+    private WriteAheadLog openLog(WriteAheadLog.SyncPolicy policy) {
+        return new WriteAheadLog(walDir, SEGMENT_SIZE, policy, Duration.ofMillis(5));
+    }
+
+    private GateEventLogService newService(WriteAheadLog log) {
+        return new GateEventLogService(log, new ParkingRecordDao(serviceEm), new BatchCheckpointDao(serviceEm),
+                8, Duration.ofMillis(10));
+    }
+
+    private long countCompletedSessions() {
+        em.clear();
+        return em.createQuery("SELECT COUNT(p) FROM ParkingRecord p WHERE p.exitTime IS NOT NULL", Long.class)
+                .getSingleResult();
+    }
+}
\ No newline at end of file
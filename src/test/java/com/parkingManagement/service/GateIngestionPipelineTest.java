@@ -0,0 +1,319 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.GateEvent;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.util.BoundedMpscQueue;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования конвейера приёма событий ворот GateIngestionPipeline с использованием методологии AAA.
+ */
+class GateIngestionPipelineTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 15, 8, 0);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private EntityManager pipelineEm;
+    private GateIngestionPipeline pipeline;
+    private final List<Vehicle> vehicles = new ArrayList<>();
+    private final List<ParkingSpace> spaces = new ArrayList<>();
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных, создаёт автомобили и места и запускает конвейер перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 100);
+        new ParkingLotDao(em).create(lot);
+        vehicles.clear();
+        spaces.clear();
+        for (int i = 0; i < 40; i++) {
+            ParkingSpace space = new ParkingSpace(null, lot, "A" + i, "REGULAR");
+            new ParkingSpaceDao(em).create(space);
+            spaces.add(space);
+            Vehicle vehicle = new Vehicle(null, client, "А" + (100 + i) + "ВС", "Toyota", "Camry");
+            new VehicleDao(em).create(vehicle);
+            vehicles.add(vehicle);
+        }
+        pipelineEm = emf.createEntityManager();
+        pipeline = new GateIngestionPipeline(new ParkingRecordDao(pipelineEm), 64, 16, Duration.ofMillis(5));
+        pipeline.start();
+    }
+
+    /**
+     * Останавливает конвейер после каждого теста.
+     */
+    @AfterEach
+    void tearDown() {
+        pipeline.close();
+        pipelineEm.close();
+    }
+
+    @DisplayName("События въезда и выезда записываются пакетами и завершают свои future")
+    @Test
+    void testEntriesAndExitsAreBatched() throws Exception {
+        // Подготовка
+        AtomicInteger checkIns = new AtomicInteger();
+        pipeline.addListener(new ParkingRecordListener() {
+            @Override
+            public void onCheckIn(ParkingRecord record) {
+                checkIns.incrementAndGet();
+            }
+        });
+
+        // Действие
+        List<CompletableFuture<ParkingRecord>> entries = new ArrayList<>();
+        for (int i = 0; i < vehicles.size(); i++) {
+            entries.add(pipeline.submit(GateEvent.entry(vehicles.get(i).getId(), spaces.get(i).getId(), BASE)));
+        }
+        for (CompletableFuture<ParkingRecord> entry : entries) {
+            entry.get();
+        }
+        List<CompletableFuture<ParkingRecord>> exits = new ArrayList<>();
+        for (Vehicle vehicle : vehicles) {
+            exits.add(pipeline.submit(GateEvent.exit(vehicle.getId(), BASE.plusHours(2))));
+        }
+        ParkingRecord closed = exits.get(0).get();
+
+        // Проверка
+        for (CompletableFuture<ParkingRecord> exit : exits) {
+            assertEquals(BASE.plusHours(2), exit.get().getExitTime(), "Сессия должна быть завершена");
+        }
+        assertEquals(vehicles.get(0).getClient().getId(), closed.getClient().getId(),
+                "Клиент должен определяться по автомобилю");
+        assertEquals(40, checkIns.get(), "Слушатель должен получить все въезды");
+        assertTrue(pipeline.getCommittedBatches() < 80, "События должны фиксироваться пакетами");
+        em.clear();
+        assertEquals(40L, em.createQuery("SELECT COUNT(p) FROM ParkingRecord p WHERE p.exitTime IS NOT NULL", Long.class)
+                .getSingleResult(), "Все сессии должны быть завершены в базе данных");
+    }
+
+    @DisplayName("Отклонённое событие не мешает остальным событиям пакета")
+    @Test
+    void testRejectedEventFailsOnlyItsFuture() throws Exception {
+        // Действие
+        CompletableFuture<ParkingRecord> entry = pipeline.submit(
+                GateEvent.entry(vehicles.get(0).getId(), spaces.get(0).getId(), BASE));
+        CompletableFuture<ParkingRecord> orphanExit = pipeline.submit(GateEvent.exit(vehicles.get(1).getId(), BASE));
+        CompletableFuture<ParkingRecord> unknownVehicle = pipeline.submit(
+                GateEvent.entry(999_999L, spaces.get(2).getId(), BASE));
+
+        // Проверка
+        assertTrue(entry.get().getId() != null, "Въезд должен быть записан");
+        ExecutionException exitError = assertThrows(ExecutionException.class, orphanExit::get);
+        assertInstanceOf(IllegalArgumentException.class, exitError.getCause(), "Выезд без сессии должен быть отклонён");
+        ExecutionException entryError = assertThrows(ExecutionException.class, unknownVehicle::get);
+        assertEquals("Автомобиль или место не найдены", entryError.getCause().getMessage());
+    }
+
+    @DisplayName("Сбой, не связанный с базой данных, завершает только future виновного события")
+    @Test
+    void testUnexpectedFailureDoesNotStopConsumer() throws Exception {
+        // Подготовка
+        Long poisoned = vehicles.get(1).getId();
+        ParkingRecordDao failing = new ParkingRecordDao(pipelineEm) {
+            @Override
+            public List<ParkingRecord> applyGateEvents(List<GateEvent> events, String checkpointJob, long position) {
+                if (events.stream().anyMatch(event -> event.vehicleId().equals(poisoned))) {
+                    throw new IllegalStateException("Сбой обработки события");
+                }
+                return super.applyGateEvents(events, checkpointJob, position);
+            }
+        };
+        pipeline.close();
+        pipeline = new GateIngestionPipeline(failing, 64, 16, Duration.ofMillis(5));
+        pipeline.start();
+
+        // Действие
+        CompletableFuture<ParkingRecord> first = pipeline.submit(
+                GateEvent.entry(vehicles.get(0).getId(), spaces.get(0).getId(), BASE));
+        CompletableFuture<ParkingRecord> failed = pipeline.submit(GateEvent.entry(poisoned, spaces.get(1).getId(), BASE));
+        CompletableFuture<ParkingRecord> third = pipeline.submit(
+                GateEvent.entry(vehicles.get(2).getId(), spaces.get(2).getId(), BASE));
+        ExecutionException error = assertThrows(ExecutionException.class, failed::get);
+        CompletableFuture<ParkingRecord> later = pipeline.submit(
+                GateEvent.entry(vehicles.get(3).getId(), spaces.get(3).getId(), BASE));
+
+        // Проверка
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        assertTrue(first.get().getId() != null, "Событие до виновного должно быть записано");
+        assertTrue(third.get().getId() != null, "Событие после виновного должно быть записано");
+        assertTrue(later.get().getId() != null, "Потребитель должен продолжать работу после сбоя");
+    }
+
+    @DisplayName("Ошибка слушателя завершает future записанного события этой ошибкой")
+    @Test
+    void testListenerFailureCompletesFutureExceptionally() throws Exception {
+        // Подготовка
+        AtomicInteger notified = new AtomicInteger();
+        pipeline.addListener(new ParkingRecordListener() {
+            @Override
+            public void onCheckIn(ParkingRecord record) {
+                throw new IllegalStateException("Сбой слушателя");
+            }
+        });
+        pipeline.addListener(new ParkingRecordListener() {
+            @Override
+            public void onCheckIn(ParkingRecord record) {
+                notified.incrementAndGet();
+            }
+        });
+
+        // Действие
+        CompletableFuture<ParkingRecord> entry = pipeline.submit(
+                GateEvent.entry(vehicles.get(0).getId(), spaces.get(0).getId(), BASE));
+
+        // Проверка
+        ExecutionException error = assertThrows(ExecutionException.class, entry::get);
+        assertEquals("Сбой слушателя", error.getCause().getMessage());
+        assertEquals(1, notified.get(), "Следующий слушатель должен получить событие");
+        em.clear();
+        assertEquals(1L, em.createQuery("SELECT COUNT(p) FROM ParkingRecord p", Long.class).getSingleResult(),
+                "Событие должно остаться записанным");
+    }
+
+    @DisplayName("Каждый future завершается, даже если событие поставлено одновременно с остановкой")
+    @Test
+    void testCloseCompletesEveryAcceptedFuture() throws Exception {
+        // Подготовка
+        int producers = 4;
+        List<CompletableFuture<ParkingRecord>> accepted = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(producers);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            threads.add(new Thread(() -> {
+                started.countDown();
+                for (int i = 0; ; i++) {
+                    Vehicle vehicle = vehicles.get((producer * 10 + i) % vehicles.size());
+                    try {
+                        accepted.add(pipeline.submit(GateEvent.exit(vehicle.getId(), BASE)));
+                    } catch (IllegalStateException e) {
+                        return;
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        started.await();
+
+        // Действие
+        pipeline.close();
+        for (Thread thread : threads) {
+            thread.join(10_000);
+        }
+
+        // Проверка
+        assertFalse(accepted.isEmpty(), "Производители должны успеть поставить события");
+        for (CompletableFuture<ParkingRecord> future : accepted) {
+            assertTrue(future.isDone(), "Принятое событие не должно остаться без ответа");
+        }
+    }
+
+    @DisplayName("Очередь без блокировок передаёт потребителю каждый элемент ровно один раз")
+    @Test
+    void testQueueDeliversEveryItemOnce() throws InterruptedException {
+        // Подготовка
+        BoundedMpscQueue<Integer> queue = new BoundedMpscQueue<>(1024);
+        int producers = 4;
+        int perProducer = 100_000;
+        boolean[] seen = new boolean[producers * perProducer];
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int offset = p * perProducer;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!queue.offer(offset + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            }));
+        }
+
+        // Действие
+        threads.forEach(Thread::start);
+        int received = 0;
+        int duplicates = 0;
+        while (received < seen.length) {
+            Integer item = queue.poll();
+            if (item == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            if (seen[item]) {
+                duplicates++;
+            }
+            seen[item] = true;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Проверка
+        assertEquals(0, duplicates, "Элементы не должны дублироваться");
+        assertTrue(queue.isEmpty(), "Очередь должна опустеть");
+    }
+}
\ No newline at end of file
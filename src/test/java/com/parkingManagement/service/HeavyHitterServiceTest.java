@@ -0,0 +1,170 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования поиска самых частых автомобилей и клиентов HeavyHitterService.
+ */
+class HeavyHitterServiceTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingRecordDao parkingRecordDao;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+        parkingRecordDao = new ParkingRecordDao(em);
+    }
+
+    @DisplayName("Частые автомобили находятся в потоке въездов с ограниченной погрешностью")
+    @Test
+    void testTopVehiclesInSkewedStream() {
+        // Подготовка
+        HeavyHitterService service = new HeavyHitterService(parkingRecordDao, 100, 31);
+        Random random = new Random(7);
+        long[] exact = new long[5001];
+        for (int i = 0; i < 20_000; i++) {
+            long vehicleId = i % 4 == 0 ? 1 + random.nextInt(10) : 11 + random.nextInt(4990);
+            exact[(int) vehicleId]++;
+            service.onCheckIn(checkIn(1L, vehicleId, vehicleId, DAY.plusDays(i % 3)));
+        }
+
+        // Действие
+        List<HeavyHitterService.HeavyHitter> top = service.getTopVehicles(1L, DAY, DAY.plusDays(2), 10);
+
+        // Проверка
+        Set<Long> ids = new HashSet<>();
+        for (HeavyHitterService.HeavyHitter hitter : top) {
+            ids.add(hitter.id());
+            long actual = exact[hitter.id().intValue()];
+            assertTrue(hitter.guaranteedCount() <= actual && actual <= hitter.count(),
+                    "Истинная частота " + actual + " должна лежать в границах оценки " + hitter);
+        }
+        assertEquals(Set.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), ids, "Лидерами должны быть частые автомобили");
+        assertTrue(service.estimateVehicleVisits(1L, 1L, DAY, DAY.plusDays(2)) >= exact[1],
+                "Оценка частоты не должна быть меньше истинной");
+    }
+
+    @DisplayName("Запрос учитывает только парковку и дни окна, старые дни вытесняются")
+    @Test
+    void testWindowAndRetention() {
+        // Подготовка
+        HeavyHitterService service = new HeavyHitterService(parkingRecordDao, 10, 7);
+        service.onCheckIn(checkIn(1L, 100L, 1000L, DAY));
+        service.onCheckIn(checkIn(1L, 100L, 1000L, DAY.plusDays(1)));
+        service.onCheckIn(checkIn(1L, 200L, 2000L, DAY.plusDays(1)));
+        service.onCheckIn(checkIn(2L, 200L, 2000L, DAY.plusDays(1)));
+
+        // Действие
+        List<HeavyHitterService.HeavyHitter> lotOne = service.getTopClients(1L, DAY, DAY.plusDays(1), 1);
+        List<HeavyHitterService.HeavyHitter> secondDay = service.getTopVehicles(null, DAY.plusDays(1), DAY.plusDays(1), 1);
+        service.onCheckIn(checkIn(1L, 300L, 3000L, DAY.plusDays(7)));
+        List<HeavyHitterService.HeavyHitter> afterEviction = service.getTopVehicles(1L, DAY, DAY, 5);
+
+        // Проверка
+        assertEquals(new HeavyHitterService.HeavyHitter(1000L, 2, 2), lotOne.get(0),
+                "Лидером первой парковки должен быть клиент с двумя въездами");
+        assertEquals(new HeavyHitterService.HeavyHitter(200L, 2, 2), secondDay.get(0),
+                "По всем парковкам за второй день лидирует второй автомобиль");
+        assertTrue(afterEviction.isEmpty(), "День за пределами глубины хранения должен быть вытеснен");
+    }
+
+    @DisplayName("Пакетный пересчёт строит сводки по истории въездов")
+    @Test
+    void testRebuildFromHistory() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        new ParkingLotDao(em).create(lot);
+        ParkingSpace space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        new ParkingSpaceDao(em).create(space);
+        Vehicle frequent = new Vehicle(null, client, "АВС123", "Toyota", "Camry");
+        Vehicle rare = new Vehicle(null, client, "XYZ789", "Honda", "Civic");
+        VehicleDao vehicleDao = new VehicleDao(em);
+        vehicleDao.create(frequent);
+        vehicleDao.create(rare);
+        for (int hour = 8; hour < 11; hour++) {
+            parkingRecordDao.create(new ParkingRecord(null, space, frequent, client,
+                    DAY.atTime(hour, 0), DAY.atTime(hour, 30)));
+        }
+        parkingRecordDao.create(new ParkingRecord(null, space, rare, client, DAY.atTime(12, 0), null));
+        HeavyHitterService service = new HeavyHitterService(parkingRecordDao, 10, 31);
+
+        // Действие
+        int processed = service.rebuild(DAY, DAY);
+        service.rebuild(DAY, DAY);
+
+        // Проверка
+        assertEquals(4, processed, "Должны быть учтены все четыре въезда");
+        List<HeavyHitterService.HeavyHitter> top = service.getTopVehicles(lot.getId(), DAY, DAY, 2);
+        assertEquals(frequent.getId(), top.get(0).id(), "Лидером должен быть частый автомобиль");
+        assertEquals(3, top.get(0).count(), "Повторный пересчёт не должен удваивать счётчики");
+        assertEquals(4, service.getTopClients(lot.getId(), DAY, DAY, 1).get(0).count(),
+                "Клиенту должны быть учтены все въезды");
+    }
+
+    private static ParkingRecord checkIn(Long lotId, Long vehicleId, Long clientId, LocalDate day) {
+        ParkingLot lot = new ParkingLot(lotId, "Парковка", "Адрес", 10);
+        Client client = new Client(clientId, "Клиент", "+79000000000", "client@example.com");
+        Vehicle vehicle = new Vehicle(vehicleId, client, "A" + vehicleId, "Марка", "Модель");
+        return new ParkingRecord(null, new ParkingSpace(null, lot, "A1", "REGULAR"), vehicle, client,
+                day.atTime(9, 0), null);
+    }
+}
\ No newline at end of file
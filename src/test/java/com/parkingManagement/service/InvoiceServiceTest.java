@@ -0,0 +1,152 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.BatchCheckpointDao;
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.SpaceType;
+import com.parkingManagement.model.TariffPlan;
+import com.parkingManagement.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования формирования счетов InvoiceService с использованием методологии AAA.
+ */
+class InvoiceServiceTest {
+    private static final YearMonth MONTH = YearMonth.of(2024, 3);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingRecordDao parkingRecordDao;
+    private BatchCheckpointDao checkpointDao;
+    private InvoiceService invoiceService;
+    private Client firstClient;
+    private Client secondClient;
+
+    @TempDir
+    Path outputDir;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных и создаёт двух клиентов с сессиями перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM BatchCheckpoint").executeUpdate();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        parkingRecordDao = new ParkingRecordDao(em);
+        checkpointDao = new BatchCheckpointDao(em);
+        TariffEngine tariffEngine = new TariffEngine(Map.of(SpaceType.REGULAR, new TariffPlan(6000)));
+        invoiceService = new InvoiceService(parkingRecordDao, checkpointDao, tariffEngine, 2);
+
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        new ParkingLotDao(em).create(lot);
+        ParkingSpace space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        new ParkingSpaceDao(em).create(space);
+
+        firstClient = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        secondClient = new Client(null, "Анна Смирнова", "+79087654321", "anna@example.com");
+        ClientDao clientDao = new ClientDao(em);
+        clientDao.create(firstClient);
+        clientDao.create(secondClient);
+        Vehicle firstVehicle = new Vehicle(null, firstClient, "АВС123", "Toyota", "Camry");
+        Vehicle secondVehicle = new Vehicle(null, secondClient, "XYZ789", "Honda", "Civic");
+        VehicleDao vehicleDao = new VehicleDao(em);
+        vehicleDao.create(firstVehicle);
+        vehicleDao.create(secondVehicle);
+
+        LocalDateTime day = MONTH.atDay(10).atTime(9, 0);
+        parkingRecordDao.create(new ParkingRecord(null, space, firstVehicle, firstClient, day, day.plusHours(1)));
+        parkingRecordDao.create(new ParkingRecord(null, space, firstVehicle, firstClient,
+                day.plusDays(1), day.plusDays(1).plusHours(2)));
+        parkingRecordDao.create(new ParkingRecord(null, space, secondVehicle, secondClient,
+                day.plusDays(2), day.plusDays(2).plusMinutes(30)));
+        parkingRecordDao.create(new ParkingRecord(null, space, secondVehicle, secondClient,
+                day.plusMonths(1), day.plusMonths(1).plusHours(1)));
+    }
+
+    @DisplayName("Формирование счетов по всем клиентам за месяц")
+    @Test
+    void testGenerateInvoices() throws IOException {
+        // Действие
+        InvoiceService.InvoiceRun run = invoiceService.generateInvoices(MONTH, outputDir);
+
+        // Проверка
+        assertEquals(2, run.clients(), "Должны быть сформированы счета двух клиентов");
+        assertEquals(3, run.sessions(), "Сессия следующего месяца не должна учитываться");
+        assertEquals(6000 + 12000 + 3000, run.totalAmount(), "Общая сумма должна совпадать с тарифом");
+        List<String> lines = Files.readAllLines(outputDir.resolve("invoice-2024-03-client-" + firstClient.getId() + ".csv"));
+        assertEquals(5, lines.size(), "Счёт должен содержать заголовок, две сессии и итог");
+        assertTrue(lines.get(4).endsWith("180.00"), "Итог первого клиента должен составлять 180 рублей");
+    }
+
+    @DisplayName("Повторный запуск продолжается с контрольной точки")
+    @Test
+    void testGenerateInvoicesResumesFromCheckpoint() {
+        // Подготовка
+        checkpointDao.savePosition("invoice-" + MONTH, firstClient.getId());
+
+        // Действие
+        InvoiceService.InvoiceRun run = invoiceService.generateInvoices(MONTH, outputDir);
+
+        // Проверка
+        assertEquals(1, run.clients(), "Должен быть сформирован только счёт второго клиента");
+        assertFalse(Files.exists(outputDir.resolve("invoice-2024-03-client-" + firstClient.getId() + ".csv")),
+                "Счёт обработанного клиента не должен формироваться повторно");
+        assertTrue(Files.exists(outputDir.resolve("invoice-2024-03-client-" + secondClient.getId() + ".csv")),
+                "Счёт второго клиента должен быть записан");
+        assertEquals(secondClient.getId(), checkpointDao.findPosition("invoice-" + MONTH),
+                "Контрольная точка должна сдвинуться до последнего клиента");
+    }
+}
\ No newline at end of file
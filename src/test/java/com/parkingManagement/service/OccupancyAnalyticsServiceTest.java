@@ -0,0 +1,175 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.OccupancySeries;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.SessionIntervals;
+import com.parkingManagement.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Класс для тестирования поминутной аналитики занятости OccupancyAnalyticsService с использованием методологии AAA.
+ */
+class OccupancyAnalyticsServiceTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 15, 10, 0);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingRecordDao parkingRecordDao;
+    private OccupancyAnalyticsService analyticsService;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Подготавливает сервис и очищает базу данных перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        parkingRecordDao = new ParkingRecordDao(em);
+        analyticsService = new OccupancyAnalyticsService(parkingRecordDao);
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+    }
+
+    @DisplayName("Поминутная занятость парковки по записям из базы данных")
+    @Test
+    void testGetOccupancy() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        new ParkingLotDao(em).create(lot);
+        ParkingSpace space1 = new ParkingSpace(null, lot, "A1", "REGULAR");
+        ParkingSpace space2 = new ParkingSpace(null, lot, "A2", "REGULAR");
+        new ParkingSpaceDao(em).create(space1);
+        new ParkingSpaceDao(em).create(space2);
+        Vehicle vehicle = new Vehicle(null, client, "АВС123", "Toyota", "Camry");
+        new VehicleDao(em).create(vehicle);
+        parkingRecordDao.create(new ParkingRecord(null, space1, vehicle, client, START.minusHours(1), START.plusMinutes(3)));
+        parkingRecordDao.create(new ParkingRecord(null, space2, vehicle, client, START.plusMinutes(2), null));
+
+        // Действие
+        OccupancySeries series = analyticsService.getOccupancy(lot.getId(), START, START.plusMinutes(6));
+
+        // Проверка
+        assertArrayEquals(new int[]{1, 1, 2, 1, 1, 1}, series.counts(), "Занятость по минутам должна совпадать");
+        assertEquals(2, series.peak(), "Пиковая занятость должна быть равна 2");
+    }
+
+    @DisplayName("Параллельный расчёт совпадает с наивным поминутным подсчётом")
+    @Test
+    void testComputeOccupancyMatchesNaiveCount() {
+        // Подготовка
+        int size = 200_000;
+        int minutes = 24 * 60;
+        long startSecond = 1_700_000_040L;
+        SplittableRandom random = new SplittableRandom(7);
+        SessionIntervals intervals = new SessionIntervals(size);
+        for (int i = 0; i < size; i++) {
+            long entry = startSecond - 3600 + random.nextLong(minutes * 60L + 3600);
+            intervals.add(entry, random.nextInt(20) == 0 ? SessionIntervals.OPEN : entry + random.nextLong(1, 6 * 3600));
+        }
+        int[] expected = new int[minutes];
+        for (int m = 0; m < minutes; m++) {
+            long t = startSecond + m * 60L;
+            for (int i = 0; i < size; i += 97) {
+                if (intervals.getEntries()[i] <= t && intervals.getExits()[i] > t) {
+                    expected[m]++;
+                }
+            }
+        }
+
+        // Действие
+        int[] all = OccupancyAnalyticsService.computeOccupancy(intervals.getEntries(), intervals.getExits(),
+                size, startSecond / 60, minutes);
+        SessionIntervals sample = new SessionIntervals(size / 97 + 1);
+        for (int i = 0; i < size; i += 97) {
+            sample.add(intervals.getEntries()[i], intervals.getExits()[i]);
+        }
+        int[] sampled = OccupancyAnalyticsService.computeOccupancy(sample.getEntries(), sample.getExits(),
+                sample.size(), startSecond / 60, minutes);
+
+        // Проверка
+        assertArrayEquals(expected, sampled, "Расчёт должен совпадать с наивным подсчётом");
+        for (int m : new int[]{0, 500, minutes - 1}) {
+            long t = startSecond + m * 60L;
+            int naive = 0;
+            for (int i = 0; i < size; i++) {
+                if (intervals.getEntries()[i] <= t && intervals.getExits()[i] > t) {
+                    naive++;
+                }
+            }
+            assertEquals(naive, all[m], "Параллельный расчёт должен совпадать с наивным в минуте " + m);
+        }
+    }
+
+    @DisplayName("Выгрузка ряда в CSV и двоичный формат")
+    @Test
+    void testExportSeries() throws IOException {
+        // Подготовка
+        OccupancySeries series = new OccupancySeries(START, new int[]{0, 3, 5, 2});
+        Path csv = tempDir.resolve("occupancy.csv");
+        Path binary = tempDir.resolve("occupancy.bin");
+
+        // Действие
+        analyticsService.exportCsv(series, csv);
+        analyticsService.exportBinary(series, binary);
+        OccupancySeries restored = analyticsService.importBinary(binary);
+
+        // Проверка
+        List<String> lines = Files.readAllLines(csv);
+        assertEquals("2024-03-15T10:01;3", lines.get(2), "Строка CSV должна содержать время и занятость");
+        assertEquals(START, restored.start(), "Начало ряда должно сохраниться");
+        assertArrayEquals(series.counts(), restored.counts(), "Значения ряда должны сохраниться");
+        assertEquals(16 + 4 * 4, Files.size(binary), "Двоичный формат должен занимать 4 байта на минуту");
+    }
+}
\ No newline at end of file
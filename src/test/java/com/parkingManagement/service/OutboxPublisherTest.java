@@ -0,0 +1,204 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.OutboxMessage;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования исходящей очереди и публикатора OutboxPublisher с использованием методологии AAA.
+ */
+class OutboxPublisherTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 15, 8, 0);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingRecordDao parkingRecordDao;
+    private OutboxPublisher publisher;
+    private ParkingSpace north;
+    private ParkingSpace south;
+    private Vehicle vehicle;
+    private Client client;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных и создаёт две парковки с местами, клиента и автомобиль перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM OutboxMessage").executeUpdate();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        parkingRecordDao = new ParkingRecordDao(em, true);
+        ParkingLot northLot = new ParkingLot(null, "Север", "ул. Северная, 1", 10);
+        ParkingLot southLot = new ParkingLot(null, "Юг", "ул. Южная, 1", 10);
+        new ParkingLotDao(em).create(northLot);
+        new ParkingLotDao(em).create(southLot);
+        north = new ParkingSpace(null, northLot, "N1", "REGULAR");
+        south = new ParkingSpace(null, southLot, "S1", "REGULAR");
+        new ParkingSpaceDao(em).create(north);
+        new ParkingSpaceDao(em).create(south);
+        client = new Client(null, "Иван", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        vehicle = new Vehicle(null, client, "А123ВС77", "Toyota", "Camry");
+        new VehicleDao(em).create(vehicle);
+    }
+
+    /**
+     * Закрывает публикатор после каждого теста.
+     */
+    @AfterEach
+    void tearDown() {
+        if (publisher != null) {
+            publisher.close();
+        }
+    }
+
+    @DisplayName("Изменения записей попадают в исходящую очередь и доставляются по порядку с удалением")
+    @Test
+    void testMutationsArePublishedInOrderAndDeleted() {
+        // Подготовка
+        ParkingRecord first = createRecord(north, DAY, null);
+        ParkingRecord second = createRecord(south, DAY.plusHours(1), null);
+        first.setExitTime(DAY.plusHours(2));
+        parkingRecordDao.update(first);
+        first.setEntryTime(DAY.minusMinutes(5));
+        parkingRecordDao.update(first);
+        parkingRecordDao.delete(second.getId());
+        createRecord(north, DAY.plusDays(1), DAY.plusDays(1).plusHours(1));
+        QueueOutboxSink sink = new QueueOutboxSink(100);
+        publisher = new OutboxPublisher(emf, sink, 2, Duration.ofSeconds(1));
+
+        // Действие
+        long published = publisher.drain();
+
+        // Проверка
+        List<OutboxMessage> messages = sink.drain();
+        assertEquals(7, published);
+        assertEquals(List.of(OutboxMessage.Type.CHECK_IN, OutboxMessage.Type.CHECK_OUT,
+                        OutboxMessage.Type.RECORD_UPDATED, OutboxMessage.Type.CHECK_IN, OutboxMessage.Type.CHECK_OUT),
+                typesOf(messages, north.getParkingLot().getId()));
+        assertEquals(List.of(OutboxMessage.Type.CHECK_IN, OutboxMessage.Type.RECORD_DELETED),
+                typesOf(messages, south.getParkingLot().getId()));
+        assertTrue(messages.get(0).getPayload().contains("\"entryTime\":\"2024-03-15T08:00\""));
+        OutboxPublisher.Metrics metrics = publisher.getMetrics();
+        assertEquals(7, metrics.published());
+        assertEquals(4, metrics.batches());
+        assertEquals(0, metrics.pending(), "Подтверждённые сообщения должны удаляться");
+    }
+
+    @DisplayName("Сбой доставки одной парковки не блокирует другие и не нарушает её порядок")
+    @Test
+    void testFailedLotIsRetriedInOrder() throws IOException {
+        // Подготовка
+        Long northLotId = north.getParkingLot().getId();
+        for (int i = 0; i < 3; i++) {
+            createRecord(north, DAY.plusHours(i * 2), DAY.plusHours(i * 2 + 1));
+            createRecord(south, DAY.plusHours(i * 2), null);
+        }
+        FileOutboxSink files = new FileOutboxSink(dir.resolve("outbox"));
+        boolean[] northDown = {true};
+        publisher = new OutboxPublisher(emf, (lotId, messages) -> {
+            if (northDown[0] && lotId.equals(northLotId)) {
+                throw new IllegalStateException("Получатель недоступен");
+            }
+            files.publish(lotId, messages);
+        }, 4, Duration.ofSeconds(1));
+
+        // Действие
+        long firstPass = publisher.drain();
+        long pendingAfterFailure = publisher.getMetrics().pending();
+        northDown[0] = false;
+        long secondPass = publisher.drain();
+
+        // Проверка
+        assertEquals(3, firstPass);
+        assertEquals(6, pendingAfterFailure);
+        assertEquals(6, secondPass);
+        assertEquals(0, publisher.getMetrics().pending());
+        assertEquals(1, publisher.getMetrics().failures(), "Поздние сообщения парковки в том же проходе пропускаются");
+        List<String> northLines = Files.readAllLines(files.getFile(northLotId), StandardCharsets.UTF_8);
+        assertEquals(6, northLines.size());
+        long previous = 0;
+        for (String line : northLines) {
+            long messageId = Long.parseLong(line.substring("{\"messageId\":".length(), line.indexOf(',')));
+            assertTrue(messageId > previous, "Сообщения парковки должны идти в порядке записи");
+            previous = messageId;
+        }
+        assertTrue(northLines.get(0).contains("\"type\":\"CHECK_IN\""));
+        assertTrue(northLines.get(1).contains("\"type\":\"CHECK_OUT\""));
+        assertEquals(3, Files.readAllLines(files.getFile(south.getParkingLot().getId())).size());
+    }
+
+    private ParkingRecord createRecord(ParkingSpace space, LocalDateTime entry, LocalDateTime exit) {
+        ParkingRecord record = new ParkingRecord(null, space, vehicle, client, entry, exit);
+        parkingRecordDao.create(record);
+        return record;
+    }
+
+    private static List<OutboxMessage.Type> typesOf(List<OutboxMessage> messages, Long lotId) {
+        List<OutboxMessage.Type> types = new ArrayList<>();
+        for (OutboxMessage message : messages) {
+            if (message.getLotId().equals(lotId)) {
+                types.add(message.getType());
+            }
+        }
+        return types;
+    }
+}
\ No newline at end of file
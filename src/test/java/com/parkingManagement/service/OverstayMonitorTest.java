@@ -0,0 +1,171 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.SpaceType;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.util.TimingWheel;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Класс для тестирования монитора превышения времени стоянки OverstayMonitor с использованием методологии AAA.
+ */
+class OverstayMonitorTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 3, 15, 8, 0);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingRecordDao parkingRecordDao;
+    private final List<String> events = new ArrayList<>();
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+        parkingRecordDao = new ParkingRecordDao(em);
+        events.clear();
+    }
+
+    @DisplayName("Лимит парковки важнее лимита типа места, выезд отменяет таймер")
+    @Test
+    void testLimitsAndCancellation() {
+        // Подготовка
+        OverstayMonitor monitor = new OverstayMonitor(parkingRecordDao, Duration.ofHours(4), NOW)
+                .setMaxStay(SpaceType.VIP, Duration.ofHours(1))
+                .setMaxStay(2L, Duration.ofMinutes(30));
+        monitor.addListener((id, deadline) -> events.add(id + "@" + deadline.toLocalTime()));
+        monitor.onCheckIn(record(1L, 1L, "REGULAR", null));
+        monitor.onCheckIn(record(2L, 1L, "VIP", null));
+        monitor.onCheckIn(record(3L, 2L, "VIP", null));
+        monitor.onCheckIn(record(4L, 1L, "VIP", null));
+        monitor.onCheckIn(record(5L, 1L, "REGULAR", NOW.plusHours(1)));
+
+        // Действие
+        monitor.onCheckOut(record(4L, 1L, "VIP", NOW.plusMinutes(20)));
+        int early = monitor.advance(NOW.plusMinutes(29));
+        int fired = monitor.advance(NOW.plusHours(2));
+
+        // Проверка
+        assertEquals(0, early, "До истечения лимитов событий быть не должно");
+        assertEquals(2, fired, "Должны сработать лимиты парковки и типа VIP");
+        assertEquals(List.of("3@08:30", "2@09:00"), events, "События должны приходить в порядке сроков");
+        assertEquals(1, monitor.getPendingCount(), "Должен остаться только таймер обычного места");
+    }
+
+    @DisplayName("Открытые сессии из базы данных регистрируются при запуске")
+    @Test
+    void testRegisterOpenSessions() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        new ParkingLotDao(em).create(lot);
+        ParkingSpace space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        new ParkingSpaceDao(em).create(space);
+        Vehicle vehicle = new Vehicle(null, client, "АВС123", "Toyota", "Camry");
+        new VehicleDao(em).create(vehicle);
+        ParkingRecord open = new ParkingRecord(null, space, vehicle, client, NOW.minusHours(5), null);
+        parkingRecordDao.create(open);
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, NOW.minusHours(9), NOW.minusHours(6)));
+        OverstayMonitor monitor = new OverstayMonitor(parkingRecordDao, Duration.ofHours(4), NOW);
+        monitor.addListener((id, deadline) -> events.add(id + "@" + deadline));
+
+        // Действие
+        int registered = monitor.registerOpenSessions();
+        monitor.advance(NOW.plusSeconds(1));
+
+        // Проверка
+        assertEquals(1, registered, "Должна быть зарегистрирована одна открытая сессия");
+        assertEquals(List.of(open.getId() + "@" + NOW.minusHours(1)), events,
+                "Уже просроченная сессия должна сработать при следующем продвижении");
+    }
+
+    @DisplayName("Миллион таймеров срабатывает точно в свой тик, отменённые не срабатывают")
+    @Test
+    void testMillionTimersFireOnTime() {
+        // Подготовка
+        TimingWheel wheel = new TimingWheel(0, 1 << 20);
+        SplittableRandom random = new SplittableRandom(3);
+        int timers = 1_000_000;
+        for (long key = 0; key < timers; key++) {
+            wheel.schedule(key, 1 + random.nextLong(500_000));
+        }
+        for (long key = 0; key < timers; key += 4) {
+            wheel.cancel(key);
+        }
+        long[] late = {0};
+        long[] cancelledFired = {0};
+
+        // Действие
+        int fired = wheel.advanceTo(500_000, (key, tick) -> {
+            if (tick != wheel.getCurrentTick()) {
+                late[0]++;
+            }
+            if (key % 4 == 0) {
+                cancelledFired[0]++;
+            }
+        });
+
+        // Проверка
+        assertEquals(timers - timers / 4, fired, "Должны сработать все неотменённые таймеры");
+        assertEquals(0, late[0], "Таймеры должны срабатывать в свой тик");
+        assertEquals(0, cancelledFired[0], "Отменённые таймеры не должны срабатывать");
+        assertEquals(0, wheel.size(), "Колесо должно опустеть");
+    }
+
+    private static ParkingRecord record(Long id, Long lotId, String type, LocalDateTime exit) {
+        ParkingLot lot = new ParkingLot(lotId, "Парковка", "Адрес", 10);
+        Client client = new Client(1L, "Клиент", "+79000000000", "client@example.com");
+        Vehicle vehicle = new Vehicle(id, client, "A" + id, "Марка", "Модель");
+        return new ParkingRecord(id, new ParkingSpace(id, lot, "A" + id, type), vehicle, client, NOW, exit);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,201 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.SessionRow;
+import com.parkingManagement.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования индекса интервалов ParkingIntervalIndex с использованием методологии AAA.
+ */
+class ParkingIntervalIndexTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 15, 0, 0);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingRecordDao parkingRecordDao;
+    private ParkingIntervalIndex index;
+    private ParkingLot lot;
+    private ParkingSpace firstSpace;
+    private ParkingSpace secondSpace;
+    private Vehicle vehicle;
+    private Client client;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных и создаёт справочные данные перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        parkingRecordDao = new ParkingRecordDao(em);
+        index = new ParkingIntervalIndex(parkingRecordDao);
+        client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        new ParkingLotDao(em).create(lot);
+        firstSpace = new ParkingSpace(null, lot, "A1", "REGULAR");
+        secondSpace = new ParkingSpace(null, lot, "A2", "VIP");
+        ParkingSpaceDao parkingSpaceDao = new ParkingSpaceDao(em);
+        parkingSpaceDao.create(firstSpace);
+        parkingSpaceDao.create(secondSpace);
+        vehicle = new Vehicle(null, client, "АВС123", "Toyota", "Camry");
+        new VehicleDao(em).create(vehicle);
+    }
+
+    @DisplayName("Снимок парковки по истории учитывает полуоткрытые интервалы и открытые сессии")
+    @Test
+    void testSnapshotFromHistory() {
+        // Подготовка
+        parkingRecordDao.create(new ParkingRecord(null, firstSpace, vehicle, client, BASE.plusHours(8), BASE.plusHours(10)));
+        parkingRecordDao.create(new ParkingRecord(null, firstSpace, vehicle, client, BASE.plusHours(10), BASE.plusHours(12)));
+        ParkingRecord open = new ParkingRecord(null, secondSpace, vehicle, client, BASE.plusHours(9), null);
+        parkingRecordDao.create(open);
+
+        // Действие
+        long indexed = index.rebuild();
+        List<SessionRow> atTen = index.getLotSnapshot(lot.getId(), BASE.plusHours(10));
+
+        // Проверка
+        assertEquals(3, indexed, "Должны быть проиндексированы три сессии");
+        assertEquals(2, atTen.size(), "В 10:00 заняты оба места");
+        assertEquals(BASE.plusHours(10), index.findOccupant(firstSpace.getId(), BASE.plusHours(10)).entryTime(),
+                "В момент выезда место занимает следующая сессия");
+        assertEquals(open.getId(), index.findOccupant(secondSpace.getId(), BASE.plusDays(30)).recordId(),
+                "Открытая сессия занимает место сколь угодно долго");
+        assertNull(index.findOccupant(firstSpace.getId(), BASE.plusHours(7)), "До первого въезда место свободно");
+    }
+
+    @DisplayName("Индекс обновляется событиями въезда и выезда")
+    @Test
+    void testIncrementalUpdates() {
+        // Подготовка
+        ParkingRecordService parkingRecordService = new ParkingRecordService(parkingRecordDao);
+        parkingRecordService.addListener(index);
+        ParkingRecord record = new ParkingRecord(null, firstSpace, vehicle, client, BASE.plusHours(8), null);
+
+        // Действие
+        parkingRecordService.createParkingRecord(record);
+        int openAtNoon = index.getLotSnapshot(lot.getId(), BASE.plusHours(12)).size();
+        parkingRecordService.checkOut(record.getId(), BASE.plusHours(11));
+
+        // Проверка
+        assertEquals(1, openAtNoon, "Открытая сессия должна быть в снимке");
+        assertTrue(index.getLotSnapshot(lot.getId(), BASE.plusHours(12)).isEmpty(), "После выезда место свободно");
+        SessionRow occupant = index.findOccupant(firstSpace.getId(), BASE.plusHours(10));
+        assertEquals(BASE.plusHours(11), occupant.exitTime(), "Снимок должен содержать время выезда");
+    }
+
+    @DisplayName("События, пришедшие во время перестройки, попадают в новый индекс")
+    @Test
+    void testEventsDuringRebuildAreApplied() {
+        // Подготовка
+        ParkingRecord open = new ParkingRecord(null, firstSpace, vehicle, client, BASE.plusHours(8), null);
+        parkingRecordDao.create(open);
+        ParkingRecord late = new ParkingRecord(null, secondSpace, vehicle, client, BASE.plusHours(9), null);
+        ParkingIntervalIndex[] holder = new ParkingIntervalIndex[1];
+        holder[0] = new ParkingIntervalIndex(new ParkingRecordDao(em) {
+            @Override
+            public long forEachSession(long afterRecordId, Consumer<SessionRow> consumer) {
+                long count = super.forEachSession(afterRecordId, consumer);
+                // Выезд и въезд завершаются после того, как перестройка прочитала историю
+                open.setExitTime(BASE.plusHours(10));
+                holder[0].onCheckOut(open);
+                parkingRecordDao.create(late);
+                holder[0].onCheckIn(late);
+                return count;
+            }
+        });
+
+        // Действие
+        long indexed = holder[0].rebuild();
+
+        // Проверка
+        assertEquals(1, indexed, "Перестройка должна прочитать одну сессию");
+        assertNull(holder[0].findOccupant(firstSpace.getId(), BASE.plusHours(11)),
+                "Выезд во время перестройки должен закрыть интервал");
+        assertEquals(late.getId(), holder[0].findOccupant(secondSpace.getId(), BASE.plusHours(11)).recordId(),
+                "Въезд во время перестройки должен попасть в индекс");
+    }
+
+    @DisplayName("Запросы по индексу совпадают с прямым перебором интервалов")
+    @Test
+    void testStabbingMatchesNaiveScan() {
+        // Подготовка
+        Random random = new Random(5);
+        List<ParkingRecord> records = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            LocalDateTime entry = BASE.plusMinutes(random.nextInt(10_000));
+            LocalDateTime exit = random.nextInt(20) == 0 ? null : entry.plusMinutes(1 + random.nextInt(600));
+            ParkingRecord record = new ParkingRecord(id, id % 2 == 0 ? firstSpace : secondSpace, vehicle, client, entry, exit);
+            records.add(record);
+            index.onCheckIn(record);
+        }
+
+        // Действие и проверка
+        for (int probe = 0; probe < 200; probe++) {
+            LocalDateTime at = BASE.plusMinutes(random.nextInt(11_000));
+            Set<Long> expected = new HashSet<>();
+            for (ParkingRecord r : records) {
+                if (!r.getEntryTime().isAfter(at) && (r.getExitTime() == null || r.getExitTime().isAfter(at))) {
+                    expected.add(r.getId());
+                }
+            }
+            Set<Long> actual = new HashSet<>();
+            index.getLotSnapshot(lot.getId(), at).forEach(row -> actual.add(row.recordId()));
+            assertEquals(expected, actual, "Снимок в момент " + at + " должен совпадать с перебором");
+        }
+    }
+}
\ No newline at end of file
@@ -1,16 +1,24 @@
 package com.parkingManagement.service;
 
 import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.VisitorSketchDao;
+import com.parkingManagement.model.Client;
 import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.util.HyperLogLog;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceException;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -27,6 +35,7 @@ class ParkingLotServiceTest {
     private static EntityManager em;
     private ParkingLotDao parkingLotDao;
     private ParkingLotService parkingLotService;
+    private VisitorSketchService visitorSketchService;
 
     /**
      * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
@@ -52,8 +61,11 @@ class ParkingLotServiceTest {
     @BeforeEach
     void setUp() {
         parkingLotDao = new ParkingLotDao(em);
-        parkingLotService = new ParkingLotService(parkingLotDao);
+        VisitorSketchDao visitorSketchDao = new VisitorSketchDao(em);
+        parkingLotService = new ParkingLotService(parkingLotDao, visitorSketchDao);
+        visitorSketchService = new VisitorSketchService(visitorSketchDao);
         em.getTransaction().begin();
+        em.createQuery("DELETE FROM LotVisitorSketch").executeUpdate();
         em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
         em.createQuery("DELETE FROM ParkingLot").executeUpdate();
         em.getTransaction().commit();
@@ -192,4 +204,90 @@ class ParkingLotServiceTest {
         // Проверка
         assertEquals("Парковка с ID 999 не найдена", exception.getMessage());
     }
+
+    @DisplayName("Объединение дневных скетчей по окну и группе парковок укладывается в границу погрешности")
+    @Test
+    void testMergedSketchesWithinErrorBound() {
+        // Подготовка
+        HyperLogLog[] lotOneDays = {new HyperLogLog(), new HyperLogLog(), new HyperLogLog()};
+        HyperLogLog lotTwo = new HyperLogLog();
+        for (long vehicleId = 1; vehicleId <= 100_000; vehicleId++) {
+            lotOneDays[(int) (vehicleId % 3)].add(vehicleId);
+            lotOneDays[(int) ((vehicleId + 1) % 3)].add(vehicleId);
+            if (vehicleId > 70_000) {
+                lotTwo.add(vehicleId + 30_000);
+            }
+        }
+        double bound = 4 * HyperLogLog.STANDARD_ERROR;
+
+        // Действие
+        HyperLogLog lotOne = new HyperLogLog();
+        for (HyperLogLog sketch : lotOneDays) {
+            lotOne.merge(HyperLogLog.fromBytes(sketch.toBytes()));
+        }
+        long lotOneEstimate = lotOne.estimate();
+        lotOne.merge(lotTwo);
+        long groupEstimate = lotOne.estimate();
+
+        // Проверка
+        assertTrue(Math.abs(lotOneEstimate - 100_000) <= 100_000 * bound,
+                "Оценка " + lotOneEstimate + " вне границ погрешности");
+        assertTrue(Math.abs(groupEstimate - 130_000) <= 130_000 * bound,
+                "Оценка " + groupEstimate + " вне границ погрешности");
+    }
+
+    @DisplayName("Малые окна считаются практически точно, без скетчей сервис сообщает об ошибке")
+    @Test
+    void testCountDistinctVehiclesSmallWindow() {
+        // Подготовка
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        for (long vehicleId = 1; vehicleId <= 50; vehicleId++) {
+            visitorSketchService.onCheckIn(checkIn(1L, vehicleId, day));
+            visitorSketchService.onCheckIn(checkIn(1L, vehicleId, day.plusDays(1)));
+        }
+        ParkingLotService withoutSketches = new ParkingLotService(parkingLotDao);
+
+        // Действие
+        long count = parkingLotService.countDistinctVehicles(1L, day, day.plusDays(1));
+
+        // Проверка
+        assertEquals(50, count, "Повторные въезды не должны увеличивать оценку");
+        assertEquals(0, parkingLotService.countDistinctVehicles(2L, day, day), "Для пустого окна оценка равна нулю");
+        assertThrows(IllegalStateException.class, () -> withoutSketches.countDistinctVehicles(1L, day, day));
+    }
+
+    @DisplayName("После неудачной записи скетча следующий въезд записывает его заново")
+    @Test
+    void testSketchIsSavedAfterFailedSave() {
+        // Подготовка
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        VisitorSketchService failingOnce = new VisitorSketchService(new VisitorSketchDao(em) {
+            private boolean fail = true;
+
+            @Override
+            public void save(Long lotId, LocalDate sketchDay, byte[] registers) {
+                if (fail) {
+                    fail = false;
+                    throw new PersistenceException("Сбой записи скетча");
+                }
+                super.save(lotId, sketchDay, registers);
+            }
+        });
+        assertThrows(PersistenceException.class, () -> failingOnce.onCheckIn(checkIn(1L, 7L, day)));
+
+        // Действие
+        failingOnce.onCheckIn(checkIn(1L, 7L, day));
+
+        // Проверка
+        assertEquals(1, parkingLotService.countDistinctVehicles(1L, day, day),
+                "Повторный въезд должен записать скетч, не сохранённый при сбое");
+    }
+
+    private static ParkingRecord checkIn(Long lotId, Long vehicleId, LocalDate day) {
+        ParkingLot lot = new ParkingLot(lotId, "Парковка", "Адрес", 10);
+        Client client = new Client(1L, "Клиент", "+79000000000", "client@example.com");
+        Vehicle vehicle = new Vehicle(vehicleId, client, "A" + vehicleId, "Марка", "Модель");
+        return new ParkingRecord(null, new ParkingSpace(null, lot, "A1", "REGULAR"), vehicle, client,
+                day.atTime(9, 0), null);
+    }
 }
\ No newline at end of file
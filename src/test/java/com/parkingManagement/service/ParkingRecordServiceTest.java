@@ -13,6 +13,7 @@ import com.parkingManagement.model.ParkingRecord;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -20,12 +21,15 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Класс для тестирования операций сервиса ParkingRecordService с использованием методологии AAA.
@@ -242,6 +246,40 @@ class ParkingRecordServiceTest {
         assertNotNull(saved.getExitTime(), "Время выезда должно быть установлено");
     }
 
+    @DisplayName("Обновление, закрывающее открытую сессию, оповещает слушателей о выезде один раз")
+    @Test
+    void testUpdateClosingSessionNotifiesCheckOut() {
+        // Подготовка
+        Client client = new Client(null, "Клиент", "+79123456789", "client@example.com");
+        clientDao.create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        parkingLotDao.create(lot);
+        ParkingSpace space = new ParkingSpace(null, lot, "D3", "REGULAR");
+        parkingSpaceDao.create(space);
+        Vehicle vehicle = new Vehicle(null, client, "STU901", "Lada", "Vesta");
+        vehicleDao.create(vehicle);
+        LocalDateTime entry = LocalDateTime.of(2024, 3, 15, 8, 0);
+        ParkingRecord record = new ParkingRecord(null, space, vehicle, client, entry, null);
+        parkingRecordDao.create(record);
+        List<Long> checkedOut = new ArrayList<>();
+        parkingRecordService.addListener(new ParkingRecordListener() {
+            @Override
+            public void onCheckOut(ParkingRecord closed) {
+                checkedOut.add(closed.getId());
+            }
+        });
+
+        // Действие
+        parkingRecordService.updateParkingRecord(new ParkingRecord(record.getId(), space, vehicle, client, entry,
+                entry.plusHours(1)));
+        parkingRecordService.updateParkingRecord(new ParkingRecord(record.getId(), space, vehicle, client, entry,
+                entry.plusHours(2)));
+
+        // Проверка
+        assertEquals(List.of(record.getId()), checkedOut, "Выездом должно считаться только закрытие сессии");
+        assertEquals(entry.plusHours(2), parkingRecordDao.findById(record.getId()).getExitTime());
+    }
+
     @DisplayName("Попытка обновления несуществующей записи о парковке")
     @Test
     void testUpdateParkingRecordNotFound() {
@@ -304,4 +342,173 @@ class ParkingRecordServiceTest {
         // Проверка
         assertEquals("Запись с ID 999 не найдена", exception.getMessage());
     }
+
+    @DisplayName("Создание записи о парковке на первом свободном месте из списка")
+    @Test
+    void testCreateParkingRecordOnFreeSpace() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        parkingLotDao.create(lot);
+
+        ParkingSpace space = new ParkingSpace(null, lot, "G1", "REGULAR");
+        parkingSpaceDao.create(space);
+
+        Vehicle vehicle = new Vehicle(null, client, "VWX234", "Mazda", "CX-5");
+        vehicleDao.create(vehicle);
+
+        ParkingRecord record = new ParkingRecord(null, null, vehicle, client, LocalDateTime.now(), null);
+
+        // Действие
+        ParkingSpace used = parkingRecordService.createParkingRecordOnFreeSpace(record, List.of(space));
+
+        // Проверка
+        assertEquals(space.getId(), used.getId(), "Должно быть использовано предложенное место");
+        assertNotNull(parkingRecordDao.findById(record.getId()), "Запись о парковке должна быть сохранена");
+    }
+
+    @DisplayName("При конфликте на первом месте запись создаётся на следующем из списка")
+    @Test
+    void testCreateParkingRecordOnFreeSpaceSkipsConflict() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        parkingLotDao.create(lot);
+        ParkingSpace taken = new ParkingSpace(null, lot, "G2", "REGULAR");
+        parkingSpaceDao.create(taken);
+        ParkingSpace free = new ParkingSpace(null, lot, "G3", "REGULAR");
+        parkingSpaceDao.create(free);
+        Vehicle vehicle = new Vehicle(null, client, "VWX235", "Mazda", "CX-5");
+        vehicleDao.create(vehicle);
+        List<Long> attempts = new ArrayList<>();
+        ParkingRecordService service = new ParkingRecordService(new ParkingRecordDao(em) {
+            @Override
+            public CreateResult tryCreate(ParkingRecord record) {
+                attempts.add(record.getParkingSpace().getId());
+                if (record.getParkingSpace().getId().equals(taken.getId())) {
+                    return CreateResult.SPACE_CONFLICT;
+                }
+                return super.tryCreate(record);
+            }
+        });
+        ParkingRecord record = new ParkingRecord(null, null, vehicle, client, LocalDateTime.now(), null);
+
+        // Действие
+        ParkingSpace used = service.createParkingRecordOnFreeSpace(record, List.of(taken, free));
+
+        // Проверка
+        assertEquals(free.getId(), used.getId(), "Должно быть использовано второе место");
+        assertEquals(List.of(taken.getId(), free.getId()), attempts, "Места должны пробоваться по порядку");
+        ParkingRecord saved = parkingRecordDao.findById(record.getId());
+        assertNotNull(saved, "Запись о парковке должна быть сохранена");
+        assertEquals(free.getId(), saved.getParkingSpace().getId(), "Запись должна стоять на втором месте");
+        assertEquals(1, parkingRecordDao.findAll().size(), "На занятом месте запись не должна появиться");
+    }
+
+    @DisplayName("Въезд по идентификаторам и по номеру берёт клиента из автомобиля")
+    @Test
+    void testCheckInDerivesClientFromVehicle() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        parkingLotDao.create(lot);
+        ParkingSpace first = new ParkingSpace(null, lot, "H1", "REGULAR");
+        parkingSpaceDao.create(first);
+        ParkingSpace second = new ParkingSpace(null, lot, "H2", "VIP");
+        parkingSpaceDao.create(second);
+        Vehicle vehicle = new Vehicle(null, client, "YZA567", "Kia", "Rio");
+        vehicleDao.create(vehicle);
+        LocalDateTime entry = LocalDateTime.of(2024, 3, 15, 8, 0);
+        em.clear();
+
+        // Действие
+        ParkingRecord byId = parkingRecordService.checkIn(first.getId(), vehicle.getId(), entry);
+        ParkingRecord byPlate = parkingRecordService.checkInByPlate(second.getId(), " YZA567 ", entry.plusHours(1));
+
+        // Проверка
+        assertEquals(client.getId(), byId.getClient().getId(), "Клиент записи должен браться из автомобиля");
+        assertEquals(vehicle.getId(), byPlate.getVehicle().getId(), "Автомобиль должен находиться по номеру");
+        assertTrue(Hibernate.isInitialized(byPlate.getParkingSpace()), "Место должно читаться вместе с въездом");
+        assertFalse(Hibernate.isInitialized(byPlate.getVehicle()), "Автомобиль не должен загружаться");
+        assertFalse(Hibernate.isInitialized(byId.getClient()), "Клиент не должен загружаться");
+        assertEquals("VIP", byPlate.getParkingSpace().getType(), "Тип места должен быть доступен слушателям");
+        assertEquals(lot.getId(), byId.getParkingSpace().getParkingLot().getId());
+        em.clear();
+        ParkingRecord saved = parkingRecordDao.findById(byPlate.getId());
+        assertEquals(second.getId(), saved.getParkingSpace().getId(), "Идентификатор места должен совпадать");
+        assertEquals(client.getId(), saved.getClient().getId(), "Идентификатор клиента должен совпадать");
+        assertEquals(entry.plusHours(1), saved.getEntryTime(), "Время въезда должно совпадать");
+        assertNull(saved.getExitTime(), "Запись должна быть открытой");
+    }
+
+    @DisplayName("Въезд на несуществующее место или несуществующего автомобиля отклоняется без записи")
+    @Test
+    void testCheckInRejectsMissingSpaceOrVehicle() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        parkingLotDao.create(lot);
+        ParkingSpace space = new ParkingSpace(null, lot, "J1", "REGULAR");
+        parkingSpaceDao.create(space);
+        Vehicle vehicle = new Vehicle(null, client, "BCD890", "Lada", "Vesta");
+        vehicleDao.create(vehicle);
+        LocalDateTime entry = LocalDateTime.of(2024, 3, 15, 8, 0);
+
+        // Действие
+        IllegalArgumentException missingSpace = assertThrows(IllegalArgumentException.class,
+                () -> parkingRecordService.checkIn(space.getId() + 1000, vehicle.getId(), entry));
+        IllegalArgumentException missingPlate = assertThrows(IllegalArgumentException.class,
+                () -> parkingRecordService.checkInByPlate(space.getId(), "НЕТ000", entry));
+        ParkingRecord record = parkingRecordService.checkIn(space.getId(), vehicle.getId(), entry);
+
+        // Проверка
+        assertEquals("Место с ID " + (space.getId() + 1000) + " или автомобиль с ID " + vehicle.getId()
+                + " не найдены", missingSpace.getMessage());
+        assertEquals("Место с ID " + space.getId() + " или автомобиль с номером НЕТ000 не найдены",
+                missingPlate.getMessage());
+        assertEquals(1, parkingRecordService.getAllParkingRecords().size(), "Отклонённые въезды не должны сохраняться");
+        assertNotNull(parkingRecordDao.findById(record.getId()), "После отказа въезд должен регистрироваться");
+    }
+
+    @DisplayName("Ошибка слушателя возвращается вызывающему, но не отменяет въезд и не мешает остальным слушателям")
+    @Test
+    void testListenerFailureIsPropagatedAfterCheckIn() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        parkingLotDao.create(lot);
+        ParkingSpace space = new ParkingSpace(null, lot, "K1", "REGULAR");
+        parkingSpaceDao.create(space);
+        Vehicle vehicle = new Vehicle(null, client, "EFG123", "Skoda", "Rapid");
+        vehicleDao.create(vehicle);
+        List<Long> notified = new ArrayList<>();
+        parkingRecordService.addListener(new ParkingRecordListener() {
+            @Override
+            public void onCheckIn(ParkingRecord record) {
+                throw new IllegalStateException("Сбой слушателя");
+            }
+        });
+        parkingRecordService.addListener(new ParkingRecordListener() {
+            @Override
+            public void onCheckIn(ParkingRecord record) {
+                notified.add(record.getId());
+            }
+        });
+
+        // Действие
+        LocalDateTime entry = LocalDateTime.of(2024, 3, 15, 8, 0);
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> parkingRecordService.checkIn(space.getId(), vehicle.getId(), entry));
+
+        // Проверка
+        assertEquals("Сбой слушателя", exception.getMessage());
+        assertEquals(1, notified.size(), "Следующий слушатель должен получить событие");
+        assertNotNull(parkingRecordDao.findById(notified.get(0)), "Въезд должен остаться зафиксированным");
+    }
 }
\ No newline at end of file
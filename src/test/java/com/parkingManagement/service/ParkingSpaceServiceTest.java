@@ -210,4 +210,26 @@ class ParkingSpaceServiceTest {
         // Проверка
         assertEquals("Место с ID 999 не найдено", exception.getMessage());
     }
+
+    @DisplayName("Создание места по идентификатору парковки без её загрузки")
+    @Test
+    void testCreateParkingSpaceByLotId() {
+        // Подготовка
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        parkingLotDao.create(lot);
+        em.clear();
+
+        // Действие
+        ParkingSpace space = parkingSpaceService.createParkingSpace(lot.getId(), "B7", "DISABLED");
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> parkingSpaceService.createParkingSpace(lot.getId() + 1000, "B8", "REGULAR"));
+
+        // Проверка
+        assertEquals("Парковка с ID " + (lot.getId() + 1000) + " не найдена", exception.getMessage());
+        em.clear();
+        ParkingSpace saved = parkingSpaceDao.findById(space.getId());
+        assertEquals("B7", saved.getSpaceNumber(), "Номер места должен совпадать");
+        assertEquals("Тестовая парковка", saved.getParkingLot().getName(), "Место должно принадлежать парковке");
+        assertEquals(1, parkingSpaceService.getAllParkingSpaces().size(), "Место без парковки не должно сохраняться");
+    }
 }
\ No newline at end of file
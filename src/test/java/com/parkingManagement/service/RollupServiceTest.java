@@ -0,0 +1,238 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.BatchCheckpointDao;
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.RollupDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ClientDailyRollup;
+import com.parkingManagement.model.LotDailyRollup;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Класс для тестирования инкрементальных и пакетных агрегатов RollupService и отчётов ReportingService.
+ */
+class RollupServiceTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 15);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingRecordDao parkingRecordDao;
+    private ParkingRecordService parkingRecordService;
+    private RollupService rollupService;
+    private ReportingService reportingService;
+    private ParkingSpace space;
+    private Vehicle vehicle;
+    private Client client;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Подготавливает сервисы, очищает базу данных и создаёт справочные данные перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM LotDailyRollup").executeUpdate();
+        em.createQuery("DELETE FROM ClientDailyRollup").executeUpdate();
+        em.createQuery("DELETE FROM BatchCheckpoint").executeUpdate();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        parkingRecordDao = new ParkingRecordDao(em);
+        RollupDao rollupDao = new RollupDao(em);
+        parkingRecordService = new ParkingRecordService(parkingRecordDao);
+        rollupService = new RollupService(rollupDao, parkingRecordDao, new BatchCheckpointDao(em));
+        reportingService = new ReportingService(rollupDao);
+
+        client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        new ParkingLotDao(em).create(lot);
+        space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        new ParkingSpaceDao(em).create(space);
+        vehicle = new Vehicle(null, client, "АВС123", "Toyota", "Camry");
+        new VehicleDao(em).create(vehicle);
+    }
+
+    @DisplayName("Завершение сессии инкрементально обновляет агрегаты парковки и клиента")
+    @Test
+    void testCheckOutUpdatesRollups() {
+        // Подготовка
+        parkingRecordService.addListener(rollupService);
+        ParkingRecord record = new ParkingRecord(null, space, vehicle, client, DAY.atTime(9, 0), null);
+        parkingRecordService.createParkingRecord(record);
+
+        // Действие
+        parkingRecordService.checkOut(record.getId(), DAY.atTime(10, 30));
+
+        // Проверка
+        ReportingService.LotReport lotReport = reportingService.getLotReport(space.getParkingLot().getId(), DAY, DAY);
+        assertEquals(1, lotReport.visitCount(), "Должен быть учтён один визит");
+        assertEquals(90, lotReport.totalDwellMinutes(), "Время стоянки должно составлять 90 минут");
+        assertEquals(1, lotReport.peakOccupancy(), "Пиковая занятость должна быть равна 1");
+        assertEquals(1L, lotReport.visitsByType().get("REGULAR"), "Визит должен относиться к типу REGULAR");
+        ReportingService.ClientReport clientReport = reportingService.getClientReport(client.getId(), DAY, DAY);
+        assertEquals(1, clientReport.visitCount(), "Клиенту должен быть учтён один визит");
+        assertEquals(90, clientReport.totalDwellMinutes(), "Время стоянки клиента должно составлять 90 минут");
+    }
+
+    @DisplayName("Одновременные обновления одного дня не теряют приращений")
+    @Test
+    void testConcurrentUpdatesAreNotLost() throws Exception {
+        // Подготовка
+        Long lotId = space.getParkingLot().getId();
+        int threads = 4;
+        int sessionsPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Действие
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                EntityManager workerEm = emf.createEntityManager();
+                try {
+                    RollupDao workerDao = new RollupDao(workerEm);
+                    start.await();
+                    for (int i = 0; i < sessionsPerThread; i++) {
+                        workerDao.addSession(lotId, "REGULAR", client.getId(), DAY, 10);
+                        workerDao.raisePeak(lotId, "REGULAR", DAY, thread * sessionsPerThread + i);
+                    }
+                    return null;
+                } finally {
+                    workerEm.close();
+                }
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Проверка
+        List<LotDailyRollup> lotRollups = new RollupDao(em).findLotRollups(lotId, DAY, DAY);
+        List<ClientDailyRollup> clientRollups = new RollupDao(em).findClientRollups(client.getId(), DAY, DAY);
+        assertEquals(1, lotRollups.size(), "Для дня и типа места должна быть одна строка");
+        assertEquals(100, lotRollups.get(0).getVisitCount(), "Все визиты должны быть учтены");
+        assertEquals(1000, lotRollups.get(0).getTotalDwellMinutes());
+        assertEquals(threads * sessionsPerThread - 1, lotRollups.get(0).getPeakOccupancy());
+        assertEquals(100, clientRollups.get(0).getVisitCount(), "Все визиты клиента должны быть учтены");
+    }
+
+    @DisplayName("Пакетный пересчёт вычисляет визиты и пиковую занятость по исходным записям")
+    @Test
+    void testBackfillComputesRollups() {
+        // Подготовка
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, DAY.atTime(8, 0), DAY.atTime(12, 0)));
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, DAY.atTime(11, 0), DAY.atTime(13, 0)));
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, DAY.atTime(13, 0), DAY.atTime(14, 0)));
+
+        // Действие
+        int days = rollupService.backfill(DAY, DAY);
+
+        // Проверка
+        assertEquals(1, days, "Должен быть пересчитан один день");
+        ReportingService.LotReport report = reportingService.getLotReport(space.getParkingLot().getId(), DAY, DAY);
+        assertEquals(3, report.visitCount(), "Должно быть учтено три визита");
+        assertEquals(420, report.totalDwellMinutes(), "Суммарное время стоянки должно составлять 420 минут");
+        assertEquals(2, report.peakOccupancy(), "Пиковая занятость должна быть равна 2");
+    }
+
+    @DisplayName("Прерванный пакетный пересчёт продолжается с контрольной точки своего интервала")
+    @Test
+    void testBackfillResumesFromCheckpoint() {
+        // Подготовка: пересчёт интервала прерван после первых двух дней
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, DAY.atTime(8, 0), DAY.atTime(9, 0)));
+        rollupService.backfill(DAY, DAY.plusDays(1));
+        new BatchCheckpointDao(em).savePosition(RollupService.backfillJob(DAY, DAY.plusDays(3)),
+                DAY.plusDays(1).toEpochDay());
+
+        // Действие
+        int resumed = rollupService.backfill(DAY, DAY.plusDays(3));
+        int repeated = rollupService.backfill(DAY, DAY.plusDays(3));
+        int earlier = rollupService.backfill(DAY.minusDays(2), DAY.minusDays(1));
+
+        // Проверка
+        assertEquals(2, resumed, "Должны быть пересчитаны только два необработанных дня");
+        assertEquals(4, repeated, "Завершённый интервал должен пересчитываться заново");
+        assertEquals(2, earlier, "Более ранний интервал не должен пропускаться");
+        assertEquals(1, reportingService.getLotReport(space.getParkingLot().getId(), DAY, DAY.plusDays(3)).visitCount(),
+                "Визит не должен учитываться повторно");
+    }
+
+    @DisplayName("Попытка завершить уже завершённую сессию")
+    @Test
+    void testCheckOutAlreadyClosed() {
+        // Подготовка
+        ParkingRecord record = new ParkingRecord(null, space, vehicle, client, DAY.atTime(9, 0), DAY.atTime(10, 0));
+        parkingRecordDao.create(record);
+
+        // Действие
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> parkingRecordService.checkOut(record.getId(), DAY.atTime(11, 0)));
+
+        // Проверка
+        assertEquals("Запись с ID " + record.getId() + " уже завершена", exception.getMessage());
+    }
+
+    @DisplayName("Отчёт с некорректным интервалом дней")
+    @Test
+    void testReportWithInvalidRange() {
+        // Действие
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> reportingService.getLotReport(1L, DAY, DAY.minusDays(1)));
+
+        // Проверка
+        assertEquals("Некорректный интервал дней", exception.getMessage());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,194 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.SpaceType;
+import com.parkingManagement.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Класс для тестирования колоночного хранилища сессий SessionColumnStore с использованием методологии AAA.
+ */
+class SessionColumnStoreTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 0, 0);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingRecordDao parkingRecordDao;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+        parkingRecordDao = new ParkingRecordDao(em);
+    }
+
+    @DisplayName("Параллельная агрегация по блокам совпадает с прямым подсчётом")
+    @Test
+    void testAggregateMatchesNaiveScan() {
+        // Подготовка
+        SessionColumnStore store = new SessionColumnStore(parkingRecordDao);
+        SplittableRandom random = new SplittableRandom(11);
+        int n = 300_000;
+        long[] spaces = new long[n];
+        long[] entries = new long[n];
+        long[] exits = new long[n];
+        long base = BASE.toEpochSecond(ZoneOffset.UTC);
+        for (int i = 0; i < n; i++) {
+            spaces[i] = 1 + random.nextInt(60);
+            entries[i] = base + i * 30L + random.nextInt(600);
+            exits[i] = random.nextInt(50) == 0 ? SessionColumnStore.OPEN : entries[i] + random.nextInt(60, 20_000);
+            store.append(i + 1, spaces[i], lotOf(spaces[i]), typeOf(spaces[i]), i % 5000, i % 700, entries[i], exits[i]);
+        }
+        long from = base + 2_000_000;
+        long to = base + 5_000_000;
+
+        // Действие
+        SessionColumnStore.Aggregate aggregate = store.aggregate(2L, SpaceType.VIP,
+                LocalDateTime.ofEpochSecond(from, 0, ZoneOffset.UTC), LocalDateTime.ofEpochSecond(to, 0, ZoneOffset.UTC));
+
+        // Проверка
+        long sessions = 0;
+        long completed = 0;
+        long dwell = 0;
+        for (int i = 0; i < n; i++) {
+            if (lotOf(spaces[i]) == 2 && typeOf(spaces[i]) == SpaceType.VIP && entries[i] < to && exits[i] > from) {
+                sessions++;
+                if (exits[i] != SessionColumnStore.OPEN) {
+                    completed++;
+                    dwell += exits[i] - entries[i];
+                }
+            }
+        }
+        assertTrue(sessions > 0, "Фильтр должен отбирать сессии");
+        assertEquals(sessions, aggregate.sessions(), "Число сессий должно совпадать");
+        assertEquals(completed, aggregate.completedSessions(), "Число завершённых сессий должно совпадать");
+        assertEquals(dwell, aggregate.totalDwellSeconds(), "Суммарная длительность должна совпадать");
+        assertTrue(store.memoryBytes() < n * 32L, "На сессию должно приходиться около 28 байт");
+    }
+
+    @DisplayName("Хранилище загружается из базы данных и обновляется событиями въезда и выезда")
+    @Test
+    void testRefreshAndListenerUpdates() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        new ParkingLotDao(em).create(lot);
+        ParkingSpace space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        new ParkingSpaceDao(em).create(space);
+        Vehicle vehicle = new Vehicle(null, client, "АВС123", "Toyota", "Camry");
+        new VehicleDao(em).create(vehicle);
+        parkingRecordDao.create(new ParkingRecord(null, space, vehicle, client, BASE.plusHours(1), BASE.plusHours(2)));
+        SessionColumnStore store = new SessionColumnStore(parkingRecordDao);
+        ParkingRecordService parkingRecordService = new ParkingRecordService(parkingRecordDao);
+        parkingRecordService.addListener(store);
+
+        // Действие
+        long loaded = store.refresh();
+        ParkingRecord open = new ParkingRecord(null, space, vehicle, client, BASE.plusHours(3), null);
+        parkingRecordService.createParkingRecord(open);
+        SessionColumnStore.Aggregate beforeCheckOut = store.aggregate(lot.getId(), null, BASE, BASE.plusDays(1));
+        parkingRecordService.checkOut(open.getId(), BASE.plusHours(6));
+        SessionColumnStore.Aggregate afterCheckOut = store.aggregate(lot.getId(), SpaceType.REGULAR, BASE, BASE.plusDays(1));
+
+        // Проверка
+        assertEquals(1, loaded, "Должна быть загружена одна сессия");
+        assertEquals(0, store.refresh(), "Повторная загрузка не должна дублировать сессии");
+        assertEquals(2, beforeCheckOut.sessions(), "Открытая сессия должна учитываться");
+        assertEquals(1, beforeCheckOut.completedSessions(), "До выезда завершена одна сессия");
+        assertEquals(2, afterCheckOut.completedSessions(), "После выезда завершены обе сессии");
+        assertEquals(4 * 3600, afterCheckOut.totalDwellSeconds(), "Суммарная длительность должна составлять 4 часа");
+        assertEquals(3 * 3600, afterCheckOut.maxDwellSeconds(), "Максимальная длительность должна составлять 3 часа");
+    }
+
+    @DisplayName("События, пришедшие раньше загрузки, не скрывают сессии с меньшими идентификаторами")
+    @Test
+    void testListenerEventsBeforeRefreshAreMerged() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        new ClientDao(em).create(client);
+        ParkingLot lot = new ParkingLot(null, "Тестовая парковка", "ул. Тестовая, 123", 10);
+        new ParkingLotDao(em).create(lot);
+        ParkingSpace first = new ParkingSpace(null, lot, "A1", "REGULAR");
+        new ParkingSpaceDao(em).create(first);
+        ParkingSpace second = new ParkingSpace(null, lot, "A2", "REGULAR");
+        new ParkingSpaceDao(em).create(second);
+        Vehicle vehicle = new Vehicle(null, client, "АВС123", "Toyota", "Camry");
+        new VehicleDao(em).create(vehicle);
+        ParkingRecord earlier = new ParkingRecord(null, first, vehicle, client, BASE, null);
+        parkingRecordDao.create(earlier);
+        ParkingRecord later = new ParkingRecord(null, second, vehicle, client, BASE.plusHours(1), BASE.plusHours(2));
+        parkingRecordDao.create(later);
+        SessionColumnStore store = new SessionColumnStore(parkingRecordDao);
+
+        // Действие
+        store.onCheckIn(later);
+        earlier.setExitTime(BASE.plusHours(4));
+        store.onCheckOut(earlier);
+        long loaded = store.refresh();
+        SessionColumnStore.Aggregate aggregate = store.aggregate(lot.getId(), null, BASE, BASE.plusDays(1));
+
+        // Проверка
+        assertEquals(1, loaded, "Загрузка должна добавить только сессию, не пришедшую событием");
+        assertEquals(2, store.size(), "Каждая сессия должна быть добавлена один раз");
+        assertEquals(2, aggregate.completedSessions(), "Выезд до загрузки должен примениться к сессии");
+        assertEquals(5 * 3600, aggregate.totalDwellSeconds());
+    }
+
+    private static long lotOf(long spaceId) {
+        return 1 + spaceId % 3;
+    }
+
+    private static SpaceType typeOf(long spaceId) {
+        return SpaceType.ofOrdinal((int) (spaceId / 3 % 3));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,181 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.dao.BatchCheckpointDao;
+import com.parkingManagement.dao.ClientDao;
+import com.parkingManagement.dao.ParkingLotDao;
+import com.parkingManagement.dao.ParkingRecordDao;
+import com.parkingManagement.dao.ParkingSpaceDao;
+import com.parkingManagement.dao.VehicleDao;
+import com.parkingManagement.model.Client;
+import com.parkingManagement.model.ParkingLot;
+import com.parkingManagement.model.ParkingRecord;
+import com.parkingManagement.model.ParkingSpace;
+import com.parkingManagement.model.SessionDetail;
+import com.parkingManagement.model.Vehicle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Класс для тестирования выгрузки истории SessionExportService с использованием методологии AAA.
+ */
+class SessionExportServiceTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 15, 8, 0);
+
+    private static EntityManagerFactory emf;
+    private static EntityManager em;
+    private ParkingRecordDao parkingRecordDao;
+    private SessionExportService exportService;
+    private ParkingSpace space;
+    private Vehicle vehicle;
+    private Client client;
+
+    @TempDir
+    Path dir;
+
+    /**
+     * Инициализирует EntityManagerFactory и EntityManager перед всеми тестами.
+     */
+    @BeforeAll
+    static void setUpClass() {
+        emf = Persistence.createEntityManagerFactory("parkingPUTest");
+        em = emf.createEntityManager();
+    }
+
+    /**
+     * Закрывает EntityManager и EntityManagerFactory после всех тестов.
+     */
+    @AfterAll
+    static void tearDownClass() {
+        if (em != null) em.close();
+        if (emf != null) emf.close();
+    }
+
+    /**
+     * Очищает базу данных и создаёт парковку, клиента и автомобиль перед каждым тестом.
+     */
+    @BeforeEach
+    void setUp() {
+        em.getTransaction().begin();
+        em.createQuery("DELETE FROM BatchCheckpoint").executeUpdate();
+        em.createQuery("DELETE FROM ParkingRecord").executeUpdate();
+        em.createQuery("DELETE FROM Vehicle").executeUpdate();
+        em.createQuery("DELETE FROM ParkingSpace").executeUpdate();
+        em.createQuery("DELETE FROM ParkingLot").executeUpdate();
+        em.createQuery("DELETE FROM Client").executeUpdate();
+        em.getTransaction().commit();
+        em.clear();
+
+        parkingRecordDao = new ParkingRecordDao(em);
+        exportService = new SessionExportService(parkingRecordDao, new BatchCheckpointDao(em));
+        ParkingLot lot = new ParkingLot(null, "Центр", "ул. Ленина, 1", 10);
+        new ParkingLotDao(em).create(lot);
+        space = new ParkingSpace(null, lot, "A1", "REGULAR");
+        new ParkingSpaceDao(em).create(space);
+        client = new Client(null, "Пётр \"Большой\", мл.", "+79123456789", "petr@example.com");
+        new ClientDao(em).create(client);
+        vehicle = new Vehicle(null, client, "А123ВС77", "Toyota", "Camry");
+        new VehicleDao(em).create(vehicle);
+    }
+
+    @DisplayName("Двоичная выгрузка со сжатием читается обратно без потерь")
+    @Test
+    void testBinaryGzipRoundTrip() {
+        // Подготовка
+        for (int i = 0; i < 3000; i++) {
+            LocalDateTime entry = DAY.plusHours(i);
+            createRecord(entry, i == 2999 ? null : entry.plusMinutes(30));
+        }
+        Path file = dir.resolve("sessions.bin.gz");
+
+        // Действие
+        SessionExportService.ExportResult result = exportService.export(file, SessionExportService.Format.BINARY, true);
+        List<SessionDetail> read = new ArrayList<>();
+        long count = SessionExportService.readBinary(file, read::add);
+
+        // Проверка
+        assertEquals(3000, result.rows());
+        assertEquals(3000, count);
+        SessionDetail first = read.get(0);
+        assertEquals(client.getName(), first.clientName());
+        assertEquals("А123ВС77", first.licensePlate());
+        assertEquals("Центр", first.lotName());
+        assertEquals(DAY, first.entryTime());
+        assertEquals(DAY.plusMinutes(30), first.exitTime());
+        assertNull(read.get(2999).exitTime(), "Открытая сессия должна выгружаться без времени выезда");
+        assertEquals(result.lastRecordId(), read.get(2999).recordId());
+        assertFalse(Files.exists(dir.resolve("sessions.bin.gz.tmp")), "Временный файл должен быть переименован");
+    }
+
+    @DisplayName("Инкрементальная выгрузка в CSV выгружает завершённые сессии до наименьшей открытой")
+    @Test
+    void testIncrementalCsvExport() throws IOException {
+        // Подготовка
+        createRecord(DAY, DAY.plusHours(1));
+        createRecord(DAY.plusDays(1), DAY.plusDays(1).plusHours(2));
+        Path first = dir.resolve("first.csv");
+        Path second = dir.resolve("second.csv");
+        Path third = dir.resolve("third.csv.gz");
+        Path fourth = dir.resolve("fourth.csv");
+
+        // Действие
+        SessionExportService.ExportResult firstResult =
+                exportService.exportIncremental("finance", first, SessionExportService.Format.CSV, false);
+        ParkingRecord later = createRecord(DAY.plusDays(2), null);
+        ParkingRecord closedAfterOpen = createRecord(DAY.plusDays(1).plusHours(4), DAY.plusDays(1).plusHours(5));
+        SessionExportService.ExportResult secondResult =
+                exportService.exportIncremental("finance", second, SessionExportService.Format.CSV, false);
+        later.setExitTime(DAY.plusDays(2).plusHours(3));
+        parkingRecordDao.update(later);
+        SessionExportService.ExportResult thirdResult =
+                exportService.exportIncremental("finance", third, SessionExportService.Format.CSV, true);
+        SessionExportService.ExportResult fourthResult =
+                exportService.exportIncremental("finance", fourth, SessionExportService.Format.CSV, false);
+
+        // Проверка
+        List<String> lines = Files.readAllLines(first, StandardCharsets.UTF_8);
+        assertEquals(3, lines.size());
+        assertEquals(SessionExportService.CSV_HEADER.trim(), lines.get(0));
+        assertEquals(firstResult.lastRecordId() - 1 + "," + client.getId()
+                + ",\"Пётр \"\"Большой\"\", мл.\",А123ВС77,Центр,A1,REGULAR,2024-03-15T08:00,2024-03-15T09:00",
+                lines.get(1), "Поля с запятыми и кавычками должны экранироваться");
+        assertEquals(0, secondResult.rows(), "Открытая сессия и следующие за ней не должны выгружаться");
+        assertEquals(2, thirdResult.rows());
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(third))) {
+            String text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertEquals(SessionExportService.CSV_HEADER + later.getId() + "," + client.getId()
+                    + ",\"Пётр \"\"Большой\"\", мл.\",А123ВС77,Центр,A1,REGULAR,2024-03-17T08:00,2024-03-17T11:00\n"
+                    + closedAfterOpen.getId() + "," + client.getId()
+                    + ",\"Пётр \"\"Большой\"\", мл.\",А123ВС77,Центр,A1,REGULAR,2024-03-16T12:00,2024-03-16T13:00\n",
+                    text, "Сессия должна выгружаться после завершения вместе со следующими за ней");
+        }
+        assertEquals(0, fourthResult.rows(), "Повторная выгрузка без новых сессий должна быть пустой");
+        assertEquals(1, Files.readAllLines(fourth, StandardCharsets.UTF_8).size());
+    }
+
+    private ParkingRecord createRecord(LocalDateTime entry, LocalDateTime exit) {
+        ParkingRecord record = new ParkingRecord(null, space, vehicle, client, entry, exit);
+        parkingRecordDao.create(record);
+        return record;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,133 @@
+package com.parkingManagement.service;
+
+import com.parkingManagement.model.SpaceType;
+import com.parkingManagement.model.TariffPlan;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Класс для тестирования расчёта стоимости сессий TariffEngine с использованием методологии AAA.
+ */
+class TariffEngineTest {
+    private static final LocalDateTime FRIDAY = LocalDateTime.of(2024, 3, 15, 0, 0);
+
+    private static TariffEngine engine(TariffPlan plan) {
+        return new TariffEngine(Map.of(SpaceType.REGULAR, plan));
+    }
+
+    @DisplayName("Расчёт по базовой ставке с оплатой неполной минуты как полной")
+    @Test
+    void testDefaultRate() {
+        // Подготовка
+        TariffEngine engine = engine(new TariffPlan(6000));
+
+        // Действие
+        long ninetyMinutes = engine.price("REGULAR", FRIDAY.withHour(9), FRIDAY.withHour(10).withMinute(30));
+        long sixtyOneSeconds = engine.price("regular", FRIDAY, FRIDAY.plusSeconds(61));
+
+        // Проверка
+        assertEquals(9000, ninetyMinutes, "90 минут по 60 рублей в час стоят 90 рублей");
+        assertEquals(200, sixtyOneSeconds, "61 секунда оплачивается как 2 минуты");
+    }
+
+    @DisplayName("Расчёт с ночной ставкой, переходящей через полночь")
+    @Test
+    void testTimeOfDayRate() {
+        // Подготовка
+        TariffEngine engine = engine(new TariffPlan(6000).addPeriod(LocalTime.of(22, 0), LocalTime.of(6, 0), 600));
+
+        // Действие
+        long evening = engine.price("REGULAR", FRIDAY.withHour(21), FRIDAY.withHour(23));
+        long night = engine.price("REGULAR", FRIDAY.withHour(23), FRIDAY.plusDays(1).withHour(7));
+
+        // Проверка
+        assertEquals(6600, evening, "Час по дневной ставке и час по ночной");
+        assertEquals(7 * 600 + 6000, night, "Семь ночных часов и один дневной");
+    }
+
+    @DisplayName("Расчёт со ставкой для выходных дней")
+    @Test
+    void testWeekendRate() {
+        // Подготовка
+        TariffEngine engine = engine(new TariffPlan(6000)
+                .addPeriod(EnumSet.of(DayOfWeek.SATURDAY, DayOfWeek.SUNDAY), LocalTime.MIDNIGHT, LocalTime.MIDNIGHT, 0));
+
+        // Действие
+        long saturday = engine.price("REGULAR", FRIDAY.plusDays(1).withHour(10), FRIDAY.plusDays(1).withHour(12));
+        long acrossMidnight = engine.price("REGULAR", FRIDAY.withHour(23), FRIDAY.plusDays(1).withHour(1));
+
+        // Проверка
+        assertEquals(0, saturday, "В субботу стоянка бесплатна");
+        assertEquals(6000, acrossMidnight, "Оплачивается только пятничный час");
+    }
+
+    @DisplayName("Расчёт со ступенью по длительности, льготным периодом и дневным потолком")
+    @Test
+    void testTiersGraceAndCap() {
+        // Подготовка
+        TariffEngine tiered = engine(new TariffPlan(6000).addTier(60, 50));
+        TariffEngine grace = engine(new TariffPlan(6000).setGraceMinutes(15));
+        TariffEngine capped = engine(new TariffPlan(6000).setDailyCap(20000));
+
+        // Действие и проверка
+        assertEquals(9000, tiered.price("REGULAR", FRIDAY, FRIDAY.plusHours(2)), "Второй час за полцены");
+        assertEquals(0, grace.price("REGULAR", FRIDAY, FRIDAY.plusMinutes(15)), "Льготный период бесплатен");
+        assertEquals(1600, grace.price("REGULAR", FRIDAY, FRIDAY.plusMinutes(16)), "После льготы оплачивается всё время");
+        assertEquals(40000, capped.price("REGULAR", FRIDAY, FRIDAY.plusHours(30)), "Потолок применяется к каждым суткам");
+    }
+
+    @DisplayName("Расчёт многодневной стоянки совпадает с поминутной суммой")
+    @Test
+    void testLongStay() {
+        // Подготовка
+        TariffEngine engine = engine(new TariffPlan(6000));
+
+        // Действие
+        long price = engine.price("REGULAR", FRIDAY.plusMinutes(7), FRIDAY.plusDays(9).plusMinutes(7));
+
+        // Проверка
+        assertEquals(9 * 24 * 6000, price, "Девять суток по базовой ставке");
+    }
+
+    @DisplayName("Пакетный расчёт совпадает с расчётом по одной сессии")
+    @Test
+    void testPriceBatch() {
+        // Подготовка
+        TariffEngine engine = engine(new TariffPlan(6000).addPeriod(LocalTime.of(22, 0), LocalTime.of(6, 0), 600));
+        long entry = FRIDAY.withHour(20).toEpochSecond(ZoneOffset.UTC);
+        int regular = SpaceType.REGULAR.ordinal();
+
+        // Действие
+        long[] prices = engine.priceBatch(new int[]{regular, regular},
+                new long[]{entry, entry}, new long[]{entry + 3600, entry + 4 * 3600});
+
+        // Проверка
+        assertArrayEquals(new long[]{engine.price(regular, entry, entry + 3600),
+                engine.price(regular, entry, entry + 4 * 3600)}, prices);
+    }
+
+    @DisplayName("Расчёт для типа места без тарифа")
+    @Test
+    void testMissingPlan() {
+        // Подготовка
+        TariffEngine engine = engine(new TariffPlan(6000));
+
+        // Действие
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> engine.price("VIP", FRIDAY, FRIDAY.plusHours(1)));
+
+        // Проверка
+        assertEquals("Для типа места VIP не задан тариф", exception.getMessage());
+    }
+}
\ No newline at end of file
@@ -4,6 +4,10 @@ import com.parkingManagement.dao.ClientDao;
 import com.parkingManagement.dao.VehicleDao;
 import com.parkingManagement.model.Client;
 import com.parkingManagement.model.Vehicle;
+import com.parkingManagement.model.VehicleOwner;
+import com.parkingManagement.util.BloomFilter;
+import com.parkingManagement.util.PlateIndex;
+import com.parkingManagement.util.TinyLfuCache;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
@@ -13,12 +17,15 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 /**
@@ -215,4 +222,245 @@ class VehicleServiceTest {
         // Проверка
         assertEquals("Автомобиль с ID 999 не найден", exception.getMessage());
     }
+
+    @DisplayName("Поиск по номеру с ошибками распознавания камеры")
+    @Test
+    void testFindVehiclesByPlateWithMisreads() {
+        // Подготовка
+        VehicleService indexed = VehicleService.builder().plateIndex(new PlateIndex()).build(vehicleDao);
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        Vehicle first = new Vehicle(null, client, "О123ВС77", "Toyota", "Camry");
+        Vehicle second = new Vehicle(null, client, "А456ЕК199", "Honda", "Civic");
+        vehicleDao.create(first);
+        indexed.rebuildPlateIndex();
+        indexed.createVehicle(second);
+
+        // Действие
+        List<Vehicle> confusable = indexed.findVehiclesByPlate("0123BC77", 0);
+        List<Vehicle> twoErrors = indexed.findVehiclesByPlate("A45EK1990", 2);
+        List<Vehicle> tooFar = indexed.findVehiclesByPlate("A45EK1990", 1);
+
+        // Проверка
+        assertEquals(1, confusable.size(), "Похожие символы должны давать точное совпадение");
+        assertEquals(first.getId(), confusable.get(0).getId());
+        assertEquals(1, twoErrors.size(), "Номер с двумя ошибками должен быть найден");
+        assertEquals(second.getId(), twoErrors.get(0).getId());
+        assertTrue(tooFar.isEmpty(), "Номер с двумя ошибками не должен находиться при одной допустимой");
+    }
+
+    @DisplayName("Перестройка индекса номеров не затирает изменения, сделанные во время чтения")
+    @Test
+    void testRebuildPlateIndexKeepsLiveUpdates() {
+        // Подготовка
+        PlateIndex plateIndex = new PlateIndex();
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        Vehicle vehicle = new Vehicle(null, client, "Е001КХ77", "Toyota", "Camry");
+        vehicleDao.create(vehicle);
+        plateIndex.put(999L, "М999ММ99");
+        VehicleService indexed = VehicleService.builder().plateIndex(plateIndex).build(new VehicleDao(em) {
+            @Override
+            public long forEachPlate(BiConsumer<Long, String> consumer) {
+                // Номер меняется другим потоком после того, как чтение получило старый номер
+                return super.forEachPlate((id, plate) -> {
+                    plateIndex.put(id, "Т777ТТ77");
+                    consumer.accept(id, plate);
+                });
+            }
+        });
+
+        // Действие
+        long indexedCount = indexed.rebuildPlateIndex();
+
+        // Проверка
+        assertEquals(1, indexedCount);
+        assertEquals(1, plateIndex.size(), "Номер удалённого автомобиля должен быть убран");
+        assertTrue(plateIndex.find("Е001КХ77", 0, 10).isEmpty(), "Старый номер не должен затереть новый");
+        assertEquals(vehicle.getId(), plateIndex.find("Т777ТТ77", 0, 10).get(0).vehicleId());
+    }
+
+    @DisplayName("Индекс номеров обновляется при изменении и удалении автомобиля")
+    @Test
+    void testPlateIndexFollowsUpdatesAndDeletes() {
+        // Подготовка
+        VehicleService indexed = VehicleService.builder().plateIndex(new PlateIndex()).build(vehicleDao);
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        Vehicle vehicle = new Vehicle(null, client, "Е001КХ77", "Toyota", "Camry");
+        indexed.createVehicle(vehicle);
+
+        // Действие
+        indexed.updateVehicle(new Vehicle(vehicle.getId(), client, "М777МР50", "Toyota", "Camry"));
+        List<Vehicle> byOldPlate = indexed.findVehiclesByPlate("Е001КХ77", 1);
+        List<Vehicle> byNewPlate = indexed.findVehiclesByPlate("M777MP50", 1);
+        indexed.deleteVehicle(vehicle.getId());
+
+        // Проверка
+        assertTrue(byOldPlate.isEmpty(), "Старый номер должен быть удалён из индекса");
+        assertEquals(1, byNewPlate.size(), "Новый номер должен находиться");
+        assertTrue(indexed.findVehiclesByPlate("M777MP50", 2).isEmpty(), "Удалённый автомобиль не должен находиться");
+    }
+
+    @DisplayName("Кэш владельцев отвечает без запроса к базе и сбрасывается при изменении автомобиля и клиента")
+    @Test
+    void testOwnerCacheIsInvalidatedByVehicleAndClientChanges() {
+        // Подготовка
+        TinyLfuCache<String, VehicleOwner> cache = new TinyLfuCache<>(100, Duration.ofMinutes(5));
+        VehicleService cached = VehicleService.builder().ownerCache(cache).build(vehicleDao);
+        ClientService clientService = new ClientService(clientDao, null, cache);
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        Vehicle vehicle = new Vehicle(null, client, "Е001КХ77", "Toyota", "Camry");
+        cached.createVehicle(vehicle);
+
+        // Действие
+        VehicleOwner first = cached.findOwnerByPlate("Е001КХ77");
+        VehicleOwner fromCache = cached.findOwnerByPlate("Е001КХ77");
+        cached.updateVehicle(new Vehicle(vehicle.getId(), client, "М777МР50", "Toyota", "Camry"));
+        VehicleOwner byOldPlate = cached.findOwnerByPlate("Е001КХ77");
+        cached.findOwnerByPlate("М777МР50");
+        clientService.updateClient(new Client(client.getId(), "Иван Петров", "+79123456789", "ivan@example.com"));
+        VehicleOwner renamed = cached.findOwnerByPlate("М777МР50");
+        cached.deleteVehicle(vehicle.getId());
+
+        // Проверка
+        assertEquals(new VehicleOwner(vehicle.getId(), "Е001КХ77", client.getId(), "Иван Иванов"), first);
+        assertTrue(first == fromCache, "Повторный поиск должен обслуживаться кэшем без запроса к базе");
+        assertNull(byOldPlate, "Старый номер должен быть удалён из кэша при изменении автомобиля");
+        assertEquals("Иван Петров", renamed.clientName(), "Изменение клиента должно сбрасывать его автомобили");
+        assertNull(cached.findOwnerByPlate("М777МР50"), "Удалённый автомобиль не должен находиться");
+        TinyLfuCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(5, stats.misses());
+        assertEquals(1.0 / 6, stats.hitRatio(), 1e-9);
+        assertTrue(stats.averageLoadNanos() > 0, "Время загрузки должно учитываться");
+    }
+
+    @DisplayName("Кэш W-TinyLFU удерживает частые номера при разовом сканировании и соблюдает время жизни")
+    @Test
+    void testTinyLfuKeepsFrequentKeysAndExpiresEntries() {
+        // Подготовка
+        long[] now = {0};
+        TinyLfuCache<String, String> cache = new TinyLfuCache<>(100, Duration.ofSeconds(60), () -> now[0]);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                cache.get("HOT" + i, plate -> plate.toLowerCase());
+            }
+        }
+
+        // Действие
+        for (int i = 0; i < 1000; i++) {
+            cache.get("SCAN" + i, plate -> plate.toLowerCase());
+        }
+        int hotRetained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.getIfPresent("HOT" + i) != null) {
+                hotRetained++;
+            }
+        }
+        now[0] += Duration.ofSeconds(61).toNanos();
+
+        // Проверка
+        assertTrue(hotRetained >= 45, "Разовые ключи не должны вытеснять частые, а удержано " + hotRetained);
+        assertEquals(100, cache.size());
+        assertEquals(950, cache.getStats().evictions());
+        assertNull(cache.getIfPresent("HOT0"), "Запись с истёкшим временем жизни не должна возвращаться");
+        assertEquals("hot0", cache.get("HOT0", plate -> plate.toLowerCase()));
+        assertThrows(IllegalArgumentException.class, () -> new TinyLfuCache<String, String>(0, Duration.ofSeconds(1)));
+    }
+
+    @DisplayName("Фильтр номеров отсекает незарегистрированные номера без запроса к базе и перестраивается по базе")
+    @Test
+    void testPlateFilterSkipsDatabaseForUnknownPlates() {
+        // Подготовка
+        int[] queries = {0};
+        VehicleDao countingDao = new VehicleDao(em) {
+            @Override
+            public Vehicle findByLicensePlate(String licensePlate) {
+                queries[0]++;
+                return super.findByLicensePlate(licensePlate);
+            }
+        };
+        PlateFilter filter = new PlateFilter(1000, 0.01);
+        VehicleService filtered = VehicleService.builder().plateFilter(filter).build(countingDao);
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        filtered.createVehicle(new Vehicle(null, client, "Е001КХ77", "Toyota", "Camry"));
+        vehicleDao.create(new Vehicle(null, client, "М777МР50", "Lada", "Vesta"));
+
+        // Действие
+        int unknownFound = 0;
+        for (int i = 0; i < 500; i++) {
+            if (filtered.findOwnerByPlate("Т" + i + "ТТ99") != null) {
+                unknownFound++;
+            }
+        }
+        int unknownQueries = queries[0];
+        VehicleOwner registered = filtered.findOwnerByPlate("Е001КХ77");
+        boolean bypassedBeforeRebuild = filtered.mightBeRegistered("М777МР50");
+        long rebuilt = filtered.rebuildPlateFilter();
+
+        // Проверка
+        assertEquals(0, unknownFound);
+        assertTrue(unknownQueries <= 20, "Запросы к базе допустимы только при ложноположительных ответах: " + unknownQueries);
+        assertNotNull(registered);
+        assertTrue(filtered.mightBeRegistered("E001KX77"), "Номер латиницей должен совпадать с номером кириллицей");
+        assertFalse(bypassedBeforeRebuild, "Автомобиль, созданный мимо сервиса, попадает в фильтр только при перестройке");
+        assertEquals(2, rebuilt);
+        assertNotNull(filtered.findOwnerByPlate("М777МР50"));
+        assertTrue(filter.getStats().negatives() >= 480);
+    }
+
+    @DisplayName("Фильтр Блума соблюдает заданную долю ложноположительных ответов")
+    @Test
+    void testBloomFilterFalsePositiveRate() {
+        // Подготовка
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("P" + i);
+        }
+
+        // Действие
+        int missing = 0;
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (!filter.mightContain("P" + i)) {
+                missing++;
+            }
+            if (filter.mightContain("Q" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Проверка
+        assertEquals(0, missing, "Добавленные строки всегда должны находиться");
+        assertTrue(falsePositives < 200, "Ложноположительных ответов слишком много: " + falsePositives);
+        assertEquals(0.01, filter.estimateFalsePositiveRate(), 0.005);
+        assertEquals(7, filter.getHashCount());
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.5));
+    }
+
+    @DisplayName("Создание автомобиля по идентификатору клиента без его загрузки")
+    @Test
+    void testCreateVehicleByClientId() {
+        // Подготовка
+        Client client = new Client(null, "Иван Иванов", "+79123456789", "ivan@example.com");
+        clientDao.create(client);
+        em.clear();
+
+        // Действие
+        Vehicle vehicle = vehicleService.createVehicle(client.getId(), "КЛМ321", "Skoda", null);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> vehicleService.createVehicle(client.getId() + 1000, "КЛМ322", null, null));
+
+        // Проверка
+        assertEquals("Клиент с ID " + (client.getId() + 1000) + " не найден", exception.getMessage());
+        em.clear();
+        Vehicle saved = vehicleDao.findById(vehicle.getId());
+        assertEquals("КЛМ321", saved.getLicensePlate(), "Номер должен совпадать");
+        assertEquals("Иван Иванов", saved.getClient().getName(), "Автомобиль должен принадлежать клиенту");
+        assertNull(saved.getModel(), "Модель должна быть пустой");
+        assertEquals(1, vehicleService.getAllVehicles().size(), "Автомобиль без клиента не должен сохраняться");
+    }
 }
\ No newline at end of file